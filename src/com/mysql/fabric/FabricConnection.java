@@ -23,29 +23,88 @@
 
 package com.mysql.fabric;
 
+import java.lang.ref.WeakReference;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
 import com.mysql.fabric.proto.xmlrpc.XmlRpcClient;
 
 public class FabricConnection {
+    // the connections handed out by acquire(), by Fabric node and credentials; only weakly held so that they still go away when their users are never closed
+    private static final Map<String, WeakReference<FabricConnection>> sharedConnections = new HashMap<String, WeakReference<FabricConnection>>();
+
     private XmlRpcClient client;
 
-    // internal caches
-    private Map<String, ShardMapping> shardMappingsByTableName = new HashMap<String, ShardMapping>();
-    private Map<String, ServerGroup> serverGroupsByName = new HashMap<String, ServerGroup>();
-    private long shardMappingsExpiration;
-    private int shardMappingsTtl;
-    private long serverGroupsExpiration;
-    private int serverGroupsTtl;
+    // key in sharedConnections and number of users that didn't release this connection yet, guarded by sharedConnections
+    private String sharedConnectionKey;
+    private int shareCount;
+
+    // internal caches, replaced as a whole on every refresh so lookups never lock nor see a partially updated state
+    private volatile State state = new State();
+
+    // serializes refreshes from the background refresher and the callers of refreshState()
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private FabricStateRefresher refresher;
+
+    // refresh metrics, written while holding refreshLock
+    private volatile long refreshCount;
+    private volatile long refreshFailureCount;
+    private volatile long lastRefreshLatencyMillis;
+    private volatile long maxRefreshLatencyMillis;
+    private volatile long totalRefreshLatencyMillis;
 
     public FabricConnection(String url, String username, String password) throws FabricCommunicationException {
         this.client = new XmlRpcClient(url, username, password);
         refreshState();
     }
 
+    /**
+     * Get the connection to a Fabric node shared by all the users of the same node and credentials, so that the state is cached and refreshed once for all
+     * of them. Each call must be matched by a call to {@link #release()}.
+     * 
+     * @param url
+     * @param username
+     * @param password
+     * @return the shared connection, created and its state fetched on first use
+     * @throws FabricCommunicationException
+     */
+    public static FabricConnection acquire(String url, String username, String password) throws FabricCommunicationException {
+        String key = url + "\u0000" + username + "\u0000" + password;
+
+        synchronized (sharedConnections) {
+            WeakReference<FabricConnection> ref = sharedConnections.get(key);
+            FabricConnection conn = ref == null ? null : ref.get();
+            if (conn == null) {
+                conn = new FabricConnection(url, username, password);
+                conn.sharedConnectionKey = key;
+                sharedConnections.put(key, new WeakReference<FabricConnection>(conn));
+            }
+            conn.shareCount++;
+            return conn;
+        }
+    }
+
+    /**
+     * Release a connection obtained from {@link #acquire(String, String, String)}. Once its last user released it, the background refresh stops and the next
+     * acquire() creates a new connection.
+     */
+    public void release() {
+        synchronized (sharedConnections) {
+            if (--this.shareCount > 0) {
+                return;
+            }
+            WeakReference<FabricConnection> ref = sharedConnections.get(this.sharedConnectionKey);
+            if (ref != null && ref.get() == this) {
+                sharedConnections.remove(this.sharedConnectionKey);
+            }
+        }
+        close();
+    }
+
     /**
      * @param urls
      * @param username
@@ -60,33 +119,44 @@ public class FabricConnection {
         return null;
     }
 
+    /**
+     * @return version of state data, incremented on every successful refresh
+     */
     public int getVersion() {
-        return 0;
+        return this.state.version;
     }
 
     /**
      * @return version of state data
      */
     public int refreshState() throws FabricCommunicationException {
-        FabricStateResponse<Set<ServerGroup>> serverGroups = this.client.getServerGroups();
-        FabricStateResponse<Set<ShardMapping>> shardMappings = this.client.getShardMappings();
+        this.refreshLock.lock();
+        try {
+            long start = System.currentTimeMillis();
+            FabricStateResponse<Set<ServerGroup>> serverGroups;
+            FabricStateResponse<Set<ShardMapping>> shardMappings;
+            try {
+                serverGroups = this.client.getServerGroups();
+                shardMappings = this.client.getShardMappings();
+            } catch (FabricCommunicationException ex) {
+                this.refreshFailureCount++;
+                throw ex;
+            }
+            long latency = System.currentTimeMillis() - start;
 
-        this.serverGroupsExpiration = serverGroups.getExpireTimeMillis();
-        this.serverGroupsTtl = serverGroups.getTtl();
-        for (ServerGroup g : serverGroups.getData()) {
-            this.serverGroupsByName.put(g.getName(), g);
-        }
+            this.state = new State(this.state, serverGroups, shardMappings, start);
 
-        this.shardMappingsExpiration = shardMappings.getExpireTimeMillis();
-        this.shardMappingsTtl = shardMappings.getTtl();
-        for (ShardMapping m : shardMappings.getData()) {
-            // a shard mapping may be associated with more than one table
-            for (ShardTable t : m.getShardTables()) {
-                this.shardMappingsByTableName.put(t.getDatabase() + "." + t.getTable(), m);
+            this.refreshCount++;
+            this.lastRefreshLatencyMillis = latency;
+            this.totalRefreshLatencyMillis += latency;
+            if (latency > this.maxRefreshLatencyMillis) {
+                this.maxRefreshLatencyMillis = latency;
             }
-        }
 
-        return 0;
+            return this.state.version;
+        } finally {
+            this.refreshLock.unlock();
+        }
     }
 
     public int refreshStatePassive() {
@@ -94,29 +164,112 @@ public class FabricConnection {
             return refreshState();
         } catch (FabricCommunicationException e) {
             // Fabric node is down but we can operate on previous setup. Just reset the TTL timers.
-            this.serverGroupsExpiration = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(this.serverGroupsTtl);
-            this.shardMappingsExpiration = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(this.shardMappingsTtl);
+            this.refreshLock.lock();
+            try {
+                this.state = new State(this.state, System.currentTimeMillis());
+            } finally {
+                this.refreshLock.unlock();
+            }
         }
 
-        return 0;
+        return this.state.version;
     }
 
-    public ServerGroup getServerGroup(String serverGroupName) {
+    /**
+     * Refresh the state if its TTL has expired. With background refresh enabled the refresh is only requested from the refresher and the current (stale)
+     * state keeps being used until it completes, otherwise the refresh happens on the calling thread.
+     * 
+     * @return version of state data
+     */
+    public int refreshStateIfExpired() {
         if (isStateExpired()) {
-            refreshStatePassive();
+            FabricStateRefresher r = this.refresher;
+            if (r != null) {
+                r.requestRefresh();
+            } else {
+                refreshStatePassive();
+            }
         }
-        return this.serverGroupsByName.get(serverGroupName);
+        return this.state.version;
     }
 
-    public ShardMapping getShardMapping(String database, String table) {
-        if (isStateExpired()) {
-            refreshStatePassive();
+    /**
+     * Start refreshing the state on a background thread ahead of its expiration. Lookups then never block on Fabric.
+     */
+    public synchronized void startBackgroundRefresh() {
+        if (this.refresher == null) {
+            this.refresher = new FabricStateRefresher(this);
+            this.refresher.scheduleAhead();
         }
-        return this.shardMappingsByTableName.get(database + "." + table);
+    }
+
+    public boolean isBackgroundRefreshEnabled() {
+        return this.refresher != null;
+    }
+
+    /**
+     * Stop the background refresher, if any. The cached state remains usable.
+     */
+    public synchronized void close() {
+        if (this.refresher != null) {
+            this.refresher.stop();
+            this.refresher = null;
+        }
+    }
+
+    /**
+     * @return delay until the next background refresh should start, a fraction of the TTL ahead of the earliest expiration
+     */
+    long getRefreshAheadDelayMillis() {
+        State s = this.state;
+        long now = System.currentTimeMillis();
+        long serverGroupsDelay = s.serverGroupsExpiration - now - TimeUnit.SECONDS.toMillis(s.serverGroupsTtl) / FabricStateRefresher.REFRESH_AHEAD_DIVISOR;
+        long shardMappingsDelay = s.shardMappingsExpiration - now - TimeUnit.SECONDS.toMillis(s.shardMappingsTtl)
+                / FabricStateRefresher.REFRESH_AHEAD_DIVISOR;
+        return Math.max(Math.min(serverGroupsDelay, shardMappingsDelay), FabricStateRefresher.MIN_REFRESH_DELAY_MILLIS);
+    }
+
+    public ServerGroup getServerGroup(String serverGroupName) {
+        refreshStateIfExpired();
+        return this.state.serverGroupsByName.get(serverGroupName);
+    }
+
+    public ShardMapping getShardMapping(String database, String table) {
+        refreshStateIfExpired();
+        return this.state.shardMappingsByTableName.get(database + "." + table);
     }
 
     public boolean isStateExpired() {
-        return System.currentTimeMillis() > this.shardMappingsExpiration || System.currentTimeMillis() > this.serverGroupsExpiration;
+        State s = this.state;
+        return System.currentTimeMillis() > s.shardMappingsExpiration || System.currentTimeMillis() > s.serverGroupsExpiration;
+    }
+
+    /**
+     * @return milliseconds since the state in use was last successfully fetched from Fabric
+     */
+    public long getStateStalenessMillis() {
+        return System.currentTimeMillis() - this.state.fetchTimeMillis;
+    }
+
+    public long getRefreshCount() {
+        return this.refreshCount;
+    }
+
+    public long getRefreshFailureCount() {
+        return this.refreshFailureCount;
+    }
+
+    public long getLastRefreshLatencyMillis() {
+        return this.lastRefreshLatencyMillis;
+    }
+
+    public long getMaxRefreshLatencyMillis() {
+        return this.maxRefreshLatencyMillis;
+    }
+
+    public long getAverageRefreshLatencyMillis() {
+        long count = this.refreshCount;
+        return count == 0 ? 0 : this.totalRefreshLatencyMillis / count;
     }
 
     public Set<String> getFabricHosts() {
@@ -126,4 +279,69 @@ public class FabricConnection {
     public XmlRpcClient getClient() {
         return this.client;
     }
+
+    /**
+     * Immutable snapshot of the server groups and shard mappings returned by Fabric.
+     */
+    private static final class State {
+        final Map<String, ShardMapping> shardMappingsByTableName;
+        final Map<String, ServerGroup> serverGroupsByName;
+        final long shardMappingsExpiration;
+        final int shardMappingsTtl;
+        final long serverGroupsExpiration;
+        final int serverGroupsTtl;
+        final long fetchTimeMillis;
+        final int version;
+
+        State() {
+            this.shardMappingsByTableName = Collections.emptyMap();
+            this.serverGroupsByName = Collections.emptyMap();
+            this.shardMappingsExpiration = 0;
+            this.shardMappingsTtl = 0;
+            this.serverGroupsExpiration = 0;
+            this.serverGroupsTtl = 0;
+            this.fetchTimeMillis = 0;
+            this.version = 0;
+        }
+
+        State(State previous, FabricStateResponse<Set<ServerGroup>> serverGroups, FabricStateResponse<Set<ShardMapping>> shardMappings,
+                long fetchTimeMillis) {
+            // entries missing from the new response are kept, as they were before the state became copy-on-write
+            Map<String, ServerGroup> groups = new HashMap<String, ServerGroup>(previous.serverGroupsByName);
+            for (ServerGroup g : serverGroups.getData()) {
+                groups.put(g.getName(), g);
+            }
+
+            Map<String, ShardMapping> mappings = new HashMap<String, ShardMapping>(previous.shardMappingsByTableName);
+            for (ShardMapping m : shardMappings.getData()) {
+                // a shard mapping may be associated with more than one table
+                for (ShardTable t : m.getShardTables()) {
+                    mappings.put(t.getDatabase() + "." + t.getTable(), m);
+                }
+            }
+
+            this.serverGroupsByName = Collections.unmodifiableMap(groups);
+            this.serverGroupsExpiration = serverGroups.getExpireTimeMillis();
+            this.serverGroupsTtl = serverGroups.getTtl();
+            this.shardMappingsByTableName = Collections.unmodifiableMap(mappings);
+            this.shardMappingsExpiration = shardMappings.getExpireTimeMillis();
+            this.shardMappingsTtl = shardMappings.getTtl();
+            this.fetchTimeMillis = fetchTimeMillis;
+            this.version = previous.version + 1;
+        }
+
+        /**
+         * Same data as <code>previous</code> with the TTL timers reset from <code>now</code>.
+         */
+        State(State previous, long now) {
+            this.shardMappingsByTableName = previous.shardMappingsByTableName;
+            this.serverGroupsByName = previous.serverGroupsByName;
+            this.shardMappingsExpiration = now + TimeUnit.SECONDS.toMillis(previous.shardMappingsTtl);
+            this.shardMappingsTtl = previous.shardMappingsTtl;
+            this.serverGroupsExpiration = now + TimeUnit.SECONDS.toMillis(previous.serverGroupsTtl);
+            this.serverGroupsTtl = previous.serverGroupsTtl;
+            this.fetchTimeMillis = previous.fetchTimeMillis;
+            this.version = previous.version;
+        }
+    }
 }
@@ -0,0 +1,120 @@
+/*
+  Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+
+  The MySQL Connector/J is licensed under the terms of the GPLv2
+  <http://www.gnu.org/licenses/old-licenses/gpl-2.0.html>, like most MySQL Connectors.
+  There are special exceptions to the terms and conditions of the GPLv2 as it is applied to
+  this software, see the FOSS License Exception
+  <http://www.mysql.com/about/legal/licensing/foss-exception.html>.
+
+  This program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU General Public License as published by the Free Software Foundation; version 2
+  of the License.
+
+  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this
+  program; if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth
+  Floor, Boston, MA 02110-1301  USA
+
+ */
+
+package com.mysql.fabric;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the state cached by a {@link FabricConnection} fresh by refreshing it on a background thread shortly before its TTL expires. All refreshers share a
+ * single daemon thread. A refresher only holds a weak reference to its connection and stops on its own once the connection becomes unreachable.
+ */
+class FabricStateRefresher implements Runnable {
+    /** Refreshes are started this fraction of the TTL ahead of expiration. */
+    static final int REFRESH_AHEAD_DIVISOR = 4;
+
+    /** Lower bound on the delay between two refreshes of the same connection. */
+    static final long MIN_REFRESH_DELAY_MILLIS = 100;
+
+    /** Lower bound on the delay before retrying a failed refresh. */
+    static final long MIN_RETRY_DELAY_MILLIS = 1000;
+
+    private static final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "MySQL Fabric State Refresher");
+            t.setDaemon(true);
+            t.setContextClassLoader(FabricStateRefresher.class.getClassLoader());
+            return t;
+        }
+    });
+
+    private final WeakReference<FabricConnection> connection;
+
+    // guarded by this
+    private ScheduledFuture<?> nextRefresh;
+    private boolean stopped = false;
+
+    FabricStateRefresher(FabricConnection connection) {
+        this.connection = new WeakReference<FabricConnection>(connection);
+    }
+
+    /**
+     * Schedules the next refresh ahead of the expiration of the connection's current state.
+     */
+    void scheduleAhead() {
+        FabricConnection conn = this.connection.get();
+        if (conn == null) {
+            stop();
+            return;
+        }
+        schedule(conn.getRefreshAheadDelayMillis());
+    }
+
+    /**
+     * Asks for a refresh as soon as possible, unless one is already due or running.
+     */
+    synchronized void requestRefresh() {
+        if (this.stopped || this.nextRefresh != null && this.nextRefresh.getDelay(TimeUnit.MILLISECONDS) <= 0) {
+            return;
+        }
+        schedule(0);
+    }
+
+    synchronized void stop() {
+        this.stopped = true;
+        if (this.nextRefresh != null) {
+            this.nextRefresh.cancel(false);
+            this.nextRefresh = null;
+        }
+    }
+
+    private synchronized void schedule(long delayMillis) {
+        if (this.stopped) {
+            return;
+        }
+        if (this.nextRefresh != null) {
+            this.nextRefresh.cancel(false);
+        }
+        this.nextRefresh = executor.schedule(this, Math.max(delayMillis, 0), TimeUnit.MILLISECONDS);
+    }
+
+    public void run() {
+        FabricConnection conn = this.connection.get();
+        if (conn == null) {
+            stop();
+            return;
+        }
+        // a failed refresh keeps the previous state and pushes its expiration back by one TTL
+        int version = conn.getVersion();
+        if (conn.refreshStatePassive() != version) {
+            schedule(conn.getRefreshAheadDelayMillis());
+        } else {
+            schedule(Math.max(conn.getRefreshAheadDelayMillis(), MIN_RETRY_DELAY_MILLIS));
+        }
+    }
+}
@@ -23,34 +23,102 @@
 
 package com.mysql.fabric;
 
+import java.util.Arrays;
 import java.util.Comparator;
+import java.util.LinkedHashSet;
 import java.util.Set;
-import java.util.TreeSet;
 
 /**
  * A shard mapping that partitions data by ranges.
+ * 
+ * Keys are integers (up to the range of a long) for {@link ShardingType#RANGE}, date/times in the format "YYYY-MM-DD[ HH:MM:SS[.ffffff]]" for
+ * {@link ShardingType#RANGE_DATETIME} and strings, compared lexicographically, for {@link ShardingType#RANGE_STRING}. The lower bounds are converted once,
+ * when the mapping is created, into a sorted array that lookups binary search.
  */
 public class RangeShardMapping extends ShardMapping {
     /**
-     * A sorter that sorts shard indices from highest to lowest based on the integer
-     * value of their bounds. For a range shard mapping, the bound is a lowest bound.
+     * A shard index along with its bound converted for comparison.
      */
-    private static class RangeShardIndexSorter implements Comparator<ShardIndex> {
-        public int compare(ShardIndex i1, ShardIndex i2) {
-            Integer bound1, bound2;
-            bound1 = Integer.parseInt(i1.getBound());
-            bound2 = Integer.parseInt(i2.getBound());
-            return bound2.compareTo(bound1); // this reverses it
+    private static class Bound {
+        final ShardIndex shardIndex;
+        final long numericBound;
+        final String stringBound;
+
+        Bound(ShardIndex shardIndex, long numericBound, String stringBound) {
+            this.shardIndex = shardIndex;
+            this.numericBound = numericBound;
+            this.stringBound = stringBound;
+        }
+    }
+
+    /**
+     * A sorter that sorts bounds from lowest to highest.
+     */
+    private static class BoundSorter implements Comparator<Bound> {
+        public int compare(Bound b1, Bound b2) {
+            if (b1.stringBound != null) {
+                return b1.stringBound.compareTo(b2.stringBound);
+            }
+            return b1.numericBound < b2.numericBound ? -1 : (b1.numericBound == b2.numericBound ? 0 : 1);
         }
 
         // singleton instance
-        public static final RangeShardIndexSorter instance = new RangeShardIndexSorter();
+        public static final BoundSorter instance = new BoundSorter();
     }
 
+    /** Is this a RANGE_STRING mapping, i.e., are the bounds in stringBounds instead of numericBounds? */
+    private final boolean stringKeys;
+
+    /** Lower bounds, ascending, for RANGE and RANGE_DATETIME mappings */
+    private final long[] numericBounds;
+
+    /** Lower bounds, ascending, for RANGE_STRING mappings */
+    private final String[] stringBounds;
+
+    /** The shard index for each of the lower bounds */
+    private final ShardIndex[] shardIndexForBound;
+
     public RangeShardMapping(int mappingId, ShardingType shardingType, String globalGroupName, Set<ShardTable> shardTables, Set<ShardIndex> shardIndices) {
-        // sort shard indices eagerly so {@link getShardIndexForKey} has them in the necessary order
-        super(mappingId, shardingType, globalGroupName, shardTables, new TreeSet<ShardIndex>(RangeShardIndexSorter.instance));
-        this.shardIndices.addAll(shardIndices);
+        super(mappingId, shardingType, globalGroupName, shardTables, new LinkedHashSet<ShardIndex>());
+
+        this.stringKeys = shardingType == ShardingType.RANGE_STRING;
+
+        Bound[] bounds = new Bound[shardIndices.size()];
+        int numBounds = 0;
+        for (ShardIndex i : shardIndices) {
+            if (this.stringKeys) {
+                bounds[numBounds++] = new Bound(i, 0, i.getBound());
+            } else {
+                bounds[numBounds++] = new Bound(i, parseKey(i.getBound()), null);
+            }
+        }
+        Arrays.sort(bounds, BoundSorter.instance);
+
+        // drop duplicated bounds, only the first one could ever be found
+        int distinct = 0;
+        for (int i = 0; i < numBounds; i++) {
+            if (distinct == 0 || BoundSorter.instance.compare(bounds[distinct - 1], bounds[i]) != 0) {
+                bounds[distinct++] = bounds[i];
+            }
+        }
+
+        this.numericBounds = this.stringKeys ? null : new long[distinct];
+        this.stringBounds = this.stringKeys ? new String[distinct] : null;
+        this.shardIndexForBound = new ShardIndex[distinct];
+
+        for (int i = 0; i < distinct; i++) {
+            if (this.stringKeys) {
+                this.stringBounds[i] = bounds[i].stringBound;
+            } else {
+                this.numericBounds[i] = bounds[i].numericBound;
+            }
+            this.shardIndexForBound[i] = bounds[i].shardIndex;
+        }
+
+        // shard indices are exposed from highest to lowest bound, as they always were
+        for (int i = distinct - 1; i >= 0; i--) {
+            this.shardIndices.add(this.shardIndexForBound[i]);
+        }
     }
 
     /**
@@ -60,14 +128,110 @@ public class RangeShardMapping extends ShardMapping {
      */
     @Override
     protected ShardIndex getShardIndexForKey(String stringKey) {
-        Integer key = -1;
-        key = Integer.parseInt(stringKey);
-        for (ShardIndex i : this.shardIndices) {
-            Integer lowerBound = Integer.valueOf(i.getBound());
-            if (key >= lowerBound) {
-                return i;
+        int pos;
+
+        if (this.stringKeys) {
+            pos = Arrays.binarySearch(this.stringBounds, stringKey);
+        } else {
+            pos = Arrays.binarySearch(this.numericBounds, parseKey(stringKey));
+        }
+
+        if (pos < 0) {
+            // not an exact match, take the closest lower bound, if any
+            pos = -pos - 2;
+
+            if (pos < 0) {
+                return null;
             }
         }
-        return null;
+
+        return this.shardIndexForBound[pos];
+    }
+
+    /**
+     * Converts a RANGE or RANGE_DATETIME key or bound into a long that sorts the same way.
+     */
+    private long parseKey(String key) {
+        if (getShardingType() == ShardingType.RANGE_DATETIME) {
+            return parseDateTime(key);
+        }
+
+        return Long.parseLong(key.trim());
+    }
+
+    /**
+     * Packs a "YYYY-MM-DD[ HH:MM:SS[.ffffff]]" value into a long that orders like the date/time it represents, without going through a Calendar.
+     * 
+     * @param dateTime
+     *            the date/time value
+     * @return year, month, day, hour, minute, second and microseconds packed in 14, 4, 5, 5, 6, 6 and 20 bits respectively
+     */
+    static long parseDateTime(String dateTime) {
+        String s = dateTime.trim();
+        int len = s.length();
+
+        if (len < 10 || s.charAt(4) != '-' || s.charAt(7) != '-') {
+            throw new IllegalArgumentException("Invalid DATETIME shard key '" + dateTime + "'");
+        }
+
+        int year = parseField(s, 0, 4, 0, 9999, dateTime);
+        int month = parseField(s, 5, 7, 1, 12, dateTime);
+        int day = parseField(s, 8, 10, 1, 31, dateTime);
+        int hour = 0;
+        int minute = 0;
+        int second = 0;
+        int micros = 0;
+
+        if (len > 10) {
+            char sep = s.charAt(10);
+            if (len < 19 || (sep != ' ' && sep != 'T') || s.charAt(13) != ':' || s.charAt(16) != ':') {
+                throw new IllegalArgumentException("Invalid DATETIME shard key '" + dateTime + "'");
+            }
+
+            hour = parseField(s, 11, 13, 0, 23, dateTime);
+            minute = parseField(s, 14, 16, 0, 59, dateTime);
+            second = parseField(s, 17, 19, 0, 59, dateTime);
+
+            if (len > 19) {
+                if (s.charAt(19) != '.' || len == 20 || len > 26) {
+                    throw new IllegalArgumentException("Invalid DATETIME shard key '" + dateTime + "'");
+                }
+
+                micros = parseField(s, 20, len, 0, 999999, dateTime);
+                for (int i = len; i < 26; i++) {
+                    micros *= 10;
+                }
+            }
+        }
+
+        long packed = year;
+        packed = (packed << 4) | month;
+        packed = (packed << 5) | day;
+        packed = (packed << 5) | hour;
+        packed = (packed << 6) | minute;
+        packed = (packed << 6) | second;
+        packed = (packed << 20) | micros;
+
+        return packed;
+    }
+
+    private static int parseField(String s, int begin, int end, int min, int max, String dateTime) {
+        int value = 0;
+
+        for (int i = begin; i < end; i++) {
+            char c = s.charAt(i);
+
+            if (c < '0' || c > '9') {
+                throw new IllegalArgumentException("Invalid DATETIME shard key '" + dateTime + "'");
+            }
+
+            value = value * 10 + (c - '0');
+        }
+
+        if (value < min || value > max) {
+            throw new IllegalArgumentException("Invalid DATETIME shard key '" + dateTime + "'");
+        }
+
+        return value;
     }
 }
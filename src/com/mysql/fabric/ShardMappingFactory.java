@@ -34,6 +34,8 @@ public class ShardMappingFactory {
         ShardMapping sm = null;
         switch (shardingType) {
             case RANGE:
+            case RANGE_STRING:
+            case RANGE_DATETIME:
                 sm = new RangeShardMapping(mappingId, shardingType, globalGroupName, shardTables, shardIndices);
                 break;
             case HASH:
@@ -92,6 +92,9 @@ public class FabricMySQLConnectionProxy extends ConnectionPropertiesImpl impleme
 
     protected FabricConnection fabricConnection;
 
+    // version of the Fabric state the current server group was taken from
+    private int fabricStateVersion;
+
     protected boolean closed = false;
 
     protected boolean transactionInProgress = false;
@@ -200,7 +203,9 @@ public class FabricMySQLConnectionProxy extends ConnectionPropertiesImpl impleme
 
         try {
             String url = this.fabricProtocol + "://" + this.host + ":" + this.port;
-            this.fabricConnection = new FabricConnection(url, this.fabricUsername, this.fabricPassword);
+            this.fabricConnection = FabricConnection.acquire(url, this.fabricUsername, this.fabricPassword);
+            this.fabricConnection.startBackgroundRefresh();
+            this.fabricStateVersion = this.fabricConnection.getVersion();
         } catch (FabricCommunicationException ex) {
             throw SQLError.createSQLException("Unable to establish connection to the Fabric server", SQLError.SQL_STATE_CONNECTION_REJECTED, ex,
                     getExceptionInterceptor(), this);
@@ -277,11 +282,12 @@ public class FabricMySQLConnectionProxy extends ConnectionPropertiesImpl impleme
     }
 
     /**
-     * Refresh the client Fabric state cache if the TTL has expired.
+     * Pick up a Fabric state refreshed in the background, or request a refresh if the TTL has expired.
      */
     private void refreshStateIfNecessary() throws SQLException {
-        if (this.fabricConnection.isStateExpired()) {
-            this.fabricConnection.refreshStatePassive();
+        int version = this.fabricConnection.refreshStateIfExpired();
+        if (version != this.fabricStateVersion) {
+            this.fabricStateVersion = version;
             if (this.serverGroup != null) {
                 setCurrentServerGroup(this.serverGroup.getName());
             }
@@ -631,7 +637,10 @@ public class FabricMySQLConnectionProxy extends ConnectionPropertiesImpl impleme
      * open connections to MySQL servers.
      */
     public void close() throws SQLException {
-        this.closed = true;
+        if (!this.closed) {
+            this.closed = true;
+            this.fabricConnection.release();
+        }
         for (Connection c : this.serverConnections.values()) {
             try {
                 c.close();
@@ -54,7 +54,11 @@ public class AuthenticatedXmlRpcMethodCaller implements XmlRpcMethodCaller {
         this.underlyingCaller.clearHeader(name);
     }
 
-    public List<?> call(String methodName, Object args[]) throws FabricCommunicationException {
+    /**
+     * Synchronized as the authorization header set on the underlying caller is shared between the threads using this caller, e.g. for error reporting and
+     * for background state refreshes.
+     */
+    public synchronized List<?> call(String methodName, Object args[]) throws FabricCommunicationException {
         String authenticateHeader;
 
         try {
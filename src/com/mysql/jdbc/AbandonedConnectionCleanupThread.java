@@ -133,6 +133,7 @@ public class AbandonedConnectionCleanupThread implements Runnable {
             return;
         }
         cleanupThreadExcecutorService.shutdownNow();
+        QueryTimeoutManager.shutdown();
     }
 
     /**
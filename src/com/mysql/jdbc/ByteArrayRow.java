@@ -28,6 +28,7 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.io.UnsupportedEncodingException;
+import java.math.BigDecimal;
 import java.sql.Date;
 import java.sql.SQLException;
 import java.sql.Time;
@@ -118,6 +119,50 @@ public class ByteArrayRow extends ResultSetRow {
         return StringUtils.getLong(this.internalRowData[columnIndex]);
     }
 
+    @Override
+    public BigDecimal getBigDecimal(int columnIndex) {
+        byte[] columnValue = this.internalRowData[columnIndex];
+
+        if (columnValue == null) {
+            return null;
+        }
+
+        return StringUtils.getBigDecimal(columnValue, 0, columnValue.length);
+    }
+
+    @Override
+    public double getDouble(int columnIndex) {
+        byte[] columnValue = this.internalRowData[columnIndex];
+
+        if (columnValue == null) {
+            return 0;
+        }
+
+        return StringUtils.getDouble(columnValue, 0, columnValue.length);
+    }
+
+    @Override
+    public float getFloat(int columnIndex) {
+        byte[] columnValue = this.internalRowData[columnIndex];
+
+        if (columnValue == null) {
+            return 0;
+        }
+
+        return StringUtils.getFloat(columnValue, 0, columnValue.length);
+    }
+
+    @Override
+    public boolean getDateTimeFields(int columnIndex, boolean binaryEncoded, int[] fields) {
+        byte[] columnValue = this.internalRowData[columnIndex];
+
+        if (columnValue == null) {
+            return false;
+        }
+
+        return getDateTimeFields(columnIndex, columnValue, 0, columnValue.length, binaryEncoded, fields);
+    }
+
     @Override
     public Timestamp getTimestampFast(int columnIndex, Calendar targetCalendar, TimeZone tz, boolean rollForward, MySQLConnection conn, ResultSetImpl rs)
             throws SQLException {
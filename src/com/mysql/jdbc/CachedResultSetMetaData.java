@@ -26,28 +26,37 @@ package com.mysql.jdbc;
 import java.util.Map;
 
 public class CachedResultSetMetaData {
-    /** Map column names (and all of their permutations) to column indices */
-    Map<String, Integer> columnNameToIndex = null;
+    /** Index of column labels and names (and all of their permutations) to column indices */
+    ColumnIndex columnIndex = null;
 
     /** Cached Field info */
     Field[] fields;
 
-    /** Map of fully-specified column names to column indices */
-    Map<String, Integer> fullColumnNameToIndex = null;
-
     /** Cached ResultSetMetaData */
     java.sql.ResultSetMetaData metadata;
 
+    public ColumnIndex getColumnIndex() {
+        return this.columnIndex;
+    }
+
+    /**
+     * @deprecated use {@link #getColumnIndex()}, this builds a new map on every call
+     */
+    @Deprecated
     public Map<String, Integer> getColumnNameToIndex() {
-        return this.columnNameToIndex;
+        return this.columnIndex == null ? null : this.columnIndex.getLabelMap();
     }
 
     public Field[] getFields() {
         return this.fields;
     }
 
+    /**
+     * @deprecated use {@link #getColumnIndex()}, this builds a new map on every call
+     */
+    @Deprecated
     public Map<String, Integer> getFullColumnNameToIndex() {
-        return this.fullColumnNameToIndex;
+        return this.columnIndex == null ? null : this.columnIndex.getFullNameMap();
     }
 
     public java.sql.ResultSetMetaData getMetadata() {
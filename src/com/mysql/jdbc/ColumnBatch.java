@@ -0,0 +1,330 @@
+/*
+  Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+
+  The MySQL Connector/J is licensed under the terms of the GPLv2
+  <http://www.gnu.org/licenses/old-licenses/gpl-2.0.html>, like most MySQL Connectors.
+  There are special exceptions to the terms and conditions of the GPLv2 as it is applied to
+  this software, see the FOSS License Exception
+  <http://www.mysql.com/about/legal/licensing/foss-exception.html>.
+
+  This program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU General Public License as published by the Free Software Foundation; version 2
+  of the License.
+
+  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this
+  program; if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth
+  Floor, Boston, MA 02110-1301  USA
+
+ */
+
+package com.mysql.jdbc;
+
+/**
+ * Column vectors receiving up to a fixed number of rows of a result set at a time, filled by {@link ResultSetInternalMethods#fetchColumnBatch(ColumnBatch)}
+ * for consumers that process results by column, like columnar file writers, rather than by row.
+ * 
+ * The caller supplies a vector for each column it wants, the others are skipped:
+ * <ul>
+ * <li>a long[] receives the values as getLong() would return them,</li>
+ * <li>a double[] receives the values as getDouble() would return them,</li>
+ * <li>an int[] of offsets and a byte[] receive the values as getBytes() would return them; the value of row i is found between offsets[i] and
+ * offsets[i + 1] of the byte array. The byte array is replaced with a larger one when the values of a batch don't fit, so it should be read back with
+ * getBytesData() after each fetch.</li>
+ * </ul>
+ * NULL values are flagged in a bitmap per column, bit (i % 64) of element (i / 64) being set when the value of row i is NULL, in which case 0 or an empty
+ * value is stored in the vector.
+ * 
+ * The vectors are reused by every fetch, so a batch can be fetched over and over without allocating anything per row.
+ */
+public class ColumnBatch {
+    static final byte NO_VECTOR = 0;
+
+    static final byte LONG_VECTOR = 1;
+
+    static final byte DOUBLE_VECTOR = 2;
+
+    static final byte BYTES_VECTOR = 3;
+
+    private final int capacity;
+
+    private final byte[] vectorTypes;
+
+    private final long[][] longVectors;
+
+    private final double[][] doubleVectors;
+
+    private final int[][] bytesOffsets;
+
+    private final byte[][] bytesData;
+
+    private final long[][] nullBitmaps;
+
+    private int rowCount;
+
+    /**
+     * @param columnCount
+     *            the number of columns of the result sets the batch is going to be filled from
+     * @param capacity
+     *            the maximum number of rows fetched at a time
+     */
+    public ColumnBatch(int columnCount, int capacity) {
+        if (columnCount < 1 || capacity < 1) {
+            throw new IllegalArgumentException("Invalid column count " + columnCount + " or capacity " + capacity);
+        }
+
+        this.capacity = capacity;
+        this.vectorTypes = new byte[columnCount];
+        this.longVectors = new long[columnCount][];
+        this.doubleVectors = new double[columnCount][];
+        this.bytesOffsets = new int[columnCount][];
+        this.bytesData = new byte[columnCount][];
+        this.nullBitmaps = new long[columnCount][];
+    }
+
+    /**
+     * @return the number of columns of the batch
+     */
+    public int getColumnCount() {
+        return this.vectorTypes.length;
+    }
+
+    /**
+     * @return the maximum number of rows fetched at a time
+     */
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    /**
+     * @return the number of rows of the last fetch
+     */
+    public int getRowCount() {
+        return this.rowCount;
+    }
+
+    /**
+     * Fetches the given column with getLong() semantics into the given vector.
+     * 
+     * @param columnIndex
+     *            the first column is 1, the second is 2...
+     * @param values
+     *            a vector of at least getCapacity() elements
+     */
+    public void setLongVector(int columnIndex, long[] values) {
+        checkLength(values.length, this.capacity);
+        clearVector(columnIndex);
+
+        this.vectorTypes[columnIndex - 1] = LONG_VECTOR;
+        this.longVectors[columnIndex - 1] = values;
+    }
+
+    /**
+     * Fetches the given column with getDouble() semantics into the given vector.
+     * 
+     * @param columnIndex
+     *            the first column is 1, the second is 2...
+     * @param values
+     *            a vector of at least getCapacity() elements
+     */
+    public void setDoubleVector(int columnIndex, double[] values) {
+        checkLength(values.length, this.capacity);
+        clearVector(columnIndex);
+
+        this.vectorTypes[columnIndex - 1] = DOUBLE_VECTOR;
+        this.doubleVectors[columnIndex - 1] = values;
+    }
+
+    /**
+     * Fetches the given column with getBytes() semantics into the given vectors.
+     * 
+     * @param columnIndex
+     *            the first column is 1, the second is 2...
+     * @param offsets
+     *            a vector of at least getCapacity() + 1 elements receiving the offsets of the values in the data
+     * @param data
+     *            the initial array receiving the values one after the other
+     */
+    public void setBytesVector(int columnIndex, int[] offsets, byte[] data) {
+        checkLength(offsets.length, this.capacity + 1);
+        clearVector(columnIndex);
+
+        this.vectorTypes[columnIndex - 1] = BYTES_VECTOR;
+        this.bytesOffsets[columnIndex - 1] = offsets;
+        this.bytesData[columnIndex - 1] = data;
+    }
+
+    /**
+     * Sets the bitmap flagging the NULL values of the given column, a bitmap is otherwise created along with the first vector of the column.
+     * 
+     * @param columnIndex
+     *            the first column is 1, the second is 2...
+     * @param nulls
+     *            a bitmap of at least (getCapacity() + 63) / 64 elements
+     */
+    public void setNullBitmap(int columnIndex, long[] nulls) {
+        checkLength(nulls.length, (this.capacity + 63) / 64);
+
+        this.nullBitmaps[columnIndex - 1] = nulls;
+    }
+
+    /**
+     * Stops fetching the given column.
+     * 
+     * @param columnIndex
+     *            the first column is 1, the second is 2...
+     */
+    public void clearVector(int columnIndex) {
+        this.vectorTypes[columnIndex - 1] = NO_VECTOR;
+        this.longVectors[columnIndex - 1] = null;
+        this.doubleVectors[columnIndex - 1] = null;
+        this.bytesOffsets[columnIndex - 1] = null;
+        this.bytesData[columnIndex - 1] = null;
+    }
+
+    /**
+     * @param columnIndex
+     *            the first column is 1, the second is 2...
+     */
+    public long[] getLongVector(int columnIndex) {
+        return this.longVectors[columnIndex - 1];
+    }
+
+    /**
+     * @param columnIndex
+     *            the first column is 1, the second is 2...
+     */
+    public double[] getDoubleVector(int columnIndex) {
+        return this.doubleVectors[columnIndex - 1];
+    }
+
+    /**
+     * @param columnIndex
+     *            the first column is 1, the second is 2...
+     */
+    public int[] getBytesOffsets(int columnIndex) {
+        return this.bytesOffsets[columnIndex - 1];
+    }
+
+    /**
+     * @param columnIndex
+     *            the first column is 1, the second is 2...
+     * @return the array holding the values of the last fetch, which may not be the one given to setBytesVector()
+     */
+    public byte[] getBytesData(int columnIndex) {
+        return this.bytesData[columnIndex - 1];
+    }
+
+    /**
+     * @param columnIndex
+     *            the first column is 1, the second is 2...
+     */
+    public long[] getNullBitmap(int columnIndex) {
+        return this.nullBitmaps[columnIndex - 1];
+    }
+
+    /**
+     * @param columnIndex
+     *            the first column is 1, the second is 2...
+     * @param row
+     *            the row of the last fetch, starting at 0
+     * @return true if the value of the given column was NULL in the given row
+     */
+    public boolean isNull(int columnIndex, int row) {
+        long[] nulls = this.nullBitmaps[columnIndex - 1];
+
+        return nulls != null && (nulls[row >>> 6] & (1L << row)) != 0;
+    }
+
+    private static void checkLength(int length, int minimumLength) {
+        if (length < minimumLength) {
+            throw new IllegalArgumentException("Vector of " + length + " elements, at least " + minimumLength + " needed");
+        }
+    }
+
+    /**
+     * Prepares the vectors for a new fetch.
+     */
+    void reset() {
+        this.rowCount = 0;
+
+        for (int i = 0; i < this.vectorTypes.length; i++) {
+            if (this.vectorTypes[i] != NO_VECTOR) {
+                long[] nulls = this.nullBitmaps[i];
+
+                if (nulls == null) {
+                    this.nullBitmaps[i] = new long[(this.capacity + 63) / 64];
+                } else {
+                    for (int j = 0; j < nulls.length; j++) {
+                        nulls[j] = 0;
+                    }
+                }
+
+                if (this.vectorTypes[i] == BYTES_VECTOR) {
+                    this.bytesOffsets[i][0] = 0;
+                }
+            }
+        }
+    }
+
+    void setRowCount(int rowCount) {
+        this.rowCount = rowCount;
+    }
+
+    /**
+     * @param columnIndexMinusOne
+     *            the first column is 0, the second is 1...
+     */
+    byte getVectorType(int columnIndexMinusOne) {
+        return this.vectorTypes[columnIndexMinusOne];
+    }
+
+    void setNull(int columnIndexMinusOne, int row) {
+        this.nullBitmaps[columnIndexMinusOne][row >>> 6] |= 1L << row;
+
+        switch (this.vectorTypes[columnIndexMinusOne]) {
+            case LONG_VECTOR:
+                this.longVectors[columnIndexMinusOne][row] = 0;
+                break;
+
+            case DOUBLE_VECTOR:
+                this.doubleVectors[columnIndexMinusOne][row] = 0;
+                break;
+
+            case BYTES_VECTOR:
+                int[] offsets = this.bytesOffsets[columnIndexMinusOne];
+                offsets[row + 1] = offsets[row];
+                break;
+
+            default:
+                break;
+        }
+    }
+
+    void setLong(int columnIndexMinusOne, int row, long value) {
+        this.longVectors[columnIndexMinusOne][row] = value;
+    }
+
+    void setDouble(int columnIndexMinusOne, int row, double value) {
+        this.doubleVectors[columnIndexMinusOne][row] = value;
+    }
+
+    void setBytes(int columnIndexMinusOne, int row, byte[] buf, int offset, int length) {
+        int[] offsets = this.bytesOffsets[columnIndexMinusOne];
+        byte[] data = this.bytesData[columnIndexMinusOne];
+        int start = offsets[row];
+        int end = start + length;
+
+        if (end > data.length) {
+            byte[] newData = new byte[Math.max(end, data.length * 2)];
+            System.arraycopy(data, 0, newData, 0, start);
+            this.bytesData[columnIndexMinusOne] = data = newData;
+        }
+
+        System.arraycopy(buf, offset, data, start, length);
+        offsets[row + 1] = end;
+    }
+}
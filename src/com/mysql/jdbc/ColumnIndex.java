@@ -0,0 +1,191 @@
+/*
+  Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+
+  The MySQL Connector/J is licensed under the terms of the GPLv2
+  <http://www.gnu.org/licenses/old-licenses/gpl-2.0.html>, like most MySQL Connectors.
+  There are special exceptions to the terms and conditions of the GPLv2 as it is applied to
+  this software, see the FOSS License Exception
+  <http://www.mysql.com/about/legal/licensing/foss-exception.html>.
+
+  This program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU General Public License as published by the Free Software Foundation; version 2
+  of the License.
+
+  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this
+  program; if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth
+  Floor, Boston, MA 02110-1301  USA
+
+ */
+
+package com.mysql.jdbc;
+
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Case-insensitive lookup of column indices by label, original column name or "table.column" name, built once per set of fields.
+ * 
+ * Each kind of name goes in its own open-addressed table keyed by a case-folded hash, so a lookup hashes the name once and then usually needs a single probe
+ * and one equalsIgnoreCase() per table, without allocating. Instances are immutable and may be shared between result sets with the same fields through
+ * {@link CachedResultSetMetaData}.
+ */
+public final class ColumnIndex {
+    private final NameTable labels;
+    private final NameTable originalNames;
+    private final NameTable fullNames;
+
+    ColumnIndex(Field[] fields) throws SQLException {
+        int numFields = fields.length;
+
+        this.labels = new NameTable(numFields);
+        this.originalNames = new NameTable(numFields);
+        this.fullNames = new NameTable(numFields);
+
+        // Quoting the JDBC Spec:
+        //
+        // "Column names used as input to getter methods are case insensitive. When a getter method is called with a column name and several columns have the
+        // same name, the value of the first matching column will be returned. "
+        //
+        // so the tables keep the first index added for any given name.
+        for (int i = 0; i < numFields; i++) {
+            this.labels.add(fields[i].getName(), i);
+            this.originalNames.add(fields[i].getOriginalName(), i);
+            this.fullNames.add(fields[i].getFullName(), i);
+        }
+    }
+
+    /**
+     * Finds the column matching the given name, trying labels first, then original column names (if enabled), then fully qualified names.
+     * 
+     * @param name
+     *            the column name, in any case
+     * @param useColumnNames
+     *            should original column names be searched, see the "useColumnNamesInFindColumn" property
+     * @return the 0-based index of the first matching column, or -1 if there isn't one
+     */
+    public int indexOf(String name, boolean useColumnNames) {
+        if (name == null) {
+            return -1;
+        }
+
+        int hash = caseInsensitiveHash(name);
+
+        int index = this.labels.get(name, hash);
+
+        if (index == -1 && useColumnNames) {
+            index = this.originalNames.get(name, hash);
+        }
+
+        if (index == -1) {
+            index = this.fullNames.get(name, hash);
+        }
+
+        return index;
+    }
+
+    Map<String, Integer> getLabelMap() {
+        return this.labels.toMap();
+    }
+
+    Map<String, Integer> getFullNameMap() {
+        return this.fullNames.toMap();
+    }
+
+    /**
+     * Hash consistent with String.equalsIgnoreCase(), which considers two characters equal when their upper case, or the lower case of their upper case,
+     * are the same.
+     */
+    static int caseInsensitiveHash(String s) {
+        int h = 0;
+
+        for (int i = 0, len = s.length(); i < len; i++) {
+            char c = s.charAt(i);
+
+            if (c < 0x80) {
+                if (c >= 'A' && c <= 'Z') {
+                    c += 'a' - 'A';
+                }
+            } else {
+                c = Character.toLowerCase(Character.toUpperCase(c));
+            }
+
+            h = 31 * h + c;
+        }
+
+        // spread the high bits, the table index is taken from the low ones
+        return h ^ (h >>> 16);
+    }
+
+    private static final class NameTable {
+        private final String[] names;
+        private final int[] hashes;
+        private final int[] indices;
+        private final int mask;
+
+        NameTable(int expectedSize) {
+            // keep the load factor at or under 0.5 so probe sequences stay short
+            int capacity = 2;
+            while (capacity < expectedSize * 2) {
+                capacity <<= 1;
+            }
+
+            this.names = new String[capacity];
+            this.hashes = new int[capacity];
+            this.indices = new int[capacity];
+            this.mask = capacity - 1;
+        }
+
+        void add(String name, int index) {
+            if (name == null) {
+                return;
+            }
+
+            int hash = caseInsensitiveHash(name);
+            int slot = hash & this.mask;
+
+            while (this.names[slot] != null) {
+                if (this.hashes[slot] == hash && this.names[slot].equalsIgnoreCase(name)) {
+                    return;
+                }
+
+                slot = (slot + 1) & this.mask;
+            }
+
+            this.names[slot] = name;
+            this.hashes[slot] = hash;
+            this.indices[slot] = index;
+        }
+
+        int get(String name, int hash) {
+            int slot = hash & this.mask;
+            String candidate;
+
+            while ((candidate = this.names[slot]) != null) {
+                if (this.hashes[slot] == hash && candidate.equalsIgnoreCase(name)) {
+                    return this.indices[slot];
+                }
+
+                slot = (slot + 1) & this.mask;
+            }
+
+            return -1;
+        }
+
+        Map<String, Integer> toMap() {
+            Map<String, Integer> map = new TreeMap<String, Integer>(String.CASE_INSENSITIVE_ORDER);
+
+            for (int i = 0; i < this.names.length; i++) {
+                if (this.names[i] != null) {
+                    map.put(this.names[i], Integer.valueOf(this.indices[i]));
+                }
+            }
+
+            return map;
+        }
+    }
+}
@@ -35,11 +35,23 @@ import com.mysql.jdbc.log.NullLogger;
 
 /**
  * Used to de-compress packets from the MySQL server when protocol-level compression is turned on.
+ * 
+ * Frames are inflated into a reusable window, or straight into the caller's array when it can take the whole frame, so reading a large result set does not
+ * allocate new arrays for every compressed frame.
  */
 class CompressedInputStream extends InputStream {
+    /** Don't hold on to windows bigger than this once they are drained */
+    private static final int MAX_RETAINED_WINDOW_SIZE = 1024 * 1024;
+
     /** The packet data after it has been un-compressed */
     private byte[] buffer;
 
+    /** Where the un-compressed data in the buffer ends */
+    private int limit = 0;
+
+    /** The compressed frame data, reused across frames */
+    private byte[] compressedBuffer;
+
     /** The stream we are reading from the server */
     private InputStream in;
 
@@ -88,7 +100,7 @@ class CompressedInputStream extends InputStream {
             return this.in.available();
         }
 
-        return this.buffer.length - this.pos + this.in.available();
+        return this.limit - this.pos + this.in.available();
     }
 
     /**
@@ -98,6 +110,7 @@ class CompressedInputStream extends InputStream {
     public void close() throws IOException {
         this.in.close();
         this.buffer = null;
+        this.compressedBuffer = null;
         this.inflater.end();
         this.inflater = null;
         this.traceProtocol = null;
@@ -105,26 +118,37 @@ class CompressedInputStream extends InputStream {
     }
 
     /**
-     * Retrieves and un-compressed (if necessary) the next packet from the
-     * server.
+     * Retrieves and un-compresses (if necessary) the next non-empty packet from the server. The data goes directly into <code>b</code> if it fits in
+     * <code>len</code> bytes, otherwise into the window, which must be fully consumed at this point.
+     * 
+     * @param b
+     *            the caller's buffer, or null to always use the window
+     * @param off
+     *            where to start writing into <code>b</code>
+     * @param len
+     *            the room left in <code>b</code>
+     * @return the number of bytes written into <code>b</code>, or 0 if the packet went into the window
      * 
      * @throws IOException
      *             if an I/O error occurs
      */
-    private void getNextPacketFromServer() throws IOException {
-        byte[] uncompressedData = null;
+    private int getNextPacketFromServer(byte[] b, int off, int len) throws IOException {
+        int compressedPacketLength;
+        int uncompressedLength;
 
-        int lengthRead = readFully(this.packetHeaderBuffer, 0, 7);
+        do {
+            int lengthRead = readFully(this.packetHeaderBuffer, 0, 7);
 
-        if (lengthRead < 7) {
-            throw new IOException("Unexpected end of input stream");
-        }
+            if (lengthRead < 7) {
+                throw new IOException("Unexpected end of input stream");
+            }
 
-        int compressedPacketLength = ((this.packetHeaderBuffer[0] & 0xff)) + (((this.packetHeaderBuffer[1] & 0xff)) << 8)
-                + (((this.packetHeaderBuffer[2] & 0xff)) << 16);
+            compressedPacketLength = ((this.packetHeaderBuffer[0] & 0xff)) + (((this.packetHeaderBuffer[1] & 0xff)) << 8)
+                    + (((this.packetHeaderBuffer[2] & 0xff)) << 16);
 
-        int uncompressedLength = ((this.packetHeaderBuffer[4] & 0xff)) + (((this.packetHeaderBuffer[5] & 0xff)) << 8)
-                + (((this.packetHeaderBuffer[6] & 0xff)) << 16);
+            uncompressedLength = ((this.packetHeaderBuffer[4] & 0xff)) + (((this.packetHeaderBuffer[5] & 0xff)) << 8)
+                    + (((this.packetHeaderBuffer[6] & 0xff)) << 16);
+        } while (compressedPacketLength == 0);
 
         boolean doTrace = this.traceProtocol.getValueAsBoolean();
 
@@ -132,82 +156,89 @@ class CompressedInputStream extends InputStream {
             this.log.logTrace("Reading compressed packet of length " + compressedPacketLength + " uncompressed to " + uncompressedLength);
         }
 
-        if (uncompressedLength > 0) {
-            uncompressedData = new byte[uncompressedLength];
+        boolean isCompressed = uncompressedLength > 0;
 
-            byte[] compressedBuffer = new byte[compressedPacketLength];
+        if (!isCompressed) {
+            // Note this this code is reached when using compressed packets that have not been compressed
+            uncompressedLength = compressedPacketLength;
+        }
 
-            readFully(compressedBuffer, 0, compressedPacketLength);
+        byte[] dest;
+        int destOffset;
 
-            this.inflater.reset();
+        if (b != null && uncompressedLength <= len) {
+            dest = b;
+            destOffset = off;
+        } else {
+            if (this.buffer == null || this.buffer.length < uncompressedLength
+                    || (this.buffer.length > MAX_RETAINED_WINDOW_SIZE && uncompressedLength <= MAX_RETAINED_WINDOW_SIZE)) {
+                this.buffer = new byte[Math.max(uncompressedLength, 1024)];
+            }
 
-            this.inflater.setInput(compressedBuffer);
+            dest = this.buffer;
+            destOffset = 0;
+        }
+
+        if (isCompressed) {
+            if (this.compressedBuffer == null || this.compressedBuffer.length < compressedPacketLength) {
+                this.compressedBuffer = new byte[compressedPacketLength];
+            }
+
+            readFully(this.compressedBuffer, 0, compressedPacketLength);
+
+            this.inflater.reset();
+            this.inflater.setInput(this.compressedBuffer, 0, compressedPacketLength);
 
             try {
-                this.inflater.inflate(uncompressedData);
+                int inflated = 0;
+
+                while (inflated < uncompressedLength) {
+                    int count = this.inflater.inflate(dest, destOffset + inflated, uncompressedLength - inflated);
+
+                    if (count == 0 && (this.inflater.finished() || this.inflater.needsInput() || this.inflater.needsDictionary())) {
+                        throw new IOException("Error while uncompressing packet from server.");
+                    }
+
+                    inflated += count;
+                }
             } catch (DataFormatException dfe) {
                 throw new IOException("Error while uncompressing packet from server.");
             }
 
+            if (this.compressedBuffer.length > MAX_RETAINED_WINDOW_SIZE) {
+                this.compressedBuffer = null;
+            }
         } else {
             if (doTrace) {
                 this.log.logTrace("Packet didn't meet compression threshold, not uncompressing...");
             }
 
-            //	
-            // Read data, note this this code is reached when using compressed packets that have not been compressed, as well
-            //
-            uncompressedLength = compressedPacketLength;
-            uncompressedData = new byte[uncompressedLength];
-            readFully(uncompressedData, 0, uncompressedLength);
+            readFully(dest, destOffset, uncompressedLength);
         }
 
         if (doTrace) {
             if (uncompressedLength > 1024) {
-                this.log.logTrace("Uncompressed packet: \n" + StringUtils.dumpAsHex(uncompressedData, 256));
                 byte[] tempData = new byte[256];
-                System.arraycopy(uncompressedData, uncompressedLength - 256, tempData, 0, 256);
+                System.arraycopy(dest, destOffset, tempData, 0, 256);
+                this.log.logTrace("Uncompressed packet: \n" + StringUtils.dumpAsHex(tempData, 256));
+                System.arraycopy(dest, destOffset + uncompressedLength - 256, tempData, 0, 256);
                 this.log.logTrace("Uncompressed packet: \n" + StringUtils.dumpAsHex(tempData, 256));
                 this.log.logTrace("Large packet dump truncated. Showing first and last 256 bytes.");
             } else {
-                this.log.logTrace("Uncompressed packet: \n" + StringUtils.dumpAsHex(uncompressedData, uncompressedLength));
+                byte[] tempData = new byte[uncompressedLength];
+                System.arraycopy(dest, destOffset, tempData, 0, uncompressedLength);
+                this.log.logTrace("Uncompressed packet: \n" + StringUtils.dumpAsHex(tempData, uncompressedLength));
             }
         }
 
-        if ((this.buffer != null) && (this.pos < this.buffer.length)) {
-            if (doTrace) {
-                this.log.logTrace("Combining remaining packet with new: ");
-            }
-
-            int remaining = this.buffer.length - this.pos;
-            byte[] newBuffer = new byte[remaining + uncompressedData.length];
-
-            System.arraycopy(this.buffer, this.pos, newBuffer, 0, remaining);
-            System.arraycopy(uncompressedData, 0, newBuffer, remaining, uncompressedData.length);
-
-            uncompressedData = newBuffer;
+        if (dest == b) {
+            return uncompressedLength;
         }
 
         this.pos = 0;
-        this.buffer = uncompressedData;
+        this.limit = uncompressedLength;
 
-        return;
-    }
-
-    /**
-     * Determines if another packet needs to be read from the server to be able
-     * to read numBytes from the stream.
-     * 
-     * @param numBytes
-     *            the number of bytes to be read
-     * 
-     * @throws IOException
-     *             if an I/O error occors.
-     */
-    private void getNextPacketIfRequired(int numBytes) throws IOException {
-        if ((this.buffer == null) || ((this.pos + numBytes) > this.buffer.length)) {
-            getNextPacketFromServer();
-        }
+        return 0;
     }
 
     /**
@@ -215,10 +246,12 @@ class CompressedInputStream extends InputStream {
      */
     @Override
     public int read() throws IOException {
-        try {
-            getNextPacketIfRequired(1);
-        } catch (IOException ioEx) {
-            return -1;
+        if (this.pos >= this.limit) {
+            try {
+                getNextPacketFromServer(null, 0, 0);
+            } catch (IOException ioEx) {
+                return -1;
+            }
         }
 
         return this.buffer[this.pos++] & 0xff;
@@ -247,14 +280,20 @@ class CompressedInputStream extends InputStream {
             return 0;
         }
 
-        try {
-            getNextPacketIfRequired(len);
-        } catch (IOException ioEx) {
-            return -1;
+        if (this.pos >= this.limit) {
+            // Nothing left from the previous packet, so either the next one goes straight to the caller or it refills the window
+            try {
+                int directlyRead = getNextPacketFromServer(b, off, len);
+
+                if (directlyRead > 0) {
+                    return directlyRead;
+                }
+            } catch (IOException ioEx) {
+                return -1;
+            }
         }
 
-        int remainingBufferLength = this.buffer.length - this.pos;
-        int consummedBytesLength = Math.min(remainingBufferLength, len);
+        int consummedBytesLength = Math.min(this.limit - this.pos, len);
 
         System.arraycopy(this.buffer, this.pos, b, off, consummedBytesLength);
         this.pos += consummedBytesLength;
@@ -289,14 +328,18 @@ class CompressedInputStream extends InputStream {
     public long skip(long n) throws IOException {
         long count = 0;
 
-        for (long i = 0; i < n; i++) {
-            int bytesRead = read();
-
-            if (bytesRead == -1) {
-                break;
+        while (count < n) {
+            if (this.pos >= this.limit) {
+                try {
+                    getNextPacketFromServer(null, 0, 0);
+                } catch (IOException ioEx) {
+                    break;
+                }
             }
 
-            count++;
+            int skipped = (int) Math.min(this.limit - this.pos, n - count);
+            this.pos += skipped;
+            count += skipped;
         }
 
         return count;
@@ -361,6 +361,10 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
         return sqlExceptionWithNewMessage;
     }
 
+    /**
+     * Statements no longer schedule their query timeouts here, they use the driver-wide timer in {@link QueryTimeoutManager}. This timer is still created on
+     * demand for any other caller.
+     */
     public Timer getCancelTimer() {
         synchronized (getConnectionMutex()) {
             if (this.cancelTimer == null) {
@@ -577,6 +581,12 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
     /** Are we in read-only mode? */
     private boolean readOnly = false;
 
+    /** The sql_mode set by setupServerForTruncationChecks(), if any */
+    private String sqlModeForTruncationChecks = null;
+
+    /** Session assignments held back while bootstrapping with "useFastBootstrap", sent together in a single SET */
+    private List<String> deferredSessionAssignments = null;
+
     /** Cache of ResultSet metadata */
     protected LRUCache<String, CachedResultSetMetaData> resultSetMetadataCache;
 
@@ -1144,6 +1154,8 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
 
             setSessionVariables();
 
+            trackSessionState();
+
             setupServerForTruncationChecks();
         }
     }
@@ -1270,6 +1282,172 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
         }
     }
 
+    /**
+     * Makes the server report the session variables mirrored by the driver when session state tracking was negotiated, and has it report their current
+     * values by assigning them to themselves in the same statement.
+     * 
+     * @throws SQLException
+     */
+    private void trackSessionState() throws SQLException {
+        List<String> assignments = new ArrayList<String>();
+
+        addSessionTrackingAssignments(assignments);
+
+        setSessionAssignments(assignments);
+    }
+
+    /**
+     * Adds the assignments of {@link #trackSessionState()} to the given list, if session state tracking was negotiated.
+     * 
+     * @param assignments
+     *            the assignments of a SET statement
+     * @throws SQLException
+     */
+    private void addSessionTrackingAssignments(List<String> assignments) throws SQLException {
+        if (this.io.getSessionStateTracker() == null) {
+            return;
+        }
+
+        String[] mirroredVariables = new String[] { getTxIsolationVariableName(), getTxReadOnlyVariableName(), "sql_select_limit" };
+
+        String trackedVariables = this.serverVariables.get("session_track_system_variables");
+        StringBuilder trackedList = new StringBuilder(trackedVariables == null ? "" : trackedVariables.trim());
+        boolean trackedListChanged = false;
+
+        if (!"*".equals(trackedList.toString())) {
+            List<String> alreadyTracked = StringUtils.split(trackedList.toString().toLowerCase(Locale.ENGLISH), ",", true);
+
+            for (String variable : mirroredVariables) {
+                if (!alreadyTracked.contains(variable)) {
+                    if (trackedList.length() > 0) {
+                        trackedList.append(",");
+                    }
+                    trackedList.append(variable);
+                    trackedListChanged = true;
+                }
+            }
+        }
+
+        if (trackedListChanged) {
+            assignments.add("SESSION session_track_system_variables='" + trackedList + "'");
+        }
+
+        for (String variable : mirroredVariables) {
+            assignments.add("SESSION " + variable + "=@@session." + variable);
+        }
+    }
+
+    /**
+     * Sends the given assignments in a single SET statement.
+     * 
+     * @param assignments
+     *            the assignments, nothing being sent if empty
+     * @throws SQLException
+     */
+    private void setSessionAssignments(List<String> assignments) throws SQLException {
+        if (assignments.isEmpty()) {
+            return;
+        }
+
+        if (this.deferredSessionAssignments != null) {
+            this.deferredSessionAssignments.addAll(assignments);
+            return;
+        }
+
+        execSQL(null, buildSetStatement(assignments), -1, null, DEFAULT_RESULT_SET_TYPE, DEFAULT_RESULT_SET_CONCURRENCY, false, this.database, null, false);
+    }
+
+    /**
+     * Sends a SET statement with the given assignment, or holds it back until {@link #flushDeferredSessionAssignments()} while bootstrapping with
+     * "useFastBootstrap".
+     * 
+     * @param assignment
+     *            the assignment, without the SET keyword
+     * @throws SQLException
+     */
+    private void execSessionAssignment(String assignment) throws SQLException {
+        setSessionAssignments(Collections.singletonList(assignment));
+    }
+
+    /**
+     * Sends the session assignments held back so far while bootstrapping in a single SET statement.
+     * 
+     * @throws SQLException
+     */
+    private void flushDeferredSessionAssignments() throws SQLException {
+        if (this.deferredSessionAssignments != null && !this.deferredSessionAssignments.isEmpty()) {
+            String query = buildSetStatement(this.deferredSessionAssignments);
+            this.deferredSessionAssignments.clear();
+
+            try {
+                execSQL(null, query, -1, null, DEFAULT_RESULT_SET_TYPE, DEFAULT_RESULT_SET_CONCURRENCY, false, this.database, null, false);
+            } catch (SQLException ex) {
+                if (ex.getErrorCode() != MysqlErrorNumbers.ER_MUST_CHANGE_PASSWORD || getDisconnectOnExpiredPasswords()) {
+                    throw ex;
+                }
+            }
+        }
+    }
+
+    private static String buildSetStatement(List<String> assignments) {
+        StringBuilder query = new StringBuilder("SET ");
+
+        for (int i = 0; i < assignments.size(); i++) {
+            if (i > 0) {
+                query.append(", ");
+            }
+            query.append(assignments.get(i));
+        }
+
+        return query.toString();
+    }
+
+    private String getTxIsolationVariableName() throws SQLException {
+        return versionMeetsMinimum(4, 0, 3) && !versionMeetsMinimum(8, 0, 3) ? "tx_isolation" : "transaction_isolation";
+    }
+
+    private String getTxReadOnlyVariableName() throws SQLException {
+        return versionMeetsMinimum(8, 0, 3) ? "transaction_read_only" : "tx_read_only";
+    }
+
+    /**
+     * Returns the value of a session variable as last reported by the server.
+     * 
+     * @param name
+     *            the name of the variable
+     * @return the value, or null if session state isn't tracked or the variable was never reported
+     */
+    private String getTrackedSessionVariable(String name) {
+        SessionStateTracker tracker = getSessionStateTracker();
+
+        return tracker == null ? null : tracker.getSystemVariable(name);
+    }
+
+    private SessionStateTracker getSessionStateTracker() {
+        return this.io == null ? null : this.io.getSessionStateTracker();
+    }
+
+    private Integer getTrackedTransactionIsolation() throws SQLException {
+        // the variable name depends on the server version, which can't be checked once the connection is closed
+        if (getSessionStateTracker() == null) {
+            return null;
+        }
+
+        String trackedIsolation = getTrackedSessionVariable(getTxIsolationVariableName());
+
+        return trackedIsolation == null ? null : mapTransIsolationNameToValue.get(trackedIsolation);
+    }
+
+    private Boolean getTrackedReadOnly() throws SQLException {
+        if (getSessionStateTracker() == null) {
+            return null;
+        }
+
+        String trackedReadOnly = getTrackedSessionVariable(getTxReadOnlyVariableName());
+
+        return trackedReadOnly == null ? null : Boolean.valueOf("ON".equalsIgnoreCase(trackedReadOnly) || "1".equals(trackedReadOnly));
+    }
+
     /**
      * Set transaction isolation level to the value received from server if any.
      * Is called by connectionInit(...)
@@ -1277,8 +1455,7 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
      * @throws SQLException
      */
     private void checkTransactionIsolationLevel() throws SQLException {
-        String txIsolationName = versionMeetsMinimum(4, 0, 3) && !versionMeetsMinimum(8, 0, 3) ? "tx_isolation" : "transaction_isolation";
-        String s = this.serverVariables.get(txIsolationName);
+        String s = this.serverVariables.get(getTxIsolationVariableName());
 
         if (s != null) {
             Integer intTI = mapTransIsolationNameToValue.get(s);
@@ -1697,14 +1874,12 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
 
                             if (!getUseOldUTF8Behavior()) {
                                 if (dontCheckServerMatch || !characterSetNamesMatches("utf8") || (utf8mb4Supported && !characterSetNamesMatches("utf8mb4"))) {
-                                    execSQL(null, "SET NAMES " + (useutf8mb4 ? "utf8mb4" : "utf8"), -1, null, DEFAULT_RESULT_SET_TYPE,
-                                            DEFAULT_RESULT_SET_CONCURRENCY, false, this.database, null, false);
+                                    execSessionAssignment("NAMES " + (useutf8mb4 ? "utf8mb4" : "utf8"));
                                     this.serverVariables.put("character_set_client", useutf8mb4 ? "utf8mb4" : "utf8");
                                     this.serverVariables.put("character_set_connection", useutf8mb4 ? "utf8mb4" : "utf8");
                                 }
                             } else {
-                                execSQL(null, "SET NAMES latin1", -1, null, DEFAULT_RESULT_SET_TYPE, DEFAULT_RESULT_SET_CONCURRENCY, false, this.database, null,
-                                        false);
+                                execSessionAssignment("NAMES latin1");
                                 this.serverVariables.put("character_set_client", "latin1");
                                 this.serverVariables.put("character_set_connection", "latin1");
                             }
@@ -1725,8 +1900,7 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
                             if (mysqlCharsetName != null) {
 
                                 if (dontCheckServerMatch || !characterSetNamesMatches(mysqlCharsetName)) {
-                                    execSQL(null, "SET NAMES " + mysqlCharsetName, -1, null, DEFAULT_RESULT_SET_TYPE, DEFAULT_RESULT_SET_CONCURRENCY, false,
-                                            this.database, null, false);
+                                    execSessionAssignment("NAMES " + mysqlCharsetName);
                                     this.serverVariables.put("character_set_client", mysqlCharsetName);
                                     this.serverVariables.put("character_set_connection", mysqlCharsetName);
                                 }
@@ -1756,8 +1930,7 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
 
                         if (dontCheckServerMatch || !characterSetNamesMatches(mysqlCharsetName) || ucs2) {
                             try {
-                                execSQL(null, "SET NAMES " + mysqlCharsetName, -1, null, DEFAULT_RESULT_SET_TYPE, DEFAULT_RESULT_SET_CONCURRENCY, false,
-                                        this.database, null, false);
+                                execSessionAssignment("NAMES " + mysqlCharsetName);
                                 this.serverVariables.put("character_set_client", mysqlCharsetName);
                                 this.serverVariables.put("character_set_connection", mysqlCharsetName);
                             } catch (SQLException ex) {
@@ -1793,8 +1966,7 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
                     //
                     if (!isNullOnServer) {
                         try {
-                            execSQL(null, "SET character_set_results = NULL", -1, null, DEFAULT_RESULT_SET_TYPE, DEFAULT_RESULT_SET_CONCURRENCY, false,
-                                    this.database, null, false);
+                            execSessionAssignment("character_set_results = NULL");
                         } catch (SQLException ex) {
                             if (ex.getErrorCode() != MysqlErrorNumbers.ER_MUST_CHANGE_PASSWORD || getDisconnectOnExpiredPasswords()) {
                                 throw ex;
@@ -1808,8 +1980,7 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
 
                     if (getUseOldUTF8Behavior()) {
                         try {
-                            execSQL(null, "SET NAMES latin1", -1, null, DEFAULT_RESULT_SET_TYPE, DEFAULT_RESULT_SET_CONCURRENCY, false, this.database, null,
-                                    false);
+                            execSessionAssignment("NAMES latin1");
                             this.serverVariables.put("character_set_client", "latin1");
                             this.serverVariables.put("character_set_connection", "latin1");
                         } catch (SQLException ex) {
@@ -1839,12 +2010,8 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
                     }
 
                     if (!mysqlEncodingName.equalsIgnoreCase(this.serverVariables.get("character_set_results"))) {
-                        StringBuilder setBuf = new StringBuilder("SET character_set_results = ".length() + mysqlEncodingName.length());
-                        setBuf.append("SET character_set_results = ").append(mysqlEncodingName);
-
                         try {
-                            execSQL(null, setBuf.toString(), -1, null, DEFAULT_RESULT_SET_TYPE, DEFAULT_RESULT_SET_CONCURRENCY, false, this.database, null,
-                                    false);
+                            execSessionAssignment("character_set_results = " + mysqlEncodingName);
                         } catch (SQLException ex) {
                             if (ex.getErrorCode() != MysqlErrorNumbers.ER_MUST_CHANGE_PASSWORD || getDisconnectOnExpiredPasswords()) {
                                 throw ex;
@@ -1864,11 +2031,8 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
                 }
 
                 if (getConnectionCollation() != null) {
-                    StringBuilder setBuf = new StringBuilder("SET collation_connection = ".length() + getConnectionCollation().length());
-                    setBuf.append("SET collation_connection = ").append(getConnectionCollation());
-
                     try {
-                        execSQL(null, setBuf.toString(), -1, null, DEFAULT_RESULT_SET_TYPE, DEFAULT_RESULT_SET_CONCURRENCY, false, this.database, null, false);
+                        execSessionAssignment("collation_connection = " + getConnectionCollation());
                     } catch (SQLException ex) {
                         if (ex.getErrorCode() != MysqlErrorNumbers.ER_MUST_CHANGE_PASSWORD || getDisconnectOnExpiredPasswords()) {
                             throw ex;
@@ -2986,6 +3150,12 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
     public int getTransactionIsolation() throws SQLException {
 
         synchronized (getConnectionMutex()) {
+            Integer trackedLevel = getTrackedTransactionIsolation();
+
+            if (trackedLevel != null) {
+                return trackedLevel.intValue();
+            }
+
             if (this.hasIsolationLevels && !getUseLocalSessionState()) {
                 java.sql.Statement stmt = null;
                 java.sql.ResultSet rs = null;
@@ -3197,7 +3367,14 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
                     getExceptionInterceptor());
         }
 
-        setSessionVariables();
+        if (getUseFastBootstrap() && versionMeetsMinimum(5, 1, 0)) {
+            // the session setup is collected and sent in a single SET at the end, or along with the server variables query
+            this.deferredSessionAssignments = new ArrayList<String>();
+            addSessionVariablesAssignments(this.deferredSessionAssignments);
+        } else {
+            this.deferredSessionAssignments = null;
+            setSessionVariables();
+        }
 
         //
         // the "boolean" type didn't come along until MySQL-4.1
@@ -3296,6 +3473,8 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
 
             checkTransactionIsolationLevel();
 
+            trackSessionState();
+
             if (!versionMeetsMinimum(4, 1, 0)) {
                 checkServerEncoding();
             }
@@ -3392,6 +3571,9 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
         //
 
         setupServerForTruncationChecks();
+
+        flushDeferredSessionAssignments();
+        this.deferredSessionAssignments = null;
     }
 
     public boolean isQueryCacheEnabled() {
@@ -3424,6 +3606,9 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
                 java.sql.Statement stmt = null;
 
                 try {
+                    // the session variables may change auto-commit too
+                    flushDeferredSessionAssignments();
+
                     stmt = getMetadataSafeStatement();
                     rs = stmt.executeQuery("SELECT @@session.autocommit");
                     if (rs.next()) {
@@ -3535,6 +3720,15 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
      *                if a database access error occurs
      */
     public boolean isReadOnly(boolean useSessionStatus) throws SQLException {
+        if (useSessionStatus && !this.isClosed && versionMeetsMinimum(5, 6, 5) && getReadOnlyPropagatesToServer()) {
+            // the server only knows about read-only mode when it's propagated to it
+            Boolean trackedReadOnly = getTrackedReadOnly();
+
+            if (trackedReadOnly != null) {
+                return trackedReadOnly.booleanValue();
+            }
+        }
+
         if (useSessionStatus && !this.isClosed && versionMeetsMinimum(5, 6, 5) && !getUseLocalSessionState() && getReadOnlyPropagatesToServer()) {
             java.sql.Statement stmt = null;
             java.sql.ResultSet rs = null;
@@ -3698,6 +3892,30 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
 
     private final static String SERVER_VERSION_STRING_VAR_NAME = "server_version_string";
 
+    /**
+     * Runs the query that reads the server variables. Session assignments held back while bootstrapping are sent along with it, in the same round trip,
+     * so that the variables read reflect them.
+     * 
+     * @param stmt
+     *            the statement to run the query with if nothing is held back
+     * @param query
+     *            the query
+     * @return the results of the query
+     * @throws SQLException
+     */
+    private java.sql.ResultSet executeServerVariablesQuery(java.sql.Statement stmt, String query) throws SQLException {
+        if (this.deferredSessionAssignments == null || this.deferredSessionAssignments.isEmpty() || this.io.shouldIntercept()) {
+            flushDeferredSessionAssignments();
+
+            return stmt.executeQuery(query);
+        }
+
+        String setQuery = buildSetStatement(this.deferredSessionAssignments);
+        this.deferredSessionAssignments.clear();
+
+        return this.io.sqlQueriesPipelined(new String[] { setQuery, query }, getUseUnicode() ? getEncoding() : null, this.database)[1];
+    }
+
     /**
      * Loads the result of 'SHOW VARIABLES' into the serverVariables field so
      * that the driver can configure itself.
@@ -3716,7 +3934,8 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
                 String cachedServerVersion = cachedVariableMap.get(SERVER_VERSION_STRING_VAR_NAME);
 
                 if (cachedServerVersion != null && this.io.getServerVersion() != null && cachedServerVersion.equals(this.io.getServerVersion())) {
-                    this.serverVariables = cachedVariableMap;
+                    // the cached snapshot is shared, the driver updates its own copy as it configures the session
+                    this.serverVariables = new HashMap<String, String>(cachedVariableMap);
 
                     return;
                 }
@@ -3772,6 +3991,9 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
                     queryBuf.append(", @@max_allowed_packet AS max_allowed_packet");
                     queryBuf.append(", @@net_buffer_length AS net_buffer_length");
                     queryBuf.append(", @@net_write_timeout AS net_write_timeout");
+                    if (this.io.getSessionStateTracker() != null) {
+                        queryBuf.append(", @@session_track_system_variables AS session_track_system_variables");
+                    }
                     if (versionMeetsMinimum(8, 0, 3)) {
                         queryBuf.append(", @@have_query_cache AS have_query_cache");
                     } else {
@@ -3788,7 +4010,7 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
                     }
                     queryBuf.append(", @@wait_timeout AS wait_timeout");
 
-                    results = stmt.executeQuery(queryBuf.toString());
+                    results = executeServerVariablesQuery(stmt, queryBuf.toString());
                     if (results.next()) {
                         ResultSetMetaData rsmd = results.getMetaData();
                         for (int i = 1; i <= rsmd.getColumnCount(); i++) {
@@ -3825,8 +4047,7 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
             if (getCacheServerConfiguration()) {
                 this.serverVariables.put(SERVER_VERSION_STRING_VAR_NAME, this.io.getServerVersion());
 
-                this.serverConfigCache.put(getURL(), this.serverVariables);
-
+                this.serverConfigCache.put(getURL(), Collections.unmodifiableMap(new HashMap<String, String>(this.serverVariables)));
             }
         } catch (SQLException e) {
             throw e;
@@ -4520,7 +4741,133 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
      */
     public void resetServerState() throws SQLException {
         if (!getParanoid() && ((this.io != null) && versionMeetsMinimum(4, 0, 6))) {
-            changeUser(this.user, this.password);
+            if (getUseResetConnection() && versionMeetsMinimum(5, 7, 3)) {
+                resetConnection();
+            } else {
+                changeUser(this.user, this.password);
+            }
+        }
+    }
+
+    /**
+     * Resets the session with COM_RESET_CONNECTION instead of re-authenticating, then restores in a single statement the settings of this connection
+     * that differ from the defaults the session was reset to.
+     * 
+     * @throws SQLException
+     */
+    private void resetConnection() throws SQLException {
+        synchronized (getConnectionMutex()) {
+            checkClosed();
+
+            // reset maxRows to default value
+            this.sessionMaxRows = -1;
+
+            this.io.resetConnection();
+
+            List<String> assignments = new ArrayList<String>();
+
+            addSessionTrackingAssignments(assignments);
+
+            // some servers go back to the character sets of the handshake and others to the global ones, so they are always set again
+            String characterSetClient = this.serverVariables.get("character_set_client");
+            String defaultCharacterSetResults = this.serverVariables.get("character_set_results");
+
+            if (characterSetClient != null) {
+                assignments.add("NAMES " + characterSetClient);
+                defaultCharacterSetResults = characterSetClient;
+            }
+
+            String characterSetResults = this.serverVariables.get(JDBC_LOCAL_CHARACTER_SET_RESULTS);
+            boolean isNullResults = characterSetResults == null || "NULL".equalsIgnoreCase(characterSetResults) || characterSetResults.length() == 0;
+            boolean isNullDefaultResults = defaultCharacterSetResults == null || "NULL".equalsIgnoreCase(defaultCharacterSetResults)
+                    || defaultCharacterSetResults.length() == 0;
+
+            if (isNullResults != isNullDefaultResults || !isNullResults && !characterSetResults.equalsIgnoreCase(defaultCharacterSetResults)) {
+                assignments.add("SESSION character_set_results = " + (isNullResults ? "NULL" : characterSetResults));
+            }
+
+            if (getConnectionCollation() != null) {
+                assignments.add("SESSION collation_connection = " + getConnectionCollation());
+            }
+
+            addSessionVariablesAssignments(assignments);
+
+            if (this.sqlModeForTruncationChecks != null) {
+                assignments.add("SESSION sql_mode='" + this.sqlModeForTruncationChecks + "'");
+            }
+
+            if (this.io.isAutoCommitOnServer() != this.autoCommit) {
+                assignments.add("SESSION autocommit=" + (this.autoCommit ? "1" : "0"));
+            }
+
+            Integer defaultIsolationLevel = mapTransIsolationNameToValue.get(this.serverVariables.get(getTxIsolationVariableName()));
+
+            if (this.hasIsolationLevels && (defaultIsolationLevel == null || defaultIsolationLevel.intValue() != this.isolationLevel)) {
+                assignments.add("SESSION " + getTxIsolationVariableName() + "='" + getTransactionIsolationName(this.isolationLevel) + "'");
+            }
+
+            if (this.readOnly && getReadOnlyPropagatesToServer() && versionMeetsMinimum(5, 6, 5)) {
+                assignments.add("SESSION " + getTxReadOnlyVariableName() + "=1");
+            }
+
+            setSessionAssignments(assignments);
+
+            rePrepareServerPreparedStatements();
+        }
+    }
+
+    /**
+     * Returns the value of the tx_isolation and transaction_isolation variables for the given JDBC isolation level.
+     * 
+     * @param level
+     *            the isolation level
+     * @return the name of the level
+     * @throws SQLException
+     *             if the level isn't supported
+     */
+    private String getTransactionIsolationName(int level) throws SQLException {
+        switch (level) {
+            case java.sql.Connection.TRANSACTION_READ_COMMITTED:
+                return "READ-COMMITTED";
+
+            case java.sql.Connection.TRANSACTION_READ_UNCOMMITTED:
+                return "READ-UNCOMMITTED";
+
+            case java.sql.Connection.TRANSACTION_REPEATABLE_READ:
+                return "REPEATABLE-READ";
+
+            case java.sql.Connection.TRANSACTION_SERIALIZABLE:
+                return "SERIALIZABLE";
+
+            default:
+                throw SQLError.createSQLException("Unsupported transaction isolation level '" + level + "'", SQLError.SQL_STATE_DRIVER_NOT_CAPABLE,
+                        getExceptionInterceptor());
+        }
+    }
+
+    /**
+     * Drops the cached server-side prepared statements and prepares the open ones again, once the server deallocated all of them.
+     * 
+     * @throws SQLException
+     */
+    private void rePrepareServerPreparedStatements() throws SQLException {
+        // collected first, as dropping a statement unregisters it
+        List<ServerPreparedStatement> serverPreparedStatements = new ArrayList<ServerPreparedStatement>();
+
+        for (Statement stmt : this.openStatements) {
+            if (stmt instanceof ServerPreparedStatement) {
+                serverPreparedStatements.add((ServerPreparedStatement) stmt);
+            }
+        }
+
+        for (ServerPreparedStatement pstmt : serverPreparedStatements) {
+            if (pstmt.isCached && pstmt.isClosed) {
+                // only the cache holds it, the next prepareStatement() for its SQL prepares a new one
+                pstmt.setClosed(false);
+                pstmt.realClose(false, true);
+            } else {
+                pstmt.rePrepare();
+            }
         }
     }
 
@@ -4808,8 +5155,7 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
                     this.autoCommit = autoCommitFlag;
 
                     if (needsSetOnServer) {
-                        execSQL(null, autoCommitFlag ? "SET autocommit=1" : "SET autocommit=0", -1, null, DEFAULT_RESULT_SET_TYPE,
-                                DEFAULT_RESULT_SET_CONCURRENCY, false, this.database, null, false);
+                        execSessionAssignment(autoCommitFlag ? "autocommit=1" : "autocommit=0");
                     }
 
                 } else {
@@ -4881,6 +5227,15 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
                 }
             }
 
+            SessionStateTracker tracker = this.io.getSessionStateTracker();
+            String trackedSchema = tracker == null ? null : tracker.getSchema();
+
+            if (trackedSchema != null && (this.lowerCaseTableNames ? trackedSchema.equalsIgnoreCase(catalog) : trackedSchema.equals(catalog))) {
+                this.database = catalog;
+
+                return;
+            }
+
             String quotedId = this.dbmd.getIdentifierQuoteString();
 
             if ((quotedId == null) || quotedId.equals(" ")) {
@@ -4949,7 +5304,9 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
     public void setReadOnlyInternal(boolean readOnlyFlag) throws SQLException {
         // note this this is safe even inside a transaction
         if (getReadOnlyPropagatesToServer() && versionMeetsMinimum(5, 6, 5)) {
-            if (!getUseLocalSessionState() || (readOnlyFlag != this.readOnly)) {
+            Boolean trackedReadOnly = getTrackedReadOnly();
+
+            if (trackedReadOnly != null ? trackedReadOnly.booleanValue() != readOnlyFlag : !getUseLocalSessionState() || (readOnlyFlag != this.readOnly)) {
                 execSQL(null, "set session transaction " + (readOnlyFlag ? "read only" : "read write"), -1, null, DEFAULT_RESULT_SET_TYPE,
                         DEFAULT_RESULT_SET_CONCURRENCY, false, this.database, null, false);
             }
@@ -5011,9 +5368,7 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
     private void setSessionVariables() throws SQLException {
         if (this.versionMeetsMinimum(4, 0, 0) && getSessionVariables() != null) {
             List<String> variablesToSet = new ArrayList<String>();
-            for (String part : StringUtils.split(getSessionVariables(), ",", "\"'(", "\"')", "\"'", true)) {
-                variablesToSet.addAll(StringUtils.split(part, ";", "\"'(", "\"')", "\"'", true));
-            }
+            addSessionVariablesAssignments(variablesToSet);
 
             if (!variablesToSet.isEmpty()) {
                 java.sql.Statement stmt = null;
@@ -5022,14 +5377,9 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
                     StringBuilder query = new StringBuilder("SET ");
                     String separator = "";
                     for (String variableToSet : variablesToSet) {
-                        if (variableToSet.length() > 0) {
-                            query.append(separator);
-                            if (!variableToSet.startsWith("@")) {
-                                query.append("SESSION ");
-                            }
-                            query.append(variableToSet);
-                            separator = ",";
-                        }
+                        query.append(separator);
+                        query.append(variableToSet);
+                        separator = ",";
                     }
                     stmt.executeUpdate(query.toString());
                 } finally {
@@ -5041,6 +5391,26 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
         }
     }
 
+    /**
+     * Adds the assignments given by the "sessionVariables" property to the given list.
+     * 
+     * @param assignments
+     *            the assignments of a SET statement
+     */
+    private void addSessionVariablesAssignments(List<String> assignments) {
+        if (getSessionVariables() == null) {
+            return;
+        }
+
+        for (String part : StringUtils.split(getSessionVariables(), ",", "\"'(", "\"')", "\"'", true)) {
+            for (String variableToSet : StringUtils.split(part, ";", "\"'(", "\"')", "\"'", true)) {
+                if (variableToSet.length() > 0) {
+                    assignments.add(variableToSet.startsWith("@") ? variableToSet : "SESSION " + variableToSet);
+                }
+            }
+        }
+    }
+
     /**
      * @param level
      * @throws SQLException
@@ -5066,6 +5436,17 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
                     shouldSendSet = this.isolationLevel != level;
                 }
 
+                Integer trackedLevel = getTrackedTransactionIsolation();
+
+                if (trackedLevel != null) {
+                    // the server reported its current level, whatever statements changed it
+                    shouldSendSet = trackedLevel.intValue() != level;
+
+                    if (!shouldSendSet) {
+                        this.isolationLevel = level;
+                    }
+                }
+
                 if (shouldSendSet) {
                     switch (level) {
                         case java.sql.Connection.TRANSACTION_NONE:
@@ -5130,16 +5511,18 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
                 boolean strictTransTablesIsSet = StringUtils.indexOfIgnoreCase(currentSqlMode, "STRICT_TRANS_TABLES") != -1;
 
                 if (currentSqlMode == null || currentSqlMode.length() == 0 || !strictTransTablesIsSet) {
-                    StringBuilder commandBuf = new StringBuilder("SET sql_mode='");
+                    StringBuilder sqlModeBuf = new StringBuilder();
 
                     if (currentSqlMode != null && currentSqlMode.length() > 0) {
-                        commandBuf.append(currentSqlMode);
-                        commandBuf.append(",");
+                        sqlModeBuf.append(currentSqlMode);
+                        sqlModeBuf.append(",");
                     }
 
-                    commandBuf.append("STRICT_TRANS_TABLES'");
+                    sqlModeBuf.append("STRICT_TRANS_TABLES");
+
+                    execSessionAssignment("sql_mode='" + sqlModeBuf + "'");
 
-                    execSQL(null, commandBuf.toString(), -1, null, DEFAULT_RESULT_SET_TYPE, DEFAULT_RESULT_SET_CONCURRENCY, false, this.database, null, false);
+                    this.sqlModeForTruncationChecks = sqlModeBuf.toString();
 
                     setJdbcCompliantTruncation(false); // server's handling this for us now
                 } else if (strictTransTablesIsSet) {
@@ -5394,6 +5777,9 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
         }
     }
 
+    // the value of sql_select_limit when it doesn't limit anything
+    private final static String UNLIMITED_SELECT_LIMIT = "18446744073709551615";
+
     /**
      * Sets the sql select limit max-rows for this session if different from current.
      * 
@@ -5406,6 +5792,13 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
         synchronized (getConnectionMutex()) {
             if (this.sessionMaxRows != max) {
                 this.sessionMaxRows = max;
+
+                String trackedLimit = getTrackedSessionVariable("sql_select_limit");
+
+                if (trackedLimit != null && trackedLimit.equals(max == -1 ? UNLIMITED_SELECT_LIMIT : String.valueOf(max))) {
+                    return;
+                }
+
                 execSQL(null, "SET SQL_SELECT_LIMIT=" + (this.sessionMaxRows == -1 ? "DEFAULT" : this.sessionMaxRows), -1, null, DEFAULT_RESULT_SET_TYPE,
                         DEFAULT_RESULT_SET_CONCURRENCY, false, this.database, null, false);
             }
@@ -1433,4 +1433,88 @@ public interface ConnectionProperties {
     public boolean getEnableEscapeProcessing();
 
     public void setEnableEscapeProcessing(boolean flag);
+
+    public boolean getUsePacketBufferArena();
+
+    public void setUsePacketBufferArena(boolean flag);
+
+    public int getPacketBufferArenaMaxRetainedSize();
+
+    public void setPacketBufferArenaMaxRetainedSize(String value) throws SQLException;
+
+    public int getCompressionLevel();
+
+    public void setCompressionLevel(int value) throws SQLException;
+
+    public String getCompressionStrategy();
+
+    public void setCompressionStrategy(String value);
+
+    public boolean getAdaptiveCompression();
+
+    public void setAdaptiveCompression(boolean flag);
+
+    public boolean getPipelineServerPreparedBatches();
+
+    public void setPipelineServerPreparedBatches(boolean flag);
+
+    public int getServerPreparedBatchPipelineWindow();
+
+    public void setServerPreparedBatchPipelineWindow(int value) throws SQLException;
+
+    public boolean getCacheServerPreparedBatchedInserts();
+
+    public void setCacheServerPreparedBatchedInserts(boolean flag);
+
+    public boolean getEncodeParametersInPlace();
+
+    public void setEncodeParametersInPlace(boolean flag);
+
+    public boolean getUseFastDecimalParsing();
+
+    public void setUseFastDecimalParsing(boolean flag);
+
+    public boolean getUseFastJavaTimeDecoding();
+
+    public void setUseFastJavaTimeDecoding(boolean flag);
+
+    public boolean getPrefetchCursorRows();
+
+    public void setPrefetchCursorRows(boolean flag);
+
+    public int getCursorPrefetchWatermark();
+
+    public void setCursorPrefetchWatermark(int value) throws SQLException;
+
+    public int getResultSetMemoryBudget();
+
+    public void setResultSetMemoryBudget(String value) throws SQLException;
+
+    public boolean getTrackSessionState();
+
+    public void setTrackSessionState(boolean flag);
+
+    public boolean getUseResetConnection();
+
+    public void setUseResetConnection(boolean flag);
+
+    public boolean getUseFastBootstrap();
+
+    public void setUseFastBootstrap(boolean flag);
+
+    public boolean getParallelHostConnect();
+
+    public void setParallelHostConnect(boolean flag);
+
+    public int getParallelHostConnectDelay();
+
+    public void setParallelHostConnectDelay(int parallelHostConnectDelay) throws SQLException;
+
+    public int getLoadBalancePrewarmConnections();
+
+    public void setLoadBalancePrewarmConnections(int loadBalancePrewarmConnections) throws SQLException;
+
+    public int getLoadBalancePrewarmValidateAfter();
+
+    public void setLoadBalancePrewarmValidateAfter(int loadBalancePrewarmValidateAfter) throws SQLException;
 }
@@ -28,6 +28,7 @@ import java.io.UnsupportedEncodingException;
 import java.sql.DriverPropertyInfo;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Properties;
@@ -39,6 +40,7 @@ import javax.naming.StringRefAddr;
 
 import com.mysql.jdbc.log.Log;
 import com.mysql.jdbc.log.StandardLogger;
+import com.mysql.jdbc.util.LRUCache;
 
 /**
  * Represents configurable properties for Connections and DataSources. Can also expose properties as JDBC DriverPropertyInfo if required as well.
@@ -616,6 +618,49 @@ public class ConnectionPropertiesImpl implements Serializable, ConnectionPropert
 
     private static final ArrayList<java.lang.reflect.Field> PROPERTY_LIST = new ArrayList<java.lang.reflect.Field>();
 
+    /**
+     * The resolved values of all connection properties, as initialized from a given set of properties. Connections opened with the same properties copy
+     * them instead of parsing and validating every value again.
+     */
+    private static final class PropertiesTemplate {
+        private final Object[] values = new Object[PROPERTY_LIST.size()];
+        private final boolean[] explicitlySet = new boolean[PROPERTY_LIST.size()];
+        private final String[] memorySizeValues = new String[PROPERTY_LIST.size()];
+
+        PropertiesTemplate(ConnectionPropertiesImpl initializedProperties) throws IllegalAccessException {
+            for (int i = 0; i < this.values.length; i++) {
+                ConnectionProperty prop = initializedProperties.getPropertyAt(i);
+
+                this.values[i] = prop.valueAsObject;
+                this.explicitlySet[i] = prop.wasExplicitlySet;
+
+                if (prop instanceof MemorySizeConnectionProperty) {
+                    this.memorySizeValues[i] = ((MemorySizeConnectionProperty) prop).valueAsString;
+                }
+            }
+        }
+
+        void applyTo(ConnectionPropertiesImpl propertiesToInitialize) throws IllegalAccessException {
+            for (int i = 0; i < this.values.length; i++) {
+                ConnectionProperty prop = propertiesToInitialize.getPropertyAt(i);
+
+                // all values are immutable, and were validated when the template was made
+                prop.valueAsObject = this.values[i];
+                if (this.explicitlySet[i]) {
+                    prop.wasExplicitlySet = true;
+                }
+                prop.updateCount++;
+
+                if (prop instanceof MemorySizeConnectionProperty) {
+                    ((MemorySizeConnectionProperty) prop).valueAsString = this.memorySizeValues[i];
+                }
+            }
+        }
+    }
+
+    // the templates by the properties they were initialized from, without host, port, database and credentials, for the most recently used ones
+    private static final LRUCache<Map<String, String>, PropertiesTemplate> PROPERTIES_TEMPLATES = new LRUCache<Map<String, String>, PropertiesTemplate>(256);
+
     //
     // Yes, this looks goofy, but we're trying to avoid intern()ing here
     //
@@ -627,6 +672,12 @@ public class ConnectionPropertiesImpl implements Serializable, ConnectionPropert
 
     protected static final String ZERO_DATETIME_BEHAVIOR_ROUND = "round";
 
+    protected static final String COMPRESSION_STRATEGY_DEFAULT = "default";
+
+    protected static final String COMPRESSION_STRATEGY_FILTERED = "filtered";
+
+    protected static final String COMPRESSION_STRATEGY_HUFFMAN_ONLY = "huffmanOnly";
+
     static {
         try {
             java.lang.reflect.Field[] declaredFields = ConnectionPropertiesImpl.class.getDeclaredFields();
@@ -648,6 +699,13 @@ public class ConnectionPropertiesImpl implements Serializable, ConnectionPropert
         return null;
     }
 
+    /**
+     * Reflective access to the private property fields has to come from this class itself, not from the nested ones.
+     */
+    private ConnectionProperty getPropertyAt(int index) throws IllegalAccessException {
+        return (ConnectionProperty) PROPERTY_LIST.get(index).get(this);
+    }
+
     /**
      * Exposes all ConnectionPropertyInfo instances as DriverPropertyInfo
      * 
@@ -1340,6 +1398,70 @@ public class ConnectionPropertiesImpl implements Serializable, ConnectionPropert
     private BooleanConnectionProperty enableEscapeProcessing = new BooleanConnectionProperty("enableEscapeProcessing", true,
             Messages.getString("ConnectionProperties.enableEscapeProcessing"), "5.1.37", PERFORMANCE_CATEGORY, Integer.MIN_VALUE);
 
+    private BooleanConnectionProperty usePacketBufferArena = new BooleanConnectionProperty("usePacketBufferArena", false,
+            Messages.getString("ConnectionProperties.usePacketBufferArena"), "5.1.46", PERFORMANCE_CATEGORY, Integer.MIN_VALUE);
+
+    private MemorySizeConnectionProperty packetBufferArenaMaxRetainedSize = new MemorySizeConnectionProperty("packetBufferArenaMaxRetainedSize", 262144, 0,
+            Integer.MAX_VALUE, Messages.getString("ConnectionProperties.packetBufferArenaMaxRetainedSize"), "5.1.46", PERFORMANCE_CATEGORY, Integer.MIN_VALUE);
+
+    private IntegerConnectionProperty compressionLevel = new IntegerConnectionProperty("compressionLevel", -1, -1, 9,
+            Messages.getString("ConnectionProperties.compressionLevel"), "5.1.46", PERFORMANCE_CATEGORY, Integer.MIN_VALUE);
+
+    private StringConnectionProperty compressionStrategy = new StringConnectionProperty("compressionStrategy", COMPRESSION_STRATEGY_DEFAULT,
+            new String[] { COMPRESSION_STRATEGY_DEFAULT, COMPRESSION_STRATEGY_FILTERED, COMPRESSION_STRATEGY_HUFFMAN_ONLY },
+            Messages.getString("ConnectionProperties.compressionStrategy"), "5.1.46", PERFORMANCE_CATEGORY, Integer.MIN_VALUE);
+
+    private BooleanConnectionProperty adaptiveCompression = new BooleanConnectionProperty("adaptiveCompression", false,
+            Messages.getString("ConnectionProperties.adaptiveCompression"), "5.1.46", PERFORMANCE_CATEGORY, Integer.MIN_VALUE);
+
+    private BooleanConnectionProperty pipelineServerPreparedBatches = new BooleanConnectionProperty("pipelineServerPreparedBatches", false,
+            Messages.getString("ConnectionProperties.pipelineServerPreparedBatches"), "5.1.46", PERFORMANCE_CATEGORY, Integer.MIN_VALUE);
+
+    private IntegerConnectionProperty serverPreparedBatchPipelineWindow = new IntegerConnectionProperty("serverPreparedBatchPipelineWindow", 128, 1, 65535,
+            Messages.getString("ConnectionProperties.serverPreparedBatchPipelineWindow"), "5.1.46", PERFORMANCE_CATEGORY, Integer.MIN_VALUE);
+
+    private BooleanConnectionProperty cacheServerPreparedBatchedInserts = new BooleanConnectionProperty("cacheServerPreparedBatchedInserts", false,
+            Messages.getString("ConnectionProperties.cacheServerPreparedBatchedInserts"), "5.1.46", PERFORMANCE_CATEGORY, Integer.MIN_VALUE);
+
+    private BooleanConnectionProperty encodeParametersInPlace = new BooleanConnectionProperty("encodeParametersInPlace", false,
+            Messages.getString("ConnectionProperties.encodeParametersInPlace"), "5.1.46", PERFORMANCE_CATEGORY, Integer.MIN_VALUE);
+
+    private BooleanConnectionProperty useFastDecimalParsing = new BooleanConnectionProperty("useFastDecimalParsing", true,
+            Messages.getString("ConnectionProperties.useFastDecimalParsing"), "5.1.46", PERFORMANCE_CATEGORY, Integer.MIN_VALUE);
+
+    private BooleanConnectionProperty useFastJavaTimeDecoding = new BooleanConnectionProperty("useFastJavaTimeDecoding", true,
+            Messages.getString("ConnectionProperties.useFastJavaTimeDecoding"), "5.1.46", PERFORMANCE_CATEGORY, Integer.MIN_VALUE);
+
+    private BooleanConnectionProperty prefetchCursorRows = new BooleanConnectionProperty("prefetchCursorRows", false,
+            Messages.getString("ConnectionProperties.prefetchCursorRows"), "5.1.46", PERFORMANCE_CATEGORY, Integer.MIN_VALUE);
+
+    private IntegerConnectionProperty cursorPrefetchWatermark = new IntegerConnectionProperty("cursorPrefetchWatermark", 50, 0, 100,
+            Messages.getString("ConnectionProperties.cursorPrefetchWatermark"), "5.1.46", PERFORMANCE_CATEGORY, Integer.MIN_VALUE);
+
+    private MemorySizeConnectionProperty resultSetMemoryBudget = new MemorySizeConnectionProperty("resultSetMemoryBudget", 0, 0, Integer.MAX_VALUE,
+            Messages.getString("ConnectionProperties.resultSetMemoryBudget"), "5.1.46", PERFORMANCE_CATEGORY, Integer.MIN_VALUE);
+
+    private BooleanConnectionProperty trackSessionState = new BooleanConnectionProperty("trackSessionState", false,
+            Messages.getString("ConnectionProperties.trackSessionState"), "5.1.46", PERFORMANCE_CATEGORY, Integer.MIN_VALUE);
+
+    private BooleanConnectionProperty useResetConnection = new BooleanConnectionProperty("useResetConnection", false,
+            Messages.getString("ConnectionProperties.useResetConnection"), "5.1.46", PERFORMANCE_CATEGORY, Integer.MIN_VALUE);
+
+    private BooleanConnectionProperty useFastBootstrap = new BooleanConnectionProperty("useFastBootstrap", false,
+            Messages.getString("ConnectionProperties.useFastBootstrap"), "5.1.46", PERFORMANCE_CATEGORY, Integer.MIN_VALUE);
+
+    private BooleanConnectionProperty parallelHostConnect = new BooleanConnectionProperty("parallelHostConnect", false,
+            Messages.getString("ConnectionProperties.parallelHostConnect"), "5.1.46", HA_CATEGORY, Integer.MIN_VALUE);
+
+    private IntegerConnectionProperty parallelHostConnectDelay = new IntegerConnectionProperty("parallelHostConnectDelay", 250, 0, Integer.MAX_VALUE,
+            Messages.getString("ConnectionProperties.parallelHostConnectDelay"), "5.1.46", HA_CATEGORY, Integer.MIN_VALUE);
+
+    private IntegerConnectionProperty loadBalancePrewarmConnections = new IntegerConnectionProperty("loadBalancePrewarmConnections", 0, 0, Integer.MAX_VALUE,
+            Messages.getString("ConnectionProperties.loadBalancePrewarmConnections"), "5.1.46", PERFORMANCE_CATEGORY, Integer.MIN_VALUE);
+
+    private IntegerConnectionProperty loadBalancePrewarmValidateAfter = new IntegerConnectionProperty("loadBalancePrewarmValidateAfter", 1000, 0,
+            Integer.MAX_VALUE, Messages.getString("ConnectionProperties.loadBalancePrewarmValidateAfter"), "5.1.46", PERFORMANCE_CATEGORY, Integer.MIN_VALUE);
+
     protected DriverPropertyInfo[] exposeAsDriverPropertyInfoInternal(Properties info, int slotsToReserve) throws SQLException {
         initializeProperties(info);
 
@@ -2501,22 +2623,66 @@ public class ConnectionPropertiesImpl implements Serializable, ConnectionPropert
             infoCopy.remove(NonRegisteringDriver.PORT_PROPERTY_KEY);
             infoCopy.remove("profileSql");
 
-            int numPropertiesToSet = PROPERTY_LIST.size();
+            Map<String, String> templateKey = new HashMap<String, String>();
 
-            for (int i = 0; i < numPropertiesToSet; i++) {
-                java.lang.reflect.Field propertyField = PROPERTY_LIST.get(i);
+            try {
+                for (Enumeration<?> names = infoCopy.propertyNames(); names.hasMoreElements();) {
+                    String name = (String) names.nextElement();
+                    Object value = infoCopy.get(name);
+
+                    if (value != null && !(value instanceof String)) {
+                        // getProperty() doesn't return such values, so different ones would share a key
+                        templateKey = null;
+                        break;
+                    }
+
+                    templateKey.put(name, infoCopy.getProperty(name));
+                }
+            } catch (ClassCastException e) {
+                // keys that aren't strings, these properties can't be matched with a template
+                templateKey = null;
+            }
+
+            PropertiesTemplate template = null;
+
+            if (templateKey != null) {
+                synchronized (PROPERTIES_TEMPLATES) {
+                    template = PROPERTIES_TEMPLATES.get(templateKey);
+                }
+            }
+
+            try {
+                if (template != null) {
+                    template.applyTo(this);
+
+                    initializeDerivedValues();
+
+                    return;
+                }
+
+                int numPropertiesToSet = PROPERTY_LIST.size();
+
+                for (int i = 0; i < numPropertiesToSet; i++) {
+                    java.lang.reflect.Field propertyField = PROPERTY_LIST.get(i);
 
-                try {
                     ConnectionProperty propToSet = (ConnectionProperty) propertyField.get(this);
 
                     propToSet.initializeFrom(infoCopy, getExceptionInterceptor());
-                } catch (IllegalAccessException iae) {
-                    throw SQLError.createSQLException(Messages.getString("ConnectionProperties.unableToInitDriverProperties") + iae.toString(),
-                            SQLError.SQL_STATE_GENERAL_ERROR, getExceptionInterceptor());
                 }
-            }
 
-            postInitialization();
+                postInitialization();
+
+                if (templateKey != null) {
+                    template = new PropertiesTemplate(this);
+
+                    synchronized (PROPERTIES_TEMPLATES) {
+                        PROPERTIES_TEMPLATES.put(templateKey, template);
+                    }
+                }
+            } catch (IllegalAccessException iae) {
+                throw SQLError.createSQLException(Messages.getString("ConnectionProperties.unableToInitDriverProperties") + iae.toString(),
+                        SQLError.SQL_STATE_GENERAL_ERROR, getExceptionInterceptor());
+            }
         }
     }
 
@@ -2527,8 +2693,6 @@ public class ConnectionPropertiesImpl implements Serializable, ConnectionPropert
             this.profileSQL.initializeFrom(this.profileSql.getValueAsObject().toString(), getExceptionInterceptor());
         }
 
-        this.reconnectTxAtEndAsBoolean = ((Boolean) this.reconnectAtTxEnd.getValueAsObject()).booleanValue();
-
         // Adjust max rows
         if (this.getMaxRows() == 0) {
             // adjust so that it will become MysqlDefs.MAX_ROWS in execSQL()
@@ -2561,6 +2725,19 @@ public class ConnectionPropertiesImpl implements Serializable, ConnectionPropert
             }
         }
 
+        initializeDerivedValues();
+
+        if (getUseCursorFetch()) {
+            // assume they want to use server-side prepared statements because they're required for this functionality
+            setDetectServerPreparedStmts(true);
+        }
+    }
+
+    /**
+     * Caches in fields the property values read on hot paths.
+     */
+    private void initializeDerivedValues() {
+        this.reconnectTxAtEndAsBoolean = ((Boolean) this.reconnectAtTxEnd.getValueAsObject()).booleanValue();
         this.cacheResultSetMetaDataAsBoolean = this.cacheResultSetMetadata.getValueAsBoolean();
         this.useUnicodeAsBoolean = this.useUnicode.getValueAsBoolean();
         this.characterEncodingAsString = ((String) this.characterEncoding.getValueAsObject());
@@ -2573,11 +2750,6 @@ public class ConnectionPropertiesImpl implements Serializable, ConnectionPropert
         this.autoGenerateTestcaseScriptAsBoolean = this.autoGenerateTestcaseScript.getValueAsBoolean();
         this.maintainTimeStatsAsBoolean = this.maintainTimeStats.getValueAsBoolean();
         this.jdbcCompliantTruncationForReads = getJdbcCompliantTruncation();
-
-        if (getUseCursorFetch()) {
-            // assume they want to use server-side prepared statements because they're required for this functionality
-            setDetectServerPreparedStmts(true);
-        }
     }
 
     /*
@@ -4966,4 +5138,172 @@ public class ConnectionPropertiesImpl implements Serializable, ConnectionPropert
     public void setEnableEscapeProcessing(boolean flag) {
         this.enableEscapeProcessing.setValue(flag);
     }
+
+    public boolean getUsePacketBufferArena() {
+        return this.usePacketBufferArena.getValueAsBoolean();
+    }
+
+    public void setUsePacketBufferArena(boolean flag) {
+        this.usePacketBufferArena.setValue(flag);
+    }
+
+    public int getPacketBufferArenaMaxRetainedSize() {
+        return this.packetBufferArenaMaxRetainedSize.getValueAsInt();
+    }
+
+    public void setPacketBufferArenaMaxRetainedSize(String value) throws SQLException {
+        this.packetBufferArenaMaxRetainedSize.setValue(value, getExceptionInterceptor());
+    }
+
+    public int getCompressionLevel() {
+        return this.compressionLevel.getValueAsInt();
+    }
+
+    public void setCompressionLevel(int value) throws SQLException {
+        this.compressionLevel.setValue(value, getExceptionInterceptor());
+    }
+
+    public String getCompressionStrategy() {
+        return this.compressionStrategy.getValueAsString();
+    }
+
+    public void setCompressionStrategy(String value) {
+        this.compressionStrategy.setValue(value);
+    }
+
+    public boolean getAdaptiveCompression() {
+        return this.adaptiveCompression.getValueAsBoolean();
+    }
+
+    public void setAdaptiveCompression(boolean flag) {
+        this.adaptiveCompression.setValue(flag);
+    }
+
+    public boolean getPipelineServerPreparedBatches() {
+        return this.pipelineServerPreparedBatches.getValueAsBoolean();
+    }
+
+    public void setPipelineServerPreparedBatches(boolean flag) {
+        this.pipelineServerPreparedBatches.setValue(flag);
+    }
+
+    public int getServerPreparedBatchPipelineWindow() {
+        return this.serverPreparedBatchPipelineWindow.getValueAsInt();
+    }
+
+    public void setServerPreparedBatchPipelineWindow(int value) throws SQLException {
+        this.serverPreparedBatchPipelineWindow.setValue(value, getExceptionInterceptor());
+    }
+
+    public boolean getCacheServerPreparedBatchedInserts() {
+        return this.cacheServerPreparedBatchedInserts.getValueAsBoolean();
+    }
+
+    public void setCacheServerPreparedBatchedInserts(boolean flag) {
+        this.cacheServerPreparedBatchedInserts.setValue(flag);
+    }
+
+    public boolean getEncodeParametersInPlace() {
+        return this.encodeParametersInPlace.getValueAsBoolean();
+    }
+
+    public void setEncodeParametersInPlace(boolean flag) {
+        this.encodeParametersInPlace.setValue(flag);
+    }
+
+    public boolean getUseFastDecimalParsing() {
+        return this.useFastDecimalParsing.getValueAsBoolean();
+    }
+
+    public void setUseFastDecimalParsing(boolean flag) {
+        this.useFastDecimalParsing.setValue(flag);
+    }
+
+    public boolean getUseFastJavaTimeDecoding() {
+        return this.useFastJavaTimeDecoding.getValueAsBoolean();
+    }
+
+    public void setUseFastJavaTimeDecoding(boolean flag) {
+        this.useFastJavaTimeDecoding.setValue(flag);
+    }
+
+    public boolean getPrefetchCursorRows() {
+        return this.prefetchCursorRows.getValueAsBoolean();
+    }
+
+    public void setPrefetchCursorRows(boolean flag) {
+        this.prefetchCursorRows.setValue(flag);
+    }
+
+    public int getCursorPrefetchWatermark() {
+        return this.cursorPrefetchWatermark.getValueAsInt();
+    }
+
+    public void setCursorPrefetchWatermark(int value) throws SQLException {
+        this.cursorPrefetchWatermark.setValue(value, getExceptionInterceptor());
+    }
+
+    public int getResultSetMemoryBudget() {
+        return this.resultSetMemoryBudget.getValueAsInt();
+    }
+
+    public void setResultSetMemoryBudget(String value) throws SQLException {
+        this.resultSetMemoryBudget.setValue(value, getExceptionInterceptor());
+    }
+
+    public boolean getTrackSessionState() {
+        return this.trackSessionState.getValueAsBoolean();
+    }
+
+    public void setTrackSessionState(boolean flag) {
+        this.trackSessionState.setValue(flag);
+    }
+
+    public boolean getUseResetConnection() {
+        return this.useResetConnection.getValueAsBoolean();
+    }
+
+    public void setUseResetConnection(boolean flag) {
+        this.useResetConnection.setValue(flag);
+    }
+
+    public boolean getUseFastBootstrap() {
+        return this.useFastBootstrap.getValueAsBoolean();
+    }
+
+    public void setUseFastBootstrap(boolean flag) {
+        this.useFastBootstrap.setValue(flag);
+    }
+
+    public boolean getParallelHostConnect() {
+        return this.parallelHostConnect.getValueAsBoolean();
+    }
+
+    public void setParallelHostConnect(boolean flag) {
+        this.parallelHostConnect.setValue(flag);
+    }
+
+    public int getParallelHostConnectDelay() {
+        return this.parallelHostConnectDelay.getValueAsInt();
+    }
+
+    public void setParallelHostConnectDelay(int parallelHostConnectDelay) throws SQLException {
+        this.parallelHostConnectDelay.setValue(parallelHostConnectDelay, getExceptionInterceptor());
+    }
+
+    public int getLoadBalancePrewarmConnections() {
+        return this.loadBalancePrewarmConnections.getValueAsInt();
+    }
+
+    public void setLoadBalancePrewarmConnections(int loadBalancePrewarmConnections) throws SQLException {
+        this.loadBalancePrewarmConnections.setValue(loadBalancePrewarmConnections, getExceptionInterceptor());
+    }
+
+    public int getLoadBalancePrewarmValidateAfter() {
+        return this.loadBalancePrewarmValidateAfter.getValueAsInt();
+    }
+
+    public void setLoadBalancePrewarmValidateAfter(int loadBalancePrewarmValidateAfter) throws SQLException {
+        this.loadBalancePrewarmValidateAfter.setValue(loadBalancePrewarmValidateAfter, getExceptionInterceptor());
+    }
 }
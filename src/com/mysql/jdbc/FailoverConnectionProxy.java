@@ -26,6 +26,7 @@ package com.mysql.jdbc;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
 import java.util.concurrent.Executor;
@@ -48,6 +49,8 @@ public class FailoverConnectionProxy extends MultiHostConnectionProxy {
     private long queriesBeforeRetryPrimaryHost;
     private boolean failoverReadOnly;
     private int retriesAllDown;
+    private boolean parallelHostConnect;
+    private int parallelHostConnectDelay;
 
     private int currentHostIndex = NO_CONNECTION_INDEX;
     private int primaryHostIndex = DEFAULT_PRIMARY_HOST_INDEX;
@@ -127,6 +130,8 @@ public class FailoverConnectionProxy extends MultiHostConnectionProxy {
         this.queriesBeforeRetryPrimaryHost = connProps.getQueriesBeforeRetryMaster();
         this.failoverReadOnly = connProps.getFailOverReadOnly();
         this.retriesAllDown = connProps.getRetriesAllDown();
+        this.parallelHostConnect = connProps.getParallelHostConnect();
+        this.parallelHostConnectDelay = connProps.getParallelHostConnectDelay();
 
         this.enableFallBackToPrimaryHost = this.secondsBeforeRetryPrimaryHost > 0 || this.queriesBeforeRetryPrimaryHost > 0;
 
@@ -191,6 +196,12 @@ public class FailoverConnectionProxy extends MultiHostConnectionProxy {
             return;
         }
 
+        if (!isConnected() && this.parallelHostConnect) {
+            // the primary host is tried first, and the secondary hosts too unless it connects quickly
+            failOver(this.primaryHostIndex - 1);
+            return;
+        }
+
         if (!isConnected() || readyToFallBackToPrimaryHost()) {
             try {
                 connectTo(this.primaryHostIndex);
@@ -277,6 +288,11 @@ public class FailoverConnectionProxy extends MultiHostConnectionProxy {
      *            The host index where to start from. First connection attempt will be the next one.
      */
     private synchronized void failOver(int failedHostIdx) throws SQLException {
+        if (this.parallelHostConnect) {
+            failOverInParallel(failedHostIdx);
+            return;
+        }
+
         int prevHostIndex = this.currentHostIndex;
         int nextHostIndex = nextHost(failedHostIdx, false);
         int firstHostIndexTried = nextHostIndex;
@@ -324,6 +340,67 @@ public class FailoverConnectionProxy extends MultiHostConnectionProxy {
         }
     }
 
+    /**
+     * Initiates a failover procedure that connects to the hosts in parallel, taking the first connection established. The hosts are tried in the order
+     * {@link #failOver(int)} would try them, the attempt to connect to the next one being started once the previous ones have failed or have been running
+     * for 'parallelHostConnectDelay' milliseconds.
+     * 
+     * @param failedHostIdx
+     *            The host index where to start from. First connection attempt will be the next one.
+     */
+    private synchronized void failOverInParallel(int failedHostIdx) throws SQLException {
+        boolean firstConnOrPassedByPrimaryHost = this.currentHostIndex == NO_CONNECTION_INDEX || isPrimaryHostIndex(this.currentHostIndex);
+
+        SQLException lastExceptionCaught = null;
+        int attempts = 0;
+        do {
+            if (attempts > 0) {
+                try {
+                    Thread.sleep(250);
+                } catch (InterruptedException ie) {
+                }
+            }
+
+            // the primary host is vouched for once all the hosts were tried
+            List<Integer> hostIndexes = new ArrayList<Integer>(this.hostList.size());
+            for (int hostIndex = nextHost(failedHostIdx, attempts > 0); !hostIndexes.contains(hostIndex); hostIndex = nextHost(hostIndex, attempts > 0)) {
+                hostIndexes.add(hostIndex);
+            }
+
+            List<String> hostPortSpecs = new ArrayList<String>(hostIndexes.size());
+            for (Integer hostIndex : hostIndexes) {
+                hostPortSpecs.add(this.hostList.get(hostIndex));
+            }
+
+            ParallelHostConnector connector = new ParallelHostConnector(this, hostPortSpecs, this.parallelHostConnectDelay);
+
+            try {
+                ConnectionImpl connection = connector.connect();
+                int connectedIndex = connector.getConnectedHostIndex();
+
+                connection.setProxy(getProxy());
+                switchCurrentConnectionTo(hostIndexes.get(connectedIndex), connection);
+
+                firstConnOrPassedByPrimaryHost = firstConnOrPassedByPrimaryHost || hostIndexes.subList(0, connectedIndex + 1).contains(this.primaryHostIndex);
+
+                if (firstConnOrPassedByPrimaryHost && connectedToSecondaryHost()) {
+                    resetAutoFallBackCounters();
+                }
+                return;
+
+            } catch (SQLException e) {
+                if (!shouldExceptionTriggerConnectionSwitch(e)) {
+                    throw e;
+                }
+
+                lastExceptionCaught = e;
+                attempts++;
+            }
+        } while (attempts < this.retriesAllDown);
+
+        throw lastExceptionCaught;
+    }
+
     /**
      * Falls back to primary host or keep current connection if primary not available.
      */
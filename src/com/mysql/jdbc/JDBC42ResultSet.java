@@ -29,11 +29,13 @@ import java.sql.SQLType;
 import java.sql.Struct;
 import java.sql.Time;
 import java.sql.Timestamp;
+import java.sql.Types;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.OffsetDateTime;
 import java.time.OffsetTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeParseException;
 
 import com.mysql.jdbc.Field;
@@ -42,6 +44,12 @@ import com.mysql.jdbc.SQLError;
 
 public class JDBC42ResultSet extends JDBC4ResultSet {
 
+    /** Receives the fields decoded by getDateTimeFieldsFromRow(), reused across calls. */
+    private int[] dateTimeFields;
+
+    /** The default time zone of the JVM, looked up once to give OffsetDateTime values their offset. */
+    private ZoneId defaultZoneId;
+
     public JDBC42ResultSet(long updateCount, long updateID, MySQLConnection conn, StatementImpl creatorStmt) {
         super(updateCount, updateID, conn, creatorStmt);
     }
@@ -64,15 +72,36 @@ public class JDBC42ResultSet extends JDBC4ResultSet {
         }
 
         if (type.equals(LocalDate.class)) {
+            if (getDateTimeFieldsFromRow(columnIndex, Types.DATE)) {
+                return type.cast(LocalDate.of(this.dateTimeFields[0], this.dateTimeFields[1], this.dateTimeFields[2]));
+            }
             final Date date = getDate(columnIndex);
             return date == null ? null : type.cast(date.toLocalDate());
         } else if (type.equals(LocalDateTime.class)) {
+            if (getDateTimeFieldsFromRow(columnIndex, Types.TIMESTAMP)) {
+                return type.cast(toLocalDateTime(this.dateTimeFields));
+            }
             final Timestamp timestamp = getTimestamp(columnIndex);
             return timestamp == null ? null : type.cast(timestamp.toLocalDateTime());
         } else if (type.equals(LocalTime.class)) {
+            // java.sql.Time.toLocalTime() has no fractional seconds, so neither has this
+            if (getDateTimeFieldsFromRow(columnIndex, Types.TIME)) {
+                return type.cast(LocalTime.of(this.dateTimeFields[3], this.dateTimeFields[4], this.dateTimeFields[5]));
+            }
             final Time time = getTime(columnIndex);
             return time == null ? null : type.cast(time.toLocalTime());
         } else if (type.equals(OffsetDateTime.class)) {
+            checkColumnBounds(columnIndex);
+
+            if (this.fields[columnIndex - 1].getSQLType() == Types.TIMESTAMP) {
+                // DATETIME and TIMESTAMP values carry no offset, they get the one of the JVM's default time zone, as LocalDateTime values would
+                if (getDateTimeFieldsFromRow(columnIndex, Types.TIMESTAMP)) {
+                    return type.cast(toLocalDateTime(this.dateTimeFields).atZone(getDefaultZoneId()).toOffsetDateTime());
+                }
+                final Timestamp timestamp = getTimestamp(columnIndex);
+                return timestamp == null ? null : type.cast(timestamp.toLocalDateTime().atZone(getDefaultZoneId()).toOffsetDateTime());
+            }
+
             try {
                 final String string = getString(columnIndex);
                 return string == null ? null : type.cast(OffsetDateTime.parse(string));
@@ -91,6 +120,26 @@ public class JDBC42ResultSet extends JDBC4ResultSet {
         return super.getObject(columnIndex, type);
     }
 
+    private boolean getDateTimeFieldsFromRow(int columnIndex, int jdbcType) throws SQLException {
+        if (this.dateTimeFields == null) {
+            this.dateTimeFields = new int[7];
+        }
+
+        return getDateTimeFieldsFromRow(columnIndex, jdbcType, this.dateTimeFields);
+    }
+
+    private static LocalDateTime toLocalDateTime(int[] fields) {
+        return LocalDateTime.of(fields[0], fields[1], fields[2], fields[3], fields[4], fields[5], fields[6]);
+    }
+
+    private ZoneId getDefaultZoneId() {
+        if (this.defaultZoneId == null) {
+            this.defaultZoneId = ZoneId.systemDefault();
+        }
+
+        return this.defaultZoneId;
+    }
+
     /**
      * Support for java.sql.JDBCType/java.sql.SQLType. (Not updatable)
      * 
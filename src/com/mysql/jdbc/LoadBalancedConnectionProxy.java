@@ -33,9 +33,11 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.Executor;
 
@@ -80,6 +82,19 @@ public class LoadBalancedConnectionProxy extends MultiHostConnectionProxy implem
 
     private LoadBalanceExceptionChecker exceptionChecker;
 
+    private boolean parallelHostConnect = false;
+    private int parallelHostConnectDelay = 250;
+    // hosts that failed along with the one asked for when connecting in parallel, failed right away if the balance strategy asks for them next
+    private Map<String, SQLException> parallelConnectFailures = new HashMap<String, SQLException>();
+
+    // physical connections established ahead of time, by host:port, to be handed out by createConnectionForHost()
+    private int prewarmConnectionsPerHost = 0;
+    private Map<String, Queue<ConnectionImpl>> warmConnections = new HashMap<String, Queue<ConnectionImpl>>();
+    private Map<String, Integer> warmConnectionsPending = new HashMap<String, Integer>();
+    // when each of the connections established ahead of time was put aside
+    private Map<ConnectionImpl, Long> warmConnectionsSince = new HashMap<ConnectionImpl, Long>();
+    private int prewarmValidateAfter = 1000;
+
     private static Constructor<?> JDBC_4_LB_CONNECTION_CTOR;
     private static Class<?>[] INTERFACES_TO_PROXY;
 
@@ -226,7 +241,37 @@ public class LoadBalancedConnectionProxy extends MultiHostConnectionProxy implem
         this.exceptionChecker = (LoadBalanceExceptionChecker) Util.loadExtensions(null, props, lbExceptionChecker, "InvalidLoadBalanceExceptionChecker", null)
                 .get(0);
 
+        this.parallelHostConnect = Boolean.parseBoolean(this.localProps.getProperty("parallelHostConnect", "false"));
+
+        String parallelHostConnectDelayAsString = this.localProps.getProperty("parallelHostConnectDelay", "250");
+        try {
+            this.parallelHostConnectDelay = Integer.parseInt(parallelHostConnectDelayAsString);
+        } catch (NumberFormatException nfe) {
+            throw SQLError.createSQLException(Messages.getString("LoadBalancedConnectionProxy.badValueForParallelHostConnectDelay",
+                    new Object[] { parallelHostConnectDelayAsString }), SQLError.SQL_STATE_ILLEGAL_ARGUMENT, null);
+        }
+
+        String prewarmConnectionsAsString = this.localProps.getProperty("loadBalancePrewarmConnections", "0");
+        try {
+            this.prewarmConnectionsPerHost = Integer.parseInt(prewarmConnectionsAsString);
+        } catch (NumberFormatException nfe) {
+            throw SQLError.createSQLException(Messages.getString("LoadBalancedConnectionProxy.badValueForLoadBalancePrewarmConnections",
+                    new Object[] { prewarmConnectionsAsString }), SQLError.SQL_STATE_ILLEGAL_ARGUMENT, null);
+        }
+
+        String prewarmValidateAfterAsString = this.localProps.getProperty("loadBalancePrewarmValidateAfter", "1000");
+        try {
+            this.prewarmValidateAfter = Integer.parseInt(prewarmValidateAfterAsString);
+        } catch (NumberFormatException nfe) {
+            throw SQLError.createSQLException(Messages.getString("LoadBalancedConnectionProxy.badValueForLoadBalancePrewarmValidateAfter",
+                    new Object[] { prewarmValidateAfterAsString }), SQLError.SQL_STATE_ILLEGAL_ARGUMENT, null);
+        }
+
         pickNewConnection();
+
+        for (String host : this.hostList) {
+            prewarmConnections(host);
+        }
     }
 
     /**
@@ -369,16 +414,220 @@ public class LoadBalancedConnectionProxy extends MultiHostConnectionProxy implem
      */
     @Override
     public synchronized ConnectionImpl createConnectionForHost(String hostPortSpec) throws SQLException {
-        ConnectionImpl conn = super.createConnectionForHost(hostPortSpec);
+        SQLException alreadyFailed = this.parallelConnectFailures.remove(hostPortSpec);
+        if (alreadyFailed != null) {
+            // tried moments ago, so that each round of the balance strategy connects to each host once, as many times as 'retriesAllDown' says
+            throw alreadyFailed;
+        }
+        this.parallelConnectFailures.clear();
+
+        String connectedHost = hostPortSpec;
+        ConnectionImpl conn = takeWarmConnection(hostPortSpec);
+
+        if (conn == null && this.parallelHostConnect) {
+            // the host asked for is tried first, the other hosts without a live connection too if it doesn't connect quickly
+            List<String> candidateHosts = new ArrayList<String>(this.hostList.size());
+            candidateHosts.add(hostPortSpec);
+
+            Map<String, Long> blacklist = getGlobalBlacklist();
+            for (String host : this.hostList) {
+                if (!candidateHosts.contains(host) && !this.liveConnections.containsKey(host) && !blacklist.containsKey(host)) {
+                    candidateHosts.add(host);
+                }
+            }
+
+            ParallelHostConnector connector = new ParallelHostConnector(this, candidateHosts, this.parallelHostConnectDelay);
+
+            try {
+                conn = connector.connect();
+                connectedHost = candidateHosts.get(connector.getConnectedHostIndex());
+            } catch (SQLException e) {
+                for (String failedHost : connector.getFailedHostPortSpecs()) {
+                    if (!failedHost.equals(hostPortSpec)) {
+                        this.parallelConnectFailures.put(failedHost, e);
+                    }
+                }
+                throw e;
+            } finally {
+                // the balance strategy deals with the host it asked for, unless it gets a connection to another one
+                for (String failedHost : connector.getFailedHostPortSpecs()) {
+                    if (!failedHost.equals(hostPortSpec) || !connectedHost.equals(hostPortSpec)) {
+                        addToGlobalBlacklist(failedHost);
+                    }
+                }
+            }
+
+            conn.setProxy(getProxy());
+        } else if (conn == null) {
+            conn = super.createConnectionForHost(hostPortSpec);
+        }
 
-        this.liveConnections.put(hostPortSpec, conn);
-        this.connectionsToHostsMap.put(conn, hostPortSpec);
+        this.liveConnections.put(connectedHost, conn);
+        this.connectionsToHostsMap.put(conn, connectedHost);
 
         this.totalPhysicalConnections++;
 
+        prewarmConnections(connectedHost);
+
         return conn;
     }
 
+    /**
+     * Hands out a connection to the given host established ahead of time, if there is one, bound to this proxy. Connections unused for longer than
+     * 'loadBalancePrewarmValidateAfter' milliseconds are pinged first, as the server may have dropped them meanwhile.
+     * 
+     * @param hostPortSpec
+     *            The host:port specification.
+     * @return
+     *         The connection, or null if there is none available.
+     */
+    private synchronized ConnectionImpl takeWarmConnection(String hostPortSpec) {
+        Queue<ConnectionImpl> warm = this.warmConnections.get(hostPortSpec);
+
+        if (warm != null) {
+            ConnectionImpl conn;
+
+            while ((conn = warm.poll()) != null) {
+                Long since = this.warmConnectionsSince.remove(conn);
+
+                if (conn.isClosed()) {
+                    continue;
+                }
+
+                if (since == null || System.currentTimeMillis() - since.longValue() >= this.prewarmValidateAfter) {
+                    try {
+                        int pingTimeout = conn.getLoadBalancePingTimeout();
+                        if (pingTimeout == 0) {
+                            conn.ping();
+                        } else {
+                            conn.pingInternal(true, pingTimeout);
+                        }
+                    } catch (SQLException e) {
+                        try {
+                            conn.close();
+                        } catch (SQLException ex) {
+                        }
+                        continue;
+                    }
+                }
+
+                conn.setProxy(getProxy());
+                return conn;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Starts establishing connections to the given host in the background, up to 'loadBalancePrewarmConnections' connections being kept ready for it.
+     * 
+     * @param hostPortSpec
+     *            The host:port specification.
+     */
+    private synchronized void prewarmConnections(final String hostPortSpec) {
+        if (this.prewarmConnectionsPerHost <= 0 || this.isClosed || this.hostsToRemove.contains(hostPortSpec) || getGlobalBlacklist().containsKey(hostPortSpec)) {
+            return;
+        }
+
+        Queue<ConnectionImpl> warm = this.warmConnections.get(hostPortSpec);
+        if (warm == null) {
+            warm = new LinkedList<ConnectionImpl>();
+            this.warmConnections.put(hostPortSpec, warm);
+        }
+
+        Integer pending = this.warmConnectionsPending.get(hostPortSpec);
+        int missing = this.prewarmConnectionsPerHost - warm.size() - (pending == null ? 0 : pending.intValue());
+
+        if (missing <= 0) {
+            return;
+        }
+
+        this.warmConnectionsPending.put(hostPortSpec, this.prewarmConnectionsPerHost - warm.size());
+
+        for (int i = 0; i < missing; i++) {
+            ParallelHostConnector.execute(new Runnable() {
+                public void run() {
+                    ConnectionImpl conn = null;
+                    SQLException exception = null;
+
+                    try {
+                        conn = createPhysicalConnection(hostPortSpec);
+                    } catch (SQLException e) {
+                        exception = e;
+                    }
+
+                    warmConnectionEstablished(hostPortSpec, conn, exception);
+                }
+            });
+        }
+    }
+
+    /**
+     * Keeps a connection established in the background by {@link #prewarmConnections(String)}, or records the failure to establish it.
+     * 
+     * @param hostPortSpec
+     *            The host:port specification.
+     * @param conn
+     *            The new connection, or null if it failed.
+     * @param exception
+     *            The error the connection failed with, if it did.
+     */
+    synchronized void warmConnectionEstablished(String hostPortSpec, ConnectionImpl conn, SQLException exception) {
+        Integer pending = this.warmConnectionsPending.get(hostPortSpec);
+        if (pending != null) {
+            if (pending.intValue() <= 1) {
+                this.warmConnectionsPending.remove(hostPortSpec);
+            } else {
+                this.warmConnectionsPending.put(hostPortSpec, pending.intValue() - 1);
+            }
+        }
+
+        if (conn == null) {
+            // not retried until the host is asked for again
+            if (exception != null && shouldExceptionTriggerConnectionSwitch(exception)) {
+                addToGlobalBlacklist(hostPortSpec);
+            }
+            return;
+        }
+
+        Queue<ConnectionImpl> warm = this.warmConnections.get(hostPortSpec);
+
+        if (this.isClosed || warm == null || this.hostsToRemove.contains(hostPortSpec)) {
+            try {
+                conn.close();
+            } catch (SQLException e) {
+            }
+            return;
+        }
+
+        warm.add(conn);
+        this.warmConnectionsSince.put(conn, Long.valueOf(System.currentTimeMillis()));
+    }
+
+    /**
+     * Closes the connections established ahead of time, for all hosts or the given one.
+     * 
+     * @param hostPortSpec
+     *            The host:port specification, or null for all hosts.
+     */
+    private synchronized void closeWarmConnections(String hostPortSpec) {
+        for (Iterator<Map.Entry<String, Queue<ConnectionImpl>>> i = this.warmConnections.entrySet().iterator(); i.hasNext();) {
+            Map.Entry<String, Queue<ConnectionImpl>> entry = i.next();
+
+            if (hostPortSpec == null || hostPortSpec.equals(entry.getKey())) {
+                for (ConnectionImpl c : entry.getValue()) {
+                    this.warmConnectionsSince.remove(c);
+                    try {
+                        c.close();
+                    } catch (SQLException e) {
+                    }
+                }
+                i.remove();
+            }
+        }
+    }
+
     /**
      * Closes all live connections.
      */
@@ -391,6 +640,8 @@ public class LoadBalancedConnectionProxy extends MultiHostConnectionProxy implem
             }
         }
 
+        closeWarmConnections(null);
+
         if (!this.isClosed) {
             this.balancer.destroy();
             if (this.connectionGroup != null) {
@@ -423,6 +674,8 @@ public class LoadBalancedConnectionProxy extends MultiHostConnectionProxy implem
             }
         }
 
+        closeWarmConnections(null);
+
         if (!this.isClosed) {
             this.balancer.destroy();
             if (this.connectionGroup != null) {
@@ -447,6 +700,8 @@ public class LoadBalancedConnectionProxy extends MultiHostConnectionProxy implem
             }
         }
 
+        closeWarmConnections(null);
+
         if (!this.isClosed) {
             this.balancer.destroy();
             if (this.connectionGroup != null) {
@@ -730,6 +985,8 @@ public class LoadBalancedConnectionProxy extends MultiHostConnectionProxy implem
 
         this.hostsToRemove.add(hostPortPair);
 
+        closeWarmConnections(hostPortPair);
+
         this.connectionsToHostsMap.remove(this.liveConnections.remove(hostPortPair));
         if (this.hostsToListIndexMap.remove(hostPortPair) != null) {
             long[] newResponseTimes = new long[this.responseTimes.length - 1];
@@ -773,6 +1030,8 @@ public class LoadBalancedConnectionProxy extends MultiHostConnectionProxy implem
         this.hostsToListIndexMap.put(hostPortPair, this.responseTimes.length - 1);
         this.hostsToRemove.remove(hostPortPair);
 
+        prewarmConnections(hostPortPair);
+
         return true;
     }
 
@@ -0,0 +1,222 @@
+/*
+  Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+
+  The MySQL Connector/J is licensed under the terms of the GPLv2
+  <http://www.gnu.org/licenses/old-licenses/gpl-2.0.html>, like most MySQL Connectors.
+  There are special exceptions to the terms and conditions of the GPLv2 as it is applied to
+  this software, see the FOSS License Exception
+  <http://www.mysql.com/about/legal/licensing/foss-exception.html>.
+
+  This program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU General Public License as published by the Free Software Foundation; version 2
+  of the License.
+
+  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this
+  program; if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth
+  Floor, Boston, MA 02110-1301  USA
+
+ */
+
+package com.mysql.jdbc;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Reads the data sent for a "LOAD DATA LOCAL INFILE" statement into packets, double-buffered: a driver thread reads the next packet from the source
+ * while the connection's thread sends the current one, so reading and writing overlap.
+ * 
+ * Packets are read straight into the byte arrays of the Buffers sent, after their header, without any intermediate copy.
+ */
+final class LocalInfileReader implements Runnable {
+    private static final ExecutorService readAheadExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "MySQL LOAD DATA LOCAL INFILE Reader");
+            t.setDaemon(true);
+            t.setContextClassLoader(LocalInfileReader.class.getClassLoader());
+            return t;
+        }
+    });
+
+    /** Marks the end of the data, or a failure to read it, in fullPackets, and asks the reader to stop in freePackets. */
+    private static final Buffer END_OF_DATA = new Buffer(new byte[0]);
+
+    private final ReadableByteChannel source;
+
+    private final int maxPayloadLength;
+
+    private final BlockingQueue<Buffer> freePackets;
+
+    private final BlockingQueue<Buffer> fullPackets;
+
+    /** Written by the reader thread before it queues END_OF_DATA; anything thrown while reading, so a failure is never taken for the end of the data. */
+    private Throwable failure;
+
+    private volatile boolean closed;
+
+    /**
+     * @param source
+     *            the data to send, read until end of stream
+     * @param packets
+     *            the packets to read the data into, each one with room for maxPayloadLength bytes after the header; at least two of them are needed to
+     *            overlap reading and sending
+     * @param maxPayloadLength
+     *            the maximum number of bytes of data sent in each packet
+     */
+    LocalInfileReader(ReadableByteChannel source, Buffer[] packets, int maxPayloadLength) {
+        this.source = source;
+        this.maxPayloadLength = maxPayloadLength;
+        this.freePackets = new ArrayBlockingQueue<Buffer>(packets.length + 1);
+        this.fullPackets = new ArrayBlockingQueue<Buffer>(packets.length + 1);
+
+        for (Buffer packet : packets) {
+            this.freePackets.add(packet);
+        }
+    }
+
+    /**
+     * Starts reading ahead on a driver thread.
+     */
+    void start() {
+        readAheadExecutor.execute(this);
+    }
+
+    public void run() {
+        try {
+            while (true) {
+                Buffer packet = this.freePackets.take();
+
+                if (packet == END_OF_DATA || this.closed) {
+                    return;
+                }
+
+                boolean endOfData = !fill(packet);
+
+                if (packet.getPosition() > MysqlIO.HEADER_LENGTH) {
+                    this.fullPackets.put(packet);
+                }
+
+                if (endOfData) {
+                    return;
+                }
+            }
+        } catch (InterruptedException ie) {
+            this.failure = new InterruptedIOException();
+        } catch (Throwable t) {
+            // also failures of the source that aren't IOExceptions, such as runtime exceptions from the rows of a LocalInfileRowChannel
+            this.failure = t;
+        } finally {
+            this.fullPackets.offer(END_OF_DATA);
+        }
+    }
+
+    /**
+     * Reads as much data as fits in the given packet.
+     * 
+     * @return false if the end of the data was reached
+     */
+    private boolean fill(Buffer packet) throws IOException {
+        ByteBuffer payload = ByteBuffer.wrap(packet.getByteBuffer(), MysqlIO.HEADER_LENGTH, this.maxPayloadLength);
+        boolean endOfData = false;
+
+        while (payload.hasRemaining() && !this.closed) {
+            if (this.source.read(payload) == -1) {
+                endOfData = true;
+                break;
+            }
+        }
+
+        packet.setPosition(payload.position());
+
+        return !endOfData;
+    }
+
+    /**
+     * Returns the next packet of data, positioned after its payload, to be handed back with {@link #release(Buffer)} once sent.
+     * 
+     * @return the next packet, or null at the end of the data
+     * @throws IOException
+     *             if reading the data failed, for whatever reason
+     */
+    Buffer next() throws IOException {
+        Buffer packet;
+
+        try {
+            packet = this.fullPackets.take();
+        } catch (InterruptedException ie) {
+            throw new InterruptedIOException();
+        }
+
+        if (packet == END_OF_DATA) {
+            this.fullPackets.offer(END_OF_DATA);
+
+            if (this.failure instanceof IOException) {
+                throw (IOException) this.failure;
+            } else if (this.failure != null) {
+                IOException ioEx = new IOException(this.failure.toString());
+                ioEx.initCause(this.failure);
+                throw ioEx;
+            }
+
+            return null;
+        }
+
+        return packet;
+    }
+
+    /**
+     * Hands a packet returned by {@link #next()} back to the reader thread, once sent.
+     */
+    void release(Buffer packet) {
+        this.freePackets.offer(packet);
+    }
+
+    /**
+     * Stops reading ahead and closes the source.
+     */
+    void close() throws IOException {
+        this.closed = true;
+        this.freePackets.offer(END_OF_DATA);
+        this.source.close();
+    }
+
+    /**
+     * Adapts an InputStream to a channel reading straight into the arrays of heap buffers, which is all this class reads into.
+     */
+    static ReadableByteChannel newChannel(final InputStream in) {
+        return new ReadableByteChannel() {
+            private boolean open = true;
+
+            public int read(ByteBuffer dst) throws IOException {
+                int bytesRead = in.read(dst.array(), dst.arrayOffset() + dst.position(), dst.remaining());
+
+                if (bytesRead > 0) {
+                    dst.position(dst.position() + bytesRead);
+                }
+
+                return bytesRead;
+            }
+
+            public boolean isOpen() {
+                return this.open;
+            }
+
+            public void close() throws IOException {
+                this.open = false;
+                in.close();
+            }
+        };
+    }
+}
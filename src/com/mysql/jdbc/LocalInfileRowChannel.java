@@ -0,0 +1,219 @@
+/*
+  Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+
+  The MySQL Connector/J is licensed under the terms of the GPLv2
+  <http://www.gnu.org/licenses/old-licenses/gpl-2.0.html>, like most MySQL Connectors.
+  There are special exceptions to the terms and conditions of the GPLv2 as it is applied to
+  this software, see the FOSS License Exception
+  <http://www.mysql.com/about/legal/licensing/foss-exception.html>.
+
+  This program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU General Public License as published by the Free Software Foundation; version 2
+  of the License.
+
+  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this
+  program; if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth
+  Floor, Boston, MA 02110-1301  USA
+
+ */
+
+package com.mysql.jdbc;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.util.Iterator;
+
+/**
+ * A channel producing the rows of an Iterator in the text format "LOAD DATA LOCAL INFILE" reads, to be given to
+ * {@link Statement#setLocalInfileChannel(ReadableByteChannel)} so rows can be bulk loaded as they are produced, without staging them in a file.
+ * 
+ * Rows are Object arrays, one element per column. Values are written with toString(), except NULLs, written as \N, Booleans, written as 1 or 0, and byte
+ * arrays, written as is. Fields are separated by the given terminator (a tab by default) and rows by a new line. The escape character (\), the field
+ * terminator, new lines, double quotes and NUL characters are escaped with a \, which matches the defaults of the statement, or:
+ * 
+ * <pre>
+ * LOAD DATA LOCAL INFILE 'rows' INTO TABLE t CHARACTER SET utf8 FIELDS TERMINATED BY ',' OPTIONALLY ENCLOSED BY '"' ESCAPED BY '\\' LINES TERMINATED BY '\n'
+ * </pre>
+ * 
+ * for comma separated values. The CHARACTER SET clause should name the character set of the encoding the channel is created with.
+ */
+public class LocalInfileRowChannel implements ReadableByteChannel {
+    private final Iterator<? extends Object[]> rows;
+
+    private final Charset charset;
+
+    private final byte fieldTerminator;
+
+    /** The encoded row not entirely read yet. */
+    private byte[] rowBytes = new byte[256];
+
+    private int rowPosition;
+
+    private int rowLength;
+
+    private boolean open = true;
+
+    /**
+     * Creates a channel for tab separated values.
+     * 
+     * @param rows
+     *            the rows to write
+     * @param encoding
+     *            the Java encoding of the character set of the data
+     */
+    public LocalInfileRowChannel(Iterator<? extends Object[]> rows, String encoding) {
+        this(rows, encoding, '\t');
+    }
+
+    /**
+     * @param rows
+     *            the rows to write
+     * @param encoding
+     *            the Java encoding of the character set of the data
+     * @param fieldTerminator
+     *            the character separating fields, which must be in the ASCII range and not \ or a new line
+     */
+    public LocalInfileRowChannel(Iterator<? extends Object[]> rows, String encoding, char fieldTerminator) {
+        if (fieldTerminator >= 0x80 || fieldTerminator == '\\' || fieldTerminator == '\n') {
+            throw new IllegalArgumentException("Invalid field terminator '" + fieldTerminator + "'");
+        }
+
+        this.rows = rows;
+        this.charset = Charset.forName(encoding);
+        this.fieldTerminator = (byte) fieldTerminator;
+    }
+
+    public int read(ByteBuffer dst) throws IOException {
+        if (!this.open) {
+            throw new ClosedChannelException();
+        }
+
+        int bytesRead = 0;
+
+        while (dst.hasRemaining()) {
+            if (this.rowPosition == this.rowLength) {
+                if (!this.rows.hasNext()) {
+                    break;
+                }
+
+                encodeRow(this.rows.next());
+            }
+
+            int length = Math.min(dst.remaining(), this.rowLength - this.rowPosition);
+            dst.put(this.rowBytes, this.rowPosition, length);
+            this.rowPosition += length;
+            bytesRead += length;
+        }
+
+        // nothing left to read into a buffer with room for it only at the end of the rows
+        return bytesRead == 0 && dst.hasRemaining() ? -1 : bytesRead;
+    }
+
+    public boolean isOpen() {
+        return this.open;
+    }
+
+    public void close() {
+        this.open = false;
+    }
+
+    private void encodeRow(Object[] row) {
+        this.rowPosition = 0;
+        this.rowLength = 0;
+
+        for (int i = 0; i < row.length; i++) {
+            if (i > 0) {
+                write(this.fieldTerminator);
+            }
+
+            Object value = row[i];
+
+            if (value == null) {
+                write((byte) '\\');
+                write((byte) 'N');
+            } else if (value instanceof byte[]) {
+                byte[] bytes = (byte[]) value;
+
+                for (int j = 0; j < bytes.length; j++) {
+                    writeEscaped(bytes[j]);
+                }
+            } else if (value instanceof Boolean) {
+                write(((Boolean) value).booleanValue() ? (byte) '1' : (byte) '0');
+            } else {
+                writeEscaped(value.toString());
+            }
+        }
+
+        write((byte) '\n');
+    }
+
+    private void writeEscaped(String value) {
+        int length = value.length();
+
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+
+            if (c >= 0x80) {
+                // not ASCII, escape the rest of the value as chars before encoding it
+                StringBuilder escaped = new StringBuilder(length - i + 16);
+
+                for (int j = i; j < length; j++) {
+                    c = value.charAt(j);
+
+                    if (c < 0x80 && needsEscaping((byte) c)) {
+                        escaped.append('\\').append(c == 0 ? '0' : c);
+                    } else {
+                        escaped.append(c);
+                    }
+                }
+
+                ByteBuffer encoded = this.charset.encode(CharBuffer.wrap(escaped));
+                ensureCapacity(encoded.remaining());
+                int encodedLength = encoded.remaining();
+                encoded.get(this.rowBytes, this.rowLength, encodedLength);
+                this.rowLength += encodedLength;
+
+                return;
+            }
+
+            writeEscaped((byte) c);
+        }
+    }
+
+    private void writeEscaped(byte b) {
+        if (needsEscaping(b)) {
+            write((byte) '\\');
+            write(b == 0 ? (byte) '0' : b);
+        } else {
+            write(b);
+        }
+    }
+
+    private boolean needsEscaping(byte b) {
+        return b == '\\' || b == this.fieldTerminator || b == '\n' || b == '"' || b == 0;
+    }
+
+    private void write(byte b) {
+        if (this.rowLength == this.rowBytes.length) {
+            ensureCapacity(1);
+        }
+
+        this.rowBytes[this.rowLength++] = b;
+    }
+
+    private void ensureCapacity(int additionalBytes) {
+        if (this.rowLength + additionalBytes > this.rowBytes.length) {
+            byte[] newRowBytes = new byte[Math.max(this.rowBytes.length * 2, this.rowLength + additionalBytes)];
+            System.arraycopy(this.rowBytes, 0, newRowBytes, 0, this.rowLength);
+            this.rowBytes = newRowBytes;
+        }
+    }
+}
@@ -322,6 +322,23 @@ public abstract class MultiHostConnectionProxy implements InvocationHandler {
      *         The new Connection instance.
      */
     synchronized ConnectionImpl createConnectionForHost(String hostPortSpec) throws SQLException {
+        ConnectionImpl conn = createPhysicalConnection(hostPortSpec);
+
+        conn.setProxy(getProxy());
+
+        return conn;
+    }
+
+    /**
+     * Creates a new physical connection for the given host:port, not yet bound to this proxy. Doesn't lock this proxy, so that connections can be
+     * established by other threads while it is in use.
+     * 
+     * @param hostPortSpec
+     *            The host:port specification.
+     * @return
+     *         The new Connection instance.
+     */
+    ConnectionImpl createPhysicalConnection(String hostPortSpec) throws SQLException {
         Properties connProps = (Properties) this.localProps.clone();
 
         String[] hostPortPair = NonRegisteringDriver.parseHostPortPair(hostPortSpec);
@@ -343,12 +360,8 @@ public abstract class MultiHostConnectionProxy implements InvocationHandler {
         connProps.setProperty(NonRegisteringDriver.NUM_HOSTS_PROPERTY_KEY, "1");
         connProps.setProperty("roundRobinLoadBalance", "false"); // make sure we don't pickup the default value
 
-        ConnectionImpl conn = (ConnectionImpl) ConnectionImpl.getInstance(hostName, Integer.parseInt(portNumber), connProps, dbName,
+        return (ConnectionImpl) ConnectionImpl.getInstance(hostName, Integer.parseInt(portNumber), connProps, dbName,
                 "jdbc:mysql://" + hostName + ":" + portNumber + "/");
-
-        conn.setProxy(getProxy());
-
-        return conn;
     }
 
     /**
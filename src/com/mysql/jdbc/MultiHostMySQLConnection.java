@@ -2495,6 +2495,174 @@ public class MultiHostMySQLConnection implements MySQLConnection {
         getActiveMySQLConnection().setEnableEscapeProcessing(flag);
     }
 
+    public boolean getUsePacketBufferArena() {
+        return getActiveMySQLConnection().getUsePacketBufferArena();
+    }
+
+    public void setUsePacketBufferArena(boolean flag) {
+        getActiveMySQLConnection().setUsePacketBufferArena(flag);
+    }
+
+    public int getPacketBufferArenaMaxRetainedSize() {
+        return getActiveMySQLConnection().getPacketBufferArenaMaxRetainedSize();
+    }
+
+    public void setPacketBufferArenaMaxRetainedSize(String value) throws SQLException {
+        getActiveMySQLConnection().setPacketBufferArenaMaxRetainedSize(value);
+    }
+
+    public int getCompressionLevel() {
+        return getActiveMySQLConnection().getCompressionLevel();
+    }
+
+    public void setCompressionLevel(int value) throws SQLException {
+        getActiveMySQLConnection().setCompressionLevel(value);
+    }
+
+    public String getCompressionStrategy() {
+        return getActiveMySQLConnection().getCompressionStrategy();
+    }
+
+    public void setCompressionStrategy(String value) {
+        getActiveMySQLConnection().setCompressionStrategy(value);
+    }
+
+    public boolean getAdaptiveCompression() {
+        return getActiveMySQLConnection().getAdaptiveCompression();
+    }
+
+    public void setAdaptiveCompression(boolean flag) {
+        getActiveMySQLConnection().setAdaptiveCompression(flag);
+    }
+
+    public boolean getPipelineServerPreparedBatches() {
+        return getActiveMySQLConnection().getPipelineServerPreparedBatches();
+    }
+
+    public void setPipelineServerPreparedBatches(boolean flag) {
+        getActiveMySQLConnection().setPipelineServerPreparedBatches(flag);
+    }
+
+    public int getServerPreparedBatchPipelineWindow() {
+        return getActiveMySQLConnection().getServerPreparedBatchPipelineWindow();
+    }
+
+    public void setServerPreparedBatchPipelineWindow(int value) throws SQLException {
+        getActiveMySQLConnection().setServerPreparedBatchPipelineWindow(value);
+    }
+
+    public boolean getCacheServerPreparedBatchedInserts() {
+        return getActiveMySQLConnection().getCacheServerPreparedBatchedInserts();
+    }
+
+    public void setCacheServerPreparedBatchedInserts(boolean flag) {
+        getActiveMySQLConnection().setCacheServerPreparedBatchedInserts(flag);
+    }
+
+    public boolean getEncodeParametersInPlace() {
+        return getActiveMySQLConnection().getEncodeParametersInPlace();
+    }
+
+    public void setEncodeParametersInPlace(boolean flag) {
+        getActiveMySQLConnection().setEncodeParametersInPlace(flag);
+    }
+
+    public boolean getUseFastDecimalParsing() {
+        return getActiveMySQLConnection().getUseFastDecimalParsing();
+    }
+
+    public void setUseFastDecimalParsing(boolean flag) {
+        getActiveMySQLConnection().setUseFastDecimalParsing(flag);
+    }
+
+    public boolean getUseFastJavaTimeDecoding() {
+        return getActiveMySQLConnection().getUseFastJavaTimeDecoding();
+    }
+
+    public void setUseFastJavaTimeDecoding(boolean flag) {
+        getActiveMySQLConnection().setUseFastJavaTimeDecoding(flag);
+    }
+
+    public boolean getPrefetchCursorRows() {
+        return getActiveMySQLConnection().getPrefetchCursorRows();
+    }
+
+    public void setPrefetchCursorRows(boolean flag) {
+        getActiveMySQLConnection().setPrefetchCursorRows(flag);
+    }
+
+    public int getCursorPrefetchWatermark() {
+        return getActiveMySQLConnection().getCursorPrefetchWatermark();
+    }
+
+    public void setCursorPrefetchWatermark(int value) throws SQLException {
+        getActiveMySQLConnection().setCursorPrefetchWatermark(value);
+    }
+
+    public int getResultSetMemoryBudget() {
+        return getActiveMySQLConnection().getResultSetMemoryBudget();
+    }
+
+    public void setResultSetMemoryBudget(String value) throws SQLException {
+        getActiveMySQLConnection().setResultSetMemoryBudget(value);
+    }
+
+    public boolean getTrackSessionState() {
+        return getActiveMySQLConnection().getTrackSessionState();
+    }
+
+    public void setTrackSessionState(boolean flag) {
+        getActiveMySQLConnection().setTrackSessionState(flag);
+    }
+
+    public boolean getUseResetConnection() {
+        return getActiveMySQLConnection().getUseResetConnection();
+    }
+
+    public void setUseResetConnection(boolean flag) {
+        getActiveMySQLConnection().setUseResetConnection(flag);
+    }
+
+    public boolean getUseFastBootstrap() {
+        return getActiveMySQLConnection().getUseFastBootstrap();
+    }
+
+    public void setUseFastBootstrap(boolean flag) {
+        getActiveMySQLConnection().setUseFastBootstrap(flag);
+    }
+
+    public boolean getParallelHostConnect() {
+        return getActiveMySQLConnection().getParallelHostConnect();
+    }
+
+    public void setParallelHostConnect(boolean flag) {
+        getActiveMySQLConnection().setParallelHostConnect(flag);
+    }
+
+    public int getParallelHostConnectDelay() {
+        return getActiveMySQLConnection().getParallelHostConnectDelay();
+    }
+
+    public void setParallelHostConnectDelay(int parallelHostConnectDelay) throws SQLException {
+        getActiveMySQLConnection().setParallelHostConnectDelay(parallelHostConnectDelay);
+    }
+
+    public int getLoadBalancePrewarmConnections() {
+        return getActiveMySQLConnection().getLoadBalancePrewarmConnections();
+    }
+
+    public void setLoadBalancePrewarmConnections(int loadBalancePrewarmConnections) throws SQLException {
+        getActiveMySQLConnection().setLoadBalancePrewarmConnections(loadBalancePrewarmConnections);
+    }
+
+    public int getLoadBalancePrewarmValidateAfter() {
+        return getActiveMySQLConnection().getLoadBalancePrewarmValidateAfter();
+    }
+
+    public void setLoadBalancePrewarmValidateAfter(int loadBalancePrewarmValidateAfter) throws SQLException {
+        getActiveMySQLConnection().setLoadBalancePrewarmValidateAfter(loadBalancePrewarmValidateAfter);
+    }
+
     public boolean isUseSSLExplicit() {
         return getActiveMySQLConnection().isUseSSLExplicit();
     }
@@ -52,6 +52,8 @@ public final class MysqlDefs {
 
     static final int COM_REGISTER_SLAVE = 21;
 
+    static final int COM_RESET_CONNECTION = 31;
+
     static final int COM_RESET_STMT = 26;
 
     static final int COM_SET_OPTION = 27;
@@ -41,6 +41,7 @@ import java.net.MalformedURLException;
 import java.net.Socket;
 import java.net.SocketException;
 import java.net.URL;
+import java.nio.channels.ReadableByteChannel;
 import java.security.NoSuchAlgorithmException;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -61,8 +62,10 @@ import com.mysql.jdbc.authentication.Sha256PasswordPlugin;
 import com.mysql.jdbc.exceptions.MySQLStatementCancelledException;
 import com.mysql.jdbc.exceptions.MySQLTimeoutException;
 import com.mysql.jdbc.log.LogUtils;
+import com.mysql.jdbc.profiler.LightweightProfilerEventHandler;
 import com.mysql.jdbc.profiler.ProfilerEvent;
 import com.mysql.jdbc.profiler.ProfilerEventHandler;
+import com.mysql.jdbc.profiler.StatementType;
 import com.mysql.jdbc.util.ReadAheadInputStream;
 import com.mysql.jdbc.util.ResultSetUtil;
 
@@ -74,6 +77,9 @@ public class MysqlIO {
     protected static final int NULL_LENGTH = ~0;
     protected static final int COMP_HEADER_LENGTH = 3;
     protected static final int MIN_COMPRESS_LEN = 50;
+    private static final int MAX_UNCOMPRESSIBLE_STREAK = 8; // failed attempts before 'adaptiveCompression' backs off
+    private static final int MIN_COMPRESSION_BACK_OFF = 16; // packets sent uncompressed after the first back off
+    private static final int MAX_COMPRESSION_BACK_OFF = 4096;
     protected static final int HEADER_LENGTH = 4;
     protected static final int AUTH_411_OVERHEAD = 33;
     public static final int SEED_LENGTH = 20;
@@ -109,10 +115,12 @@ public class MysqlIO {
     private static final int SERVER_QUERY_NO_INDEX_USED = 32;
     private static final int SERVER_QUERY_WAS_SLOW = 2048;
     private static final int SERVER_STATUS_CURSOR_EXISTS = 64;
+    private static final int SERVER_SESSION_STATE_CHANGED = 16384; // session state changes follow the info message of OK packets
     private static final String FALSE_SCRAMBLE = "xxxxxxxx";
     protected static final int MAX_QUERY_SIZE_TO_LOG = 1024; // truncate logging of queries at 1K
     protected static final int MAX_QUERY_SIZE_TO_EXPLAIN = 1024 * 1024; // don't explain queries above 1MB
     protected static final int INITIAL_PACKET_SIZE = 1024;
+    protected static final int MAX_POOLED_PACKET_SIZE = 1024 * 1024; // same limit as reclaimLargeReusablePacket()
     /**
      * We store the platform 'encoding' here, only used to avoid munging filenames for LOAD DATA LOCAL INFILE...
      */
@@ -158,12 +166,31 @@ public class MysqlIO {
     //
     private Buffer reusablePacket = null;
     private Buffer sendPacket = null;
+
+    //
+    // Per-connection source of recycled packet buffers, null unless 'usePacketBufferArena' is set
+    //
+    private PacketBufferArena packetBufferArena = null;
+    private Buffer slicedFieldPacket = null;
     private Buffer sharedSendPacket = null;
 
     /** Data to the server */
     protected BufferedOutputStream mysqlOutput = null;
     protected MySQLConnection connection;
     private Deflater deflater = null;
+
+    //
+    // Compressed packets are deflated into this buffer, right after the space reserved for their headers
+    //
+    private Buffer compressedSendPacket = null;
+
+    //
+    // State of the 'adaptiveCompression' back off
+    //
+    private boolean adaptiveCompression = false;
+    private int uncompressibleStreak = 0;
+    private int compressionSkipsLeft = 0;
+    private int compressionBackOff = MIN_COMPRESSION_BACK_OFF;
     protected InputStream mysqlInput = null;
     private LinkedList<StringBuilder> packetDebugRingBuffer = null;
     private RowData streamingData = null;
@@ -177,7 +204,7 @@ public class MysqlIO {
     //
     // We use a SoftReference, so that we don't penalize intermittent use of this feature
     //
-    private SoftReference<Buffer> loadFileBufRef;
+    private SoftReference<Buffer[]> loadFileBufRef;
 
     //
     // Used to send large packets to the server versions 4+
@@ -229,6 +256,7 @@ public class MysqlIO {
     private int serverStatus = 0;
     private int serverSubMinorVersion = 0;
     private int warningCount = 0;
+    private SessionStateTracker sessionStateTracker = null;
     protected long clientParam = 0;
     protected long lastPacketSentTimeMs = 0;
     protected long lastPacketReceivedTimeMs = 0;
@@ -241,6 +269,10 @@ public class MysqlIO {
     private boolean useNanosForElapsedTime;
     private long slowQueryThreshold;
     private String queryTimingUnits;
+    private LightweightProfilerEventHandler lightweightEventSink;
+    private boolean lightweightEventSinkResolved = false;
+    private int pipelinedCommandsOutstanding = 0;
+    private RowDataCursor prefetchingCursor = null;
     private boolean useDirectRowUnpack = true;
     private int useBufferRowSizeThreshold;
     private int commandCount = 0;
@@ -289,6 +321,11 @@ public class MysqlIO {
         this.reusablePacket = new Buffer(INITIAL_PACKET_SIZE);
         this.sendPacket = new Buffer(INITIAL_PACKET_SIZE);
 
+        if (this.connection.getUsePacketBufferArena()) {
+            this.packetBufferArena = new PacketBufferArena(this.connection.getPacketBufferArenaMaxRetainedSize(), MAX_POOLED_PACKET_SIZE);
+            this.slicedFieldPacket = new Buffer(0);
+        }
+
         this.port = port;
         this.host = host;
 
@@ -414,7 +451,7 @@ public class MysqlIO {
             for (int i = 0; i < columnCount; i++) {
                 Buffer fieldPacket = null;
 
-                fieldPacket = readPacket();
+                fieldPacket = readFieldPacket();
                 fields[i] = unpackField(fieldPacket, false);
             }
         } else {
@@ -467,7 +504,12 @@ public class MysqlIO {
         RowData rowData = null;
 
         if (!streamResults) {
-            rowData = readSingleRowSet(columnCount, maxRows, resultSetConcurrency, isBinaryEncoded, (metadataFromCache == null) ? fields : metadataFromCache);
+            // the rows of updatable result sets are modified in place, so they can't be spilled
+            int memoryBudget = resultSetConcurrency == ResultSet.CONCUR_UPDATABLE ? 0
+                    : callingStatement != null ? callingStatement.getResultSetMemoryBudget() : this.connection.getResultSetMemoryBudget();
+
+            rowData = readSingleRowSet(columnCount, maxRows, resultSetConcurrency, isBinaryEncoded, (metadataFromCache == null) ? fields : metadataFromCache,
+                    memoryBudget);
         } else {
             rowData = new RowDataDynamic(this, (int) columnCount, (metadataFromCache == null) ? fields : metadataFromCache, isBinaryEncoded);
             this.streamingData = rowData;
@@ -495,6 +537,10 @@ public class MysqlIO {
             this.mysqlConnection = null;
             this.mysqlInput = null;
             this.mysqlOutput = null;
+
+            if (this.packetBufferArena != null) {
+                this.packetBufferArena.clear();
+            }
         }
     }
 
@@ -562,6 +608,29 @@ public class MysqlIO {
      * @throws CommunicationsException
      */
     protected final Buffer readPacket() throws SQLException {
+        return readPacket(null);
+    }
+
+    /**
+     * Read one column definition packet from the MySQL server. The returned packet may be a shared instance, backed by a slab of the packet buffer arena, so
+     * it is only valid until the next call, although the bytes it points to are never overwritten.
+     * 
+     * @return the packet from the server.
+     * 
+     * @throws SQLException
+     */
+    protected final Buffer readFieldPacket() throws SQLException {
+        if (this.packetBufferArena == null || this.traceProtocol || this.enablePacketDebug) {
+            return readPacket(null);
+        }
+
+        return readPacket(this.slicedFieldPacket);
+    }
+
+    /**
+     * Read one packet from the MySQL server, either into a new byte array or into a slab region the given packet is pointed at.
+     */
+    private Buffer readPacket(Buffer slicedPacket) throws SQLException {
         try {
 
             int lengthRead = readFully(this.mysqlInput, this.packetHeaderBuf, 0, 4);
@@ -601,14 +670,28 @@ public class MysqlIO {
             this.readPacketSequence = multiPacketSeq;
 
             // Read data
-            byte[] buffer = new byte[packetLength];
-            int numBytesRead = readFully(this.mysqlInput, buffer, 0, packetLength);
+            Buffer packet;
 
-            if (numBytesRead != packetLength) {
-                throw new IOException("Short read, expected " + packetLength + " bytes, only read " + numBytesRead);
-            }
+            if (slicedPacket != null) {
+                this.packetBufferArena.slice(slicedPacket, packetLength);
 
-            Buffer packet = new Buffer(buffer);
+                int numBytesRead = readFully(this.mysqlInput, slicedPacket.getByteBuffer(), slicedPacket.getPosition(), packetLength);
+
+                if (numBytesRead != packetLength) {
+                    throw new IOException("Short read, expected " + packetLength + " bytes, only read " + numBytesRead);
+                }
+
+                packet = slicedPacket;
+            } else {
+                byte[] buffer = new byte[packetLength];
+                int numBytesRead = readFully(this.mysqlInput, buffer, 0, packetLength);
+
+                if (numBytesRead != packetLength) {
+                    throw new IOException("Short read, expected " + packetLength + " bytes, only read " + numBytesRead);
+                }
+
+                packet = new Buffer(buffer);
+            }
 
             if (this.traceProtocol) {
                 StringBuilder traceMessageBuf = new StringBuilder();
@@ -776,6 +859,11 @@ public class MysqlIO {
     }
 
     protected boolean isSetNeededForAutoCommitMode(boolean autoCommitFlag) {
+        if (this.sessionStateTracker != null) {
+            // the servers that track session state keep the autocommit status flag accurate
+            return ((this.serverStatus & SERVER_STATUS_AUTOCOMMIT) != 0) != autoCommitFlag;
+        }
+
         if (this.use41Extensions && this.connection.getElideSetAutoCommits()) {
             boolean autoCommitModeOnServer = ((this.serverStatus & SERVER_STATUS_AUTOCOMMIT) != 0);
 
@@ -792,6 +880,15 @@ public class MysqlIO {
         return true;
     }
 
+    /**
+     * Tells whether the status of the last OK packet read has the server in autocommit mode.
+     * 
+     * @return true if autocommit is on for the session
+     */
+    boolean isAutoCommitOnServer() {
+        return (this.serverStatus & SERVER_STATUS_AUTOCOMMIT) != 0;
+    }
+
     protected boolean inTransactionOnServer() {
         return (this.serverStatus & SERVER_STATUS_IN_TRANS) != 0;
     }
@@ -806,6 +903,13 @@ public class MysqlIO {
      * @throws SQLException
      */
     protected void changeUser(String userName, String password, String database) throws SQLException {
+        readPrefetchedCursorRows();
+
+        if (this.sessionStateTracker != null) {
+            // the new session starts from the defaults of the server
+            this.sessionStateTracker.clear();
+        }
+
         this.packetSequence = -1;
         this.compressedPacketSequence = -1;
 
@@ -860,6 +964,24 @@ public class MysqlIO {
         }
     }
 
+    /**
+     * Resets the session with COM_RESET_CONNECTION, keeping the user and the default schema, without re-authenticating. Requires MySQL 5.7.3 or newer.
+     * 
+     * @throws SQLException
+     */
+    void resetConnection() throws SQLException {
+        if (this.sessionStateTracker != null) {
+            // the session starts over from the defaults of the server
+            this.sessionStateTracker.clear();
+        }
+
+        Buffer okPacket = sendCommand(MysqlDefs.COM_RESET_CONNECTION, null, null, false, null, 0);
+
+        okPacket.newReadLength(); // affected rows
+        okPacket.newReadLength(); // last insert id
+        this.serverStatus = okPacket.readInt();
+    }
+
     /**
      * Checks for errors in the reply packet, and if none, returns the reply
      * packet, ready for reading
@@ -893,6 +1015,11 @@ public class MysqlIO {
     }
 
     protected void clearInputStream() throws SQLException {
+        if (this.pipelinedCommandsOutstanding > 0) {
+            // what is buffered are the responses to the pipelined commands
+            return;
+        }
+
         try {
             int len;
 
@@ -1210,9 +1337,9 @@ public class MysqlIO {
             this.clientParam |= CLIENT_INTERACTIVE;
         }
 
-        if ((this.serverCapabilities & CLIENT_SESSION_TRACK) != 0) {
-            // TODO MYSQLCONNJ-437
-            // this.clientParam |= CLIENT_SESSION_TRACK;
+        if ((this.serverCapabilities & CLIENT_SESSION_TRACK) != 0 && this.connection.getTrackSessionState()) {
+            this.clientParam |= CLIENT_SESSION_TRACK;
+            this.sessionStateTracker = new SessionStateTracker();
         }
 
         if ((this.serverCapabilities & CLIENT_DEPRECATE_EOF) != 0) {
@@ -1364,8 +1491,7 @@ public class MysqlIO {
         // Can't enable compression until after handshake
         //
         if (((this.serverCapabilities & CLIENT_COMPRESS) != 0) && this.connection.getUseCompression() && !(this.mysqlInput instanceof CompressedInputStream)) {
-            // The following matches with ZLIB's compress()
-            this.deflater = new Deflater();
+            this.deflater = createDeflater();
             this.useCompression = true;
             this.mysqlInput = new CompressedInputStream(this.connection, this.mysqlInput);
         }
@@ -1885,8 +2011,7 @@ public class MysqlIO {
         // Can't enable compression until after handshake
         //
         if (((this.serverCapabilities & CLIENT_COMPRESS) != 0) && this.connection.getUseCompression() && !(this.mysqlInput instanceof CompressedInputStream)) {
-            // The following matches with ZLIB's compress()
-            this.deflater = new Deflater();
+            this.deflater = createDeflater();
             this.useCompression = true;
             this.mysqlInput = new CompressedInputStream(this.connection, this.mysqlInput);
         }
@@ -2058,6 +2183,29 @@ public class MysqlIO {
         return null;
     }
 
+    /**
+     * Reads the next text protocol row of a result set into the reusable packet, without unpacking it into a ResultSetRow. Like nextRow(), this method is
+     * not thread-safe.
+     * 
+     * @return the reusable packet positioned at the first column value, which is only valid until the next packet is read, or null if there are no more
+     *         rows
+     * @throws SQLException
+     */
+    final Buffer nextRowPacket() throws SQLException {
+        Buffer rowPacket = checkErrorPacket();
+
+        // Didn't read an error, so re-position to beginning of packet in order to read result set data
+        rowPacket.setPosition(rowPacket.getPosition() - 1);
+
+        if (!(!isEOFDeprecated() && rowPacket.isEOFPacket() || isEOFDeprecated() && rowPacket.isResultSetOKPacket())) {
+            return rowPacket;
+        }
+
+        readServerStatusForResultSets(rowPacket);
+
+        return null;
+    }
+
     final ResultSetRow nextRowFast(Field[] fields, int columnCount, boolean isBinaryEncoded, int resultSetConcurrency, boolean useBufferRowIfPossible,
             boolean useBufferRowExplicit, boolean canReuseRowPacket) throws SQLException {
         try {
@@ -2240,6 +2388,9 @@ public class MysqlIO {
         try {
             // we're not going to read the response, fixes BUG#56979 Improper connection closing logic leads to TIME_WAIT sockets on server
 
+            // rows of a COM_FETCH sent ahead of time must be out of the way before anything else is written
+            readPrefetchedCursorRows();
+
             try {
                 if (!this.mysqlConnection.isClosed()) {
                     try {
@@ -2424,6 +2575,8 @@ public class MysqlIO {
 
     final Buffer sendCommand(int command, String extraData, Buffer queryPacket, boolean skipCheck, String extraDataCharEncoding, int timeoutMillis)
             throws SQLException {
+        readPrefetchedCursorRows();
+
         this.commandCount++;
 
         //
@@ -2549,6 +2702,195 @@ public class MysqlIO {
         }
     }
 
+    /**
+     * Prepares for sending several commands before reading their responses. Fails like {@link #sendCommand(int, String, Buffer, boolean, String, int)}
+     * when a streaming result set is still open.
+     * 
+     * @throws SQLException
+     */
+    final void beginPipelinedCommands() throws SQLException {
+        this.enablePacketDebug = this.connection.getEnablePacketDebug();
+
+        readPrefetchedCursorRows();
+        checkForOutstandingStreamingData();
+        clearInputStream();
+
+        this.pipelinedCommandsOutstanding = 0;
+    }
+
+    /**
+     * Ends pipelining, whether or not all responses were read. Must be called once the pipelined commands are done with.
+     */
+    final void endPipelinedCommands() {
+        this.pipelinedCommandsOutstanding = 0;
+    }
+
+    /**
+     * Writes a command packet without waiting for its response. The packet is not flushed, so the output buffer collects consecutive commands; it is
+     * written to the socket when full or by {@link #flushPipelinedCommands()}. Exactly one {@link #readPipelinedResponse(int)} must follow for every
+     * command sent, in order, before any other command is issued on this connection.
+     * 
+     * @param packet
+     *            the command packet, as built for sendCommand()
+     * @throws SQLException
+     */
+    final void sendPipelinedCommand(Buffer packet) throws SQLException {
+        this.commandCount++;
+
+        this.packetSequence = -1;
+        this.compressedPacketSequence = -1;
+
+        try {
+            send(packet, packet.getPosition(), false);
+
+            this.pipelinedCommandsOutstanding++;
+        } catch (SQLException sqlEx) {
+            preserveOldTransactionState();
+            throw sqlEx;
+        }
+    }
+
+    /**
+     * Writes all pipelined commands still held in the output buffer to the socket.
+     * 
+     * @throws SQLException
+     */
+    final void flushPipelinedCommands() throws SQLException {
+        try {
+            this.mysqlOutput.flush();
+        } catch (IOException ioEx) {
+            preserveOldTransactionState();
+            throw SQLError.createCommunicationsException(this.connection, this.lastPacketSentTimeMs, this.lastPacketReceivedTimeMs, ioEx,
+                    getExceptionInterceptor());
+        }
+    }
+
+    /**
+     * Reads the first packet of the response to the oldest pipelined command not yet answered.
+     * 
+     * @param command
+     *            the command the response belongs to
+     * @return the response packet
+     * @throws SQLException
+     *             if the server answered with an error, the response of the next command can still be read
+     */
+    final Buffer readPipelinedResponse(int command) throws SQLException {
+        beginPipelinedResponse();
+
+        try {
+            return checkErrorPacket(command);
+        } catch (SQLException sqlEx) {
+            preserveOldTransactionState();
+            throw sqlEx;
+        }
+    }
+
+    /**
+     * Resets the per-command state before reading the response to the oldest pipelined command not yet answered, like sendCommand() does before
+     * sending a command.
+     */
+    private void beginPipelinedResponse() {
+        this.oldServerStatus = this.serverStatus;
+        this.serverStatus = 0;
+        this.hadWarnings = false;
+        this.warningCount = 0;
+
+        this.queryNoIndexUsed = false;
+        this.queryBadIndexUsed = false;
+        this.serverQueryWasSlow = false;
+
+        this.readPacketSequence = 0;
+        this.packetSequenceReset = true;
+
+        // the response is consumed even if it turns out to be an error
+        this.pipelinedCommandsOutstanding--;
+    }
+
+    /**
+     * Returns how many bytes of pipelined commands can be outstanding without the writer having to wait for the server to read them.
+     */
+    final int getPipelineByteLimit() {
+        try {
+            return Math.max(this.mysqlConnection.getSendBufferSize(), 16384);
+        } catch (SocketException e) {
+            return 16384;
+        }
+    }
+
+    /**
+     * Sends several queries in one go and reads their results in order, so they cost a single round trip. Statement interceptors, statement comments
+     * and query logging are bypassed, this is only meant for the driver's own queries.
+     *
+     * @param queries
+     *            the queries to send
+     * @param characterEncoding
+     *            the encoding to send the queries in, or null
+     * @param catalog
+     *            the current catalog
+     * @return the results of the queries, in the order they were given
+     * @throws SQLException
+     *             the first error any of the queries failed with, once all the responses are read
+     */
+    final ResultSetInternalMethods[] sqlQueriesPipelined(String[] queries, String characterEncoding, String catalog) throws SQLException {
+        ResultSetInternalMethods[] results = new ResultSetInternalMethods[queries.length];
+        SQLException sqlEx = null;
+
+        beginPipelinedCommands();
+
+        try {
+            for (String query : queries) {
+                Buffer queryPacket = getSharedSendPacket();
+                queryPacket.clear();
+
+                queryPacket.writeByte((byte) MysqlDefs.QUERY);
+
+                if (characterEncoding != null) {
+                    try {
+                        queryPacket.writeStringNoNull(query, characterEncoding, this.connection.getServerCharset(), this.connection.parserKnowsUnicode(),
+                                this.connection);
+                    } catch (UnsupportedEncodingException e) {
+                        throw SQLError.createSQLException("Unsupported character encoding '" + characterEncoding + "'.",
+                                SQLError.SQL_STATE_INVALID_CONNECTION_ATTRIBUTE, e, getExceptionInterceptor());
+                    }
+                } else {
+                    queryPacket.writeStringNoNull(query);
+                }
+
+                sendPipelinedCommand(queryPacket);
+            }
+
+            flushPipelinedCommands();
+
+            for (int i = 0; i < queries.length; i++) {
+                try {
+                    Buffer resultPacket = readPipelinedResponse(MysqlDefs.QUERY);
+
+                    results[i] = readAllResults(null, -1, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY, false, catalog, resultPacket, false,
+                            -1L, null);
+                } catch (SQLException ex) {
+                    String sqlState = ex.getSQLState();
+
+                    if (sqlState != null && sqlState.startsWith("08")) {
+                        // the connection is gone, the remaining responses will never arrive
+                        throw ex;
+                    }
+
+                    if (sqlEx == null) {
+                        sqlEx = ex;
+                    }
+                }
+            }
+        } finally {
+            endPipelinedCommands();
+        }
+
+        if (sqlEx != null) {
+            throw sqlEx;
+        }
+
+        return results;
+    }
+
     private int statementExecutionDepth = 0;
     private boolean useAutoSlowLog;
 
@@ -2686,12 +3028,14 @@ public class MysqlIO {
 
             boolean queryWasSlow = false;
 
+            LightweightProfilerEventHandler lightweightSink = this.profileSql ? getLightweightEventSink() : null;
+
             if (this.profileSql || this.logSlowQueries) {
                 queryEndTime = getCurrentTimeNanosOrMillis();
 
                 boolean shouldExtractQuery = false;
 
-                if (this.profileSql) {
+                if (this.profileSql && lightweightSink == null) {
                     shouldExtractQuery = true;
                 } else if (this.logSlowQueries) {
                     long queryTime = queryEndTime - queryStartTime;
@@ -2707,7 +3051,8 @@ public class MysqlIO {
                     }
 
                     if (logSlow) {
-                        shouldExtractQuery = true;
+                        // the lightweight profiler only counts slow queries, the text is needed for EXPLAIN only
+                        shouldExtractQuery = lightweightSink == null || this.connection.getExplainSlowQueries();
                         queryWasSlow = true;
                     }
                 }
@@ -2736,7 +3081,18 @@ public class MysqlIO {
             ResultSetInternalMethods rs = readAllResults(callingStatement, maxRows, resultSetType, resultSetConcurrency, streamResults, catalog, resultPacket,
                     false, -1L, cachedMetadata);
 
-            if (queryWasSlow && !this.serverQueryWasSlow /* don't log slow queries twice */) {
+            if (queryWasSlow && !this.serverQueryWasSlow /* don't log slow queries twice */ && lightweightSink != null) {
+                lightweightSink.recordEvent(ProfilerEvent.TYPE_SLOW_QUERY, StatementType.of(queryBuf, 5, oldPacketPosition),
+                        elapsedTimeToNanos(queryEndTime - queryStartTime));
+
+                if (this.connection.getExplainSlowQueries()) {
+                    if (oldPacketPosition < MAX_QUERY_SIZE_TO_EXPLAIN) {
+                        explainSlowQuery(queryPacket.getBytes(5, (oldPacketPosition - 5)), profileQueryToLog);
+                    } else {
+                        this.connection.getLog().logWarn(Messages.getString("MysqlIO.28") + MAX_QUERY_SIZE_TO_EXPLAIN + Messages.getString("MysqlIO.29"));
+                    }
+                }
+            } else if (queryWasSlow && !this.serverQueryWasSlow /* don't log slow queries twice */) {
                 StringBuilder mesgBuf = new StringBuilder(48 + profileQueryToLog.length());
 
                 mesgBuf.append(Messages.getString("MysqlIO.SlowQuery",
@@ -2760,7 +3116,12 @@ public class MysqlIO {
                 }
             }
 
-            if (this.logSlowQueries) {
+            if (this.logSlowQueries && lightweightSink != null) {
+                if (this.serverQueryWasSlow) {
+                    lightweightSink.recordEvent(ProfilerEvent.TYPE_SLOW_QUERY, StatementType.of(queryBuf, 5, oldPacketPosition),
+                            elapsedTimeToNanos(queryEndTime - queryStartTime));
+                }
+            } else if (this.logSlowQueries) {
 
                 ProfilerEventHandler eventSink = ProfilerEventHandlerFactory.getInstance(this.connection);
 
@@ -2786,7 +3147,13 @@ public class MysqlIO {
                 }
             }
 
-            if (this.profileSql) {
+            if (lightweightSink != null) {
+                fetchEndTime = getCurrentTimeNanosOrMillis();
+
+                lightweightSink.recordEvent(ProfilerEvent.TYPE_QUERY, StatementType.of(queryBuf, 5, oldPacketPosition),
+                        elapsedTimeToNanos(queryEndTime - queryStartTime));
+                lightweightSink.recordEvent(ProfilerEvent.TYPE_FETCH, StatementType.OTHER, elapsedTimeToNanos(fetchEndTime - fetchBeginTime));
+            } else if (this.profileSql) {
                 fetchEndTime = getCurrentTimeNanosOrMillis();
 
                 ProfilerEventHandler eventSink = ProfilerEventHandlerFactory.getInstance(this.connection);
@@ -2916,6 +3283,28 @@ public class MysqlIO {
         return System.currentTimeMillis();
     }
 
+    /**
+     * Converts a difference of two {@link #getCurrentTimeNanosOrMillis()} readings to nanoseconds.
+     */
+    long elapsedTimeToNanos(long elapsed) {
+        return this.useNanosForElapsedTime ? elapsed : elapsed * 1000000L;
+    }
+
+    /**
+     * Returns the profiler event handler of the connection if it can record timing events without a ProfilerEvent being built, null otherwise. The
+     * handler is looked up once, so that profiled statements don't go through the synchronized factory on every execution.
+     */
+    LightweightProfilerEventHandler getLightweightEventSink() throws SQLException {
+        if (!this.lightweightEventSinkResolved) {
+            ProfilerEventHandler eventSink = ProfilerEventHandlerFactory.getInstance(this.connection);
+
+            this.lightweightEventSink = eventSink instanceof LightweightProfilerEventHandler ? (LightweightProfilerEventHandler) eventSink : null;
+            this.lightweightEventSinkResolved = true;
+        }
+
+        return this.lightweightEventSink;
+    }
+
     /**
      * Returns the host this IO is connected to
      */
@@ -3175,12 +3564,16 @@ public class MysqlIO {
                     this.hadWarnings = true; // this is a 'latch', it's reset by sendCommand()
                 }
 
-                resultPacket.readByte(); // advance pointer
+                if (this.sessionStateTracker != null) {
+                    info = readOkPacketTrailer(resultPacket);
+                } else {
+                    resultPacket.readByte(); // advance pointer
+                }
 
                 setServerSlowQueryFlags();
             }
 
-            if (this.connection.isReadInfoMsgEnabled()) {
+            if (this.sessionStateTracker == null && this.connection.isReadInfoMsgEnabled()) {
                 info = resultPacket.readString(this.connection.getErrorMessageEncoding(), getExceptionInterceptor());
             }
         } catch (Exception ex) {
@@ -3200,6 +3593,45 @@ public class MysqlIO {
         return (com.mysql.jdbc.ResultSetImpl) updateRs;
     }
 
+    /**
+     * Reads the end of an OK packet when CLIENT_SESSION_TRACK was negotiated: the info message is then length-encoded, and followed by the session state
+     * changes when the server status says so.
+     * 
+     * @param okPacket
+     *            the OK packet, positioned after the warning count
+     * @return the info message, or null if it isn't read
+     * @throws SQLException
+     */
+    private String readOkPacketTrailer(Buffer okPacket) throws SQLException {
+        if (okPacket.getPosition() >= okPacket.getBufLength()) {
+            return null;
+        }
+
+        String info = null;
+        int infoLength = (int) okPacket.newReadLength();
+
+        if (this.connection.isReadInfoMsgEnabled()) {
+            info = okPacket.readString(this.connection.getErrorMessageEncoding(), getExceptionInterceptor(), infoLength);
+        } else {
+            okPacket.setPosition(okPacket.getPosition() + infoLength);
+        }
+
+        if ((this.serverStatus & SERVER_SESSION_STATE_CHANGED) != 0) {
+            this.sessionStateTracker.readStateChanges(okPacket, getExceptionInterceptor());
+        }
+
+        return info;
+    }
+
+    /**
+     * Returns the session state reported by the server.
+     * 
+     * @return the mirrored session state, or null if session state tracking wasn't negotiated
+     */
+    SessionStateTracker getSessionStateTracker() {
+        return this.sessionStateTracker;
+    }
+
     private void setServerSlowQueryFlags() {
         this.queryBadIndexUsed = (this.serverStatus & SERVER_QUERY_NO_GOOD_INDEX_USED) != 0;
         this.queryNoIndexUsed = (this.serverStatus & SERVER_QUERY_NO_INDEX_USED) != 0;
@@ -3224,60 +3656,135 @@ public class MysqlIO {
     }
 
     /**
+     * Creates the deflater for compressing packets sent to the server, as configured by 'compressionLevel' and 'compressionStrategy'.
+     */
+    private Deflater createDeflater() {
+        // With the defaults, the following matches with ZLIB's compress()
+        Deflater newDeflater = new Deflater(this.connection.getCompressionLevel());
+
+        String strategy = this.connection.getCompressionStrategy();
+
+        if (ConnectionPropertiesImpl.COMPRESSION_STRATEGY_FILTERED.equalsIgnoreCase(strategy)) {
+            newDeflater.setStrategy(Deflater.FILTERED);
+        } else if (ConnectionPropertiesImpl.COMPRESSION_STRATEGY_HUFFMAN_ONLY.equalsIgnoreCase(strategy)) {
+            newDeflater.setStrategy(Deflater.HUFFMAN_ONLY);
+        }
+
+        this.adaptiveCompression = this.connection.getAdaptiveCompression();
+
+        return newDeflater;
+    }
+
+    /**
+     * Should the next packet be run through the deflater, or is 'adaptiveCompression' backing off?
+     */
+    private boolean shouldTryToCompress() {
+        if (this.compressionSkipsLeft > 0) {
+            this.compressionSkipsLeft--;
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Keeps track of packets that failed to shrink, so that 'adaptiveCompression' can stop wasting CPU on them for a while.
+     */
+    private void compressionAttempted(boolean shrunk) {
+        if (!this.adaptiveCompression) {
+            return;
+        }
+
+        if (shrunk) {
+            this.uncompressibleStreak = 0;
+            this.compressionBackOff = MIN_COMPRESSION_BACK_OFF;
+        } else if (++this.uncompressibleStreak >= MAX_UNCOMPRESSIBLE_STREAK) {
+            // back off, and back off longer the next time if the following attempt doesn't shrink either
+            this.compressionSkipsLeft = this.compressionBackOff;
+            this.compressionBackOff = Math.min(this.compressionBackOff * 2, MAX_COMPRESSION_BACK_OFF);
+            this.uncompressibleStreak = MAX_UNCOMPRESSIBLE_STREAK - 1;
+        }
+    }
+
+    /**
+     * Wraps a MySQL packet into a compressed packet. The payload is deflated directly into a reused buffer, after the space reserved for the compressed
+     * packet header, and it's sent uncompressed if it doesn't shrink.
+     * 
      * @param packet
      *            original uncompressed MySQL packet
      * @param offset
      *            begin of MySQL packet header
      * @param packetLen
      *            real length of packet
-     * @return compressed packet with header
+     * @return compressed packet with header, only valid until the next call
      * @throws SQLException
      */
     private Buffer compressPacket(Buffer packet, int offset, int packetLen) throws SQLException {
+        final int payloadStart = HEADER_LENGTH + COMP_HEADER_LENGTH;
+
+        Buffer compressedPacket = this.compressedSendPacket;
+
+        if (compressedPacket == null || compressedPacket.getCapacity() < payloadStart + packetLen) {
+            compressedPacket = new Buffer(Math.max(payloadStart + packetLen, INITIAL_PACKET_SIZE));
+            this.compressedSendPacket = compressedPacket;
+        }
+
+        byte[] compressedBytes = compressedPacket.getByteBuffer();
 
         // uncompressed payload by default
         int compressedLength = packetLen;
         int uncompressedLength = 0;
-        byte[] compressedBytes = null;
-        int offsetWrite = offset;
-
-        if (packetLen < MIN_COMPRESS_LEN) {
-            compressedBytes = packet.getByteBuffer();
-
-        } else {
-            byte[] bytesToCompress = packet.getByteBuffer();
-            compressedBytes = new byte[bytesToCompress.length * 2];
 
+        if (packetLen >= MIN_COMPRESS_LEN && (!this.adaptiveCompression || shouldTryToCompress())) {
             if (this.deflater == null) {
-                this.deflater = new Deflater();
+                this.deflater = createDeflater();
             }
             this.deflater.reset();
-            this.deflater.setInput(bytesToCompress, offset, packetLen);
+            this.deflater.setInput(packet.getByteBuffer(), offset, packetLen);
             this.deflater.finish();
 
-            compressedLength = this.deflater.deflate(compressedBytes);
+            // Only room for as many bytes as the uncompressed payload, if the deflater doesn't finish by then there's no point in compressing
+            int deflatedLength = 0;
 
-            if (compressedLength > packetLen) {
-                // if compressed data is greater then uncompressed then send uncompressed
-                compressedBytes = packet.getByteBuffer();
-                compressedLength = packetLen;
-            } else {
+            while (!this.deflater.finished() && deflatedLength < packetLen) {
+                int count = this.deflater.deflate(compressedBytes, payloadStart + deflatedLength, packetLen - deflatedLength);
+
+                if (count == 0) {
+                    break;
+                }
+
+                deflatedLength += count;
+            }
+
+            boolean shrunk = this.deflater.finished() && deflatedLength < packetLen;
+
+            if (shrunk) {
+                compressedLength = deflatedLength;
                 uncompressedLength = packetLen;
-                offsetWrite = 0;
             }
+
+            compressionAttempted(shrunk);
         }
 
-        Buffer compressedPacket = new Buffer(HEADER_LENGTH + COMP_HEADER_LENGTH + compressedLength);
+        if (uncompressedLength == 0) {
+            System.arraycopy(packet.getByteBuffer(), offset, compressedBytes, payloadStart, packetLen);
+        }
 
         compressedPacket.setPosition(0);
         compressedPacket.writeLongInt(compressedLength);
         compressedPacket.writeByte(this.compressedPacketSequence);
         compressedPacket.writeLongInt(uncompressedLength);
-        compressedPacket.writeBytesNoNull(compressedBytes, offsetWrite, compressedLength);
+        compressedPacket.setPosition(payloadStart + compressedLength);
 
         return compressedPacket;
     }
 
+    private void reclaimLargeCompressedSendPacket() {
+        if ((this.compressedSendPacket != null) && (this.compressedSendPacket.getCapacity() > 1048576)) {
+            this.compressedSendPacket = null;
+        }
+    }
+
     private final void readServerStatusForResultSets(Buffer rowPacket) throws SQLException {
         if (this.use41Extensions) {
             rowPacket.readByte(); // skips the 'last packet' flag
@@ -3296,10 +3803,14 @@ public class MysqlIO {
                     this.hadWarnings = true; // this is a 'latch', it's reset by sendCommand()
                 }
 
-                rowPacket.readByte(); // advance pointer
+                if (this.sessionStateTracker != null) {
+                    readOkPacketTrailer(rowPacket);
+                } else {
+                    rowPacket.readByte(); // advance pointer
 
-                if (this.connection.isReadInfoMsgEnabled()) {
-                    rowPacket.readString(this.connection.getErrorMessageEncoding(), getExceptionInterceptor()); // info
+                    if (this.connection.isReadInfoMsgEnabled()) {
+                        rowPacket.readString(this.connection.getErrorMessageEncoding(), getExceptionInterceptor()); // info
+                    }
                 }
 
             } else {
@@ -3390,9 +3901,11 @@ public class MysqlIO {
         this.packetDebugRingBuffer.addLast(packetDump);
     }
 
-    private RowData readSingleRowSet(long columnCount, int maxRows, int resultSetConcurrency, boolean isBinaryEncoded, Field[] fields) throws SQLException {
+    private RowData readSingleRowSet(long columnCount, int maxRows, int resultSetConcurrency, boolean isBinaryEncoded, Field[] fields, int memoryBudget)
+            throws SQLException {
         RowData rowData;
         ArrayList<ResultSetRow> rows = new ArrayList<ResultSetRow>();
+        long bytesBuffered = 0;
 
         boolean useBufferRowExplicit = useBufferRowExplicit(fields);
 
@@ -3404,15 +3917,27 @@ public class MysqlIO {
         if (row != null) {
             rows.add(row);
             rowCount = 1;
+
+            if (memoryBudget > 0) {
+                bytesBuffered = row.getBytesSize();
+            }
         }
 
         while (row != null) {
+            if (memoryBudget > 0 && bytesBuffered > memoryBudget && rowCount != maxRows) {
+                return readSpilledRowSet(rows, bytesBuffered, maxRows, fields, isBinaryEncoded);
+            }
+
             row = nextRow(fields, (int) columnCount, isBinaryEncoded, resultSetConcurrency, false, useBufferRowExplicit, false, null);
 
             if (row != null) {
                 if ((maxRows == -1) || (rowCount < maxRows)) {
                     rows.add(row);
                     rowCount++;
+
+                    if (memoryBudget > 0) {
+                        bytesBuffered += row.getBytesSize();
+                    }
                 }
             }
         }
@@ -3422,6 +3947,56 @@ public class MysqlIO {
         return rowData;
     }
 
+    /**
+     * Reads the rest of a result set that went over its memory budget, writing the rows to a spill file as they were received.
+     * 
+     * @param rows
+     *            the rows read so far, kept in memory
+     * @param bytesBuffered
+     *            the bytes of row data of those rows
+     */
+    private RowData readSpilledRowSet(List<ResultSetRow> rows, long bytesBuffered, int maxRows, Field[] fields, boolean isBinaryEncoded) throws SQLException {
+        RowDataSpilled rowData = null;
+        SQLException spillException = null;
+
+        try {
+            rowData = new RowDataSpilled(rows, bytesBuffered, fields, isBinaryEncoded, getExceptionInterceptor());
+        } catch (SQLException sqlEx) {
+            spillException = sqlEx;
+        }
+
+        int rowCount = rows.size();
+        Buffer rowPacket;
+        boolean spilled = false;
+
+        try {
+            // the rows are read to the end even if they can't be spilled, to leave the connection usable
+            while ((rowPacket = nextRowPacket()) != null) {
+                if (spillException == null && ((maxRows == -1) || (rowCount < maxRows))) {
+                    try {
+                        rowData.spillRow(rowPacket);
+                        rowCount++;
+                    } catch (SQLException sqlEx) {
+                        spillException = sqlEx;
+                    }
+                }
+            }
+
+            if (spillException != null) {
+                throw spillException;
+            }
+
+            rowData.endSpilling();
+            spilled = true;
+        } finally {
+            if (!spilled && rowData != null) {
+                rowData.close();
+            }
+        }
+
+        return rowData;
+    }
+
     public static boolean useBufferRowExplicit(Field[] fields) {
         if (fields == null) {
             return false;
@@ -3440,6 +4015,13 @@ public class MysqlIO {
         return false;
     }
 
+    /**
+     * @return the packet buffer arena used by this connection, or null if 'usePacketBufferArena' is not set
+     */
+    public PacketBufferArena getPacketBufferArena() {
+        return this.packetBufferArena;
+    }
+
     /**
      * Don't hold on to overly-large packets
      */
@@ -3586,7 +4168,7 @@ public class MysqlIO {
 
             packetLength = (this.packetHeaderBuf[0] & 0xff) + ((this.packetHeaderBuf[1] & 0xff) << 8) + ((this.packetHeaderBuf[2] & 0xff) << 16);
             if (multiPacket == null) {
-                multiPacket = new Buffer(packetLength);
+                multiPacket = this.packetBufferArena == null ? new Buffer(packetLength) : new Buffer(this.packetBufferArena.acquire(packetLength));
             }
 
             if (!this.useNewLargePackets && (packetLength == 1)) {
@@ -3621,6 +4203,10 @@ public class MysqlIO {
             reuse.writeBytesNoNull(byteBuf, 0, lengthToWrite);
         } while (packetLength == this.maxThreeBytes);
 
+        if (this.packetBufferArena != null && multiPacket != null) {
+            this.packetBufferArena.release(multiPacket.getByteBuffer());
+        }
+
         reuse.setPosition(0);
         reuse.setWasMultiPacket(true);
         return packetLength;
@@ -3673,6 +4259,18 @@ public class MysqlIO {
      * @throws SQLException
      */
     private final void send(Buffer packet, int packetLen) throws SQLException {
+        send(packet, packetLen, true);
+    }
+
+    /**
+     * Send a packet to the MySQL server, leaving it in the output buffer when flush is false. Split packets are always flushed.
+     * 
+     * @param packet
+     * @param packetLen
+     * @param flush
+     * @throws SQLException
+     */
+    private final void send(Buffer packet, int packetLen, boolean flush) throws SQLException {
         try {
             if (this.maxAllowedPacket > 0 && packetLen > this.maxAllowedPacket) {
                 throw new PacketTooBigException(packetLen, this.maxAllowedPacket);
@@ -3725,7 +4323,14 @@ public class MysqlIO {
                 }
 
                 this.mysqlOutput.write(packetToSend.getByteBuffer(), 0, packetLen);
-                this.mysqlOutput.flush();
+
+                if (flush) {
+                    this.mysqlOutput.flush();
+                }
+
+                if (this.useCompression) {
+                    reclaimLargeCompressedSendPacket();
+                }
             }
 
             if (this.enablePacketDebug) {
@@ -3763,7 +4368,7 @@ public class MysqlIO {
             this.compressedPacketSequence++;
         }
 
-        Buffer filePacket = (this.loadFileBufRef == null) ? null : this.loadFileBufRef.get();
+        Buffer[] filePackets = (this.loadFileBufRef == null) ? null : this.loadFileBufRef.get();
 
         int bigPacketLength = Math.min(this.connection.getMaxAllowedPacket() - (HEADER_LENGTH * 3),
                 alignPacketSize(this.connection.getMaxAllowedPacket() - 16, 4096) - (HEADER_LENGTH * 3));
@@ -3774,10 +4379,11 @@ public class MysqlIO {
 
         int packetLength = Math.min(smallerPacketSizeAligned, bigPacketLength);
 
-        if (filePacket == null) {
+        if (filePackets == null) {
             try {
-                filePacket = new Buffer((packetLength + HEADER_LENGTH));
-                this.loadFileBufRef = new SoftReference<Buffer>(filePacket);
+                // two packets, one being read into while the other is sent
+                filePackets = new Buffer[] { new Buffer((packetLength + HEADER_LENGTH)), new Buffer((packetLength + HEADER_LENGTH)) };
+                this.loadFileBufRef = new SoftReference<Buffer[]>(filePackets);
             } catch (OutOfMemoryError oom) {
                 throw SQLError.createSQLException(
                         "Could not allocate packet of " + packetLength + " bytes required for LOAD DATA LOCAL INFILE operation."
@@ -3787,12 +4393,13 @@ public class MysqlIO {
             }
         }
 
+        Buffer filePacket = filePackets[0];
+
         filePacket.clear();
         send(filePacket, 0);
 
-        byte[] fileBuf = new byte[packetLength];
-
-        BufferedInputStream fileIn = null;
+        LocalInfileReader fileIn = null;
+        boolean allDataSent = false;
 
         try {
             if (!this.connection.getAllowLoadLocalInfile()) {
@@ -3800,38 +4407,46 @@ public class MysqlIO {
                         getExceptionInterceptor());
             }
 
+            ReadableByteChannel fileChannel = null;
             InputStream hookedStream = null;
 
             if (callingStatement != null) {
+                fileChannel = callingStatement.getLocalInfileChannel();
                 hookedStream = callingStatement.getLocalInfileInputStream();
             }
 
-            if (hookedStream != null) {
-                fileIn = new BufferedInputStream(hookedStream);
+            if (fileChannel != null) {
+                // takes precedence over the stream
+            } else if (hookedStream != null) {
+                fileChannel = LocalInfileReader.newChannel(hookedStream);
             } else if (!this.connection.getAllowUrlInLocalInfile()) {
-                fileIn = new BufferedInputStream(new FileInputStream(fileName));
+                fileChannel = new FileInputStream(fileName).getChannel();
             } else {
                 // First look for ':'
                 if (fileName.indexOf(':') != -1) {
                     try {
                         URL urlFromFileName = new URL(fileName);
-                        fileIn = new BufferedInputStream(urlFromFileName.openStream());
+                        fileChannel = LocalInfileReader.newChannel(urlFromFileName.openStream());
                     } catch (MalformedURLException badUrlEx) {
                         // we fall back to trying this as a file input stream
-                        fileIn = new BufferedInputStream(new FileInputStream(fileName));
+                        fileChannel = new FileInputStream(fileName).getChannel();
                     }
                 } else {
-                    fileIn = new BufferedInputStream(new FileInputStream(fileName));
+                    fileChannel = new FileInputStream(fileName).getChannel();
                 }
             }
 
-            int bytesRead = 0;
+            fileIn = new LocalInfileReader(fileChannel, filePackets, packetLength);
+            fileIn.start();
 
-            while ((bytesRead = fileIn.read(fileBuf)) != -1) {
-                filePacket.clear();
-                filePacket.writeBytesNoNull(fileBuf, 0, bytesRead);
-                send(filePacket, filePacket.getPosition());
+            Buffer packet;
+
+            while ((packet = fileIn.next()) != null) {
+                send(packet, packet.getPosition());
+                fileIn.release(packet);
             }
+
+            allDataSent = true;
         } catch (IOException ioEx) {
             StringBuilder messageBuf = new StringBuilder(Messages.getString("MysqlIO.60"));
 
@@ -3848,9 +4463,22 @@ public class MysqlIO {
                 messageBuf.append(Util.stackTraceToString(ioEx));
             }
 
+            if (fileIn != null) {
+                // Part of the data may have been sent already, and the protocol has no way of cancelling the load: ending it with the empty packet would
+                // commit the rows received so far. Dropping the connection makes the server abort it.
+                forceClose();
+
+                throw SQLError.createSQLException(messageBuf.toString(), SQLError.SQL_STATE_COMMUNICATION_LINK_FAILURE, ioEx, getExceptionInterceptor());
+            }
+
             throw SQLError.createSQLException(messageBuf.toString(), SQLError.SQL_STATE_ILLEGAL_ARGUMENT, getExceptionInterceptor());
         } finally {
             if (fileIn != null) {
+                if (!allDataSent) {
+                    // the reader thread may still be reading into the packets, don't reuse them
+                    this.loadFileBufRef = null;
+                }
+
                 try {
                     fileIn.close();
                 } catch (Exception ex) {
@@ -4166,6 +4794,8 @@ public class MysqlIO {
                     toCompressPosition += splitSize;
                     len -= (this.maxThreeBytes - COMP_HEADER_LENGTH);
                 }
+
+                reclaimLargeCompressedSendPacket();
             }
         } catch (IOException ioEx) {
             throw SQLError.createCommunicationsException(this.connection, this.lastPacketSentTimeMs, this.lastPacketReceivedTimeMs, ioEx,
@@ -4935,6 +5565,78 @@ public class MysqlIO {
         return fetchedRows;
     }
 
+    /**
+     * Sends a COM_FETCH ahead of time, leaving its rows in flight until {@link #readCursorFetchResponse(List, Field[], boolean)} is called. If another
+     * command is about to be sent on this connection before that, the rows are read first by {@link RowDataCursor#readPrefetchedRows()}.
+     * 
+     * @param cursor
+     *            the cursor the rows are fetched for
+     * @return false if the rows can't be fetched ahead of time because a streaming result set is open
+     * @throws SQLException
+     */
+    final boolean sendCursorFetch(RowDataCursor cursor, long statementId, int fetchSize) throws SQLException {
+        if (this.streamingData != null) {
+            return false;
+        }
+
+        beginPipelinedCommands();
+
+        this.sharedSendPacket.clear();
+
+        this.sharedSendPacket.writeByte((byte) MysqlDefs.COM_FETCH);
+        this.sharedSendPacket.writeLong(statementId);
+        this.sharedSendPacket.writeLong(fetchSize);
+
+        try {
+            sendPipelinedCommand(this.sharedSendPacket);
+            flushPipelinedCommands();
+        } catch (SQLException sqlEx) {
+            endPipelinedCommands();
+            throw sqlEx;
+        }
+
+        this.prefetchingCursor = cursor;
+
+        return true;
+    }
+
+    /**
+     * Reads the rows of the COM_FETCH sent by {@link #sendCursorFetch(RowDataCursor, long, int)}.
+     */
+    final List<ResultSetRow> readCursorFetchResponse(List<ResultSetRow> fetchedRows, Field[] columnTypes, boolean useBufferRowExplicit)
+            throws SQLException {
+        this.prefetchingCursor = null;
+
+        beginPipelinedResponse();
+
+        try {
+            ResultSetRow row = null;
+
+            while ((row = nextRow(columnTypes, columnTypes.length, true, ResultSet.CONCUR_READ_ONLY, false, useBufferRowExplicit, false, null)) != null) {
+                fetchedRows.add(row);
+            }
+        } catch (SQLException sqlEx) {
+            preserveOldTransactionState();
+            throw sqlEx;
+        } finally {
+            endPipelinedCommands();
+        }
+
+        return fetchedRows;
+    }
+
+    /**
+     * Gets the rows of a COM_FETCH sent ahead of time out of the way of the next command.
+     */
+    private void readPrefetchedCursorRows() {
+        if (this.prefetchingCursor != null) {
+            RowDataCursor cursor = this.prefetchingCursor;
+            this.prefetchingCursor = null;
+
+            cursor.readPrefetchedRows();
+        }
+    }
+
     protected long getThreadId() {
         return this.threadId;
     }
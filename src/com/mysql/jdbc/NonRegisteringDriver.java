@@ -39,6 +39,8 @@ import java.util.Properties;
 import java.util.StringTokenizer;
 import java.util.concurrent.ConcurrentHashMap;
 
+import com.mysql.jdbc.util.LRUCache;
+
 /**
  * The Java SQL framework allows for multiple database drivers. Each driver should supply a class that implements the Driver interface
  * 
@@ -72,6 +74,12 @@ public class NonRegisteringDriver implements java.sql.Driver {
 
     protected static final ReferenceQueue<ConnectionImpl> refQueue = new ReferenceQueue<ConnectionImpl>();
 
+    // the properties given by the URLs most recently seen, without credentials, so that connecting again with the same URL doesn't parse it
+    private static final LRUCache<String, Properties> parsedUrls = new LRUCache<String, Properties>(256);
+
+    // the configuration templates loaded for "useConfigs", by driver class and name
+    private static final ConcurrentHashMap<String, Properties> configTemplates = new ConcurrentHashMap<String, Properties>();
+
     public static final String OS = getOSName();
     public static final String PLATFORM = getPlatform();
     public static final String LICENSE = "@MYSQL_CJ_LICENSE_TYPE@";
@@ -611,102 +619,10 @@ public class NonRegisteringDriver implements java.sql.Driver {
             return null;
         }
 
-        int beginningOfSlashes = url.indexOf("//");
-
-        if (StringUtils.startsWithIgnoreCase(url, MXJ_URL_PREFIX)) {
-
-            urlProps.setProperty("socketFactory", "com.mysql.management.driverlaunched.ServerLauncherSocketFactory");
-        }
-
-        /*
-         * Parse parameters after the ? in the URL and remove them from the
-         * original URL.
-         */
-        int index = url.indexOf("?");
-
-        if (index != -1) {
-            String paramString = url.substring(index + 1, url.length());
-            url = url.substring(0, index);
-
-            StringTokenizer queryParams = new StringTokenizer(paramString, "&");
-
-            while (queryParams.hasMoreTokens()) {
-                String parameterValuePair = queryParams.nextToken();
-
-                int indexOfEquals = StringUtils.indexOfIgnoreCase(0, parameterValuePair, "=");
-
-                String parameter = null;
-                String value = null;
-
-                if (indexOfEquals != -1) {
-                    parameter = parameterValuePair.substring(0, indexOfEquals);
-
-                    if (indexOfEquals + 1 < parameterValuePair.length()) {
-                        value = parameterValuePair.substring(indexOfEquals + 1);
-                    }
-                }
-
-                if ((value != null && value.length() > 0) && (parameter != null && parameter.length() > 0)) {
-                    try {
-                        urlProps.setProperty(parameter, URLDecoder.decode(value, "UTF-8"));
-                    } catch (UnsupportedEncodingException badEncoding) {
-                        // punt
-                        urlProps.setProperty(parameter, URLDecoder.decode(value));
-                    } catch (NoSuchMethodError nsme) {
-                        // punt again
-                        urlProps.setProperty(parameter, URLDecoder.decode(value));
-                    }
-                }
-            }
-        }
-
-        url = url.substring(beginningOfSlashes + 2);
-
-        String hostStuff = null;
-
-        int slashIndex = StringUtils.indexOfIgnoreCase(0, url, "/", ALLOWED_QUOTES, ALLOWED_QUOTES, StringUtils.SEARCH_MODE__ALL);
-
-        if (slashIndex != -1) {
-            hostStuff = url.substring(0, slashIndex);
-
-            if ((slashIndex + 1) < url.length()) {
-                urlProps.put(DBNAME_PROPERTY_KEY, url.substring((slashIndex + 1), url.length()));
-            }
-        } else {
-            hostStuff = url;
-        }
-
-        int numHosts = 0;
-
-        if ((hostStuff != null) && (hostStuff.trim().length() > 0)) {
-            List<String> hosts = StringUtils.split(hostStuff, ",", ALLOWED_QUOTES, ALLOWED_QUOTES, false);
-
-            for (String hostAndPort : hosts) {
-                numHosts++;
-
-                String[] hostPortPair = parseHostPortPair(hostAndPort);
+        Properties urlCredentials = new Properties();
 
-                if (hostPortPair[HOST_NAME_INDEX] != null && hostPortPair[HOST_NAME_INDEX].trim().length() > 0) {
-                    urlProps.setProperty(HOST_PROPERTY_KEY + "." + numHosts, hostPortPair[HOST_NAME_INDEX]);
-                } else {
-                    urlProps.setProperty(HOST_PROPERTY_KEY + "." + numHosts, "localhost");
-                }
-
-                if (hostPortPair[PORT_NUMBER_INDEX] != null) {
-                    urlProps.setProperty(PORT_PROPERTY_KEY + "." + numHosts, hostPortPair[PORT_NUMBER_INDEX]);
-                } else {
-                    urlProps.setProperty(PORT_PROPERTY_KEY + "." + numHosts, "3306");
-                }
-            }
-        } else {
-            numHosts = 1;
-            urlProps.setProperty(HOST_PROPERTY_KEY + ".1", "localhost");
-            urlProps.setProperty(PORT_PROPERTY_KEY + ".1", "3306");
-        }
-
-        urlProps.setProperty(NUM_HOSTS_PROPERTY_KEY, String.valueOf(numHosts));
-        urlProps.setProperty(HOST_PROPERTY_KEY, urlProps.getProperty(HOST_PROPERTY_KEY + ".1"));
-        urlProps.setProperty(PORT_PROPERTY_KEY, urlProps.getProperty(PORT_PROPERTY_KEY + ".1"));
+        urlProps.putAll(getUrlProperties(removeUrlCredentials(url, urlCredentials)));
+        urlProps.putAll(urlCredentials);
 
         String propertiesTransformClassName = urlProps.getProperty(PROPERTIES_TRANSFORM_KEY);
 
@@ -768,13 +684,22 @@ public class NonRegisteringDriver implements java.sql.Driver {
                 String configName = namesIter.next();
 
                 try {
-                    InputStream configAsStream = getClass().getResourceAsStream("configs/" + configName + ".properties");
-
-                    if (configAsStream == null) {
-                        throw SQLError.createSQLException("Can't find configuration template named '" + configName + "'",
-                                SQLError.SQL_STATE_INVALID_CONNECTION_ATTRIBUTE, null);
+                    // resolved against the package of the driver class in use
+                    String configKey = getClass().getName() + "/" + configName;
+                    Properties configTemplate = configTemplates.get(configKey);
+
+                    if (configTemplate == null) {
+                        InputStream configAsStream = getClass().getResourceAsStream("configs/" + configName + ".properties");
+
+                        if (configAsStream == null) {
+                            throw SQLError.createSQLException("Can't find configuration template named '" + configName + "'",
+                                    SQLError.SQL_STATE_INVALID_CONNECTION_ATTRIBUTE, null);
+                        }
+                        configTemplate = new Properties();
+                        configTemplate.load(configAsStream);
+                        configTemplates.putIfAbsent(configKey, configTemplate);
                     }
-                    configProps.load(configAsStream);
+                    configProps.putAll(configTemplate);
                 } catch (IOException ioEx) {
                     SQLException sqlEx = SQLError.createSQLException(
                             "Unable to load configuration template '" + configName + "' due to underlying IOException: " + ioEx,
@@ -813,6 +738,181 @@ public class NonRegisteringDriver implements java.sql.Driver {
         return urlProps;
     }
 
+    /**
+     * Removes the user and password parameters from the query string of a URL, so that they aren't kept by the cache of parsed URLs.
+     * 
+     * @param url
+     *            a URL this driver accepts
+     * @param credentials
+     *            receives the user and password given by the URL
+     * @return the URL without credentials
+     */
+    private static String removeUrlCredentials(String url, Properties credentials) {
+        int index = url.indexOf("?");
+
+        if (index == -1 || (url.indexOf(USER_PROPERTY_KEY + "=", index) == -1 && url.indexOf(PASSWORD_PROPERTY_KEY + "=", index) == -1)) {
+            return url;
+        }
+
+        StringBuilder strippedUrl = new StringBuilder(url.length());
+        strippedUrl.append(url, 0, index + 1);
+
+        boolean firstParameter = true;
+        StringTokenizer queryParams = new StringTokenizer(url.substring(index + 1), "&");
+
+        while (queryParams.hasMoreTokens()) {
+            String parameterValuePair = queryParams.nextToken();
+
+            int indexOfEquals = parameterValuePair.indexOf('=');
+            String parameter = indexOfEquals == -1 ? parameterValuePair : parameterValuePair.substring(0, indexOfEquals);
+
+            if (USER_PROPERTY_KEY.equals(parameter) || PASSWORD_PROPERTY_KEY.equals(parameter)) {
+                if (indexOfEquals + 1 < parameterValuePair.length()) {
+                    credentials.setProperty(parameter, decodeUrlParameter(parameterValuePair.substring(indexOfEquals + 1)));
+                }
+                continue;
+            }
+
+            if (!firstParameter) {
+                strippedUrl.append('&');
+            }
+            strippedUrl.append(parameterValuePair);
+            firstParameter = false;
+        }
+
+        return strippedUrl.toString();
+    }
+
+    @SuppressWarnings("deprecation")
+    private static String decodeUrlParameter(String value) {
+        try {
+            return URLDecoder.decode(value, "UTF-8");
+        } catch (UnsupportedEncodingException badEncoding) {
+            // punt
+            return URLDecoder.decode(value);
+        } catch (NoSuchMethodError nsme) {
+            // punt again
+            return URLDecoder.decode(value);
+        }
+    }
+
+    /**
+     * Returns the properties given by a URL, parsing it only if it isn't one of the most recently seen.
+     * 
+     * @param url
+     *            a URL this driver accepts, without credentials
+     * @return the properties, which must not be modified
+     */
+    private static Properties getUrlProperties(String url) throws SQLException {
+        Properties urlProps;
+
+        synchronized (parsedUrls) {
+            urlProps = parsedUrls.get(url);
+        }
+
+        if (urlProps != null) {
+            return urlProps;
+        }
+
+        String originalUrl = url;
+        urlProps = new Properties();
+
+        int beginningOfSlashes = url.indexOf("//");
+
+        if (StringUtils.startsWithIgnoreCase(url, MXJ_URL_PREFIX)) {
+
+            urlProps.setProperty("socketFactory", "com.mysql.management.driverlaunched.ServerLauncherSocketFactory");
+        }
+
+        /*
+         * Parse parameters after the ? in the URL and remove them from the
+         * original URL.
+         */
+        int index = url.indexOf("?");
+
+        if (index != -1) {
+            String paramString = url.substring(index + 1, url.length());
+            url = url.substring(0, index);
+
+            StringTokenizer queryParams = new StringTokenizer(paramString, "&");
+
+            while (queryParams.hasMoreTokens()) {
+                String parameterValuePair = queryParams.nextToken();
+
+                int indexOfEquals = StringUtils.indexOfIgnoreCase(0, parameterValuePair, "=");
+
+                String parameter = null;
+                String value = null;
+
+                if (indexOfEquals != -1) {
+                    parameter = parameterValuePair.substring(0, indexOfEquals);
+
+                    if (indexOfEquals + 1 < parameterValuePair.length()) {
+                        value = parameterValuePair.substring(indexOfEquals + 1);
+                    }
+                }
+
+                if ((value != null && value.length() > 0) && (parameter != null && parameter.length() > 0)) {
+                    urlProps.setProperty(parameter, decodeUrlParameter(value));
+                }
+            }
+        }
+
+        url = url.substring(beginningOfSlashes + 2);
+
+        String hostStuff = null;
+
+        int slashIndex = StringUtils.indexOfIgnoreCase(0, url, "/", ALLOWED_QUOTES, ALLOWED_QUOTES, StringUtils.SEARCH_MODE__ALL);
+
+        if (slashIndex != -1) {
+            hostStuff = url.substring(0, slashIndex);
+
+            if ((slashIndex + 1) < url.length()) {
+                urlProps.put(DBNAME_PROPERTY_KEY, url.substring((slashIndex + 1), url.length()));
+            }
+        } else {
+            hostStuff = url;
+        }
+
+        int numHosts = 0;
+
+        if ((hostStuff != null) && (hostStuff.trim().length() > 0)) {
+            List<String> hosts = StringUtils.split(hostStuff, ",", ALLOWED_QUOTES, ALLOWED_QUOTES, false);
+
+            for (String hostAndPort : hosts) {
+                numHosts++;
+
+                String[] hostPortPair = parseHostPortPair(hostAndPort);
+
+                if (hostPortPair[HOST_NAME_INDEX] != null && hostPortPair[HOST_NAME_INDEX].trim().length() > 0) {
+                    urlProps.setProperty(HOST_PROPERTY_KEY + "." + numHosts, hostPortPair[HOST_NAME_INDEX]);
+                } else {
+                    urlProps.setProperty(HOST_PROPERTY_KEY + "." + numHosts, "localhost");
+                }
+
+                if (hostPortPair[PORT_NUMBER_INDEX] != null) {
+                    urlProps.setProperty(PORT_PROPERTY_KEY + "." + numHosts, hostPortPair[PORT_NUMBER_INDEX]);
+                } else {
+                    urlProps.setProperty(PORT_PROPERTY_KEY + "." + numHosts, "3306");
+                }
+            }
+        } else {
+            numHosts = 1;
+            urlProps.setProperty(HOST_PROPERTY_KEY + ".1", "localhost");
+            urlProps.setProperty(PORT_PROPERTY_KEY + ".1", "3306");
+        }
+
+        urlProps.setProperty(NUM_HOSTS_PROPERTY_KEY, String.valueOf(numHosts));
+        urlProps.setProperty(HOST_PROPERTY_KEY, urlProps.getProperty(HOST_PROPERTY_KEY + ".1"));
+        urlProps.setProperty(PORT_PROPERTY_KEY, urlProps.getProperty(PORT_PROPERTY_KEY + ".1"));
+
+        synchronized (parsedUrls) {
+            parsedUrls.put(originalUrl, urlProps);
+        }
+
+        return urlProps;
+    }
+
     /**
      * Returns the port number property
      * 
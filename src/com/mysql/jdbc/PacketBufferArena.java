@@ -0,0 +1,253 @@
+/*
+  Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+
+  The MySQL Connector/J is licensed under the terms of the GPLv2
+  <http://www.gnu.org/licenses/old-licenses/gpl-2.0.html>, like most MySQL Connectors.
+  There are special exceptions to the terms and conditions of the GPLv2 as it is applied to
+  this software, see the FOSS License Exception
+  <http://www.mysql.com/about/legal/licensing/foss-exception.html>.
+
+  This program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU General Public License as published by the Free Software Foundation; version 2
+  of the License.
+
+  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this
+  program; if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth
+  Floor, Boston, MA 02110-1301  USA
+
+ */
+
+package com.mysql.jdbc;
+
+/**
+ * A per-connection arena of packet buffers.
+ * 
+ * Byte arrays are handed out in power-of-two size classes and kept in one small stack per class when released, so that a connection reading the same shape
+ * of packets over and over stops allocating new arrays for them. Only buffers with a clear release point are taken from here, such as the scratch buffers
+ * of multi-packet reads; packets that may end up held by rows are not. The total amount of memory kept in the stacks is capped, anything released over that
+ * cap, or larger than the biggest size class, is simply left for the garbage collector.
+ * 
+ * Column definition packets are a special case: the {@link Field}s built from them keep a reference to the packet bytes for lazily decoding names, so their
+ * arrays can never be recycled. Those are instead carved sequentially out of shared slabs, which turns one array allocation per column into one per slab.
+ * 
+ * Instances are not thread-safe, they are meant to be used by a single {@link MysqlIO} while holding the connection mutex. The only exception is
+ * {@link #clear()}, which may be called by another thread force closing the connection; buffers handed out until then are simply not recycled.
+ */
+public class PacketBufferArena {
+    /** Smallest size class, 64 bytes */
+    static final int MIN_SIZE_CLASS_SHIFT = 6;
+
+    /** How many buffers may be stacked per size class */
+    static final int MAX_BUFFERS_PER_SIZE_CLASS = 8;
+
+    /** Size of the slabs used for column definition packets */
+    static final int SLAB_SIZE = 8192;
+
+    private final byte[][][] sizeClasses;
+    private final int[] sizeClassCounts;
+    private final int maxPooledSize;
+    private final int maxRetainedBytes;
+    private int retainedBytes = 0;
+
+    private byte[] slab = null;
+    private int slabPosition = 0;
+
+    private long allocationCount = 0;
+    private long reuseCount = 0;
+    private long slabAllocationCount = 0;
+    private long slicesServed = 0;
+
+    /**
+     * Creates a new arena.
+     * 
+     * @param maxRetainedBytes
+     *            the maximum number of bytes that may be kept for reuse
+     * @param maxPooledSize
+     *            the biggest buffer size that is recycled, rounded up to the next power of two
+     */
+    public PacketBufferArena(int maxRetainedBytes, int maxPooledSize) {
+        int maxShift = sizeClassShiftFor(Math.max(maxPooledSize, 1 << MIN_SIZE_CLASS_SHIFT));
+
+        this.maxPooledSize = 1 << maxShift;
+        this.maxRetainedBytes = maxRetainedBytes;
+        this.sizeClasses = new byte[maxShift - MIN_SIZE_CLASS_SHIFT + 1][MAX_BUFFERS_PER_SIZE_CLASS][];
+        this.sizeClassCounts = new int[this.sizeClasses.length];
+    }
+
+    /**
+     * Returns the shift of the smallest size class that fits the given length.
+     */
+    static int sizeClassShiftFor(int length) {
+        if (length <= (1 << MIN_SIZE_CLASS_SHIFT)) {
+            return MIN_SIZE_CLASS_SHIFT;
+        }
+
+        return 32 - Integer.numberOfLeadingZeros(length - 1);
+    }
+
+    /**
+     * Hands out a byte array at least <code>minLength</code> long. The returned array may contain garbage from previous uses.
+     * 
+     * @param minLength
+     *            the minimum length needed
+     * @return a byte array, either recycled or newly allocated
+     */
+    byte[] acquire(int minLength) {
+        if (minLength > this.maxPooledSize) {
+            this.allocationCount++;
+            return new byte[minLength];
+        }
+
+        int shift = sizeClassShiftFor(minLength);
+        int sizeClass = shift - MIN_SIZE_CLASS_SHIFT;
+        int count = this.sizeClassCounts[sizeClass];
+
+        if (count > 0) {
+            count--;
+
+            byte[] buf = this.sizeClasses[sizeClass][count];
+            this.sizeClasses[sizeClass][count] = null;
+            this.sizeClassCounts[sizeClass] = count;
+
+            if (buf != null) { // null if cleared meanwhile
+                this.retainedBytes -= buf.length;
+                this.reuseCount++;
+
+                return buf;
+            }
+        }
+
+        this.allocationCount++;
+        return new byte[1 << shift];
+    }
+
+    /**
+     * Gives back a byte array obtained from {@link #acquire(int)}. Arrays not matching a size class exactly, or that would take the arena over its retained
+     * memory limit, are dropped.
+     * 
+     * @param buf
+     *            the byte array no longer in use
+     */
+    void release(byte[] buf) {
+        if (buf == null) {
+            return;
+        }
+
+        int length = buf.length;
+
+        if (length > this.maxPooledSize || length < (1 << MIN_SIZE_CLASS_SHIFT) || (length & (length - 1)) != 0
+                || this.retainedBytes + length > this.maxRetainedBytes) {
+            return;
+        }
+
+        int sizeClass = sizeClassShiftFor(length) - MIN_SIZE_CLASS_SHIFT;
+        int count = this.sizeClassCounts[sizeClass];
+
+        if (count == MAX_BUFFERS_PER_SIZE_CLASS) {
+            return;
+        }
+
+        this.sizeClasses[sizeClass][count] = buf;
+        this.sizeClassCounts[sizeClass] = count + 1;
+        this.retainedBytes += length;
+    }
+
+    /**
+     * Points the given packet at a fresh region of <code>length</code> bytes of the current slab, starting a new slab if the current one can't fit it.
+     * Regions are never given back, slabs are garbage collected when no one references them anymore.
+     * 
+     * @param packet
+     *            the packet to re-point
+     * @param length
+     *            the length of the region
+     */
+    void slice(Buffer packet, int length) {
+        if (length > SLAB_SIZE / 4) {
+            // don't waste slab space on big packets
+            this.allocationCount++;
+            packet.setByteBuffer(new byte[length]);
+            packet.setPosition(0);
+            packet.setBufLength(length);
+            return;
+        }
+
+        byte[] currentSlab = this.slab;
+        int position = this.slabPosition;
+
+        if (currentSlab == null || position + length > currentSlab.length) {
+            currentSlab = this.slab = new byte[SLAB_SIZE];
+            position = 0;
+            this.slabAllocationCount++;
+            this.allocationCount++;
+        }
+
+        packet.setByteBuffer(currentSlab);
+        packet.setPosition(position);
+        packet.setBufLength(position + length);
+
+        this.slabPosition = position + length;
+        this.slicesServed++;
+    }
+
+    /**
+     * Drops everything kept for reuse, called when the connection is closed.
+     */
+    void clear() {
+        for (int i = 0; i < this.sizeClasses.length; i++) {
+            for (int j = 0; j < this.sizeClassCounts[i]; j++) {
+                this.sizeClasses[i][j] = null;
+            }
+            this.sizeClassCounts[i] = 0;
+        }
+
+        this.retainedBytes = 0;
+        this.slab = null;
+        this.slabPosition = 0;
+    }
+
+    /**
+     * @return the number of byte arrays allocated by this arena, including slabs
+     */
+    public long getAllocationCount() {
+        return this.allocationCount;
+    }
+
+    /**
+     * @return the number of times a recycled byte array was handed out
+     */
+    public long getReuseCount() {
+        return this.reuseCount;
+    }
+
+    /**
+     * @return the number of slabs allocated for column definition packets
+     */
+    public long getSlabAllocationCount() {
+        return this.slabAllocationCount;
+    }
+
+    /**
+     * @return the number of packets served from slabs
+     */
+    public long getSlicesServed() {
+        return this.slicesServed;
+    }
+
+    /**
+     * @return the number of bytes currently kept for reuse
+     */
+    public int getRetainedBytes() {
+        return this.retainedBytes;
+    }
+
+    /**
+     * @return the maximum number of bytes that may be kept for reuse
+     */
+    public int getMaxRetainedBytes() {
+        return this.maxRetainedBytes;
+    }
+}
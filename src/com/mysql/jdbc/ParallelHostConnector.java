@@ -0,0 +1,221 @@
+/*
+  Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+
+  The MySQL Connector/J is licensed under the terms of the GPLv2
+  <http://www.gnu.org/licenses/old-licenses/gpl-2.0.html>, like most MySQL Connectors.
+  There are special exceptions to the terms and conditions of the GPLv2 as it is applied to
+  this software, see the FOSS License Exception
+  <http://www.mysql.com/about/legal/licensing/foss-exception.html>.
+
+  This program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU General Public License as published by the Free Software Foundation; version 2
+  of the License.
+
+  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this
+  program; if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth
+  Floor, Boston, MA 02110-1301  USA
+
+ */
+
+package com.mysql.jdbc;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Connects to the first available host of a list, the way "happy eyeballs" does: the hosts are tried in order, and the attempt to connect to the next one
+ * is started as soon as the previous ones have failed or once they have been running for a given delay, without waiting for them to time out. The first
+ * connection established is kept; the attempts still running are left to complete in the background, and the connections they establish are closed.
+ *
+ * The physical connections are created on the threads of a shared executor, which {@link LoadBalancedConnectionProxy} also uses to establish its warm
+ * connections.
+ */
+final class ParallelHostConnector {
+    private static final ExecutorService connectExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "MySQL Multi-Host Connector");
+            t.setDaemon(true);
+            t.setContextClassLoader(ParallelHostConnector.class.getClassLoader());
+            return t;
+        }
+    });
+
+    /**
+     * An attempt to connect to one host.
+     */
+    private final class Attempt implements Runnable {
+        final int hostIndex;
+        ConnectionImpl connection;
+        SQLException exception;
+
+        Attempt(int hostIndex) {
+            this.hostIndex = hostIndex;
+        }
+
+        @SuppressWarnings("synthetic-access")
+        public void run() {
+            try {
+                this.connection = ParallelHostConnector.this.proxy.createPhysicalConnection(ParallelHostConnector.this.hostPortSpecs.get(this.hostIndex));
+            } catch (SQLException e) {
+                this.exception = e;
+            } catch (RuntimeException e) {
+                this.exception = SQLError.createSQLException(e.toString(), SQLError.SQL_STATE_UNABLE_TO_CONNECT_TO_DATASOURCE, null);
+                this.exception.initCause(e);
+            }
+
+            synchronized (ParallelHostConnector.this) {
+                if (!ParallelHostConnector.this.done) {
+                    ParallelHostConnector.this.completedAttempts.add(this);
+                    return;
+                }
+            }
+
+            closeQuietly(this.connection);
+        }
+    }
+
+    private final MultiHostConnectionProxy proxy;
+    private final List<String> hostPortSpecs;
+    private final long delayMillis;
+
+    private final BlockingQueue<Attempt> completedAttempts = new LinkedBlockingQueue<Attempt>();
+
+    /** Set once a host is connected to or the connection failed, the attempts completing afterwards close their connections */
+    private boolean done = false;
+
+    private int connectedHostIndex = -1;
+    private final List<String> failedHostPortSpecs = new ArrayList<String>();
+
+    /**
+     * @param proxy
+     *            the multi-host connection the physical connections are created for
+     * @param hostPortSpecs
+     *            the host:port specifications of the hosts to try, in order of preference
+     * @param delayMillis
+     *            how long to wait for the attempts running before connecting to the next host too
+     */
+    ParallelHostConnector(MultiHostConnectionProxy proxy, List<String> hostPortSpecs, long delayMillis) {
+        this.proxy = proxy;
+        this.hostPortSpecs = hostPortSpecs;
+        this.delayMillis = delayMillis;
+    }
+
+    /**
+     * Connects to the first available host.
+     *
+     * @return the new physical connection, not bound to the proxy yet
+     * @throws SQLException
+     *             the last error if no host could be connected to, or the first error that should not trigger a connection switch
+     */
+    ConnectionImpl connect() throws SQLException {
+        int numHosts = this.hostPortSpecs.size();
+        int attemptsStarted = 0;
+        int attemptsFailed = 0;
+        SQLException lastException = null;
+
+        try {
+            while (attemptsFailed < numHosts) {
+                if (attemptsStarted == attemptsFailed && attemptsStarted < numHosts) {
+                    // nothing left running, no need to wait for the delay
+                    startAttempt(attemptsStarted++);
+                }
+
+                Attempt attempt;
+
+                if (attemptsStarted < numHosts) {
+                    attempt = this.completedAttempts.poll(this.delayMillis, TimeUnit.MILLISECONDS);
+
+                    if (attempt == null) {
+                        startAttempt(attemptsStarted++);
+                        continue;
+                    }
+                } else {
+                    attempt = this.completedAttempts.take();
+                }
+
+                if (attempt.connection != null) {
+                    this.connectedHostIndex = attempt.hostIndex;
+
+                    return attempt.connection;
+                }
+
+                attemptsFailed++;
+                lastException = attempt.exception;
+                this.failedHostPortSpecs.add(this.hostPortSpecs.get(attempt.hostIndex));
+
+                if (!this.proxy.shouldExceptionTriggerConnectionSwitch(lastException)) {
+                    throw lastException;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            SQLException sqlEx = SQLError.createSQLException("Interrupted while connecting to " + this.hostPortSpecs,
+                    SQLError.SQL_STATE_UNABLE_TO_CONNECT_TO_DATASOURCE, null);
+            sqlEx.initCause(e);
+
+            throw sqlEx;
+        } finally {
+            synchronized (this) {
+                this.done = true;
+            }
+
+            // connections established while the first one was being taken
+            Attempt late;
+            while ((late = this.completedAttempts.poll()) != null) {
+                closeQuietly(late.connection);
+            }
+        }
+
+        throw lastException;
+    }
+
+    /**
+     * @return the index in the hosts list of the host connected to, -1 if none
+     */
+    int getConnectedHostIndex() {
+        return this.connectedHostIndex;
+    }
+
+    /**
+     * @return the host:port specifications of the hosts that could not be connected to before {@link #connect()} returned
+     */
+    List<String> getFailedHostPortSpecs() {
+        return this.failedHostPortSpecs;
+    }
+
+    private void startAttempt(int hostIndex) {
+        execute(new Attempt(hostIndex));
+    }
+
+    /**
+     * Runs a task on the executor the physical connections are established with.
+     *
+     * @param task
+     *            the task
+     */
+    static void execute(Runnable task) {
+        connectExecutor.execute(task);
+    }
+
+    private static void closeQuietly(ConnectionImpl conn) {
+        if (conn != null) {
+            try {
+                conn.close();
+            } catch (SQLException e) {
+                // nothing we can do
+            }
+        }
+    }
+}
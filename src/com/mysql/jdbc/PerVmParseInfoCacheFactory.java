@@ -0,0 +1,347 @@
+/*
+  Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+
+  The MySQL Connector/J is licensed under the terms of the GPLv2
+  <http://www.gnu.org/licenses/old-licenses/gpl-2.0.html>, like most MySQL Connectors.
+  There are special exceptions to the terms and conditions of the GPLv2 as it is applied to
+  this software, see the FOSS License Exception
+  <http://www.mysql.com/about/legal/licensing/foss-exception.html>.
+
+  This program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU General Public License as published by the Free Software Foundation; version 2
+  of the License.
+
+  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this
+  program; if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth
+  Floor, Boston, MA 02110-1301  USA
+
+ */
+
+package com.mysql.jdbc;
+
+import java.sql.SQLException;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.mysql.jdbc.PreparedStatement.ParseInfo;
+
+/**
+ * A CacheAdapterFactory that shares the parsed representation of client-side prepared statements between all the connections in the VM, instead of keeping
+ * one LRU cache per connection as {@link PerConnectionLRUFactory} does.
+ * 
+ * Entries are keyed by the SQL text together with the connection settings that change the outcome of the parse (character encoding, server charset,
+ * NO_BACKSLASH_ESCAPES, ANSI_QUOTES and the batch rewriting options), so connections with different settings never see each other's ParseInfo. Lookups do not
+ * lock; the cache is bounded by the largest "prepStmtCacheSize" of the connections using it and evicts with a CLOCK (second chance) policy, which approximates
+ * LRU without having to reorder anything on reads.
+ */
+public class PerVmParseInfoCacheFactory implements CacheAdapterFactory<String, ParseInfo> {
+
+    static final SharedParseInfoCache sharedCache = new SharedParseInfoCache();
+
+    public CacheAdapter<String, ParseInfo> getInstance(Connection forConn, String url, int cacheMaxSize, int maxKeySize, Properties connectionProperties)
+            throws SQLException {
+        sharedCache.ensureCapacity(cacheMaxSize);
+
+        return new PerVmParseInfoCache((MySQLConnection) forConn, maxKeySize);
+    }
+
+    /**
+     * Returns the number of lookups that found a cached ParseInfo.
+     */
+    public static long getHitCount() {
+        return sharedCache.hits.get();
+    }
+
+    /**
+     * Returns the number of lookups that did not find a cached ParseInfo.
+     */
+    public static long getMissCount() {
+        return sharedCache.misses.get();
+    }
+
+    /**
+     * Returns the number of entries that were dropped to keep the cache within its size limit.
+     */
+    public static long getEvictionCount() {
+        return sharedCache.evictions.get();
+    }
+
+    /**
+     * Returns the number of entries currently held by the cache.
+     */
+    public static int getSize() {
+        return sharedCache.size.get();
+    }
+
+    /**
+     * Returns the maximum number of entries the cache will hold.
+     */
+    public static int getMaxSize() {
+        return sharedCache.maxSize;
+    }
+
+    /**
+     * Drops every cached entry and resets the counters and the size limit.
+     */
+    public static void reset() {
+        sharedCache.clear();
+        sharedCache.resetCapacity();
+        sharedCache.hits.set(0);
+        sharedCache.misses.set(0);
+        sharedCache.evictions.set(0);
+    }
+
+    /**
+     * The view of the shared cache handed to a single connection. Keys are qualified with the connection's current parse settings on every call, since
+     * sql_mode and the character set may change during the life of the connection.
+     */
+    static class PerVmParseInfoCache implements CacheAdapter<String, ParseInfo> {
+        private final MySQLConnection conn;
+        private final int cacheSqlLimit;
+
+        PerVmParseInfoCache(MySQLConnection conn, int maxKeySize) {
+            this.conn = conn;
+            this.cacheSqlLimit = maxKeySize;
+        }
+
+        public ParseInfo get(String key) {
+            if (key == null || key.length() > this.cacheSqlLimit) {
+                return null;
+            }
+
+            return sharedCache.get(keyFor(key));
+        }
+
+        public void put(String key, ParseInfo value) {
+            if (key == null || key.length() > this.cacheSqlLimit || value == null) {
+                return;
+            }
+
+            sharedCache.put(keyFor(key), value);
+        }
+
+        public void invalidate(String key) {
+            if (key != null) {
+                sharedCache.remove(keyFor(key));
+            }
+        }
+
+        public void invalidateAll(Set<String> keys) {
+            for (String key : keys) {
+                invalidate(key);
+            }
+        }
+
+        public void invalidateAll() {
+            // the entries are shared with other connections, and keyed by the parse settings so they can't go stale for this one
+        }
+
+        private ParseInfoKey keyFor(String sql) {
+            int flags = 0;
+
+            if (this.conn.isNoBackslashEscapesSet()) {
+                flags |= ParseInfoKey.NO_BACKSLASH_ESCAPES;
+            }
+            if (this.conn.useAnsiQuotedIdentifiers()) {
+                flags |= ParseInfoKey.ANSI_QUOTES;
+            }
+            if (this.conn.getRewriteBatchedStatements()) {
+                flags |= ParseInfoKey.REWRITE_BATCHED_STATEMENTS;
+            }
+            if (this.conn.getDontCheckOnDuplicateKeyUpdateInSQL()) {
+                flags |= ParseInfoKey.DONT_CHECK_ON_DUPLICATE_KEY_UPDATE;
+            }
+            if (this.conn.parserKnowsUnicode()) {
+                flags |= ParseInfoKey.PARSER_KNOWS_UNICODE;
+            }
+
+            return new ParseInfoKey(sql, this.conn.getUseUnicode() ? this.conn.getEncoding() : null, this.conn.getServerCharset(), flags);
+        }
+    }
+
+    static final class ParseInfoKey {
+        static final int NO_BACKSLASH_ESCAPES = 1;
+        static final int ANSI_QUOTES = 1 << 1;
+        static final int REWRITE_BATCHED_STATEMENTS = 1 << 2;
+        static final int DONT_CHECK_ON_DUPLICATE_KEY_UPDATE = 1 << 3;
+        static final int PARSER_KNOWS_UNICODE = 1 << 4;
+
+        final String sql;
+        final String encoding;
+        final String serverCharset;
+        final int flags;
+        private final int hashCode;
+
+        ParseInfoKey(String sql, String encoding, String serverCharset, int flags) {
+            this.sql = sql;
+            this.encoding = encoding;
+            this.serverCharset = serverCharset;
+            this.flags = flags;
+
+            int h = sql.hashCode();
+            h = 31 * h + (encoding == null ? 0 : encoding.hashCode());
+            h = 31 * h + (serverCharset == null ? 0 : serverCharset.hashCode());
+            this.hashCode = 31 * h + flags;
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof ParseInfoKey)) {
+                return false;
+            }
+
+            ParseInfoKey other = (ParseInfoKey) obj;
+
+            return this.hashCode == other.hashCode && this.flags == other.flags && this.sql.equals(other.sql) && equalsNullable(this.encoding, other.encoding)
+                    && equalsNullable(this.serverCharset, other.serverCharset);
+        }
+
+        private static boolean equalsNullable(String a, String b) {
+            return a == null ? b == null : a.equals(b);
+        }
+    }
+
+    static final class Entry {
+        final ParseInfoKey key;
+        final ParseInfo value;
+        volatile boolean referenced;
+
+        Entry(ParseInfoKey key, ParseInfo value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Bounded concurrent map with CLOCK eviction. Readers only set a "referenced" bit (and only when it is not already set, so hot entries don't keep
+     * dirtying the same cache line); writers append to the clock queue and, once over the limit, one of them sweeps it, giving referenced entries a second
+     * chance and dropping the first one that wasn't used since the hand last passed over it.
+     */
+    static final class SharedParseInfoCache {
+        final ConcurrentHashMap<ParseInfoKey, Entry> map = new ConcurrentHashMap<ParseInfoKey, Entry>();
+        final ConcurrentLinkedQueue<Entry> clock = new ConcurrentLinkedQueue<Entry>();
+        final ReentrantLock evictionLock = new ReentrantLock();
+        final AtomicInteger size = new AtomicInteger();
+
+        final AtomicLong hits = new AtomicLong();
+        final AtomicLong misses = new AtomicLong();
+        final AtomicLong evictions = new AtomicLong();
+
+        volatile int maxSize = 0;
+
+        /**
+         * The cache is shared, so it holds as many entries as the largest per-connection cache requested.
+         */
+        synchronized void ensureCapacity(int requestedSize) {
+            if (requestedSize > this.maxSize) {
+                this.maxSize = requestedSize;
+            }
+        }
+
+        synchronized void resetCapacity() {
+            this.maxSize = 0;
+        }
+
+        ParseInfo get(ParseInfoKey key) {
+            Entry e = this.map.get(key);
+
+            if (e == null) {
+                this.misses.incrementAndGet();
+                return null;
+            }
+
+            if (!e.referenced) {
+                e.referenced = true;
+            }
+
+            this.hits.incrementAndGet();
+
+            return e.value;
+        }
+
+        void put(ParseInfoKey key, ParseInfo value) {
+            if (this.maxSize <= 0) {
+                return;
+            }
+
+            Entry e = new Entry(key, value);
+
+            if (this.map.putIfAbsent(key, e) != null) {
+                return;
+            }
+
+            this.clock.offer(e);
+
+            if (this.size.incrementAndGet() > this.maxSize) {
+                evict();
+            }
+        }
+
+        void remove(ParseInfoKey key) {
+            // the stale clock entry is discarded when the hand reaches it
+            if (this.map.remove(key) != null) {
+                this.size.decrementAndGet();
+            }
+        }
+
+        void clear() {
+            this.evictionLock.lock();
+
+            try {
+                this.map.clear();
+                this.clock.clear();
+                this.size.set(0);
+            } finally {
+                this.evictionLock.unlock();
+            }
+        }
+
+        private void evict() {
+            if (!this.evictionLock.tryLock()) {
+                // somebody else is already sweeping
+                return;
+            }
+
+            try {
+                while (this.size.get() > this.maxSize) {
+                    Entry e = this.clock.poll();
+
+                    if (e == null) {
+                        break;
+                    }
+
+                    if (this.map.get(e.key) != e) {
+                        continue; // invalidated or replaced
+                    }
+
+                    if (e.referenced) {
+                        e.referenced = false;
+                        this.clock.offer(e);
+                    } else if (this.map.remove(e.key, e)) {
+                        this.size.decrementAndGet();
+                        this.evictions.incrementAndGet();
+                    }
+                }
+            } finally {
+                this.evictionLock.unlock();
+            }
+        }
+    }
+}
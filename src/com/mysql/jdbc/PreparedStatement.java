@@ -688,6 +688,34 @@ public class PreparedStatement extends com.mysql.jdbc.StatementImpl implements j
 
     private byte[][] parameterValues = null;
 
+    /**
+     * Stands in parameterValues for values encoded into parameterBuffer by "encodeParametersInPlace".
+     */
+    private static final byte[] IN_PLACE_VALUE = new byte[0];
+
+    private boolean encodeParametersInPlace = false;
+
+    private boolean encodeParametersAsUtf8 = false;
+
+    /**
+     * Growable buffer holding the values encoded in place, each at parameterOffsets[i] with room for parameterCapacities[i] bytes so that a value
+     * replaced by one no longer is rewritten where it is.
+     */
+    private byte[] parameterBuffer = null;
+
+    /**
+     * The previous parameterBuffer, reused as the target of the next compaction.
+     */
+    private byte[] spareParameterBuffer = null;
+
+    private int parameterBufferPosition = 0;
+
+    private int[] parameterOffsets = null;
+
+    private int[] parameterLengths = null;
+
+    private int[] parameterCapacities = null;
+
     /**
      * Only used by statement interceptors at the moment to
      * provide introspection of bound values
@@ -898,7 +926,17 @@ public class PreparedStatement extends com.mysql.jdbc.StatementImpl implements j
                 checkAllParametersSet(this.parameterValues[i], this.parameterStreams[i], i);
             }
 
-            this.batchedArgs.add(new BatchParams(this.parameterValues, this.parameterStreams, this.isStream, this.streamLengths, this.isNull));
+            BatchParams batchParams = new BatchParams(this.parameterValues, this.parameterStreams, this.isStream, this.streamLengths, this.isNull);
+
+            if (this.parameterBuffer != null) {
+                for (int i = 0; i < batchParams.parameterStrings.length; i++) {
+                    if (batchParams.parameterStrings[i] == IN_PLACE_VALUE) {
+                        batchParams.parameterStrings[i] = getParameterValue(i);
+                    }
+                }
+            }
+
+            this.batchedArgs.add(batchParams);
         }
     }
 
@@ -940,7 +978,7 @@ public class PreparedStatement extends com.mysql.jdbc.StatementImpl implements j
                         continue;
                     }
                     if (this.batchCommandIndex == -1) {
-                        val = this.parameterValues[i];
+                        val = getParameterValue(i);
                     } else {
                         val = ((BatchParams) batchArg).parameterStrings[i];
                     }
@@ -1027,6 +1065,8 @@ public class PreparedStatement extends com.mysql.jdbc.StatementImpl implements j
                 this.isNull[i] = false;
                 this.parameterTypes[i] = Types.NULL;
             }
+
+            this.parameterBufferPosition = 0;
         }
     }
 
@@ -1336,8 +1376,7 @@ public class PreparedStatement extends com.mysql.jdbc.StatementImpl implements j
                     }
 
                     if (locallyScopedConn.getEnableQueryTimeouts() && batchTimeout != 0 && locallyScopedConn.versionMeetsMinimum(5, 0, 0)) {
-                        timeoutTask = new CancelTask((StatementImpl) batchedStatement);
-                        locallyScopedConn.getCancelTimer().schedule(timeoutTask, batchTimeout);
+                        timeoutTask = startQueryTimer((StatementImpl) batchedStatement, batchTimeout);
                     }
 
                     if (numBatchedArgs < numValuesPerBatch) {
@@ -1420,8 +1459,6 @@ public class PreparedStatement extends com.mysql.jdbc.StatementImpl implements j
 
                         timeoutTask.cancel();
 
-                        locallyScopedConn.getCancelTimer().purge();
-
                         timeoutTask = null;
                     }
 
@@ -1438,7 +1475,6 @@ public class PreparedStatement extends com.mysql.jdbc.StatementImpl implements j
             } finally {
                 if (timeoutTask != null) {
                     timeoutTask.cancel();
-                    locallyScopedConn.getCancelTimer().purge();
                 }
 
                 resetCancelledState();
@@ -1515,8 +1551,7 @@ public class PreparedStatement extends com.mysql.jdbc.StatementImpl implements j
                             prepareBatchedInsertSQL(locallyScopedConn, numValuesPerBatch);
 
                     if (locallyScopedConn.getEnableQueryTimeouts() && batchTimeout != 0 && locallyScopedConn.versionMeetsMinimum(5, 0, 0)) {
-                        timeoutTask = new CancelTask(batchedStatement);
-                        locallyScopedConn.getCancelTimer().schedule(timeoutTask, batchTimeout);
+                        timeoutTask = startQueryTimer(batchedStatement, batchTimeout);
                     }
 
                     if (numBatchedArgs < numValuesPerBatch) {
@@ -1604,7 +1639,6 @@ public class PreparedStatement extends com.mysql.jdbc.StatementImpl implements j
             } finally {
                 if (timeoutTask != null) {
                     timeoutTask.cancel();
-                    locallyScopedConn.getCancelTimer().purge();
                 }
 
                 resetCancelledState();
@@ -1734,8 +1768,7 @@ public class PreparedStatement extends com.mysql.jdbc.StatementImpl implements j
 
                 try {
                     if (locallyScopedConn.getEnableQueryTimeouts() && batchTimeout != 0 && locallyScopedConn.versionMeetsMinimum(5, 0, 0)) {
-                        timeoutTask = new CancelTask(this);
-                        locallyScopedConn.getCancelTimer().schedule(timeoutTask, batchTimeout);
+                        timeoutTask = startQueryTimer(this, batchTimeout);
                     }
 
                     if (this.retrieveGeneratedKeys) {
@@ -1796,7 +1829,6 @@ public class PreparedStatement extends com.mysql.jdbc.StatementImpl implements j
 
                     if (timeoutTask != null) {
                         timeoutTask.cancel();
-                        locallyScopedConn.getCancelTimer().purge();
                     }
 
                     resetCancelledState();
@@ -1847,8 +1879,7 @@ public class PreparedStatement extends com.mysql.jdbc.StatementImpl implements j
 
                 try {
                     if (locallyScopedConnection.getEnableQueryTimeouts() && this.timeoutInMillis != 0 && locallyScopedConnection.versionMeetsMinimum(5, 0, 0)) {
-                        timeoutTask = new CancelTask(this);
-                        locallyScopedConnection.getCancelTimer().schedule(timeoutTask, this.timeoutInMillis);
+                        timeoutTask = startQueryTimer(this, this.timeoutInMillis);
                     }
 
                     if (!isBatch) {
@@ -1861,8 +1892,6 @@ public class PreparedStatement extends com.mysql.jdbc.StatementImpl implements j
                     if (timeoutTask != null) {
                         timeoutTask.cancel();
 
-                        locallyScopedConnection.getCancelTimer().purge();
-
                         if (timeoutTask.caughtWhileCancelling != null) {
                             throw timeoutTask.caughtWhileCancelling;
                         }
@@ -1892,7 +1921,6 @@ public class PreparedStatement extends com.mysql.jdbc.StatementImpl implements j
 
                     if (timeoutTask != null) {
                         timeoutTask.cancel();
-                        locallyScopedConnection.getCancelTimer().purge();
                     }
                 }
 
@@ -2194,6 +2222,8 @@ public class PreparedStatement extends com.mysql.jdbc.StatementImpl implements j
 
                 if (batchedIsStream[i]) {
                     streamToBytes(sendPacket, batchedParameterStreams[i], true, batchedStreamLengths[i], useStreamLengths);
+                } else if (batchedParameterStrings[i] == IN_PLACE_VALUE) {
+                    sendPacket.writeBytesNoNull(this.parameterBuffer, this.parameterOffsets[i], this.parameterLengths[i]);
                 } else {
                     sendPacket.writeBytesNoNull(batchedParameterStrings[i]);
                 }
@@ -2263,7 +2293,7 @@ public class PreparedStatement extends com.mysql.jdbc.StatementImpl implements j
                         this.connection.getUseStreamLengthsInPrepStmts());
             }
 
-            byte[] parameterVal = this.parameterValues[parameterIndex];
+            byte[] parameterVal = getParameterValue(parameterIndex);
 
             if (parameterVal == null) {
                 return null;
@@ -2633,6 +2663,9 @@ public class PreparedStatement extends com.mysql.jdbc.StatementImpl implements j
             this.isNull = new boolean[this.parameterCount];
             this.parameterTypes = new int[this.parameterCount];
 
+            this.encodeParametersInPlace = this.connection.getEncodeParametersInPlace();
+            this.encodeParametersAsUtf8 = "UTF-8".equalsIgnoreCase(this.charEncoding) || "UTF8".equalsIgnoreCase(this.charEncoding);
+
             clearParameters();
 
             for (int j = 0; j < this.parameterCount; j++) {
@@ -2717,6 +2750,11 @@ public class PreparedStatement extends com.mysql.jdbc.StatementImpl implements j
             this.originalSql = null;
             this.staticSqlStrings = null;
             this.parameterValues = null;
+            this.parameterBuffer = null;
+            this.spareParameterBuffer = null;
+            this.parameterOffsets = null;
+            this.parameterLengths = null;
+            this.parameterCapacities = null;
             this.parameterStreams = null;
             this.isStream = null;
             this.streamLengths = null;
@@ -2904,7 +2942,7 @@ public class PreparedStatement extends com.mysql.jdbc.StatementImpl implements j
      *                if a database access error occurs
      */
     public void setByte(int parameterIndex, byte x) throws SQLException {
-        setInternal(parameterIndex, String.valueOf(x));
+        setInternal(parameterIndex, (long) x);
 
         this.parameterTypes[parameterIndex - 1 + getParameterIndexOffset()] = Types.TINYINT;
     }
@@ -3299,7 +3337,7 @@ public class PreparedStatement extends com.mysql.jdbc.StatementImpl implements j
      *                if a database access error occurs
      */
     public void setInt(int parameterIndex, int x) throws SQLException {
-        setInternal(parameterIndex, String.valueOf(x));
+        setInternal(parameterIndex, (long) x);
 
         this.parameterTypes[parameterIndex - 1 + getParameterIndexOffset()] = Types.INTEGER;
     }
@@ -3338,6 +3376,9 @@ public class PreparedStatement extends com.mysql.jdbc.StatementImpl implements j
 
     protected final void setInternal(int paramIndex, String val) throws SQLException {
         synchronized (checkClosed().getConnectionMutex()) {
+            if (this.encodeParametersInPlace && val.length() <= MAX_IN_PLACE_STRING_LENGTH && encodeInPlace(paramIndex, val, false, false)) {
+                return;
+            }
 
             byte[] parameterAsBytes = null;
 
@@ -3352,6 +3393,219 @@ public class PreparedStatement extends com.mysql.jdbc.StatementImpl implements j
         }
     }
 
+    protected final void setInternal(int paramIndex, long val) throws SQLException {
+        synchronized (checkClosed().getConnectionMutex()) {
+            if (!this.encodeParametersInPlace) {
+                setInternal(paramIndex, String.valueOf(val));
+
+                return;
+            }
+
+            checkBounds(paramIndex, getParameterIndexOffset());
+
+            int start = reserveInPlace(20);
+            byte[] buf = this.parameterBuffer;
+            int pos = start;
+
+            // digits are produced from a non-positive value, so that Long.MIN_VALUE needs no special case
+            long remaining = val;
+
+            if (remaining < 0) {
+                buf[pos++] = '-';
+            } else {
+                remaining = -remaining;
+            }
+
+            int digitsStart = pos;
+
+            do {
+                buf[pos++] = (byte) ('0' - (remaining % 10));
+                remaining /= 10;
+            } while (remaining != 0);
+
+            for (int i = digitsStart, j = pos - 1; i < j; i++, j--) {
+                byte b = buf[i];
+                buf[i] = buf[j];
+                buf[j] = b;
+            }
+
+            commitInPlace(paramIndex, start, pos);
+        }
+    }
+
+    /**
+     * Longest string encoded in place; longer ones would make the per-statement buffer retain too much memory.
+     */
+    private static final int MAX_IN_PLACE_STRING_LENGTH = 8192;
+
+    /**
+     * Encodes the given string straight into the parameter buffer, optionally quoted and escaped the same way setString() does.
+     * 
+     * @return false, leaving the parameter untouched, if the string holds characters that can only be encoded by a character converter, in which
+     *         case the caller must fall back to building a byte array.
+     */
+    private boolean encodeInPlace(int paramIndex, String val, boolean quote, boolean escape) throws SQLException {
+        checkBounds(paramIndex, getParameterIndexOffset());
+
+        int stringLength = val.length();
+
+        // three bytes per UTF-16 unit is the worst case for both UTF-8 and escaping
+        int start = reserveInPlace(stringLength * 3 + 2);
+        byte[] buf = this.parameterBuffer;
+        int pos = start;
+
+        if (quote) {
+            buf[pos++] = '\'';
+        }
+
+        for (int i = 0; i < stringLength; i++) {
+            char c = val.charAt(i);
+
+            if (c < 0x80) {
+                if (escape) {
+                    switch (c) {
+                        case 0:
+                            buf[pos++] = '\\';
+                            c = '0';
+                            break;
+                        case '\n':
+                            buf[pos++] = '\\';
+                            c = 'n';
+                            break;
+                        case '\r':
+                            buf[pos++] = '\\';
+                            c = 'r';
+                            break;
+                        case '\\':
+                        case '\'':
+                            buf[pos++] = '\\';
+                            break;
+                        case '"':
+                            if (this.usingAnsiMode) {
+                                buf[pos++] = '\\';
+                            }
+                            break;
+                        case '\032':
+                            buf[pos++] = '\\';
+                            c = 'Z';
+                            break;
+                    }
+                }
+
+                buf[pos++] = (byte) c;
+            } else if (!this.encodeParametersAsUtf8) {
+                return false;
+            } else if (c < 0x800) {
+                buf[pos++] = (byte) (0xc0 | (c >> 6));
+                buf[pos++] = (byte) (0x80 | (c & 0x3f));
+            } else if (Character.isHighSurrogate(c) && i + 1 < stringLength && Character.isLowSurrogate(val.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, val.charAt(++i));
+                buf[pos++] = (byte) (0xf0 | (codePoint >> 18));
+                buf[pos++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                buf[pos++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                buf[pos++] = (byte) (0x80 | (codePoint & 0x3f));
+            } else if (Character.isHighSurrogate(c) || Character.isLowSurrogate(c)) {
+                // unpaired surrogates are replaced the same way String.getBytes() does
+                buf[pos++] = '?';
+            } else {
+                buf[pos++] = (byte) (0xe0 | (c >> 12));
+                buf[pos++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                buf[pos++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+
+        if (quote) {
+            buf[pos++] = '\'';
+        }
+
+        commitInPlace(paramIndex, start, pos);
+
+        return true;
+    }
+
+    /**
+     * Makes room for a value of up to maxLength bytes at the end of the parameter buffer, compacting or growing it if needed.
+     * 
+     * @return the position to encode the value at
+     */
+    private int reserveInPlace(int maxLength) {
+        if (this.parameterBuffer == null) {
+            this.parameterBuffer = new byte[Math.max(this.parameterCount * 16, maxLength) * 2];
+            this.parameterOffsets = new int[this.parameterCount];
+            this.parameterLengths = new int[this.parameterCount];
+            this.parameterCapacities = new int[this.parameterCount];
+        } else if (this.parameterBufferPosition + maxLength > this.parameterBuffer.length) {
+            int required = maxLength;
+
+            for (int i = 0; i < this.parameterCount; i++) {
+                if (this.parameterValues[i] == IN_PLACE_VALUE) {
+                    required += this.parameterCapacities[i];
+                }
+            }
+
+            byte[] target = this.spareParameterBuffer;
+
+            if (target == null || target.length < required) {
+                target = new byte[Math.max(required * 2, this.parameterBuffer.length)];
+            }
+
+            int position = 0;
+
+            for (int i = 0; i < this.parameterCount; i++) {
+                if (this.parameterValues[i] == IN_PLACE_VALUE) {
+                    System.arraycopy(this.parameterBuffer, this.parameterOffsets[i], target, position, this.parameterLengths[i]);
+                    this.parameterOffsets[i] = position;
+                    position += this.parameterCapacities[i];
+                }
+            }
+
+            this.spareParameterBuffer = this.parameterBuffer;
+            this.parameterBuffer = target;
+            this.parameterBufferPosition = position;
+        }
+
+        return this.parameterBufferPosition;
+    }
+
+    /**
+     * Binds the value just encoded at [start, end) of the parameter buffer, moving it into the parameter's previous slot when it fits there.
+     */
+    private void commitInPlace(int paramIndex, int start, int end) {
+        int index = paramIndex - 1 + getParameterIndexOffset();
+        int length = end - start;
+
+        if (this.parameterValues[index] == IN_PLACE_VALUE && length <= this.parameterCapacities[index]) {
+            System.arraycopy(this.parameterBuffer, start, this.parameterBuffer, this.parameterOffsets[index], length);
+        } else {
+            this.parameterOffsets[index] = start;
+            this.parameterCapacities[index] = length;
+            this.parameterBufferPosition = end;
+        }
+
+        this.parameterLengths[index] = length;
+
+        this.isStream[index] = false;
+        this.isNull[index] = false;
+        this.parameterStreams[index] = null;
+        this.parameterValues[index] = IN_PLACE_VALUE;
+    }
+
+    /**
+     * Returns the encoded value of the given parameter, copying it out of the parameter buffer if it was encoded in place.
+     */
+    private byte[] getParameterValue(int index) {
+        byte[] val = this.parameterValues[index];
+
+        if (val != IN_PLACE_VALUE) {
+            return val;
+        }
+
+        byte[] copy = new byte[this.parameterLengths[index]];
+        System.arraycopy(this.parameterBuffer, this.parameterOffsets[index], copy, 0, copy.length);
+
+        return copy;
+    }
+
     /**
      * Set a parameter to a Java long value. The driver converts this to a SQL
      * BIGINT value when it sends it to the database.
@@ -3365,7 +3619,7 @@ public class PreparedStatement extends com.mysql.jdbc.StatementImpl implements j
      *                if a database access error occurs
      */
     public void setLong(int parameterIndex, long x) throws SQLException {
-        setInternal(parameterIndex, String.valueOf(x));
+        setInternal(parameterIndex, x);
 
         this.parameterTypes[parameterIndex - 1 + getParameterIndexOffset()] = Types.BIGINT;
     }
@@ -3853,7 +4107,7 @@ public class PreparedStatement extends com.mysql.jdbc.StatementImpl implements j
      *                if a database access error occurs
      */
     public void setShort(int parameterIndex, short x) throws SQLException {
-        setInternal(parameterIndex, String.valueOf(x));
+        setInternal(parameterIndex, (long) x);
 
         this.parameterTypes[parameterIndex - 1 + getParameterIndexOffset()] = Types.SMALLINT;
     }
@@ -3881,6 +4135,16 @@ public class PreparedStatement extends com.mysql.jdbc.StatementImpl implements j
 
                 int stringLength = x.length();
 
+                if (this.encodeParametersInPlace && !this.isLoadDataQuery && stringLength <= MAX_IN_PLACE_STRING_LENGTH) {
+                    boolean noBackslashEscapes = this.connection.isNoBackslashEscapesSet();
+
+                    if ((!noBackslashEscapes || !isEscapeNeededForString(x, stringLength)) && encodeInPlace(parameterIndex, x, true, !noBackslashEscapes)) {
+                        this.parameterTypes[parameterIndex - 1 + getParameterIndexOffset()] = Types.VARCHAR;
+
+                        return;
+                    }
+                }
+
                 if (this.connection.isNoBackslashEscapesSet()) {
                     // Scan for any nasty chars
 
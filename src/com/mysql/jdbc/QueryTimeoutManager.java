@@ -0,0 +1,215 @@
+/*
+  Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+
+  The MySQL Connector/J is licensed under the terms of the GPLv2
+  <http://www.gnu.org/licenses/old-licenses/gpl-2.0.html>, like most MySQL Connectors.
+  There are special exceptions to the terms and conditions of the GPLv2 as it is applied to
+  this software, see the FOSS License Exception
+  <http://www.mysql.com/about/legal/licensing/foss-exception.html>.
+
+  This program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU General Public License as published by the Free Software Foundation; version 2
+  of the License.
+
+  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this
+  program; if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth
+  Floor, Boston, MA 02110-1301  USA
+
+ */
+
+package com.mysql.jdbc;
+
+import java.sql.SQLException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import com.mysql.jdbc.util.HashedWheelTimer;
+
+/**
+ * Driver-wide support for query timeouts: one {@link HashedWheelTimer} for the timeouts of every statement, a cached thread pool to run the cancellations
+ * off the timer thread, and a small pool of idle connections per server and user to send "KILL QUERY" from, so a timeout doesn't have to pay for connecting
+ * (and authenticating) before it can cancel anything.
+ */
+final class QueryTimeoutManager {
+    /** Resolution of query timeouts. */
+    static final long TICK_MILLIS = 10;
+
+    /** One turn of the wheel is about 5 seconds, longer timeouts are just looked at once per turn. */
+    static final int TICKS_PER_WHEEL = 512;
+
+    /** Idle kill connections kept per server and user. */
+    static final int MAX_IDLE_KILL_CONNECTIONS = 2;
+
+    /** Idle kill connections are closed after this long without being used. */
+    static final long KILL_CONNECTION_IDLE_MILLIS = 30000;
+
+    private static final HashedWheelTimer timer = new HashedWheelTimer("MySQL Statement Cancellation Timer", TICK_MILLIS, TICKS_PER_WHEEL);
+
+    private static final ExecutorService cancellationExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "MySQL Statement Cancellation Thread");
+            t.setDaemon(true);
+            t.setContextClassLoader(QueryTimeoutManager.class.getClassLoader());
+            return t;
+        }
+    });
+
+    private static final ConcurrentMap<String, Queue<KillConnection>> idleKillConnections = new ConcurrentHashMap<String, Queue<KillConnection>>();
+
+    private QueryTimeoutManager() {
+    }
+
+    static void schedule(HashedWheelTimer.Timeout timeout, long delayMillis) {
+        timer.schedule(timeout, delayMillis);
+    }
+
+    static void execute(Runnable cancellation) {
+        cancellationExecutor.execute(cancellation);
+    }
+
+    /**
+     * Kills the query currently running on the given connection, using a pooled connection to the same server when one is available.
+     * 
+     * @param physicalConn
+     *            the connection running the query to kill
+     * @throws SQLException
+     *             if the query can't be killed
+     */
+    static void killQuery(MySQLConnection physicalConn) throws SQLException {
+        String key = physicalConn.getURL() + "\u0000" + physicalConn.getHostPortPair() + "\u0000" + physicalConn.getUser();
+        String killSql = "KILL QUERY " + physicalConn.getId();
+
+        KillConnection killConn = borrow(key);
+
+        if (killConn != null) {
+            try {
+                killConn.execute(killSql);
+                release(killConn);
+                return;
+            } catch (SQLException sqlEx) {
+                // the server may have dropped it while idle, try again on a new one
+                killConn.close();
+            }
+        }
+
+        killConn = new KillConnection(key, physicalConn.duplicate());
+
+        try {
+            killConn.execute(killSql);
+        } catch (SQLException sqlEx) {
+            killConn.close();
+            throw sqlEx;
+        }
+
+        release(killConn);
+    }
+
+    /**
+     * Stops the timer thread and closes the idle kill connections. The timer thread is restarted if another query timeout is scheduled.
+     */
+    static void shutdown() {
+        timer.stop();
+
+        for (Queue<KillConnection> idle : idleKillConnections.values()) {
+            KillConnection killConn;
+            while ((killConn = idle.poll()) != null) {
+                if (killConn.cancel()) {
+                    killConn.close();
+                }
+            }
+        }
+    }
+
+    private static KillConnection borrow(String key) {
+        Queue<KillConnection> idle = idleKillConnections.get(key);
+
+        if (idle != null) {
+            KillConnection killConn;
+
+            while ((killConn = idle.poll()) != null) {
+                // if the idle timeout already fired the connection is being closed
+                if (killConn.cancel()) {
+                    return killConn;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    private static void release(KillConnection killConn) {
+        Queue<KillConnection> idle = idleKillConnections.get(killConn.key);
+
+        if (idle == null) {
+            idle = new ConcurrentLinkedQueue<KillConnection>();
+            Queue<KillConnection> existing = idleKillConnections.putIfAbsent(killConn.key, idle);
+            if (existing != null) {
+                idle = existing;
+            }
+        }
+
+        if (idle.size() >= MAX_IDLE_KILL_CONNECTIONS) {
+            killConn.close();
+            return;
+        }
+
+        timer.schedule(killConn, KILL_CONNECTION_IDLE_MILLIS);
+        idle.offer(killConn);
+    }
+
+    /**
+     * A pooled connection used to kill queries, which times itself out when left idle.
+     */
+    static final class KillConnection extends HashedWheelTimer.Timeout {
+        final String key;
+        final Connection conn;
+
+        KillConnection(String key, Connection conn) {
+            this.key = key;
+            this.conn = conn;
+        }
+
+        void execute(String sql) throws SQLException {
+            java.sql.Statement killStmt = this.conn.createStatement();
+
+            try {
+                killStmt.execute(sql);
+            } finally {
+                killStmt.close();
+            }
+        }
+
+        void close() {
+            try {
+                this.conn.close();
+            } catch (SQLException sqlEx) {
+                // we're throwing it away anyway
+            }
+        }
+
+        @Override
+        protected void expired() {
+            Queue<KillConnection> idle = idleKillConnections.get(this.key);
+
+            if (idle != null) {
+                idle.remove(this);
+            }
+
+            // closing talks to the server, keep it off the timer thread
+            QueryTimeoutManager.execute(new Runnable() {
+                public void run() {
+                    close();
+                }
+            });
+        }
+    }
+}
@@ -44,14 +44,11 @@ import java.sql.Timestamp;
 import java.sql.Types;
 import java.util.Calendar;
 import java.util.GregorianCalendar;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Locale;
-import java.util.Map;
 import java.util.Set;
 import java.util.StringTokenizer;
 import java.util.TimeZone;
-import java.util.TreeMap;
 
 import com.mysql.jdbc.log.LogUtils;
 import com.mysql.jdbc.profiler.ProfilerEvent;
@@ -161,14 +158,8 @@ public class ResultSetImpl implements ResultSetInternalMethods {
     /** The catalog that was in use when we were created */
     protected String catalog = null;
 
-    /** Map column names (and all of their permutations) to column indices */
-    protected Map<String, Integer> columnLabelToIndex = null;
-
-    /**
-     * The above map is a case-insensitive tree-map, it can be slow, this caches lookups into that map, because the other alternative is to create new
-     * object instances for every call to findColumn()....
-     */
-    protected Map<String, Integer> columnToIndexCache = null;
+    /** Case-insensitive index of column labels, names and fully-qualified names, used by findColumn() */
+    protected ColumnIndex columnIndex = null;
 
     /** Keep track of columns accessed */
     protected boolean[] columnUsed = null;
@@ -204,11 +195,6 @@ public class ResultSetImpl implements ResultSetInternalMethods {
      */
     protected char firstCharOfQuery;
 
-    /** Map of fully-specified column names to column indices */
-    protected Map<String, Integer> fullColumnNameToIndex = null;
-
-    protected Map<String, Integer> columnNameToIndex = null;
-
     protected boolean hasBuiltIndexMapping = false;
 
     /**
@@ -299,6 +285,13 @@ public class ResultSetImpl implements ResultSetInternalMethods {
     private boolean jdbcCompliantTruncationForReads;
 
     private boolean useFastIntParsing = true;
+
+    private boolean useFastDecimalParsing = true;
+
+    private boolean useFastJavaTimeDecoding = true;
+
+    /** Whether the Calendar based date-time getters return values with the wall-clock fields stored in the row, computed on first use. */
+    private Boolean dateTimeFieldsPreserved;
     private boolean useColumnNamesInFindColumn;
 
     private ExceptionInterceptor exceptionInterceptor;
@@ -411,6 +404,8 @@ public class ResultSetImpl implements ResultSetInternalMethods {
             this.retainOwningStatement = this.connection.getRetainStatementAfterResultSetClose();
             this.jdbcCompliantTruncationForReads = this.connection.getJdbcCompliantTruncationForReads();
             this.useFastIntParsing = this.connection.getUseFastIntParsing();
+            this.useFastDecimalParsing = this.connection.getUseFastDecimalParsing();
+            this.useFastJavaTimeDecoding = this.connection.getUseFastJavaTimeDecoding();
             this.serverTimeZoneTz = this.connection.getServerTimezoneTZ();
             this.padCharsWithSpace = this.connection.getPadCharsWithSpace();
         }
@@ -457,8 +452,6 @@ public class ResultSetImpl implements ResultSetInternalMethods {
         synchronized (checkClosed().getConnectionMutex()) {
             this.rowData.setMetadata(this.fields);
 
-            this.columnToIndexCache = new HashMap<String, Integer>();
-
             if (this.profileSql || this.connection.getUseUsageAdvisor()) {
                 this.columnUsed = new boolean[this.fields.length];
                 this.pointOfOrigin = LogUtils.findCallingClassAndMethod(new Throwable());
@@ -680,36 +673,7 @@ public class ResultSetImpl implements ResultSetInternalMethods {
      * Builds a hash between column names and their indices for fast retrieval.
      */
     public void buildIndexMapping() throws SQLException {
-        int numFields = this.fields.length;
-        this.columnLabelToIndex = new TreeMap<String, Integer>(String.CASE_INSENSITIVE_ORDER);
-        this.fullColumnNameToIndex = new TreeMap<String, Integer>(String.CASE_INSENSITIVE_ORDER);
-        this.columnNameToIndex = new TreeMap<String, Integer>(String.CASE_INSENSITIVE_ORDER);
-
-        // We do this in reverse order, so that the 'first' column with a given name ends up as the final mapping in the hashtable...
-        //
-        // Quoting the JDBC Spec:
-        //
-        // "Column names used as input to getter methods are case insensitive. When a getter method is called with a column name and several columns have the
-        // same name, the value of the first matching column will be returned. "
-        //
-        for (int i = numFields - 1; i >= 0; i--) {
-            Integer index = Integer.valueOf(i);
-            String columnName = this.fields[i].getOriginalName();
-            String columnLabel = this.fields[i].getName();
-            String fullColumnName = this.fields[i].getFullName();
-
-            if (columnLabel != null) {
-                this.columnLabelToIndex.put(columnLabel, index);
-            }
-
-            if (fullColumnName != null) {
-                this.fullColumnNameToIndex.put(fullColumnName, index);
-            }
-
-            if (columnName != null) {
-                this.columnNameToIndex.put(columnName, index);
-            }
-        }
+        this.columnIndex = new ColumnIndex(this.fields);
 
         // set the flag to prevent rebuilding...
         this.hasBuiltIndexMapping = true;
@@ -895,16 +859,14 @@ public class ResultSetImpl implements ResultSetInternalMethods {
 
     public void populateCachedMetaData(CachedResultSetMetaData cachedMetaData) throws SQLException {
         cachedMetaData.fields = this.fields;
-        cachedMetaData.columnNameToIndex = this.columnLabelToIndex;
-        cachedMetaData.fullColumnNameToIndex = this.fullColumnNameToIndex;
+        cachedMetaData.columnIndex = this.columnIndex;
         cachedMetaData.metadata = getMetaData();
     }
 
     public void initializeFromCachedMetaData(CachedResultSetMetaData cachedMetaData) {
         this.fields = cachedMetaData.fields;
-        this.columnLabelToIndex = cachedMetaData.columnNameToIndex;
-        this.fullColumnNameToIndex = cachedMetaData.fullColumnNameToIndex;
-        this.hasBuiltIndexMapping = true;
+        this.columnIndex = cachedMetaData.columnIndex;
+        this.hasBuiltIndexMapping = this.columnIndex != null;
     }
 
     /**
@@ -1039,42 +1001,14 @@ public class ResultSetImpl implements ResultSetInternalMethods {
      */
     public int findColumn(String columnName) throws SQLException {
         synchronized (checkClosed().getConnectionMutex()) {
-            Integer index;
-
             if (!this.hasBuiltIndexMapping) {
                 buildIndexMapping();
             }
 
-            index = this.columnToIndexCache.get(columnName);
-
-            if (index != null) {
-                return index.intValue() + 1;
-            }
-
-            index = this.columnLabelToIndex.get(columnName);
+            int index = this.columnIndex.indexOf(columnName, this.useColumnNamesInFindColumn);
 
-            if (index == null && this.useColumnNamesInFindColumn) {
-                index = this.columnNameToIndex.get(columnName);
-            }
-
-            if (index == null) {
-                index = this.fullColumnNameToIndex.get(columnName);
-            }
-
-            if (index != null) {
-                this.columnToIndexCache.put(columnName, index);
-
-                return index.intValue() + 1;
-            }
-
-            // Try this inefficient way, now
-
-            for (int i = 0; i < this.fields.length; i++) {
-                if (this.fields[i].getName().equalsIgnoreCase(columnName)) {
-                    return i + 1;
-                } else if (this.fields[i].getFullName().equalsIgnoreCase(columnName)) {
-                    return i + 1;
-                }
+            if (index != -1) {
+                return index + 1;
             }
 
             throw SQLError.createSQLException(Messages.getString("ResultSet.Column____112") + columnName + Messages.getString("ResultSet.___not_found._113"),
@@ -1213,6 +1147,14 @@ public class ResultSetImpl implements ResultSetInternalMethods {
      */
     public BigDecimal getBigDecimal(int columnIndex) throws SQLException {
         if (!this.isBinaryEncoded) {
+            if (canParseNumberFromRow(columnIndex)) {
+                try {
+                    return this.thisRow.getBigDecimal(columnIndex - 1);
+                } catch (NumberFormatException nfe) {
+                    // not a plain decimal number, the String based conversion reports or converts it
+                }
+            }
+
             String stringVal = getString(columnIndex);
             BigDecimal val;
 
@@ -1809,6 +1751,18 @@ public class ResultSetImpl implements ResultSetInternalMethods {
         return -1;
     }
 
+    public long getPeakBufferedBytes() throws SQLException {
+        RowData localRowData = this.rowData;
+
+        checkClosed();
+
+        if (localRowData instanceof RowDataStatic) {
+            return ((RowDataStatic) localRowData).getPeakBufferedBytes();
+        }
+
+        return -1;
+    }
+
     /**
      * Optimization to only use one calendar per-session, or calculate it for
      * each call, depending on user configuration
@@ -2272,6 +2226,14 @@ public class ResultSetImpl implements ResultSetInternalMethods {
      *             if an error occurs
      */
     protected double getDoubleInternal(int colIndex) throws SQLException {
+        if (!this.useStrictFloatingPoint && canParseNumberFromRow(colIndex)) {
+            try {
+                return this.thisRow.getDouble(colIndex - 1);
+            } catch (NumberFormatException nfe) {
+                // not a plain decimal number, the String based conversion reports or converts it
+            }
+        }
+
         return getDoubleInternal(getString(colIndex), colIndex);
     }
 
@@ -2394,6 +2356,19 @@ public class ResultSetImpl implements ResultSetInternalMethods {
      */
     public float getFloat(int columnIndex) throws SQLException {
         if (!this.isBinaryEncoded) {
+            if (canParseNumberFromRow(columnIndex)) {
+                try {
+                    float f = this.thisRow.getFloat(columnIndex - 1);
+
+                    // the String based conversion takes care of the range checks at the endpoints
+                    if (!this.jdbcCompliantTruncationForReads || (f != Float.MIN_VALUE && f != Float.MAX_VALUE)) {
+                        return f;
+                    }
+                } catch (NumberFormatException nfe) {
+                    // not a plain decimal number, the String based conversion reports or converts it
+                }
+            }
+
             String val = null;
 
             val = getString(columnIndex);
@@ -4485,6 +4460,14 @@ public class ResultSetImpl implements ResultSetInternalMethods {
 
             case Types.DECIMAL:
             case Types.NUMERIC:
+                if (canParseNumberFromRow(columnIndex)) {
+                    try {
+                        return this.thisRow.getBigDecimal(columnIndex - 1);
+                    } catch (NumberFormatException nfe) {
+                        // not a plain decimal number, the String based conversion reports it
+                    }
+                }
+
                 stringVal = getString(columnIndex);
 
                 BigDecimal val;
@@ -6327,6 +6310,257 @@ public class ResultSetImpl implements ResultSetInternalMethods {
         }
     }
 
+    /**
+     * @see ResultSetInternalMethods#fetchColumnBatch(ColumnBatch)
+     */
+    public int fetchColumnBatch(ColumnBatch batch) throws SQLException {
+        synchronized (checkClosed().getConnectionMutex()) {
+            if (!reallyResult()) {
+                throw SQLError.createSQLException(Messages.getString("ResultSet.ResultSet_is_from_UPDATE._No_Data_115"), SQLError.SQL_STATE_GENERAL_ERROR,
+                        getExceptionInterceptor());
+            }
+
+            if (batch.getColumnCount() != this.fields.length) {
+                throw SQLError.createSQLException(
+                        Messages.getString("ResultSet.ColumnBatchColumnCount", new Object[] { batch.getColumnCount(), this.fields.length }),
+                        SQLError.SQL_STATE_ILLEGAL_ARGUMENT, getExceptionInterceptor());
+            }
+
+            batch.reset();
+
+            int rowCount = 0;
+
+            if (this.rowData instanceof RowDataDynamic && !this.isBinaryEncoded) {
+                rowCount = fetchColumnBatchFromRowPackets(batch);
+            } else {
+                while (rowCount < batch.getCapacity() && next()) {
+                    for (int i = 0; i < this.fields.length; i++) {
+                        fetchColumnBatchValue(batch, i, rowCount);
+                    }
+
+                    rowCount++;
+                }
+            }
+
+            batch.setRowCount(rowCount);
+
+            return rowCount;
+        }
+    }
+
+    /**
+     * Fills the batch from the row packets of a streaming text protocol result set. Integer and numeric values in the plain formats the server sends are
+     * parsed straight from the packet, like all values fetched as bytes; anything else goes through the getters on a BufferRow over the packet.
+     */
+    private int fetchColumnBatchFromRowPackets(ColumnBatch batch) throws SQLException {
+        RowDataDynamic dynamicRowData = (RowDataDynamic) this.rowData;
+        int capacity = batch.getCapacity();
+        int rowCount = 0;
+
+        if (this.thisRow != null) {
+            this.thisRow.closeOpenStreams();
+            this.thisRow = null;
+        }
+
+        try {
+            Buffer rowPacket;
+
+            while (rowCount < capacity && (rowPacket = dynamicRowData.nextRowPacket()) != null) {
+                this.thisRow = null;
+
+                int rowStart = rowPacket.getPosition();
+
+                fetchColumnBatchRow(batch, rowCount++, rowPacket, rowStart);
+
+                if (rowCount == capacity && this.thisRow == null) {
+                    // the last row fetched becomes the current row, as after next()
+                    rowPacket.setPosition(rowStart);
+                    this.thisRow = new BufferRow(rowPacket, this.fields, false, getExceptionInterceptor());
+                }
+            }
+        } finally {
+            setRowPositionValidity();
+
+            if (this.onValidRow && this.thisRow == null) {
+                // reading the rows failed, the streamer won't return any more of them
+                this.onValidRow = false;
+                this.invalidRowReason = Messages.getString("ResultSet.After_end_of_result_set_148");
+            }
+        }
+
+        if (rowCount > 0) {
+            clearWarnings();
+        }
+
+        return rowCount;
+    }
+
+    private void fetchColumnBatchRow(ColumnBatch batch, int row, Buffer rowPacket, int rowStart) throws SQLException {
+        byte[] bytes = rowPacket.getByteBuffer();
+
+        for (int i = 0; i < this.fields.length; i++) {
+            byte vectorType = batch.getVectorType(i);
+            long length = rowPacket.readFieldLength();
+
+            if (length == Buffer.NULL_LENGTH) {
+                if (vectorType != ColumnBatch.NO_VECTOR) {
+                    batch.setNull(i, row);
+                }
+
+                continue;
+            }
+
+            int start = rowPacket.getPosition();
+            int end = start + (int) length;
+
+            rowPacket.setPosition(end);
+
+            switch (vectorType) {
+                case ColumnBatch.NO_VECTOR:
+                    continue;
+
+                case ColumnBatch.BYTES_VECTOR:
+                    batch.setBytes(i, row, bytes, start, end - start);
+                    continue;
+
+                case ColumnBatch.LONG_VECTOR:
+                    if (isIntegerType(this.fields[i].getMysqlType())) {
+                        long longValue = parsePlainLong(bytes, start, end);
+
+                        if (longValue != Long.MIN_VALUE) {
+                            batch.setLong(i, row, longValue);
+                            continue;
+                        }
+                    }
+                    break;
+
+                case ColumnBatch.DOUBLE_VECTOR:
+                    if (this.useFastDecimalParsing && !this.useStrictFloatingPoint && start < end
+                            && (isIntegerType(this.fields[i].getMysqlType()) || isDecimalOrFloatingPointType(this.fields[i].getMysqlType()))) {
+                        try {
+                            batch.setDouble(i, row, StringUtils.getDouble(bytes, start, end));
+                            continue;
+                        } catch (NumberFormatException nfe) {
+                            // not a plain decimal number, the getter converts it
+                        }
+                    }
+                    break;
+
+                default:
+                    break;
+            }
+
+            // convert the value with the getter, on a row over the packet that stays current if the conversion fails
+            if (this.thisRow == null) {
+                rowPacket.setPosition(rowStart);
+                this.thisRow = new BufferRow(rowPacket, this.fields, false, getExceptionInterceptor());
+            }
+
+            this.onValidRow = true;
+
+            fetchColumnBatchValue(batch, i, row);
+
+            rowPacket.setPosition(end);
+        }
+    }
+
+    private void fetchColumnBatchValue(ColumnBatch batch, int columnIndexMinusOne, int row) throws SQLException {
+        switch (batch.getVectorType(columnIndexMinusOne)) {
+            case ColumnBatch.LONG_VECTOR:
+                long longValue = getLong(columnIndexMinusOne + 1);
+
+                if (this.wasNullFlag) {
+                    batch.setNull(columnIndexMinusOne, row);
+                } else {
+                    batch.setLong(columnIndexMinusOne, row, longValue);
+                }
+                break;
+
+            case ColumnBatch.DOUBLE_VECTOR:
+                double doubleValue = getDouble(columnIndexMinusOne + 1);
+
+                if (this.wasNullFlag) {
+                    batch.setNull(columnIndexMinusOne, row);
+                } else {
+                    batch.setDouble(columnIndexMinusOne, row, doubleValue);
+                }
+                break;
+
+            case ColumnBatch.BYTES_VECTOR:
+                byte[] bytesValue = getBytes(columnIndexMinusOne + 1);
+
+                if (bytesValue == null) {
+                    batch.setNull(columnIndexMinusOne, row);
+                } else {
+                    batch.setBytes(columnIndexMinusOne, row, bytesValue, 0, bytesValue.length);
+                }
+                break;
+
+            default:
+                break;
+        }
+    }
+
+    private static boolean isIntegerType(int mysqlType) {
+        switch (mysqlType) {
+            case MysqlDefs.FIELD_TYPE_TINY:
+            case MysqlDefs.FIELD_TYPE_SHORT:
+            case MysqlDefs.FIELD_TYPE_INT24:
+            case MysqlDefs.FIELD_TYPE_LONG:
+            case MysqlDefs.FIELD_TYPE_LONGLONG:
+            case MysqlDefs.FIELD_TYPE_YEAR:
+                return true;
+
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isDecimalOrFloatingPointType(int mysqlType) {
+        switch (mysqlType) {
+            case MysqlDefs.FIELD_TYPE_DECIMAL:
+            case MysqlDefs.FIELD_TYPE_NEW_DECIMAL:
+            case MysqlDefs.FIELD_TYPE_DOUBLE:
+            case MysqlDefs.FIELD_TYPE_FLOAT:
+                return true;
+
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Parses an optionally negative integer of at most 18 digits, which can't overflow.
+     * 
+     * @return the value, or Long.MIN_VALUE if the bytes are anything else
+     */
+    private static long parsePlainLong(byte[] buf, int start, int end) {
+        int pos = start;
+        boolean negative = pos < end && buf[pos] == '-';
+
+        if (negative) {
+            pos++;
+        }
+
+        if (pos == end || end - pos > 18) {
+            return Long.MIN_VALUE;
+        }
+
+        long value = 0;
+
+        for (; pos < end; pos++) {
+            int digit = buf[pos] - '0';
+
+            if (digit < 0 || digit > 9) {
+                return Long.MIN_VALUE;
+            }
+
+            value = value * 10 + digit;
+        }
+
+        return negative ? -value : value;
+    }
+
     private int parseIntAsDouble(int columnIndex, String val) throws NumberFormatException, SQLException {
         if (val == null) {
             return 0;
@@ -6343,6 +6577,99 @@ public class ResultSetImpl implements ResultSetInternalMethods {
         return (int) valueAsDouble;
     }
 
+    /**
+     * Decodes the DATE, DATETIME, TIMESTAMP or TIME value of the given column straight from the row's bytes into its year, month, day, hour, minute,
+     * second and nanosecond fields, without creating any java.sql.Date/Time/Timestamp. This is only done when the time zone settings of the connection
+     * guarantee that the Calendar based getters would return the same wall-clock fields in the default time zone of the JVM. Sets wasNullFlag accordingly
+     * when it returns true.
+     * 
+     * @param columnIndex
+     *            the first column is 1, the second is 2...
+     * @param jdbcType
+     *            the java.sql.Types value the column must map to, Types.DATE, Types.TIME or Types.TIMESTAMP
+     * @param dateTimeFields
+     *            array of at least 7 elements receiving the decoded fields
+     * @return false if the value is NULL or can't be decoded this way, in which case the caller must use the Calendar based getters instead
+     */
+    protected boolean getDateTimeFieldsFromRow(int columnIndex, int jdbcType, int[] dateTimeFields) throws SQLException {
+        if (!this.useFastJavaTimeDecoding) {
+            return false;
+        }
+
+        checkRowPos();
+        checkColumnBounds(columnIndex);
+
+        int columnIndexMinusOne = columnIndex - 1;
+
+        if (this.fields[columnIndexMinusOne].getSQLType() != jdbcType || !isDateTimeFieldsPreserved()
+                || !this.thisRow.getDateTimeFields(columnIndexMinusOne, this.isBinaryEncoded, dateTimeFields)) {
+            return false;
+        }
+
+        this.wasNullFlag = false;
+
+        return true;
+    }
+
+    private boolean isDateTimeFieldsPreserved() {
+        if (this.dateTimeFieldsPreserved == null) {
+            boolean preserved;
+
+            if (this.connection == null) {
+                preserved = false;
+            } else if (this.useLegacyDatetimeCode) {
+                preserved = !this.connection.getUseTimezone() && !this.connection.getUseJDBCCompliantTimezoneShift()
+                        && !this.connection.getUseGmtMillisForDatetimes();
+            } else {
+                preserved = this.serverTimeZoneTz != null && this.serverTimeZoneTz.hasSameRules(TimeZone.getDefault());
+            }
+
+            this.dateTimeFieldsPreserved = Boolean.valueOf(preserved);
+        }
+
+        return this.dateTimeFieldsPreserved.booleanValue();
+    }
+
+    /**
+     * Tells whether the value of the given text protocol column can be parsed as a number straight from the row's bytes by the "useFastDecimalParsing"
+     * routines, which is the case for non-NULL, non-empty values of numeric columns. Sets wasNullFlag accordingly when it returns true.
+     * 
+     * @param columnIndex
+     *            the first column is 1, the second is 2...
+     */
+    private boolean canParseNumberFromRow(int columnIndex) throws SQLException {
+        if (!this.useFastDecimalParsing) {
+            return false;
+        }
+
+        checkRowPos();
+        checkColumnBounds(columnIndex);
+
+        int columnIndexMinusOne = columnIndex - 1;
+
+        switch (this.fields[columnIndexMinusOne].getMysqlType()) {
+            case MysqlDefs.FIELD_TYPE_DECIMAL:
+            case MysqlDefs.FIELD_TYPE_NEW_DECIMAL:
+            case MysqlDefs.FIELD_TYPE_DOUBLE:
+            case MysqlDefs.FIELD_TYPE_FLOAT:
+            case MysqlDefs.FIELD_TYPE_TINY:
+            case MysqlDefs.FIELD_TYPE_SHORT:
+            case MysqlDefs.FIELD_TYPE_INT24:
+            case MysqlDefs.FIELD_TYPE_LONG:
+            case MysqlDefs.FIELD_TYPE_LONGLONG:
+                if (this.thisRow.isNull(columnIndexMinusOne) || this.thisRow.length(columnIndexMinusOne) == 0) {
+                    return false;
+                }
+
+                this.wasNullFlag = false;
+
+                return true;
+
+            default:
+                return false;
+        }
+    }
+
     private int getIntWithOverflowCheck(int columnIndex) throws SQLException {
         int intValue = this.thisRow.getInt(columnIndex);
 
@@ -6696,9 +7023,7 @@ public class ResultSetImpl implements ResultSetInternalMethods {
 
                 this.rowData = null;
                 this.fields = null;
-                this.columnLabelToIndex = null;
-                this.fullColumnNameToIndex = null;
-                this.columnToIndexCache = null;
+                this.columnIndex = null;
                 this.eventSink = null;
                 this.warningChain = null;
 
@@ -173,4 +173,24 @@ public interface ResultSetInternalMethods extends java.sql.ResultSet {
     public void initializeFromCachedMetaData(CachedResultSetMetaData cachedMetaData);
 
     public int getBytesSize() throws SQLException;
+
+    /**
+     * Returns the largest number of bytes of row data this result set has held in memory, which is the size of all rows unless they went over the memory
+     * budget of the statement (see {@link Statement#setResultSetMemoryBudget(int)}) and were partly spilled to disk.
+     * 
+     * @return the number of bytes, or -1 for streaming and cursor-based result sets, that don't hold all rows
+     */
+    public long getPeakBufferedBytes() throws SQLException;
+
+    /**
+     * Fetches up to batch.getCapacity() rows following the current row into the column vectors of the given batch, as if next() and the getters matching
+     * the vectors were called for each row. Afterwards the result set is positioned on the last row fetched, or after the last row if there were no more.
+     * 
+     * The rows of streaming text protocol result sets are decoded straight from the packets they are read in, without creating an object per row.
+     * 
+     * @param batch
+     *            a batch with as many columns as this result set
+     * @return the number of rows fetched, 0 if there were no more rows
+     */
+    public int fetchColumnBatch(ColumnBatch batch) throws SQLException;
 }
@@ -25,6 +25,7 @@ package com.mysql.jdbc;
 
 import java.io.InputStream;
 import java.io.Reader;
+import java.math.BigDecimal;
 import java.sql.Date;
 import java.sql.SQLException;
 import java.sql.SQLWarning;
@@ -297,6 +298,243 @@ public abstract class ResultSetRow {
      */
     public abstract long getLong(int columnIndex) throws SQLException;
 
+    /**
+     * Parses the text protocol value at the given column (index starts at 0) as a BigDecimal straight from its bytes.
+     * 
+     * @param index
+     *            of the column value (starting at 0) to return.
+     * @return the value for the given column (returns null if NULL)
+     * @throws NumberFormatException
+     *             if the value is not a plain decimal number, in which case the caller should fall back to converting it as a String.
+     * @throws SQLException
+     *             if an error occurs while retrieving the value.
+     */
+    public abstract BigDecimal getBigDecimal(int columnIndex) throws SQLException;
+
+    /**
+     * Parses the text protocol value at the given column (index starts at 0) as a double straight from its bytes.
+     * 
+     * @param index
+     *            of the column value (starting at 0) to return.
+     * @return the value for the given column (returns 0 if NULL, use isNull()
+     *         to determine if the value was actually NULL)
+     * @throws NumberFormatException
+     *             if the value is not a plain decimal number, in which case the caller should fall back to converting it as a String.
+     * @throws SQLException
+     *             if an error occurs while retrieving the value.
+     */
+    public abstract double getDouble(int columnIndex) throws SQLException;
+
+    /**
+     * Parses the text protocol value at the given column (index starts at 0) as a float straight from its bytes.
+     * 
+     * @param index
+     *            of the column value (starting at 0) to return.
+     * @return the value for the given column (returns 0 if NULL, use isNull()
+     *         to determine if the value was actually NULL)
+     * @throws NumberFormatException
+     *             if the value is not a plain decimal number, in which case the caller should fall back to converting it as a String.
+     * @throws SQLException
+     *             if an error occurs while retrieving the value.
+     */
+    public abstract float getFloat(int columnIndex) throws SQLException;
+
+    /**
+     * Decodes the DATE, DATETIME, TIMESTAMP or TIME value at the given column (index starts at 0) into its year, month, day, hour, minute, second and
+     * nanosecond fields, in that order, exactly as stored and without going through a Calendar or any time zone conversion. TIME values leave the date
+     * fields at 0, DATE values leave the time fields at 0.
+     * 
+     * @param columnIndex
+     *            of the column value (starting at 0) to decode.
+     * @param binaryEncoded
+     *            whether the row was sent using the binary (server-side prepared statement) protocol
+     * @param fields
+     *            array of at least 7 elements receiving the decoded fields
+     * @return true if the value was decoded, false if it is NULL, a zero or otherwise invalid date, a TIME outside of 00:00:00 to 23:59:59 or not in the
+     *         format the server uses for the column type, in which case the caller should fall back to the Calendar based getters.
+     * @throws SQLException
+     *             if an error occurs while retrieving the value.
+     */
+    public abstract boolean getDateTimeFields(int columnIndex, boolean binaryEncoded, int[] fields) throws SQLException;
+
+    /**
+     * @param columnIndex
+     * @param bits
+     * @param offset
+     * @param length
+     * @param binaryEncoded
+     * @param fields
+     * @see #getDateTimeFields(int, boolean, int[])
+     */
+    protected boolean getDateTimeFields(int columnIndex, byte[] bits, int offset, int length, boolean binaryEncoded, int[] fields) {
+        int year = 0;
+        int month = 0;
+        int day = 0;
+        int hour = 0;
+        int minute = 0;
+        int second = 0;
+        int nanos = 0;
+
+        switch (this.metadata[columnIndex].getMysqlType()) {
+            case MysqlDefs.FIELD_TYPE_DATE:
+            case MysqlDefs.FIELD_TYPE_DATETIME:
+            case MysqlDefs.FIELD_TYPE_TIMESTAMP:
+                if (binaryEncoded) {
+                    if (length != 4 && length != 7 && length != 11) {
+                        return false;
+                    }
+
+                    year = (bits[offset] & 0xff) | ((bits[offset + 1] & 0xff) << 8);
+                    month = bits[offset + 2];
+                    day = bits[offset + 3];
+
+                    if (length > 4) {
+                        hour = bits[offset + 4];
+                        minute = bits[offset + 5];
+                        second = bits[offset + 6];
+                    }
+
+                    if (length > 7) {
+                        nanos = getNativeInt(bits, offset + 7) * 1000;
+                    }
+                } else {
+                    // "YYYY-MM-DD", "YYYY-MM-DD hh:mm:ss" or "YYYY-MM-DD hh:mm:ss.f" with up to 6 fractional digits
+                    if (length < 10 || bits[offset + 4] != '-' || bits[offset + 7] != '-') {
+                        return false;
+                    }
+
+                    year = getDigits(bits, offset, 4);
+                    month = getDigits(bits, offset + 5, 2);
+                    day = getDigits(bits, offset + 8, 2);
+
+                    if (length > 10) {
+                        if (length < 19 || bits[offset + 10] != ' ' || bits[offset + 13] != ':' || bits[offset + 16] != ':') {
+                            return false;
+                        }
+
+                        hour = getDigits(bits, offset + 11, 2);
+                        minute = getDigits(bits, offset + 14, 2);
+                        second = getDigits(bits, offset + 17, 2);
+                        nanos = getFractionalNanos(bits, offset + 19, length - 19);
+                    }
+                }
+
+                if (year < 1 || month < 1 || month > 12 || day < 1 || day > getDaysInMonth(year, month)) {
+                    return false;
+                }
+
+                break;
+
+            case MysqlDefs.FIELD_TYPE_TIME:
+                if (binaryEncoded) {
+                    if (length != 0) {
+                        if (length != 8 && length != 12 || bits[offset] != 0 || getNativeInt(bits, offset + 1) != 0) {
+                            // negative or spanning more than a day
+                            return false;
+                        }
+
+                        hour = bits[offset + 5];
+                        minute = bits[offset + 6];
+                        second = bits[offset + 7];
+
+                        if (length > 8) {
+                            nanos = getNativeInt(bits, offset + 8) * 1000;
+                        }
+                    }
+                } else {
+                    // "hh:mm:ss" or "hh:mm:ss.f" with up to 6 fractional digits
+                    if (length < 8 || bits[offset + 2] != ':' || bits[offset + 5] != ':') {
+                        return false;
+                    }
+
+                    hour = getDigits(bits, offset, 2);
+                    minute = getDigits(bits, offset + 3, 2);
+                    second = getDigits(bits, offset + 6, 2);
+                    nanos = getFractionalNanos(bits, offset + 8, length - 8);
+                }
+
+                break;
+
+            default:
+                return false;
+        }
+
+        if (hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59 || nanos < 0 || nanos > 999999999) {
+            return false;
+        }
+
+        fields[0] = year;
+        fields[1] = month;
+        fields[2] = day;
+        fields[3] = hour;
+        fields[4] = minute;
+        fields[5] = second;
+        fields[6] = nanos;
+
+        return true;
+    }
+
+    /**
+     * Reads the given number of ASCII digits.
+     * 
+     * @return the value read, or -1 if any of the bytes is not a digit
+     */
+    private static int getDigits(byte[] bits, int offset, int count) {
+        int value = 0;
+
+        for (int i = offset; i < offset + count; i++) {
+            int digit = bits[i] - '0';
+
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+
+            value = value * 10 + digit;
+        }
+
+        return value;
+    }
+
+    /**
+     * Reads an optional ".f" fractional seconds suffix of 1 to 6 digits.
+     * 
+     * @return the fraction in nanoseconds, 0 if length is 0, or -1 if the bytes are not in the expected format
+     */
+    private static int getFractionalNanos(byte[] bits, int offset, int length) {
+        if (length == 0) {
+            return 0;
+        }
+
+        if (length < 2 || length > 7 || bits[offset] != '.') {
+            return -1;
+        }
+
+        int nanos = getDigits(bits, offset + 1, length - 1);
+
+        for (int i = length; nanos > 0 && i < 10; i++) {
+            nanos *= 10;
+        }
+
+        return nanos;
+    }
+
+    /**
+     * Returns the number of days of the given month in the proleptic Gregorian calendar.
+     */
+    private static int getDaysInMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                return (year % 4 == 0 && year % 100 != 0) || year % 400 == 0 ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
     /**
      * @param columnIndex
      * @param bits
@@ -98,6 +98,33 @@ public class RowDataCursor implements RowData {
 
     private boolean useBufferRowExplicit = false;
 
+    /**
+     * Should the next block of rows be requested before the current one is entirely read?
+     */
+    private boolean prefetchRows = false;
+
+    /**
+     * The percentage of a block of rows that is read before the next one is requested.
+     */
+    private int prefetchWatermark;
+
+    /**
+     * Has the next block of rows been requested, with its rows not read off the connection yet?
+     */
+    private boolean prefetchPending = false;
+
+    /**
+     * The next block of rows, when read off the connection before it was needed, so another command could be sent.
+     */
+    private List<ResultSetRow> prefetchedRows;
+
+    private boolean prefetchedLastRow = false;
+
+    /**
+     * The failure to read the next block of rows, reported when the rows are needed.
+     */
+    private SQLException prefetchException;
+
     /**
      * Creates a new cursor-backed row provider.
      * 
@@ -115,7 +142,8 @@ public class RowDataCursor implements RowData {
         this.statementIdOnServer = creatingStatement.getServerStatementId();
         this.prepStmt = creatingStatement;
         this.useBufferRowExplicit = MysqlIO.useBufferRowExplicit(this.metadata);
-
+        this.prefetchRows = creatingStatement.connection.getPrefetchCursorRows();
+        this.prefetchWatermark = creatingStatement.connection.getCursorPrefetchWatermark();
     }
 
     /**
@@ -268,6 +296,13 @@ public class RowDataCursor implements RowData {
      *             if a database error occurs
      */
     public void close() throws SQLException {
+        if (this.prefetchPending) {
+            // not needed anymore, but the rows have to be read off the connection
+            readPrefetchedRows();
+        }
+
+        this.prefetchedRows = null;
+        this.prefetchException = null;
 
         this.metadata = null;
         this.owner = null;
@@ -361,9 +396,48 @@ public class RowDataCursor implements RowData {
 
         row.setMetadata(this.metadata);
 
+        if (this.prefetchRows && !this.prefetchPending && this.prefetchedRows == null && !this.lastRowFetched
+                && (this.currentPositionInFetchedRows + 1) * 100L >= (long) this.fetchedRows.size() * this.prefetchWatermark) {
+            synchronized (this.owner.connection.getConnectionMutex()) {
+                this.prefetchPending = this.mysql.sendCursorFetch(this, this.statementIdOnServer, getNumRowsToFetch());
+            }
+        }
+
         return row;
     }
 
+    /**
+     * Reads the rows of the block requested ahead of time off the connection.
+     */
+    void readPrefetchedRows() {
+        this.prefetchPending = false;
+
+        try {
+            this.prefetchedRows = this.mysql.readCursorFetchResponse(new ArrayList<ResultSetRow>(), this.metadata, this.useBufferRowExplicit);
+            this.prefetchedLastRow = (this.mysql.getServerStatus() & SERVER_STATUS_LAST_ROW_SENT) != 0;
+        } catch (SQLException sqlEx) {
+            // this may happen while another command is being sent, the rows failed to fetch are the ones to report it
+            this.prefetchedRows = new ArrayList<ResultSetRow>(0);
+            this.prefetchException = sqlEx;
+        }
+    }
+
+    private int getNumRowsToFetch() throws SQLException {
+        int numRowsToFetch = this.owner.getFetchSize();
+
+        if (numRowsToFetch == 0) {
+            numRowsToFetch = this.prepStmt.getFetchSize();
+        }
+
+        if (numRowsToFetch == Integer.MIN_VALUE) {
+            // Handle the case where the user used 'old' streaming result sets
+
+            numRowsToFetch = 1;
+        }
+
+        return numRowsToFetch;
+    }
+
     /**
      */
     private void fetchMoreRows() throws SQLException {
@@ -379,23 +453,32 @@ public class RowDataCursor implements RowData {
                 this.firstFetchCompleted = true;
             }
 
-            int numRowsToFetch = this.owner.getFetchSize();
+            boolean lastRowSent;
 
-            if (numRowsToFetch == 0) {
-                numRowsToFetch = this.prepStmt.getFetchSize();
-            }
+            if (this.prefetchPending || this.prefetchedRows != null) {
+                if (this.prefetchPending) {
+                    readPrefetchedRows();
+                }
+
+                this.fetchedRows = this.prefetchedRows;
+                this.prefetchedRows = null;
+                lastRowSent = this.prefetchedLastRow;
 
-            if (numRowsToFetch == Integer.MIN_VALUE) {
-                // Handle the case where the user used 'old' streaming result sets
+                if (this.prefetchException != null) {
+                    SQLException sqlEx = this.prefetchException;
+                    this.prefetchException = null;
 
-                numRowsToFetch = 1;
+                    throw sqlEx;
+                }
+            } else {
+                this.fetchedRows = this.mysql.fetchRowsViaCursor(this.fetchedRows, this.statementIdOnServer, this.metadata, getNumRowsToFetch(),
+                        this.useBufferRowExplicit);
+                lastRowSent = (this.mysql.getServerStatus() & SERVER_STATUS_LAST_ROW_SENT) != 0;
             }
 
-            this.fetchedRows = this.mysql.fetchRowsViaCursor(this.fetchedRows, this.statementIdOnServer, this.metadata, numRowsToFetch,
-                    this.useBufferRowExplicit);
             this.currentPositionInFetchedRows = BEFORE_START_OF_ROWS;
 
-            if ((this.mysql.getServerStatus() & SERVER_STATUS_LAST_ROW_SENT) != 0) {
+            if (lastRowSent) {
                 this.lastRowFetched = true;
 
                 if (!oldFirstFetchCompleted && this.fetchedRows.size() == 0) {
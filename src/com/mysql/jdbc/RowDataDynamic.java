@@ -351,30 +351,60 @@ public class RowDataDynamic implements RowData {
      */
     public ResultSetRow next() throws SQLException {
 
-        nextRecord();
+        nextRecord(false);
 
-        if (this.nextRow == null && !this.streamerClosed && !this.moreResultsExisted) {
+        afterNextRecord(this.nextRow != null);
+
+        return this.nextRow;
+    }
+
+    /**
+     * Returns the next row of a text protocol result set as the packet it was read in, without unpacking it into a ResultSetRow.
+     * 
+     * @return the packet, positioned at the first column value and only valid until the next row is read, or null if there are no more rows
+     * @throws SQLException
+     *             if a database error occurs
+     */
+    Buffer nextRowPacket() throws SQLException {
+        Buffer rowPacket = nextRecord(true);
+
+        afterNextRecord(rowPacket != null);
+
+        return rowPacket;
+    }
+
+    private void afterNextRecord(boolean hasRow) throws SQLException {
+        if (!hasRow && !this.streamerClosed && !this.moreResultsExisted) {
             this.io.closeStreamer(this);
             this.streamerClosed = true;
         }
 
-        if (this.nextRow != null) {
+        if (hasRow) {
             if (this.index != Integer.MAX_VALUE) {
                 this.index++;
             }
         }
-
-        return this.nextRow;
     }
 
-    private void nextRecord() throws SQLException {
+    /**
+     * @param rowPacketOnly
+     *            if true, the row is returned as a packet and nextRow is cleared instead of being set to the unpacked row
+     */
+    private Buffer nextRecord(boolean rowPacketOnly) throws SQLException {
 
         try {
+            Buffer rowPacket = null;
+
             if (!this.noMoreRows) {
-                this.nextRow = this.io.nextRow(this.metadata, this.columnCount, this.isBinaryEncoded, java.sql.ResultSet.CONCUR_READ_ONLY, true,
-                        this.useBufferRowExplicit, true, null);
+                if (rowPacketOnly) {
+                    rowPacket = this.io.nextRowPacket();
+                    this.nextRow = null;
+                } else {
+                    this.nextRow = this.io.nextRow(this.metadata, this.columnCount, this.isBinaryEncoded, java.sql.ResultSet.CONCUR_READ_ONLY, true,
+                            this.useBufferRowExplicit, true, null);
+                }
 
-                if (this.nextRow == null) {
+                if (this.nextRow == null && rowPacket == null) {
                     this.noMoreRows = true;
                     this.isAfterEnd = true;
                     this.moreResultsExisted = this.io.tackOnMoreStreamingResults(this.owner);
@@ -387,6 +417,8 @@ public class RowDataDynamic implements RowData {
                 this.nextRow = null;
                 this.isAfterEnd = true;
             }
+
+            return rowPacket;
         } catch (SQLException sqlEx) {
             if (sqlEx instanceof StreamingNotifiable) {
                 ((StreamingNotifiable) sqlEx).setWasStreamingResults();
@@ -0,0 +1,306 @@
+/*
+  Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+
+  The MySQL Connector/J is licensed under the terms of the GPLv2
+  <http://www.gnu.org/licenses/old-licenses/gpl-2.0.html>, like most MySQL Connectors.
+  There are special exceptions to the terms and conditions of the GPLv2 as it is applied to
+  this software, see the FOSS License Exception
+  <http://www.mysql.com/about/legal/licensing/foss-exception.html>.
+
+  This program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU General Public License as published by the Free Software Foundation; version 2
+  of the License.
+
+  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this
+  program; if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth
+  Floor, Boston, MA 02110-1301  USA
+
+ */
+
+package com.mysql.jdbc;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.sql.SQLException;
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * Represents a buffered result set that went over the memory budget of the statement that read it. The rows read until then are kept on the heap, the
+ * others are written in their wire format to a temporary file, which is memory-mapped to read them back as {@link BufferRow}s through an index of their
+ * offsets, so the result set remains scrollable.
+ * 
+ * Only read-only result sets are spilled, as the rows of updatable ones are modified in place.
+ */
+public class RowDataSpilled extends RowDataStatic {
+    // the size of the mappings of the spill file, rows are copied out of two of them if they straddle a boundary
+    private static final int SEGMENT_SIZE = 1 << 30;
+
+    private final SpilledRows rows;
+
+    private final long peakBufferedBytes;
+
+    /**
+     * Creates a result set from the rows already read, the following rows being added with {@link #spillRow(Buffer)} until {@link #endSpilling()}.
+     * 
+     * @param heapRows
+     *            the rows kept on the heap
+     * @param heapBytes
+     *            the bytes of row data of those rows
+     * @param fields
+     *            the metadata of the rows
+     * @param isBinaryEncoded
+     *            are the rows in the binary protocol?
+     * @param exceptionInterceptor
+     * @throws SQLException
+     *             if the spill file can't be created
+     */
+    RowDataSpilled(List<ResultSetRow> heapRows, long heapBytes, Field[] fields, boolean isBinaryEncoded, ExceptionInterceptor exceptionInterceptor)
+            throws SQLException {
+        this(new SpilledRows(heapRows, fields, isBinaryEncoded, exceptionInterceptor), heapBytes);
+    }
+
+    private RowDataSpilled(SpilledRows rows, long heapBytes) {
+        super(rows);
+
+        this.rows = rows;
+        this.peakBufferedBytes = heapBytes;
+    }
+
+    /**
+     * Appends a row to the spill file.
+     * 
+     * @param rowPacket
+     *            the packet the row was read in
+     * @throws SQLException
+     */
+    void spillRow(Buffer rowPacket) throws SQLException {
+        this.rows.write(rowPacket.getByteBuffer(), rowPacket.getBufLength());
+    }
+
+    /**
+     * Maps the spill file once all rows are written to it.
+     * 
+     * @throws SQLException
+     */
+    void endSpilling() throws SQLException {
+        this.rows.map();
+    }
+
+    @Override
+    public void close() {
+        this.rows.close();
+    }
+
+    @Override
+    public long getPeakBufferedBytes() {
+        return this.peakBufferedBytes;
+    }
+
+    /**
+     * @return the number of bytes of row data written to the spill file
+     */
+    public long getSpilledBytes() {
+        return this.rows.length;
+    }
+
+    static class SpilledRows extends AbstractList<ResultSetRow> {
+        private final List<ResultSetRow> heapRows;
+
+        private final Field[] fields;
+
+        private final boolean isBinaryEncoded;
+
+        private final ExceptionInterceptor exceptionInterceptor;
+
+        private File file;
+
+        private RandomAccessFile raf;
+
+        private FileChannel channel;
+
+        private ByteBuffer writeBuffer = ByteBuffer.allocate(65536);
+
+        // offsets[i] is where spilled row i starts, offsets[spilledRowCount] where the last one ends
+        private long[] offsets = new long[1024];
+
+        private int spilledRowCount = 0;
+
+        private long length = 0;
+
+        private MappedByteBuffer[] segments;
+
+        SpilledRows(List<ResultSetRow> heapRows, Field[] fields, boolean isBinaryEncoded, ExceptionInterceptor exceptionInterceptor) throws SQLException {
+            this.heapRows = heapRows;
+            this.fields = fields;
+            this.isBinaryEncoded = isBinaryEncoded;
+            this.exceptionInterceptor = exceptionInterceptor;
+
+            try {
+                this.file = File.createTempFile("mysql-resultset", ".spill");
+                this.raf = new RandomAccessFile(this.file, "rw");
+                this.channel = this.raf.getChannel();
+
+                // the open file can still be written and mapped where it can be deleted right away, nothing is left behind if the result set isn't closed
+                if (this.file.delete()) {
+                    this.file = null;
+                } else {
+                    this.file.deleteOnExit();
+                }
+            } catch (IOException ioEx) {
+                close();
+
+                throw spillFailed(ioEx);
+            }
+        }
+
+        void write(byte[] rowBytes, int rowLength) throws SQLException {
+            if (this.spilledRowCount + 1 == this.offsets.length) {
+                long[] newOffsets = new long[this.offsets.length * 2];
+                System.arraycopy(this.offsets, 0, newOffsets, 0, this.offsets.length);
+                this.offsets = newOffsets;
+            }
+
+            try {
+                if (rowLength > this.writeBuffer.remaining()) {
+                    flush();
+                }
+
+                if (rowLength > this.writeBuffer.remaining()) {
+                    ByteBuffer rowBuffer = ByteBuffer.wrap(rowBytes, 0, rowLength);
+
+                    while (rowBuffer.hasRemaining()) {
+                        this.channel.write(rowBuffer);
+                    }
+                } else {
+                    this.writeBuffer.put(rowBytes, 0, rowLength);
+                }
+            } catch (IOException ioEx) {
+                throw spillFailed(ioEx);
+            }
+
+            this.length += rowLength;
+            this.offsets[++this.spilledRowCount] = this.length;
+        }
+
+        private void flush() throws IOException {
+            this.writeBuffer.flip();
+
+            while (this.writeBuffer.hasRemaining()) {
+                this.channel.write(this.writeBuffer);
+            }
+
+            this.writeBuffer.clear();
+        }
+
+        void map() throws SQLException {
+            try {
+                flush();
+
+                this.segments = new MappedByteBuffer[(int) ((this.length + SEGMENT_SIZE - 1) / SEGMENT_SIZE)];
+
+                for (int i = 0; i < this.segments.length; i++) {
+                    long position = (long) i * SEGMENT_SIZE;
+
+                    this.segments[i] = this.channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(SEGMENT_SIZE, this.length - position));
+                }
+            } catch (IOException ioEx) {
+                throw spillFailed(ioEx);
+            } finally {
+                // the mappings remain valid once the file is closed
+                closeFile();
+            }
+
+            this.writeBuffer = null;
+        }
+
+        private SQLException spillFailed(IOException ioEx) {
+            return SQLError.createSQLException(Messages.getString("RowDataSpilled.SpillFailed"), SQLError.SQL_STATE_GENERAL_ERROR, ioEx,
+                    this.exceptionInterceptor);
+        }
+
+        private void closeFile() {
+            if (this.raf != null) {
+                try {
+                    this.raf.close();
+                } catch (IOException ioEx) {
+                    // ignore
+                }
+
+                this.raf = null;
+                this.channel = null;
+            }
+        }
+
+        void close() {
+            closeFile();
+
+            this.segments = null;
+            this.writeBuffer = null;
+
+            if (this.file != null && this.file.delete()) {
+                this.file = null;
+            }
+        }
+
+        @Override
+        public ResultSetRow get(int index) {
+            int heapRowCount = this.heapRows.size();
+
+            if (index < heapRowCount) {
+                return this.heapRows.get(index);
+            }
+
+            index -= heapRowCount;
+
+            if (index >= this.spilledRowCount) {
+                throw new IndexOutOfBoundsException();
+            }
+
+            if (this.segments == null) {
+                throw new IllegalStateException(Messages.getString("RowDataSpilled.Closed"));
+            }
+
+            long offset = this.offsets[index];
+            byte[] rowBytes = new byte[(int) (this.offsets[index + 1] - offset)];
+
+            for (int copied = 0; copied < rowBytes.length;) {
+                ByteBuffer segment = this.segments[(int) (offset / SEGMENT_SIZE)].duplicate();
+                segment.position((int) (offset % SEGMENT_SIZE));
+
+                int chunk = Math.min(rowBytes.length - copied, segment.remaining());
+                segment.get(rowBytes, copied, chunk);
+
+                copied += chunk;
+                offset += chunk;
+            }
+
+            Buffer rowPacket = new Buffer(rowBytes);
+
+            if (this.isBinaryEncoded) {
+                // skip the packet header, as after MysqlIO.checkErrorPacket()
+                rowPacket.setPosition(1);
+            }
+
+            try {
+                return new BufferRow(rowPacket, this.fields, this.isBinaryEncoded, this.exceptionInterceptor);
+            } catch (SQLException sqlEx) {
+                // the rows were read with these fields already
+                throw new IllegalStateException(sqlEx.getMessage());
+            }
+        }
+
+        @Override
+        public int size() {
+            return this.heapRows.size() + this.spilledRowCount;
+        }
+    }
+}
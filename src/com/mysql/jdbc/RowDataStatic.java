@@ -87,6 +87,19 @@ public class RowDataStatic implements RowData {
         return (this.rows.get(atIndex)).setMetadata(this.metadata);
     }
 
+    /**
+     * @return the number of bytes of row data held in memory, which is the size of all rows
+     */
+    public long getPeakBufferedBytes() {
+        long bufferedBytes = 0;
+
+        for (int i = 0; i < this.rows.size(); i++) {
+            bufferedBytes += this.rows.get(i).getBytesSize();
+        }
+
+        return bufferedBytes;
+    }
+
     public int getCurrentRowNumber() {
         return this.index;
     }
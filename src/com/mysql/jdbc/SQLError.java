@@ -679,8 +679,6 @@ public class SQLError {
         java.sql.Statement stmt = null;
         java.sql.ResultSet warnRs = null;
 
-        SQLWarning currentWarning = null;
-
         try {
             if (warningCountIfKnown < 100) {
                 stmt = connection.createStatement();
@@ -704,38 +702,7 @@ public class SQLError {
              */
             warnRs = stmt.executeQuery("SHOW WARNINGS");
 
-            while (warnRs.next()) {
-                int code = warnRs.getInt("Code");
-
-                if (forTruncationOnly) {
-                    if (code == MysqlErrorNumbers.ER_WARN_DATA_TRUNCATED || code == MysqlErrorNumbers.ER_WARN_DATA_OUT_OF_RANGE) {
-                        DataTruncation newTruncation = new MysqlDataTruncation(warnRs.getString("Message"), 0, false, false, 0, 0, code);
-
-                        if (currentWarning == null) {
-                            currentWarning = newTruncation;
-                        } else {
-                            currentWarning.setNextWarning(newTruncation);
-                        }
-                    }
-                } else {
-                    //String level = warnRs.getString("Level"); 
-                    String message = warnRs.getString("Message");
-
-                    SQLWarning newWarning = new SQLWarning(message, SQLError.mysqlToSqlState(code, connection.getUseSqlStateCodes()), code);
-
-                    if (currentWarning == null) {
-                        currentWarning = newWarning;
-                    } else {
-                        currentWarning.setNextWarning(newWarning);
-                    }
-                }
-            }
-
-            if (forTruncationOnly && (currentWarning != null)) {
-                throw currentWarning;
-            }
-
-            return currentWarning;
+            return convertShowWarningsToSQLWarnings(connection, warnRs, forTruncationOnly);
         } finally {
             SQLException reThrow = null;
 
@@ -762,6 +729,59 @@ public class SQLError {
         }
     }
 
+    /**
+     * Turns the rows of a 'SHOW WARNINGS' result set already read into JDBC SQLWarning instances, as {@link #convertShowWarningsToSQLWarnings(Connection, int,
+     * boolean)} does.
+     * 
+     * @param connection
+     *            the connection the warnings were read from.
+     * @param warnRs
+     *            the output of 'SHOW WARNINGS'.
+     * @param forTruncationOnly
+     *            if this method should only scan for data truncation warnings
+     * 
+     * @return the SQLWarning chain (or null if no warnings)
+     * 
+     * @throws SQLException
+     *             if data truncation is being scanned for and truncations were found.
+     */
+    static SQLWarning convertShowWarningsToSQLWarnings(Connection connection, java.sql.ResultSet warnRs, boolean forTruncationOnly) throws SQLException {
+        SQLWarning currentWarning = null;
+
+        while (warnRs.next()) {
+            int code = warnRs.getInt("Code");
+
+            if (forTruncationOnly) {
+                if (code == MysqlErrorNumbers.ER_WARN_DATA_TRUNCATED || code == MysqlErrorNumbers.ER_WARN_DATA_OUT_OF_RANGE) {
+                    DataTruncation newTruncation = new MysqlDataTruncation(warnRs.getString("Message"), 0, false, false, 0, 0, code);
+
+                    if (currentWarning == null) {
+                        currentWarning = newTruncation;
+                    } else {
+                        currentWarning.setNextWarning(newTruncation);
+                    }
+                }
+            } else {
+                //String level = warnRs.getString("Level"); 
+                String message = warnRs.getString("Message");
+
+                SQLWarning newWarning = new SQLWarning(message, SQLError.mysqlToSqlState(code, connection.getUseSqlStateCodes()), code);
+
+                if (currentWarning == null) {
+                    currentWarning = newWarning;
+                } else {
+                    currentWarning.setNextWarning(newWarning);
+                }
+            }
+        }
+
+        if (forTruncationOnly && (currentWarning != null)) {
+            throw currentWarning;
+        }
+
+        return currentWarning;
+    }
+
     public static void dumpSqlStatesMappingsAsXml() throws Exception {
         TreeMap<Integer, Integer> allErrorNumbers = new TreeMap<Integer, Integer>();
         Map<Object, String> mysqlErrorNumbersToNames = new HashMap<Object, String>();
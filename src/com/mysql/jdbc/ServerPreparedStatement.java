@@ -50,7 +50,9 @@ import java.util.TimeZone;
 import com.mysql.jdbc.exceptions.MySQLStatementCancelledException;
 import com.mysql.jdbc.exceptions.MySQLTimeoutException;
 import com.mysql.jdbc.log.LogUtils;
+import com.mysql.jdbc.profiler.LightweightProfilerEventHandler;
 import com.mysql.jdbc.profiler.ProfilerEvent;
+import com.mysql.jdbc.profiler.StatementType;
 
 /**
  * JDBC Interface for MySQL-4.1 and newer server-side PreparedStatements.
@@ -78,6 +80,11 @@ public class ServerPreparedStatement extends PreparedStatement {
 
     protected static final int BLOB_STREAM_READ_BUF_SIZE = 8192;
 
+    /**
+     * The server limits the number of placeholders in a prepared statement to the range of an unsigned short.
+     */
+    private static final int MAX_PLACEHOLDERS_PER_STATEMENT = 65535;
+
     public static class BatchedBindValues {
         public BindValue[] batchedParameterValues;
 
@@ -315,6 +322,11 @@ public class ServerPreparedStatement extends PreparedStatement {
 
     private boolean serverNeedsResetBeforeEachExecution;
 
+    /**
+     * Multi-row INSERT statements kept prepared when "cacheServerPreparedBatchedInserts" is enabled, indexed by the base 2 logarithm of their row count.
+     */
+    private PreparedStatement[] batchedInsertStatements;
+
     /**
      * Creates a prepared statement instance -- We need to provide factory-style
      * methods so we can support both JDBC3 (and older) and JDBC4 runtimes,
@@ -669,6 +681,10 @@ public class ServerPreparedStatement extends PreparedStatement {
             BindValue[] oldBindValues = this.parameterBindings;
 
             try {
+                if (canPipelineBatch()) {
+                    return executeBatchPipelined(batchTimeout);
+                }
+
                 long[] updateCounts = null;
 
                 if (this.batchedArgs != null) {
@@ -693,8 +709,7 @@ public class ServerPreparedStatement extends PreparedStatement {
 
                     try {
                         if (locallyScopedConn.getEnableQueryTimeouts() && batchTimeout != 0 && locallyScopedConn.versionMeetsMinimum(5, 0, 0)) {
-                            timeoutTask = new CancelTask(this);
-                            locallyScopedConn.getCancelTimer().schedule(timeoutTask, batchTimeout);
+                            timeoutTask = startQueryTimer(this, batchTimeout);
                         }
 
                         for (commandIndex = 0; commandIndex < nbrCommands; commandIndex++) {
@@ -747,8 +762,6 @@ public class ServerPreparedStatement extends PreparedStatement {
                     } finally {
                         if (timeoutTask != null) {
                             timeoutTask.cancel();
-
-                            locallyScopedConn.getCancelTimer().purge();
                         }
 
                         resetCancelledState();
@@ -769,6 +782,289 @@ public class ServerPreparedStatement extends PreparedStatement {
         }
     }
 
+    /**
+     * Tells whether the current batch can be executed with {@link #executeBatchPipelined(int)}. Only batches of statements that return an update count
+     * qualify, and only when nothing needs to talk to the server between two executions.
+     */
+    private boolean canPipelineBatch() throws SQLException {
+        MySQLConnection locallyScopedConn = this.connection;
+
+        if (!locallyScopedConn.getPipelineServerPreparedBatches() || this.batchHasPlainStatements || !this.continueBatchOnError
+                || this.serverNeedsResetBeforeEachExecution || this.batchedArgs == null || this.batchedArgs.size() < 2) {
+            return false;
+        }
+
+        if (this.firstCharOfStmt != 'I' && this.firstCharOfStmt != 'U' && this.firstCharOfStmt != 'D' && this.firstCharOfStmt != 'R') {
+            return false;
+        }
+
+        // these work per execution, or may issue commands of their own while responses are still outstanding
+        if (locallyScopedConn.getIO().shouldIntercept() || locallyScopedConn.getUseCompression()
+                || locallyScopedConn.getIncludeInnodbStatusInDeadlockExceptions() || this.profileSQL || locallyScopedConn.getLogSlowQueries()
+                || locallyScopedConn.getGatherPerformanceMetrics() || locallyScopedConn.getAutoGenerateTestcaseScript()) {
+            return false;
+        }
+
+        for (Object arg : this.batchedArgs) {
+            BindValue[] bindValues = ((BatchedBindValues) arg).batchedParameterValues;
+
+            for (int i = 0; i < bindValues.length; i++) {
+                // unset parameters are reported by the serial execution, row by row
+                if (bindValues[i].isLongData || !bindValues[i].isSet) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Executes the batch by writing up to "serverPreparedBatchPipelineWindow" COM_STMT_EXECUTE packets back to back, bounded by the socket send buffer
+     * size, and then reading their responses in order.
+     * 
+     * Statements sent ahead of one that fails still execute, so this is only used with continueBatchOnError. If the failure must stop the batch (a
+     * cancelled query, or a deadlock or lock wait timeout that rolled back the transaction), nothing more is sent once it is seen and the
+     * BatchUpdateException holds the update counts of all statements whose responses were read.
+     * 
+     * When the driver checks for truncations itself (jdbcCompliantTruncation on a server not in strict mode), each execution is followed by a pipelined
+     * 'SHOW WARNINGS', as the server forgets the warnings of a statement once the next one runs.
+     * 
+     * @param batchTimeout
+     *            the timeout for the whole batch, in milliseconds
+     * @return the update counts
+     * @throws SQLException
+     */
+    private long[] executeBatchPipelined(int batchTimeout) throws SQLException {
+        MySQLConnection locallyScopedConn = this.connection;
+        MysqlIO mysql = locallyScopedConn.getIO();
+
+        int nbrCommands = this.batchedArgs.size();
+        long[] updateCounts = new long[nbrCommands];
+
+        for (int i = 0; i < nbrCommands; i++) {
+            updateCounts[i] = -3;
+        }
+
+        if (this.retrieveGeneratedKeys) {
+            this.batchedGeneratedKeys = new ArrayList<ResultSetRow>(nbrCommands);
+        }
+
+        implicitlyCloseAllOpenResults();
+
+        String oldCatalog = null;
+
+        if (!locallyScopedConn.getCatalog().equals(this.currentCatalog)) {
+            oldCatalog = locallyScopedConn.getCatalog();
+            locallyScopedConn.setCatalog(this.currentCatalog);
+        }
+
+        locallyScopedConn.setSessionMaxRows(-1);
+
+        boolean oldInfoMsgState = false;
+
+        if (this.retrieveGeneratedKeys) {
+            oldInfoMsgState = locallyScopedConn.isReadInfoMsgEnabled();
+            locallyScopedConn.setReadInfoMsgEnabled(true);
+        }
+
+        boolean compensateForOnDuplicateKeyUpdate = containsOnDuplicateKeyUpdateInSQL() && locallyScopedConn.getCompensateOnDuplicateKeyUpdateCounts();
+        int maxGeneratedKeys = containsOnDuplicateKeyUpdateInSQL() ? 1 : 0;
+
+        int windowSize = locallyScopedConn.getServerPreparedBatchPipelineWindow();
+        int byteLimit = mysql.getPipelineByteLimit();
+
+        boolean checkForTruncation = locallyScopedConn.getJdbcCompliantTruncation() && locallyScopedConn.versionMeetsMinimum(4, 1, 0);
+
+        SQLException sqlEx = null;
+        SQLException fatalEx = null;
+
+        int commandsSent = 0;
+        int responsesRead = 0;
+
+        BindValue[] previousBindValuesForBatch = null;
+
+        CancelTask timeoutTask = null;
+
+        try {
+            if (locallyScopedConn.getEnableQueryTimeouts() && batchTimeout != 0 && locallyScopedConn.versionMeetsMinimum(5, 0, 0)) {
+                timeoutTask = startQueryTimer(this, batchTimeout);
+            }
+
+            mysql.beginPipelinedCommands();
+
+            while (responsesRead < nbrCommands && fatalEx == null) {
+                int bytesInFlight = 0;
+
+                while (commandsSent < nbrCommands && commandsSent - responsesRead < windowSize
+                        && (bytesInFlight < byteLimit || commandsSent == responsesRead)) {
+                    this.parameterBindings = ((BatchedBindValues) this.batchedArgs.get(commandsSent)).batchedParameterValues;
+
+                    // We need to check types each time, as the user might have bound different types in each addBatch()
+                    if (previousBindValuesForBatch != null) {
+                        for (int j = 0; j < this.parameterBindings.length; j++) {
+                            if (this.parameterBindings[j].bufferType != previousBindValuesForBatch[j].bufferType) {
+                                this.sendTypesToServer = true;
+
+                                break;
+                            }
+                        }
+                    }
+
+                    Buffer packet = fillExecutePacket(mysql);
+                    bytesInFlight += packet.getPosition();
+
+                    mysql.sendPipelinedCommand(packet);
+
+                    if (checkForTruncation) {
+                        Buffer showWarningsPacket = new Buffer(32);
+                        showWarningsPacket.writeByte((byte) MysqlDefs.QUERY);
+                        showWarningsPacket.writeStringNoNull("SHOW WARNINGS");
+                        bytesInFlight += showWarningsPacket.getPosition();
+
+                        mysql.sendPipelinedCommand(showWarningsPacket);
+                    }
+
+                    // the server keeps the types sent with the first execution
+                    this.sendTypesToServer = false;
+                    previousBindValuesForBatch = this.parameterBindings;
+
+                    commandsSent++;
+                    this.numberOfExecutions++;
+                }
+
+                mysql.flushPipelinedCommands();
+
+                while (responsesRead < commandsSent) {
+                    int commandIndex = responsesRead++;
+                    boolean warningsPending = checkForTruncation;
+
+                    try {
+                        Buffer resultPacket = mysql.readPipelinedResponse(MysqlDefs.COM_EXECUTE);
+
+                        ResultSetInternalMethods rs = mysql.readAllResults(this, -1, this.resultSetType, this.resultSetConcurrency, false, this.currentCatalog,
+                                resultPacket, true, this.fieldCount, null);
+
+                        locallyScopedConn.incrementNumberOfPreparedExecutes();
+
+                        if (warningsPending) {
+                            warningsPending = false;
+                            readPipelinedWarnings(mysql, mysql.hadWarnings());
+                        }
+
+                        if (this.retrieveGeneratedKeys) {
+                            rs.setFirstCharOfQuery(this.firstCharOfStmt);
+                        }
+
+                        this.results = rs;
+                        this.updateCount = rs.getUpdateCount();
+
+                        if (compensateForOnDuplicateKeyUpdate && (this.updateCount == 2 || this.updateCount == 0)) {
+                            this.updateCount = 1;
+                        }
+
+                        this.lastInsertId = rs.getUpdateID();
+
+                        updateCounts[commandIndex] = this.updateCount;
+
+                        getBatchedGeneratedKeys(maxGeneratedKeys);
+                    } catch (SQLException ex) {
+                        updateCounts[commandIndex] = EXECUTE_FAILED;
+
+                        if (warningsPending) {
+                            // the execution failed, so its warnings don't matter, but they were sent anyway
+                            try {
+                                readPipelinedWarnings(mysql, false);
+                            } catch (SQLException warningsEx) {
+                                ex = warningsEx;
+                            }
+                        }
+
+                        String sqlState = ex.getSQLState();
+
+                        if (sqlState != null && sqlState.startsWith("08")) {
+                            // the connection is gone, the remaining responses will never arrive
+                            long[] newUpdateCounts = new long[commandIndex];
+                            System.arraycopy(updateCounts, 0, newUpdateCounts, 0, commandIndex);
+
+                            throw SQLError.createBatchUpdateException(ex, newUpdateCounts, getExceptionInterceptor());
+                        }
+
+                        if (hasDeadlockOrTimeoutRolledBackTx(ex)) {
+                            fatalEx = ex;
+                        } else {
+                            sqlEx = ex;
+                        }
+                    }
+                }
+
+                synchronized (this.cancelTimeoutMutex) {
+                    if (this.wasCancelled && fatalEx == null) {
+                        fatalEx = this.wasCancelledByTimeout ? new MySQLTimeoutException() : new MySQLStatementCancelledException();
+                    }
+                }
+            }
+
+            if (timeoutTask != null && timeoutTask.caughtWhileCancelling != null) {
+                throw timeoutTask.caughtWhileCancelling;
+            }
+        } finally {
+            mysql.endPipelinedCommands();
+
+            if (timeoutTask != null) {
+                timeoutTask.cancel();
+            }
+
+            resetCancelledState();
+
+            if (this.retrieveGeneratedKeys) {
+                locallyScopedConn.setReadInfoMsgEnabled(oldInfoMsgState);
+            }
+
+            if (oldCatalog != null && !locallyScopedConn.isClosed()) {
+                locallyScopedConn.setCatalog(oldCatalog);
+            }
+        }
+
+        if (fatalEx != null) {
+            long[] newUpdateCounts = new long[responsesRead];
+            System.arraycopy(updateCounts, 0, newUpdateCounts, 0, responsesRead);
+
+            throw SQLError.createBatchUpdateException(fatalEx, newUpdateCounts, getExceptionInterceptor());
+        }
+
+        if (sqlEx != null) {
+            throw SQLError.createBatchUpdateException(sqlEx, updateCounts, getExceptionInterceptor());
+        }
+
+        return updateCounts;
+    }
+
+    /**
+     * Reads the response to the 'SHOW WARNINGS' pipelined behind an execution by {@link #executeBatchPipelined(int)}.
+     * 
+     * @param mysql
+     *            the IO channel the batch is pipelined on
+     * @param throwTruncations
+     *            whether the execution reported warnings, to be scanned for truncations
+     * @throws SQLException
+     *             the truncations found, as a chain of DataTruncation, if asked to scan for them
+     */
+    private void readPipelinedWarnings(MysqlIO mysql, boolean throwTruncations) throws SQLException {
+        Buffer resultPacket = mysql.readPipelinedResponse(MysqlDefs.QUERY);
+
+        ResultSetInternalMethods warnRs = mysql.readAllResults(null, -1, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY, false, this.currentCatalog,
+                resultPacket, false, -1L, null);
+
+        try {
+            if (throwTruncations) {
+                SQLError.convertShowWarningsToSQLWarnings(this.connection, warnRs, true);
+            }
+        } finally {
+            warnRs.close();
+        }
+    }
+
     /**
      * @see com.mysql.jdbc.PreparedStatement#executeInternal(int, com.mysql.jdbc.Buffer, boolean, boolean)
      */
@@ -997,6 +1293,12 @@ public class ServerPreparedStatement extends PreparedStatement {
 
                 if (calledExplicitly && !this.connection.isClosed()) {
                     synchronized (this.connection.getConnectionMutex()) {
+                        try {
+                            closeBatchedInsertStatements();
+                        } catch (SQLException sqlEx) {
+                            exceptionDuringClose = sqlEx;
+                        }
+
                         try {
 
                             MysqlIO mysql = this.connection.getIO();
@@ -1186,72 +1488,7 @@ public class ServerPreparedStatement extends PreparedStatement {
                 dumpExecuteForTestcase();
             }
 
-            //
-            // store the parameter values
-            //
-
-            Buffer packet = mysql.getSharedSendPacket();
-
-            packet.clear();
-            packet.writeByte((byte) MysqlDefs.COM_EXECUTE);
-            packet.writeLong(this.serverStatementId);
-
-            if (this.connection.versionMeetsMinimum(4, 1, 2)) {
-                if (isCursorRequired()) {
-                    packet.writeByte(MysqlDefs.OPEN_CURSOR_FLAG);
-                } else {
-                    packet.writeByte((byte) 0); // placeholder for flags
-                }
-
-                packet.writeLong(1); // placeholder for parameter iterations
-            }
-
-            /* Reserve place for null-marker bytes */
-            int nullCount = (this.parameterCount + 7) / 8;
-
-            // if (mysql.versionMeetsMinimum(4, 1, 2)) {
-            // nullCount = (this.parameterCount + 9) / 8;
-            // }
-            int nullBitsPosition = packet.getPosition();
-
-            for (int i = 0; i < nullCount; i++) {
-                packet.writeByte((byte) 0);
-            }
-
-            byte[] nullBitsBuffer = new byte[nullCount];
-
-            /* In case if buffers (type) altered, indicate to server */
-            packet.writeByte(this.sendTypesToServer ? (byte) 1 : (byte) 0);
-
-            if (this.sendTypesToServer) {
-                /*
-                 * Store types of parameters in first in first package that is sent to the server.
-                 */
-                for (int i = 0; i < this.parameterCount; i++) {
-                    packet.writeInt(this.parameterBindings[i].bufferType);
-                }
-            }
-
-            //
-            // store the parameter values
-            //
-            for (int i = 0; i < this.parameterCount; i++) {
-                if (!this.parameterBindings[i].isLongData) {
-                    if (!this.parameterBindings[i].isNull) {
-                        storeBinding(packet, this.parameterBindings[i], mysql);
-                    } else {
-                        nullBitsBuffer[i / 8] |= (1 << (i & 7));
-                    }
-                }
-            }
-
-            //
-            // Go back and write the NULL flags to the beginning of the packet
-            //
-            int endPosition = packet.getPosition();
-            packet.setPosition(nullBitsPosition);
-            packet.writeBytesNoNull(nullBitsBuffer);
-            packet.setPosition(endPosition);
+            Buffer packet = fillExecutePacket(mysql);
 
             long begin = 0;
 
@@ -1268,14 +1505,16 @@ public class ServerPreparedStatement extends PreparedStatement {
 
             try {
                 // Get this before executing to avoid a shared packet pollution in the case some other query is issued internally, such as when using I_S.
+                LightweightProfilerEventHandler lightweightSink = this.profileSQL ? mysql.getLightweightEventSink() : null;
+
                 String queryAsString = "";
-                if (this.profileSQL || logSlowQueries || gatherPerformanceMetrics) {
+                if (lightweightSink != null ? logSlowQueries && this.connection.getExplainSlowQueries()
+                        : this.profileSQL || logSlowQueries || gatherPerformanceMetrics) {
                     queryAsString = asSql(true);
                 }
 
                 if (this.connection.getEnableQueryTimeouts() && this.timeoutInMillis != 0 && this.connection.versionMeetsMinimum(5, 0, 0)) {
-                    timeoutTask = new CancelTask(this);
-                    this.connection.getCancelTimer().schedule(timeoutTask, this.timeoutInMillis);
+                    timeoutTask = startQueryTimer(this, this.timeoutInMillis);
                 }
 
                 statementBegins();
@@ -1291,8 +1530,6 @@ public class ServerPreparedStatement extends PreparedStatement {
                 if (timeoutTask != null) {
                     timeoutTask.cancel();
 
-                    this.connection.getCancelTimer().purge();
-
                     if (timeoutTask.caughtWhileCancelling != null) {
                         throw timeoutTask.caughtWhileCancelling;
                     }
@@ -1331,7 +1568,9 @@ public class ServerPreparedStatement extends PreparedStatement {
                         }
                     }
 
-                    if (queryWasSlow) {
+                    if (queryWasSlow && lightweightSink != null) {
+                        lightweightSink.recordEvent(ProfilerEvent.TYPE_SLOW_QUERY, StatementType.of(this.originalSql), mysql.elapsedTimeToNanos(elapsedTime));
+                    } else if (queryWasSlow) {
 
                         StringBuilder mesgBuf = new StringBuilder(48 + this.originalSql.length());
                         mesgBuf.append(Messages.getString("ServerPreparedStatement.15"));
@@ -1357,7 +1596,10 @@ public class ServerPreparedStatement extends PreparedStatement {
 
                 this.connection.incrementNumberOfPreparedExecutes();
 
-                if (this.profileSQL) {
+                if (lightweightSink != null) {
+                    lightweightSink.recordEvent(ProfilerEvent.TYPE_EXECUTE, StatementType.of(this.originalSql),
+                            mysql.elapsedTimeToNanos(mysql.getCurrentTimeNanosOrMillis() - begin));
+                } else if (this.profileSQL) {
                     this.eventSink = ProfilerEventHandlerFactory.getInstance(this.connection);
 
                     this.eventSink.consumeEvent(new ProfilerEvent(ProfilerEvent.TYPE_EXECUTE, "", this.currentCatalog, this.connectionId, this.statementId, -1,
@@ -1376,7 +1618,10 @@ public class ServerPreparedStatement extends PreparedStatement {
                     }
                 }
 
-                if (this.profileSQL) {
+                if (lightweightSink != null) {
+                    lightweightSink.recordEvent(ProfilerEvent.TYPE_FETCH, StatementType.OTHER,
+                            mysql.elapsedTimeToNanos(mysql.getCurrentTimeNanosOrMillis() - queryEndTime));
+                } else if (this.profileSQL) {
                     long fetchEndTime = mysql.getCurrentTimeNanosOrMillis();
 
                     this.eventSink.consumeEvent(new ProfilerEvent(ProfilerEvent.TYPE_FETCH, "", this.currentCatalog, this.connection.getId(), getId(), 0 /*
@@ -1415,12 +1660,87 @@ public class ServerPreparedStatement extends PreparedStatement {
 
                 if (timeoutTask != null) {
                     timeoutTask.cancel();
-                    this.connection.getCancelTimer().purge();
                 }
             }
         }
     }
 
+    /**
+     * Builds the COM_STMT_EXECUTE packet for the current parameter bindings in the shared send packet. Long data parameters must have been sent
+     * already.
+     * 
+     * @param mysql
+     *            the I/O channel the packet is going to be sent on
+     * @return the shared send packet
+     * @throws SQLException
+     */
+    private Buffer fillExecutePacket(MysqlIO mysql) throws SQLException {
+        Buffer packet = mysql.getSharedSendPacket();
+
+        packet.clear();
+        packet.writeByte((byte) MysqlDefs.COM_EXECUTE);
+        packet.writeLong(this.serverStatementId);
+
+        if (this.connection.versionMeetsMinimum(4, 1, 2)) {
+            if (isCursorRequired()) {
+                packet.writeByte(MysqlDefs.OPEN_CURSOR_FLAG);
+            } else {
+                packet.writeByte((byte) 0); // placeholder for flags
+            }
+
+            packet.writeLong(1); // placeholder for parameter iterations
+        }
+
+        /* Reserve place for null-marker bytes */
+        int nullCount = (this.parameterCount + 7) / 8;
+
+        // if (mysql.versionMeetsMinimum(4, 1, 2)) {
+        // nullCount = (this.parameterCount + 9) / 8;
+        // }
+        int nullBitsPosition = packet.getPosition();
+
+        for (int i = 0; i < nullCount; i++) {
+            packet.writeByte((byte) 0);
+        }
+
+        byte[] nullBitsBuffer = new byte[nullCount];
+
+        /* In case if buffers (type) altered, indicate to server */
+        packet.writeByte(this.sendTypesToServer ? (byte) 1 : (byte) 0);
+
+        if (this.sendTypesToServer) {
+            /*
+             * Store types of parameters in first in first package that is sent to the server.
+             */
+            for (int i = 0; i < this.parameterCount; i++) {
+                packet.writeInt(this.parameterBindings[i].bufferType);
+            }
+        }
+
+        //
+        // store the parameter values
+        //
+        for (int i = 0; i < this.parameterCount; i++) {
+            if (!this.parameterBindings[i].isLongData) {
+                if (!this.parameterBindings[i].isNull) {
+                    storeBinding(packet, this.parameterBindings[i], mysql);
+                } else {
+                    nullBitsBuffer[i / 8] |= (1 << (i & 7));
+                }
+            }
+        }
+
+        //
+        // Go back and write the NULL flags to the beginning of the packet
+        //
+        int endPosition = packet.getPosition();
+        packet.setPosition(nullBitsPosition);
+        packet.writeBytesNoNull(nullBitsBuffer);
+        packet.setPosition(endPosition);
+
+        return packet;
+    }
+
     /**
      * Sends stream-type data parameters to the server.
      * 
@@ -1494,7 +1814,7 @@ public class ServerPreparedStatement extends PreparedStatement {
                 }
 
                 if (this.connection.getProfileSql()) {
-                    begin = System.currentTimeMillis();
+                    begin = mysql.getCurrentTimeNanosOrMillis();
                 }
 
                 String characterEncoding = null;
@@ -1525,7 +1845,12 @@ public class ServerPreparedStatement extends PreparedStatement {
 
                 this.connection.incrementNumberOfPrepares();
 
-                if (this.profileSQL) {
+                LightweightProfilerEventHandler lightweightSink = this.profileSQL ? mysql.getLightweightEventSink() : null;
+
+                if (lightweightSink != null) {
+                    lightweightSink.recordEvent(ProfilerEvent.TYPE_PREPARE, StatementType.of(sql),
+                            mysql.elapsedTimeToNanos(mysql.getCurrentTimeNanosOrMillis() - begin));
+                } else if (this.profileSQL) {
                     this.eventSink.consumeEvent(new ProfilerEvent(ProfilerEvent.TYPE_PREPARE, "", this.currentCatalog, this.connectionId, this.statementId, -1,
                             System.currentTimeMillis(), mysql.getCurrentTimeNanosOrMillis() - begin, mysql.getQueryTimingUnits(), null,
                             LogUtils.findCallingClassAndMethod(new Throwable()), truncateQueryToLog(sql)));
@@ -1538,11 +1863,11 @@ public class ServerPreparedStatement extends PreparedStatement {
 
                     Buffer metaDataPacket;
                     for (int i = 0; i < this.parameterCount; i++) {
-                        metaDataPacket = mysql.readPacket();
+                        metaDataPacket = mysql.readFieldPacket();
                         this.parameterFields[i] = mysql.unpackField(metaDataPacket, false);
                     }
                     if (checkEOF) { // Skip the following EOF packet.
-                        mysql.readPacket();
+                        mysql.skipPacket();
                     }
                 }
 
@@ -1552,11 +1877,11 @@ public class ServerPreparedStatement extends PreparedStatement {
 
                     Buffer fieldPacket;
                     for (int i = 0; i < this.fieldCount; i++) {
-                        fieldPacket = mysql.readPacket();
+                        fieldPacket = mysql.readFieldPacket();
                         this.resultFields[i] = mysql.unpackField(fieldPacket, false);
                     }
                     if (checkEOF) { // Skip the following EOF packet.
-                        mysql.readPacket();
+                        mysql.skipPacket();
                     }
                 }
             } catch (SQLException sqlEx) {
@@ -2797,6 +3122,145 @@ public class ServerPreparedStatement extends PreparedStatement {
         }
     }
 
+    /**
+     * Rewrites the batch into multi-row INSERT statements whose row counts are powers of two when "cacheServerPreparedBatchedInserts" is enabled, so that
+     * only a handful of distinct statements are ever needed and they can stay prepared across batches.
+     */
+    @Override
+    protected long[] executeBatchedInserts(int batchTimeout) throws SQLException {
+        synchronized (checkClosed().getConnectionMutex()) {
+            MySQLConnection locallyScopedConn = this.connection;
+
+            if (!locallyScopedConn.getCacheServerPreparedBatchedInserts() || getValuesClause() == null) {
+                return super.executeBatchedInserts(batchTimeout);
+            }
+
+            int numBatchedArgs = this.batchedArgs.size();
+
+            if (this.retrieveGeneratedKeys) {
+                this.batchedGeneratedKeys = new ArrayList<ResultSetRow>(numBatchedArgs);
+            }
+
+            int maxRowsPerStatement = computeBatchSize(numBatchedArgs);
+
+            if (this.parameterCount > 0) {
+                maxRowsPerStatement = Math.min(maxRowsPerStatement, MAX_PLACEHOLDERS_PER_STATEMENT / this.parameterCount);
+            }
+
+            long updateCountRunningTotal = 0;
+            int batchCounter = 0;
+            CancelTask timeoutTask = null;
+            SQLException sqlEx = null;
+
+            long[] updateCounts = new long[numBatchedArgs];
+
+            try {
+                while (batchCounter < numBatchedArgs) {
+                    int numRows = Integer.highestOneBit(Math.min(maxRowsPerStatement, numBatchedArgs - batchCounter));
+
+                    PreparedStatement batchedStatement = getBatchedInsertStatement(locallyScopedConn, numRows);
+
+                    if (timeoutTask != null) {
+                        timeoutTask.toCancel = batchedStatement;
+                    } else if (locallyScopedConn.getEnableQueryTimeouts() && batchTimeout != 0 && locallyScopedConn.versionMeetsMinimum(5, 0, 0)) {
+                        timeoutTask = startQueryTimer(batchedStatement, batchTimeout);
+                    }
+
+                    int batchedParamIndex = 1;
+
+                    for (int i = 0; i < numRows; i++) {
+                        batchedParamIndex = setOneBatchedParameterSet(batchedStatement, batchedParamIndex, this.batchedArgs.get(batchCounter++));
+                    }
+
+                    try {
+                        updateCountRunningTotal += batchedStatement.executeLargeUpdate();
+                    } catch (SQLException ex) {
+                        sqlEx = handleExceptionForBatch(batchCounter - 1, numRows, updateCounts, ex);
+                    }
+
+                    getBatchedGeneratedKeys(batchedStatement);
+                    batchedStatement.clearParameters();
+                }
+
+                if (timeoutTask != null) {
+                    if (timeoutTask.caughtWhileCancelling != null) {
+                        throw timeoutTask.caughtWhileCancelling;
+                    }
+
+                    timeoutTask.cancel();
+
+                    timeoutTask = null;
+                }
+
+                if (sqlEx != null) {
+                    throw SQLError.createBatchUpdateException(sqlEx, updateCounts, getExceptionInterceptor());
+                }
+
+                if (numBatchedArgs > 1) {
+                    long updCount = updateCountRunningTotal > 0 ? java.sql.Statement.SUCCESS_NO_INFO : 0;
+                    for (int j = 0; j < numBatchedArgs; j++) {
+                        updateCounts[j] = updCount;
+                    }
+                } else {
+                    updateCounts[0] = updateCountRunningTotal;
+                }
+
+                return updateCounts;
+            } finally {
+                if (timeoutTask != null) {
+                    timeoutTask.cancel();
+                }
+
+                resetCancelledState();
+            }
+        }
+    }
+
+    /**
+     * Returns the kept multi-row INSERT statement for the given power of two row count, preparing it on first use.
+     */
+    private PreparedStatement getBatchedInsertStatement(MySQLConnection localConn, int numRows) throws SQLException {
+        if (this.batchedInsertStatements == null) {
+            this.batchedInsertStatements = new PreparedStatement[Integer.SIZE];
+        }
+
+        int slot = Integer.numberOfTrailingZeros(numRows);
+        PreparedStatement pstmt = this.batchedInsertStatements[slot];
+
+        if (pstmt == null || pstmt.isClosed()) {
+            pstmt = prepareBatchedInsertSQL(localConn, numRows);
+            this.batchedInsertStatements[slot] = pstmt;
+        }
+
+        return pstmt;
+    }
+
+    private void closeBatchedInsertStatements() throws SQLException {
+        if (this.batchedInsertStatements == null) {
+            return;
+        }
+
+        SQLException exceptionDuringClose = null;
+
+        for (int i = 0; i < this.batchedInsertStatements.length; i++) {
+            if (this.batchedInsertStatements[i] != null) {
+                try {
+                    this.batchedInsertStatements[i].close();
+                } catch (SQLException sqlEx) {
+                    exceptionDuringClose = sqlEx;
+                }
+
+                this.batchedInsertStatements[i] = null;
+            }
+        }
+
+        this.batchedInsertStatements = null;
+
+        if (exceptionDuringClose != null) {
+            throw exceptionDuringClose;
+        }
+    }
+
     @Override
     public void setPoolable(boolean poolable) throws SQLException {
         if (!poolable) {
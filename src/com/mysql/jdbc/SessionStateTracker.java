@@ -0,0 +1,142 @@
+/*
+  Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+
+  The MySQL Connector/J is licensed under the terms of the GPLv2
+  <http://www.gnu.org/licenses/old-licenses/gpl-2.0.html>, like most MySQL Connectors.
+  There are special exceptions to the terms and conditions of the GPLv2 as it is applied to
+  this software, see the FOSS License Exception
+  <http://www.mysql.com/about/legal/licensing/foss-exception.html>.
+
+  This program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU General Public License as published by the Free Software Foundation; version 2
+  of the License.
+
+  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this
+  program; if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth
+  Floor, Boston, MA 02110-1301  USA
+
+ */
+
+package com.mysql.jdbc;
+
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Mirrors the session state reported by the server in the OK packets of a connection that negotiated CLIENT_SESSION_TRACK, so that the driver can tell
+ * whether a SET or USE would change anything without asking the server first.
+ * 
+ * Only the tracked system variables and the default schema are mirrored, the other kinds of state changes are skipped. A value that was never reported is
+ * unknown, and callers must then fall back to a round trip.
+ */
+class SessionStateTracker {
+    static final int SESSION_TRACK_SYSTEM_VARIABLES = 0;
+    static final int SESSION_TRACK_SCHEMA = 1;
+    static final int SESSION_TRACK_STATE_CHANGE = 2;
+    static final int SESSION_TRACK_GTIDS = 3;
+    static final int SESSION_TRACK_TRANSACTION_CHARACTERISTICS = 4;
+    static final int SESSION_TRACK_TRANSACTION_STATE = 5;
+
+    // names and values are in the system character set of the server
+    private static final String TRACKER_ENCODING = "UTF-8";
+
+    private final Map<String, String> systemVariables = new HashMap<String, String>();
+
+    private String schema;
+
+    /**
+     * Reads the session state changes that follow the info message of an OK packet whose status has SERVER_SESSION_STATE_CHANGED set.
+     * 
+     * @param packet
+     *            the OK packet, positioned at the length of the state changes
+     * @param exceptionInterceptor
+     * @throws SQLException
+     *             if the names or values can't be decoded
+     */
+    void readStateChanges(Buffer packet, ExceptionInterceptor exceptionInterceptor) throws SQLException {
+        int packetEnd = packet.getBufLength();
+
+        if (packet.getPosition() >= packetEnd) {
+            return;
+        }
+
+        long changesLength = packet.newReadLength();
+        long changesEnd = packet.getPosition() + changesLength;
+
+        if (changesEnd > packetEnd) {
+            // don't trust anything from a packet we can't parse
+            clear();
+
+            return;
+        }
+
+        while (packet.getPosition() < changesEnd) {
+            int type = packet.readByte() & 0xff;
+            long dataLength = packet.newReadLength();
+            long dataEnd = packet.getPosition() + dataLength;
+
+            if (dataEnd > changesEnd) {
+                clear();
+
+                return;
+            }
+
+            switch (type) {
+                case SESSION_TRACK_SYSTEM_VARIABLES:
+                    String name = readLenString(packet, exceptionInterceptor);
+                    String value = readLenString(packet, exceptionInterceptor);
+
+                    this.systemVariables.put(name.toLowerCase(Locale.ENGLISH), value);
+                    break;
+
+                case SESSION_TRACK_SCHEMA:
+                    this.schema = readLenString(packet, exceptionInterceptor);
+                    break;
+
+                default:
+                    // state change flags, GTIDs and transaction details aren't mirrored
+                    break;
+            }
+
+            packet.setPosition((int) dataEnd);
+        }
+    }
+
+    private static String readLenString(Buffer packet, ExceptionInterceptor exceptionInterceptor) throws SQLException {
+        return packet.readString(TRACKER_ENCODING, exceptionInterceptor, (int) packet.newReadLength());
+    }
+
+    /**
+     * Returns the last reported value of the given session system variable.
+     * 
+     * @param name
+     *            the name of the variable
+     * @return the value, or null if it was never reported
+     */
+    String getSystemVariable(String name) {
+        return this.systemVariables.get(name);
+    }
+
+    /**
+     * Returns the last reported default schema of the session.
+     * 
+     * @return the schema, or null if it was never reported
+     */
+    String getSchema() {
+        return this.schema;
+    }
+
+    /**
+     * Forgets all mirrored state, e.g. when the session was reset by COM_CHANGE_USER.
+     */
+    void clear() {
+        this.systemVariables.clear();
+        this.schema = null;
+    }
+}
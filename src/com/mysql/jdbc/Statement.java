@@ -24,6 +24,7 @@
 package com.mysql.jdbc;
 
 import java.io.InputStream;
+import java.nio.channels.ReadableByteChannel;
 import java.sql.SQLException;
 
 /**
@@ -78,6 +79,60 @@ public interface Statement extends java.sql.Statement, Wrapper {
      */
     public abstract InputStream getLocalInfileInputStream();
 
+    /**
+     * Sets a channel that will be used to send data to the MySQL server
+     * for a "LOAD DATA LOCAL INFILE" statement, rather than the path given
+     * as an argument to the statement or the stream set with
+     * setLocalInfileInputStream(), which it takes precedence over.
+     * 
+     * The channel is read to completion on a driver thread, overlapping
+     * reading the next packet of data with sending the current one, so it
+     * must be a blocking channel. FileChannels, and LocalInfileRowChannels
+     * that encode rows as they are produced, are typical sources.
+     * 
+     * As with setLocalInfileInputStream(), the channel is closed by the
+     * driver and needs to be reset before each call to execute*() that
+     * would cause the MySQL server to request data.
+     * 
+     * If this value is set to NULL, the driver will revert to using the
+     * stream set with setLocalInfileInputStream() or the path given in
+     * the statement.
+     */
+    public abstract void setLocalInfileChannel(ReadableByteChannel channel);
+
+    /**
+     * Returns the channel that will be used to send data in response to a
+     * "LOAD DATA LOCAL INFILE" statement.
+     * 
+     * This method returns NULL if no such channel has been set via
+     * setLocalInfileChannel().
+     */
+    public abstract ReadableByteChannel getLocalInfileChannel();
+
+    /**
+     * Sets the number of bytes of row data a result set of this statement
+     * that is read in full before being returned may keep in memory. The
+     * rows read once the budget is exceeded are written to a temporary file,
+     * in the format they were received in, and memory-mapped to be read back,
+     * so the result set remains scrollable.
+     * 
+     * Only read-only result sets are spilled; streaming and cursor-based
+     * result sets, that don't hold all rows, are not affected.
+     * 
+     * The default is the value of the "resultSetMemoryBudget" connection
+     * property.
+     * 
+     * @param bytes
+     *            the budget in bytes, 0 meaning no limit
+     */
+    public abstract void setResultSetMemoryBudget(int bytes) throws SQLException;
+
+    /**
+     * Returns the number of bytes of row data a result set of this statement
+     * may keep in memory, 0 meaning no limit.
+     */
+    public abstract int getResultSetMemoryBudget();
+
     public void setPingTarget(PingTarget pingTarget);
 
     public ExceptionInterceptor getExceptionInterceptor();
@@ -27,6 +27,7 @@ import java.io.InputStream;
 import java.lang.ref.Reference;
 import java.lang.ref.WeakReference;
 import java.math.BigInteger;
+import java.nio.channels.ReadableByteChannel;
 import java.sql.BatchUpdateException;
 import java.sql.DriverManager;
 import java.sql.ResultSet;
@@ -42,7 +43,6 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Properties;
 import java.util.Set;
-import java.util.TimerTask;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import com.mysql.jdbc.exceptions.MySQLStatementCancelledException;
@@ -50,6 +50,7 @@ import com.mysql.jdbc.exceptions.MySQLTimeoutException;
 import com.mysql.jdbc.log.LogUtils;
 import com.mysql.jdbc.profiler.ProfilerEvent;
 import com.mysql.jdbc.profiler.ProfilerEventHandler;
+import com.mysql.jdbc.util.HashedWheelTimer;
 
 /**
  * A Statement object is used for executing a static SQL statement and obtaining
@@ -64,40 +65,34 @@ public class StatementImpl implements Statement {
     protected static final String[] ON_DUPLICATE_KEY_UPDATE_CLAUSE = new String[] { "ON", "DUPLICATE", "KEY", "UPDATE" };
 
     /**
-     * Thread used to implement query timeouts...Eventually we could be more
-     * efficient and have one thread with timers, but this is a straightforward
-     * and simple way to implement a feature that isn't used all that often.
+     * Timeout handle used to implement query timeouts. It's scheduled on the driver-wide timer in {@link QueryTimeoutManager} and kept by the statement to be
+     * re-armed on the next execution, unless it fired.
      */
-    class CancelTask extends TimerTask {
+    class CancelTask extends HashedWheelTimer.Timeout {
         SQLException caughtWhileCancelling = null;
         StatementImpl toCancel;
         Properties origConnProps = null;
         String origConnURL = "";
         long origConnId = 0;
 
-        CancelTask(StatementImpl cancellee) throws SQLException {
-            this.toCancel = cancellee;
-            this.origConnProps = new Properties();
-
-            Properties props = StatementImpl.this.connection.getProperties();
-
-            Enumeration<?> keys = props.propertyNames();
+        CancelTask() {
+        }
 
-            while (keys.hasMoreElements()) {
-                String key = keys.nextElement().toString();
-                this.origConnProps.setProperty(key, props.getProperty(key));
-            }
+        void arm(StatementImpl cancellee) throws SQLException {
+            this.toCancel = cancellee;
+            this.caughtWhileCancelling = null;
 
+            // only copied if the physical connection changed by the time this fires
+            this.origConnProps = StatementImpl.this.connection.getProperties();
             this.origConnURL = StatementImpl.this.connection.getURL();
             this.origConnId = StatementImpl.this.connection.getId();
         }
 
         @Override
-        public void run() {
+        protected void expired() {
 
-            Thread cancelThread = new Thread() {
+            QueryTimeoutManager.execute(new Runnable() {
 
-                @Override
                 public void run() {
 
                     Connection cancelConn = null;
@@ -115,12 +110,18 @@ public class StatementImpl implements Statement {
                                 synchronized (StatementImpl.this.cancelTimeoutMutex) {
                                     if (CancelTask.this.origConnURL.equals(physicalConn.getURL())) {
                                         // All's fine
-                                        cancelConn = physicalConn.duplicate();
-                                        cancelStmt = cancelConn.createStatement();
-                                        cancelStmt.execute("KILL QUERY " + physicalConn.getId());
+                                        QueryTimeoutManager.killQuery(physicalConn);
                                     } else {
                                         try {
-                                            cancelConn = (Connection) DriverManager.getConnection(CancelTask.this.origConnURL, CancelTask.this.origConnProps);
+                                            Properties connProps = new Properties();
+                                            Enumeration<?> keys = CancelTask.this.origConnProps.propertyNames();
+
+                                            while (keys.hasMoreElements()) {
+                                                String key = keys.nextElement().toString();
+                                                connProps.setProperty(key, CancelTask.this.origConnProps.getProperty(key));
+                                            }
+
+                                            cancelConn = (Connection) DriverManager.getConnection(CancelTask.this.origConnURL, connProps);
                                             cancelStmt = cancelConn.createStatement();
                                             cancelStmt.execute("KILL QUERY " + CancelTask.this.origConnId);
                                         } catch (NullPointerException npe) {
@@ -160,10 +161,35 @@ public class StatementImpl implements Statement {
                         CancelTask.this.origConnURL = null;
                     }
                 }
-            };
+            });
+        }
+    }
+
+    /** The query timeout handle of this statement, re-used between executions until it fires */
+    private CancelTask cancelTask = null;
 
-            cancelThread.start();
+    /**
+     * Starts the query timeout for an execution of this statement, or of a statement it executes on its behalf.
+     * 
+     * @param stmtToCancel
+     *            the statement to flag as cancelled if the timeout fires
+     * @param timeout
+     *            timeout in milliseconds
+     * @return the timeout handle, to be cancelled once the execution is over
+     * @throws SQLException
+     */
+    protected CancelTask startQueryTimer(StatementImpl stmtToCancel, int timeout) throws SQLException {
+        CancelTask timeoutTask = this.cancelTask;
+
+        if (timeoutTask == null || !timeoutTask.isReusable()) {
+            timeoutTask = new CancelTask();
+            this.cancelTask = timeoutTask;
         }
+
+        timeoutTask.arm(stmtToCancel);
+        QueryTimeoutManager.schedule(timeoutTask, timeout);
+
+        return timeoutTask;
     }
 
     /**
@@ -229,6 +255,12 @@ public class StatementImpl implements Statement {
      */
     protected int maxRows = -1;
 
+    /**
+     * The number of bytes of row data result sets read in full may keep in
+     * memory before spilling their rows to disk (0 means no limit)
+     */
+    protected int resultSetMemoryBudget = 0;
+
     /** Set of currently-open ResultSets */
     protected Set<ResultSetInternalMethods> openResults = new HashSet<ResultSetInternalMethods>();
 
@@ -334,6 +366,7 @@ public class StatementImpl implements Statement {
         }
 
         this.maxFieldSize = this.connection.getMaxAllowedPacket();
+        this.resultSetMemoryBudget = this.connection.getResultSetMemoryBudget();
 
         int defaultFetchSize = this.connection.getDefaultFetchSize();
         if (defaultFetchSize != 0) {
@@ -812,8 +845,7 @@ public class StatementImpl implements Statement {
 
                     try {
                         if (locallyScopedConn.getEnableQueryTimeouts() && this.timeoutInMillis != 0 && locallyScopedConn.versionMeetsMinimum(5, 0, 0)) {
-                            timeoutTask = new CancelTask(this);
-                            locallyScopedConn.getCancelTimer().schedule(timeoutTask, this.timeoutInMillis);
+                            timeoutTask = startQueryTimer(this, this.timeoutInMillis);
                         }
 
                         if (!locallyScopedConn.getCatalog().equals(this.currentCatalog)) {
@@ -872,7 +904,6 @@ public class StatementImpl implements Statement {
                     } finally {
                         if (timeoutTask != null) {
                             timeoutTask.cancel();
-                            locallyScopedConn.getCancelTimer().purge();
                         }
 
                         if (oldCatalog != null) {
@@ -1014,8 +1045,7 @@ public class StatementImpl implements Statement {
                         }
 
                         if (locallyScopedConn.getEnableQueryTimeouts() && individualStatementTimeout != 0 && locallyScopedConn.versionMeetsMinimum(5, 0, 0)) {
-                            timeoutTask = new CancelTask(this);
-                            locallyScopedConn.getCancelTimer().schedule(timeoutTask, individualStatementTimeout);
+                            timeoutTask = startQueryTimer(this, individualStatementTimeout);
                         }
 
                         updateCounts = new long[nbrCommands];
@@ -1068,7 +1098,6 @@ public class StatementImpl implements Statement {
 
                         timeoutTask.cancel();
 
-                        locallyScopedConn.getCancelTimer().purge();
                         timeoutTask = null;
                     }
 
@@ -1080,8 +1109,6 @@ public class StatementImpl implements Statement {
 
                 if (timeoutTask != null) {
                     timeoutTask.cancel();
-
-                    locallyScopedConn.getCancelTimer().purge();
                 }
 
                 resetCancelledState();
@@ -1142,8 +1169,7 @@ public class StatementImpl implements Statement {
                 batchStmt = locallyScopedConn.createStatement();
 
                 if (locallyScopedConn.getEnableQueryTimeouts() && individualStatementTimeout != 0 && locallyScopedConn.versionMeetsMinimum(5, 0, 0)) {
-                    timeoutTask = new CancelTask((StatementImpl) batchStmt);
-                    locallyScopedConn.getCancelTimer().schedule(timeoutTask, individualStatementTimeout);
+                    timeoutTask = startQueryTimer((StatementImpl) batchStmt, individualStatementTimeout);
                 }
 
                 int counter = 0;
@@ -1209,8 +1235,6 @@ public class StatementImpl implements Statement {
 
                     timeoutTask.cancel();
 
-                    locallyScopedConn.getCancelTimer().purge();
-
                     timeoutTask = null;
                 }
 
@@ -1222,8 +1246,6 @@ public class StatementImpl implements Statement {
             } finally {
                 if (timeoutTask != null) {
                     timeoutTask.cancel();
-
-                    locallyScopedConn.getCancelTimer().purge();
                 }
 
                 resetCancelledState();
@@ -1351,8 +1373,7 @@ public class StatementImpl implements Statement {
 
             try {
                 if (locallyScopedConn.getEnableQueryTimeouts() && this.timeoutInMillis != 0 && locallyScopedConn.versionMeetsMinimum(5, 0, 0)) {
-                    timeoutTask = new CancelTask(this);
-                    locallyScopedConn.getCancelTimer().schedule(timeoutTask, this.timeoutInMillis);
+                    timeoutTask = startQueryTimer(this, this.timeoutInMillis);
                 }
 
                 if (!locallyScopedConn.getCatalog().equals(this.currentCatalog)) {
@@ -1388,8 +1409,6 @@ public class StatementImpl implements Statement {
 
                     timeoutTask.cancel();
 
-                    locallyScopedConn.getCancelTimer().purge();
-
                     timeoutTask = null;
                 }
 
@@ -1413,8 +1432,6 @@ public class StatementImpl implements Statement {
 
                 if (timeoutTask != null) {
                     timeoutTask.cancel();
-
-                    locallyScopedConn.getCancelTimer().purge();
                 }
 
                 if (oldCatalog != null) {
@@ -1532,8 +1549,7 @@ public class StatementImpl implements Statement {
 
             try {
                 if (locallyScopedConn.getEnableQueryTimeouts() && this.timeoutInMillis != 0 && locallyScopedConn.versionMeetsMinimum(5, 0, 0)) {
-                    timeoutTask = new CancelTask(this);
-                    locallyScopedConn.getCancelTimer().schedule(timeoutTask, this.timeoutInMillis);
+                    timeoutTask = startQueryTimer(this, this.timeoutInMillis);
                 }
 
                 if (!locallyScopedConn.getCatalog().equals(this.currentCatalog)) {
@@ -1559,8 +1575,6 @@ public class StatementImpl implements Statement {
 
                     timeoutTask.cancel();
 
-                    locallyScopedConn.getCancelTimer().purge();
-
                     timeoutTask = null;
                 }
 
@@ -1584,8 +1598,6 @@ public class StatementImpl implements Statement {
 
                 if (timeoutTask != null) {
                     timeoutTask.cancel();
-
-                    locallyScopedConn.getCancelTimer().purge();
                 }
 
                 if (oldCatalog != null) {
@@ -2232,6 +2244,7 @@ public class StatementImpl implements Statement {
         this.openResults = null;
         this.batchedGeneratedKeys = null;
         this.localInfileInputStream = null;
+        this.localInfileChannel = null;
         this.pingTarget = null;
     }
 
@@ -2548,6 +2561,8 @@ public class StatementImpl implements Statement {
 
     private InputStream localInfileInputStream;
 
+    private ReadableByteChannel localInfileChannel;
+
     protected final boolean version5013OrNewer;
 
     public InputStream getLocalInfileInputStream() {
@@ -2558,6 +2573,29 @@ public class StatementImpl implements Statement {
         this.localInfileInputStream = stream;
     }
 
+    public ReadableByteChannel getLocalInfileChannel() {
+        return this.localInfileChannel;
+    }
+
+    public void setLocalInfileChannel(ReadableByteChannel channel) {
+        this.localInfileChannel = channel;
+    }
+
+    public int getResultSetMemoryBudget() {
+        return this.resultSetMemoryBudget;
+    }
+
+    public void setResultSetMemoryBudget(int bytes) throws SQLException {
+        synchronized (checkClosed().getConnectionMutex()) {
+            if (bytes < 0) {
+                throw SQLError.createSQLException(Messages.getString("Statement.ResultSetMemoryBudget"), SQLError.SQL_STATE_ILLEGAL_ARGUMENT,
+                        getExceptionInterceptor());
+            }
+
+            this.resultSetMemoryBudget = bytes;
+        }
+    }
+
     public void setPingTarget(PingTarget pingTarget) {
         this.pingTarget = pingTarget;
     }
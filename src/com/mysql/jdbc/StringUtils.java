@@ -843,6 +843,181 @@ public class StringUtils {
         return (negative ? (-i) : i);
     }
 
+    /**
+     * Powers of ten that are exact as doubles.
+     */
+    private static final double[] EXACT_DOUBLE_POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15,
+            1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+    /**
+     * Powers of ten that are exact as floats.
+     */
+    private static final float[] EXACT_FLOAT_POWERS_OF_TEN = { 1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f };
+
+    /**
+     * Parses the decimal number in the given byte range the same way new BigDecimal(String) would, without creating a String unless it has more than 18
+     * significant digits.
+     * 
+     * @throws NumberFormatException
+     *             if the bytes are not a decimal number made of an optional sign, digits with an optional decimal point and an optional exponent
+     */
+    public static BigDecimal getBigDecimal(byte[] buf, int offset, int endPos) throws NumberFormatException {
+        int scale = getDecimalScale(buf, offset, endPos);
+        long unscaledValue = getDecimalUnscaledValue(buf, offset, endPos);
+
+        if (unscaledValue == -1) {
+            return new BigDecimal(toAsciiString(buf, offset, endPos - offset));
+        }
+
+        return BigDecimal.valueOf(buf[offset] == '-' ? -unscaledValue : unscaledValue, scale);
+    }
+
+    /**
+     * Parses the decimal number in the given byte range the same way Double.parseDouble() would. Numbers whose digits fit in 53 bits and whose power of
+     * ten is exact as a double are converted with a single, correctly rounded, floating point operation; others go through a String.
+     * 
+     * @throws NumberFormatException
+     *             if the bytes are not a decimal number made of an optional sign, digits with an optional decimal point and an optional exponent
+     */
+    public static double getDouble(byte[] buf, int offset, int endPos) throws NumberFormatException {
+        int scale = getDecimalScale(buf, offset, endPos);
+        long unscaledValue = getDecimalUnscaledValue(buf, offset, endPos);
+
+        if (unscaledValue == -1 || unscaledValue >= (1L << 53) || scale < -22 || scale > 22) {
+            return Double.parseDouble(toAsciiString(buf, offset, endPos - offset));
+        }
+
+        double d = scale >= 0 ? unscaledValue / EXACT_DOUBLE_POWERS_OF_TEN[scale] : unscaledValue * EXACT_DOUBLE_POWERS_OF_TEN[-scale];
+
+        return buf[offset] == '-' ? -d : d;
+    }
+
+    /**
+     * Parses the decimal number in the given byte range the same way Float.parseFloat() would, see getDouble(byte[], int, int).
+     * 
+     * @throws NumberFormatException
+     *             if the bytes are not a decimal number made of an optional sign, digits with an optional decimal point and an optional exponent
+     */
+    public static float getFloat(byte[] buf, int offset, int endPos) throws NumberFormatException {
+        int scale = getDecimalScale(buf, offset, endPos);
+        long unscaledValue = getDecimalUnscaledValue(buf, offset, endPos);
+
+        if (unscaledValue == -1 || unscaledValue >= (1L << 24) || scale < -10 || scale > 10) {
+            return Float.parseFloat(toAsciiString(buf, offset, endPos - offset));
+        }
+
+        float f = scale >= 0 ? unscaledValue / EXACT_FLOAT_POWERS_OF_TEN[scale] : unscaledValue * EXACT_FLOAT_POWERS_OF_TEN[-scale];
+
+        return buf[offset] == '-' ? -f : f;
+    }
+
+    /**
+     * Validates the decimal number in the given byte range and returns its scale, i.e. the number of digits after the decimal point minus the exponent.
+     */
+    private static int getDecimalScale(byte[] buf, int offset, int endPos) throws NumberFormatException {
+        int s = offset;
+
+        if (s < endPos && (buf[s] == '-' || buf[s] == '+')) {
+            s++;
+        }
+
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean seenPoint = false;
+
+        for (; s < endPos; s++) {
+            byte b = buf[s];
+
+            if (b >= '0' && b <= '9') {
+                digits++;
+
+                if (seenPoint) {
+                    fractionDigits++;
+                }
+            } else if (b == '.' && !seenPoint) {
+                seenPoint = true;
+            } else {
+                break;
+            }
+        }
+
+        if (digits == 0) {
+            throw new NumberFormatException(toAsciiString(buf, offset, endPos - offset));
+        }
+
+        long exponent = 0;
+
+        if (s < endPos) {
+            if (buf[s] != 'e' && buf[s] != 'E') {
+                throw new NumberFormatException(toAsciiString(buf, offset, endPos - offset));
+            }
+
+            s++;
+
+            boolean negativeExponent = false;
+
+            if (s < endPos && (buf[s] == '-' || buf[s] == '+')) {
+                negativeExponent = buf[s] == '-';
+                s++;
+            }
+
+            if (s == endPos) {
+                throw new NumberFormatException(toAsciiString(buf, offset, endPos - offset));
+            }
+
+            for (; s < endPos; s++) {
+                byte b = buf[s];
+
+                if (b < '0' || b > '9') {
+                    throw new NumberFormatException(toAsciiString(buf, offset, endPos - offset));
+                }
+
+                exponent = exponent * 10 + (b - '0');
+
+                if (exponent > Integer.MAX_VALUE) {
+                    throw new NumberFormatException(toAsciiString(buf, offset, endPos - offset));
+                }
+            }
+
+            if (negativeExponent) {
+                exponent = -exponent;
+            }
+        }
+
+        long scale = fractionDigits - exponent;
+
+        if (scale < Integer.MIN_VALUE || scale > Integer.MAX_VALUE) {
+            throw new NumberFormatException(toAsciiString(buf, offset, endPos - offset));
+        }
+
+        return (int) scale;
+    }
+
+    /**
+     * Returns the absolute value of the digits of a decimal number validated by getDecimalScale(), ignoring its decimal point, or -1 if it has more
+     * significant digits than a long can always hold.
+     */
+    private static long getDecimalUnscaledValue(byte[] buf, int offset, int endPos) {
+        long value = 0;
+        int significantDigits = 0;
+
+        for (int s = offset; s < endPos; s++) {
+            byte b = buf[s];
+
+            if (b >= '0' && b <= '9') {
+                if ((value != 0 || b != '0') && ++significantDigits > 18) {
+                    return -1;
+                }
+
+                value = value * 10 + (b - '0');
+            } else if (b == 'e' || b == 'E') {
+                break;
+            }
+        }
+
+        return value;
+    }
+
     public static short getShort(byte[] buf) throws NumberFormatException {
         return getShort(buf, 0, buf.length);
     }
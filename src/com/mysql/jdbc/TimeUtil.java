@@ -108,24 +108,7 @@ public class TimeUtil {
         if ((conn != null)) {
             if (conn.getUseTimezone() && !conn.getNoTimezoneConversionForTimeType()) {
                 // Convert the timestamp from GMT to the server's timezone
-                Calendar fromCal = Calendar.getInstance(fromTz);
-                fromCal.setTime(t);
-
-                int fromOffset = fromCal.get(Calendar.ZONE_OFFSET) + fromCal.get(Calendar.DST_OFFSET);
-                Calendar toCal = Calendar.getInstance(toTz);
-                toCal.setTime(t);
-
-                int toOffset = toCal.get(Calendar.ZONE_OFFSET) + toCal.get(Calendar.DST_OFFSET);
-                int offsetDiff = fromOffset - toOffset;
-                long toTime = toCal.getTime().getTime();
-
-                if (rollForward) {
-                    toTime += offsetDiff;
-                } else {
-                    toTime -= offsetDiff;
-                }
-
-                Time changedTime = new Time(toTime);
+                Time changedTime = new Time(changeTimezone(t.getTime(), fromTz, toTz, rollForward));
 
                 return changedTime;
             } else if (conn.getUseJDBCCompliantTimezoneShift()) {
@@ -160,24 +143,7 @@ public class TimeUtil {
         if ((conn != null)) {
             if (conn.getUseTimezone()) {
                 // Convert the timestamp from GMT to the server's timezone
-                Calendar fromCal = Calendar.getInstance(fromTz);
-                fromCal.setTime(tstamp);
-
-                int fromOffset = fromCal.get(Calendar.ZONE_OFFSET) + fromCal.get(Calendar.DST_OFFSET);
-                Calendar toCal = Calendar.getInstance(toTz);
-                toCal.setTime(tstamp);
-
-                int toOffset = toCal.get(Calendar.ZONE_OFFSET) + toCal.get(Calendar.DST_OFFSET);
-                int offsetDiff = fromOffset - toOffset;
-                long toTime = toCal.getTime().getTime();
-
-                if (rollForward) {
-                    toTime += offsetDiff;
-                } else {
-                    toTime -= offsetDiff;
-                }
-
-                Timestamp changedTimestamp = new Timestamp(toTime);
+                Timestamp changedTimestamp = new Timestamp(changeTimezone(tstamp.getTime(), fromTz, toTz, rollForward));
 
                 return changedTimestamp;
             } else if (conn.getUseJDBCCompliantTimezoneShift()) {
@@ -195,6 +161,29 @@ public class TimeUtil {
         return tstamp;
     }
 
+    /**
+     * Shifts the given instant by the difference between the offsets from GMT of the two time zones at that instant.
+     * 
+     * This is what comparing the ZONE_OFFSET and DST_OFFSET fields of Calendars set to the instant in each time zone gives, without creating them:
+     * TimeZone.getOffset(long) looks the instant up in the precomputed transition table of the time zone, which is never modified once loaded and so
+     * can be shared by all connections and threads.
+     * 
+     * @param millis
+     *            the instant to change
+     * @param fromTz
+     *            the timezone to change from
+     * @param toTz
+     *            the timezone to change to
+     * @param rollForward
+     *            whether to add the difference (from - to) rather than to subtract it
+     * @return the changed instant
+     */
+    static long changeTimezone(long millis, TimeZone fromTz, TimeZone toTz, boolean rollForward) {
+        int offsetDiff = fromTz.getOffset(millis) - toTz.getOffset(millis);
+
+        return rollForward ? millis + offsetDiff : millis - offsetDiff;
+    }
+
     private static long jdbcCompliantZoneShift(Calendar sessionCalendar, Calendar targetCalendar, java.util.Date dt) {
         if (sessionCalendar == null) {
             sessionCalendar = new GregorianCalendar();
@@ -2898,6 +2898,174 @@ public class ConnectionWrapper extends WrapperBase implements Connection {
         this.mc.setEnableEscapeProcessing(flag);
     }
 
+    public boolean getUsePacketBufferArena() {
+        return this.mc.getUsePacketBufferArena();
+    }
+
+    public void setUsePacketBufferArena(boolean flag) {
+        this.mc.setUsePacketBufferArena(flag);
+    }
+
+    public int getPacketBufferArenaMaxRetainedSize() {
+        return this.mc.getPacketBufferArenaMaxRetainedSize();
+    }
+
+    public void setPacketBufferArenaMaxRetainedSize(String value) throws SQLException {
+        this.mc.setPacketBufferArenaMaxRetainedSize(value);
+    }
+
+    public int getCompressionLevel() {
+        return this.mc.getCompressionLevel();
+    }
+
+    public void setCompressionLevel(int value) throws SQLException {
+        this.mc.setCompressionLevel(value);
+    }
+
+    public String getCompressionStrategy() {
+        return this.mc.getCompressionStrategy();
+    }
+
+    public void setCompressionStrategy(String value) {
+        this.mc.setCompressionStrategy(value);
+    }
+
+    public boolean getAdaptiveCompression() {
+        return this.mc.getAdaptiveCompression();
+    }
+
+    public void setAdaptiveCompression(boolean flag) {
+        this.mc.setAdaptiveCompression(flag);
+    }
+
+    public boolean getPipelineServerPreparedBatches() {
+        return this.mc.getPipelineServerPreparedBatches();
+    }
+
+    public void setPipelineServerPreparedBatches(boolean flag) {
+        this.mc.setPipelineServerPreparedBatches(flag);
+    }
+
+    public int getServerPreparedBatchPipelineWindow() {
+        return this.mc.getServerPreparedBatchPipelineWindow();
+    }
+
+    public void setServerPreparedBatchPipelineWindow(int value) throws SQLException {
+        this.mc.setServerPreparedBatchPipelineWindow(value);
+    }
+
+    public boolean getCacheServerPreparedBatchedInserts() {
+        return this.mc.getCacheServerPreparedBatchedInserts();
+    }
+
+    public void setCacheServerPreparedBatchedInserts(boolean flag) {
+        this.mc.setCacheServerPreparedBatchedInserts(flag);
+    }
+
+    public boolean getEncodeParametersInPlace() {
+        return this.mc.getEncodeParametersInPlace();
+    }
+
+    public void setEncodeParametersInPlace(boolean flag) {
+        this.mc.setEncodeParametersInPlace(flag);
+    }
+
+    public boolean getUseFastDecimalParsing() {
+        return this.mc.getUseFastDecimalParsing();
+    }
+
+    public void setUseFastDecimalParsing(boolean flag) {
+        this.mc.setUseFastDecimalParsing(flag);
+    }
+
+    public boolean getUseFastJavaTimeDecoding() {
+        return this.mc.getUseFastJavaTimeDecoding();
+    }
+
+    public void setUseFastJavaTimeDecoding(boolean flag) {
+        this.mc.setUseFastJavaTimeDecoding(flag);
+    }
+
+    public boolean getPrefetchCursorRows() {
+        return this.mc.getPrefetchCursorRows();
+    }
+
+    public void setPrefetchCursorRows(boolean flag) {
+        this.mc.setPrefetchCursorRows(flag);
+    }
+
+    public int getCursorPrefetchWatermark() {
+        return this.mc.getCursorPrefetchWatermark();
+    }
+
+    public void setCursorPrefetchWatermark(int value) throws SQLException {
+        this.mc.setCursorPrefetchWatermark(value);
+    }
+
+    public int getResultSetMemoryBudget() {
+        return this.mc.getResultSetMemoryBudget();
+    }
+
+    public void setResultSetMemoryBudget(String value) throws SQLException {
+        this.mc.setResultSetMemoryBudget(value);
+    }
+
+    public boolean getTrackSessionState() {
+        return this.mc.getTrackSessionState();
+    }
+
+    public void setTrackSessionState(boolean flag) {
+        this.mc.setTrackSessionState(flag);
+    }
+
+    public boolean getUseResetConnection() {
+        return this.mc.getUseResetConnection();
+    }
+
+    public void setUseResetConnection(boolean flag) {
+        this.mc.setUseResetConnection(flag);
+    }
+
+    public boolean getUseFastBootstrap() {
+        return this.mc.getUseFastBootstrap();
+    }
+
+    public void setUseFastBootstrap(boolean flag) {
+        this.mc.setUseFastBootstrap(flag);
+    }
+
+    public boolean getParallelHostConnect() {
+        return this.mc.getParallelHostConnect();
+    }
+
+    public void setParallelHostConnect(boolean flag) {
+        this.mc.setParallelHostConnect(flag);
+    }
+
+    public int getParallelHostConnectDelay() {
+        return this.mc.getParallelHostConnectDelay();
+    }
+
+    public void setParallelHostConnectDelay(int parallelHostConnectDelay) throws SQLException {
+        this.mc.setParallelHostConnectDelay(parallelHostConnectDelay);
+    }
+
+    public int getLoadBalancePrewarmConnections() {
+        return this.mc.getLoadBalancePrewarmConnections();
+    }
+
+    public void setLoadBalancePrewarmConnections(int loadBalancePrewarmConnections) throws SQLException {
+        this.mc.setLoadBalancePrewarmConnections(loadBalancePrewarmConnections);
+    }
+
+    public int getLoadBalancePrewarmValidateAfter() {
+        return this.mc.getLoadBalancePrewarmValidateAfter();
+    }
+
+    public void setLoadBalancePrewarmValidateAfter(int loadBalancePrewarmValidateAfter) throws SQLException {
+        this.mc.setLoadBalancePrewarmValidateAfter(loadBalancePrewarmValidateAfter);
+    }
+
     public boolean isUseSSLExplicit() {
         return this.mc.isUseSSLExplicit();
     }
@@ -0,0 +1,148 @@
+/*
+  Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+
+  The MySQL Connector/J is licensed under the terms of the GPLv2
+  <http://www.gnu.org/licenses/old-licenses/gpl-2.0.html>, like most MySQL Connectors.
+  There are special exceptions to the terms and conditions of the GPLv2 as it is applied to
+  this software, see the FOSS License Exception
+  <http://www.mysql.com/about/legal/licensing/foss-exception.html>.
+
+  This program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU General Public License as published by the Free Software Foundation; version 2
+  of the License.
+
+  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this
+  program; if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth
+  Floor, Boston, MA 02110-1301  USA
+
+ */
+
+package com.mysql.jdbc.jmx;
+
+import java.lang.management.ManagementFactory;
+import java.sql.SQLException;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import com.mysql.jdbc.SQLError;
+import com.mysql.jdbc.StringUtils;
+import com.mysql.jdbc.profiler.LatencyHistogram;
+import com.mysql.jdbc.profiler.MetricsProfilerEventHandler;
+import com.mysql.jdbc.profiler.ProfilerMetrics;
+import com.mysql.jdbc.profiler.StatementType;
+
+/**
+ * Exposes the figures collected by {@link MetricsProfilerEventHandler}.
+ * 
+ * Operations take a connection group name, or null or an empty string for the figures of all groups, and an event type of "prepare", "execute", "fetch"
+ * or "slow_query", or a statement type such as "select" or "insert".
+ */
+public class ProfilerMetricsManager implements ProfilerMetricsManagerMBean {
+
+    private boolean isJmxRegistered = false;
+
+    public ProfilerMetricsManager() {
+
+    }
+
+    public synchronized void registerJmx() throws SQLException {
+        if (this.isJmxRegistered) {
+            return;
+        }
+        MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName name = new ObjectName("com.mysql.jdbc.jmx:type=ProfilerMetricsManager");
+            mbs.registerMBean(this, name);
+            this.isJmxRegistered = true;
+        } catch (Exception e) {
+            throw SQLError.createSQLException("Unable to register profiler metrics management bean with JMX", null, e, null);
+        }
+
+    }
+
+    public String getRegisteredConnectionGroups() {
+        StringBuilder sb = new StringBuilder();
+        for (String group : MetricsProfilerEventHandler.getConnectionGroups()) {
+            if (sb.length() > 0) {
+                sb.append(",");
+            }
+            sb.append(group);
+        }
+        return sb.toString();
+    }
+
+    public long getEventCount(String group, String eventType) {
+        return getEventLatency(group, eventType).getCount();
+    }
+
+    public double getMeanLatencyMicros(String group, String eventType) {
+        return getEventLatency(group, eventType).getMeanMicros();
+    }
+
+    public long getMaxLatencyMicros(String group, String eventType) {
+        return getEventLatency(group, eventType).getMaxMicros();
+    }
+
+    public long getLatencyPercentileMicros(String group, String eventType, double percentile) {
+        return getEventLatency(group, eventType).getPercentileMicros(percentile);
+    }
+
+    public long getStatementCount(String group, String statementType) {
+        return getStatementLatency(group, statementType).getCount();
+    }
+
+    public double getStatementMeanLatencyMicros(String group, String statementType) {
+        return getStatementLatency(group, statementType).getMeanMicros();
+    }
+
+    public long getStatementLatencyPercentileMicros(String group, String statementType, double percentile) {
+        return getStatementLatency(group, statementType).getPercentileMicros(percentile);
+    }
+
+    public long getSlowQueryCount(String group) {
+        return getMetrics(group).getSlowQueryCount();
+    }
+
+    public long getWarningCount(String group) {
+        return getMetrics(group).getWarningCount();
+    }
+
+    public void resetRetiredMetrics() {
+        MetricsProfilerEventHandler.resetRetiredMetrics();
+    }
+
+    private ProfilerMetrics getMetrics(String group) {
+        return StringUtils.isNullOrEmpty(group) ? MetricsProfilerEventHandler.getGlobalMetrics() : MetricsProfilerEventHandler.getGroupMetrics(group);
+    }
+
+    private LatencyHistogram getEventLatency(String group, String eventType) {
+        ProfilerMetrics metrics = getMetrics(group);
+
+        if ("prepare".equalsIgnoreCase(eventType)) {
+            return metrics.getPrepareLatency();
+        } else if ("execute".equalsIgnoreCase(eventType)) {
+            return metrics.getExecuteLatency();
+        } else if ("fetch".equalsIgnoreCase(eventType)) {
+            return metrics.getFetchLatency();
+        } else if ("slow_query".equalsIgnoreCase(eventType)) {
+            return metrics.getSlowQueryLatency();
+        }
+
+        throw new IllegalArgumentException("Unknown event type '" + eventType + "'");
+    }
+
+    private LatencyHistogram getStatementLatency(String group, String statementType) {
+        for (StatementType type : StatementType.values()) {
+            if (type.name().equalsIgnoreCase(statementType)) {
+                return getMetrics(group).getExecuteLatency(type);
+            }
+        }
+
+        throw new IllegalArgumentException("Unknown statement type '" + statementType + "'");
+    }
+}
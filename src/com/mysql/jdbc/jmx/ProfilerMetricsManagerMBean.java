@@ -0,0 +1,50 @@
+/*
+  Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+
+  The MySQL Connector/J is licensed under the terms of the GPLv2
+  <http://www.gnu.org/licenses/old-licenses/gpl-2.0.html>, like most MySQL Connectors.
+  There are special exceptions to the terms and conditions of the GPLv2 as it is applied to
+  this software, see the FOSS License Exception
+  <http://www.mysql.com/about/legal/licensing/foss-exception.html>.
+
+  This program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU General Public License as published by the Free Software Foundation; version 2
+  of the License.
+
+  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this
+  program; if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth
+  Floor, Boston, MA 02110-1301  USA
+
+ */
+
+package com.mysql.jdbc.jmx;
+
+public interface ProfilerMetricsManagerMBean {
+
+    public abstract String getRegisteredConnectionGroups();
+
+    public abstract long getEventCount(String group, String eventType);
+
+    public abstract double getMeanLatencyMicros(String group, String eventType);
+
+    public abstract long getMaxLatencyMicros(String group, String eventType);
+
+    public abstract long getLatencyPercentileMicros(String group, String eventType, double percentile);
+
+    public abstract long getStatementCount(String group, String statementType);
+
+    public abstract double getStatementMeanLatencyMicros(String group, String statementType);
+
+    public abstract long getStatementLatencyPercentileMicros(String group, String statementType, double percentile);
+
+    public abstract long getSlowQueryCount(String group);
+
+    public abstract long getWarningCount(String group);
+
+    public abstract void resetRetiredMetrics();
+
+}
@@ -0,0 +1,175 @@
+/*
+  Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+
+  The MySQL Connector/J is licensed under the terms of the GPLv2
+  <http://www.gnu.org/licenses/old-licenses/gpl-2.0.html>, like most MySQL Connectors.
+  There are special exceptions to the terms and conditions of the GPLv2 as it is applied to
+  this software, see the FOSS License Exception
+  <http://www.mysql.com/about/legal/licensing/foss-exception.html>.
+
+  This program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU General Public License as published by the Free Software Foundation; version 2
+  of the License.
+
+  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this
+  program; if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth
+  Floor, Boston, MA 02110-1301  USA
+
+ */
+
+package com.mysql.jdbc.profiler;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free latency histogram with log-linear buckets in microseconds.
+ * 
+ * Values below 16us get a bucket each; above that every power of two is split into 8 linear sub-buckets, so any recorded value is reported within
+ * about 6% of its true value. Recording is a handful of atomic increments and never allocates.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 3;
+
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    private static final int LINEAR_LIMIT = SUB_BUCKET_COUNT << 1;
+
+    /** Values of 2^MAX_MAGNITUDE microseconds (about twelve days) and above all land in the last bucket. */
+    private static final int MAX_MAGNITUDE = 40;
+
+    static final int BUCKET_COUNT = bucketIndex((1L << MAX_MAGNITUDE) - 1) + 1;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+
+    private final AtomicLong count = new AtomicLong();
+
+    private final AtomicLong totalMicros = new AtomicLong();
+
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    /**
+     * Records one measurement.
+     * 
+     * @param nanos
+     *            the measured duration in nanoseconds, negative values are recorded as zero
+     */
+    public void record(long nanos) {
+        long micros = nanos > 0 ? nanos / 1000 : 0;
+
+        this.buckets.incrementAndGet(bucketIndex(micros));
+        this.count.incrementAndGet();
+        this.totalMicros.addAndGet(micros);
+
+        long max;
+        while (micros > (max = this.maxMicros.get())) {
+            if (this.maxMicros.compareAndSet(max, micros)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Adds all measurements of another histogram to this one.
+     * 
+     * @param other
+     *            the histogram to merge in
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long c = other.buckets.get(i);
+            if (c != 0) {
+                this.buckets.addAndGet(i, c);
+            }
+        }
+
+        this.count.addAndGet(other.count.get());
+        this.totalMicros.addAndGet(other.totalMicros.get());
+
+        long otherMax = other.maxMicros.get();
+        long max;
+        while (otherMax > (max = this.maxMicros.get())) {
+            if (this.maxMicros.compareAndSet(max, otherMax)) {
+                break;
+            }
+        }
+    }
+
+    public long getCount() {
+        return this.count.get();
+    }
+
+    public long getTotalMicros() {
+        return this.totalMicros.get();
+    }
+
+    public long getMaxMicros() {
+        return this.maxMicros.get();
+    }
+
+    public double getMeanMicros() {
+        long c = this.count.get();
+        return c == 0 ? 0 : (double) this.totalMicros.get() / c;
+    }
+
+    /**
+     * Returns the value below which the given percentage of the recorded measurements fall.
+     * 
+     * @param percentile
+     *            the percentile, between 0 and 100
+     * @return the upper bound of the bucket holding the percentile, in microseconds, capped at the largest recorded value; 0 if nothing was recorded
+     */
+    public long getPercentileMicros(double percentile) {
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            total += this.buckets.get(i);
+        }
+
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = (long) Math.ceil(Math.max(0, Math.min(100, percentile)) / 100 * total);
+        if (rank == 0) {
+            rank = 1;
+        }
+
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += this.buckets.get(i);
+            if (seen >= rank) {
+                return Math.min(bucketUpperBound(i), this.maxMicros.get());
+            }
+        }
+
+        return this.maxMicros.get();
+    }
+
+    static int bucketIndex(long micros) {
+        if (micros < LINEAR_LIMIT) {
+            return (int) micros;
+        }
+
+        int magnitude = 63 - Long.numberOfLeadingZeros(micros);
+        if (magnitude >= MAX_MAGNITUDE) {
+            return BUCKET_COUNT - 1;
+        }
+
+        int shift = magnitude - SUB_BUCKET_BITS;
+        return LINEAR_LIMIT + (shift - 1) * SUB_BUCKET_COUNT + (int) (micros >>> shift) - SUB_BUCKET_COUNT;
+    }
+
+    static long bucketUpperBound(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+
+        int shift = (index - LINEAR_LIMIT) / SUB_BUCKET_COUNT + 1;
+        long subBucket = (index - LINEAR_LIMIT) % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
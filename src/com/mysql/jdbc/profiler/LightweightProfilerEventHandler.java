@@ -0,0 +1,46 @@
+/*
+  Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+
+  The MySQL Connector/J is licensed under the terms of the GPLv2
+  <http://www.gnu.org/licenses/old-licenses/gpl-2.0.html>, like most MySQL Connectors.
+  There are special exceptions to the terms and conditions of the GPLv2 as it is applied to
+  this software, see the FOSS License Exception
+  <http://www.mysql.com/about/legal/licensing/foss-exception.html>.
+
+  This program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU General Public License as published by the Free Software Foundation; version 2
+  of the License.
+
+  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this
+  program; if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth
+  Floor, Boston, MA 02110-1301  USA
+
+ */
+
+package com.mysql.jdbc.profiler;
+
+/**
+ * A profiler event handler that only needs the type and duration of events.
+ * 
+ * The driver reports timing events to such handlers through {@link #recordEvent(byte, StatementType, long)} instead of building a {@link ProfilerEvent},
+ * so no query text is extracted, no stack trace is taken and nothing is allocated per event. Warnings and usage advisor events still arrive through
+ * {@link #consumeEvent(ProfilerEvent)}.
+ */
+public interface LightweightProfilerEventHandler extends ProfilerEventHandler {
+
+    /**
+     * Records a timing event.
+     * 
+     * @param eventType
+     *            one of the ProfilerEvent.TYPE_* constants
+     * @param statementType
+     *            the kind of statement the event belongs to
+     * @param durationNanos
+     *            the duration of the event in nanoseconds
+     */
+    public void recordEvent(byte eventType, StatementType statementType, long durationNanos);
+}
@@ -0,0 +1,247 @@
+/*
+  Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+
+  The MySQL Connector/J is licensed under the terms of the GPLv2
+  <http://www.gnu.org/licenses/old-licenses/gpl-2.0.html>, like most MySQL Connectors.
+  There are special exceptions to the terms and conditions of the GPLv2 as it is applied to
+  this software, see the FOSS License Exception
+  <http://www.mysql.com/about/legal/licensing/foss-exception.html>.
+
+  This program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU General Public License as published by the Free Software Foundation; version 2
+  of the License.
+
+  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this
+  program; if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth
+  Floor, Boston, MA 02110-1301  USA
+
+ */
+
+package com.mysql.jdbc.profiler;
+
+import java.lang.ref.WeakReference;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import com.mysql.jdbc.Connection;
+import com.mysql.jdbc.Messages;
+import com.mysql.jdbc.MySQLConnection;
+import com.mysql.jdbc.jmx.ProfilerMetricsManager;
+
+/**
+ * A profiler event handler that keeps latency histograms and counters instead of logging events.
+ * 
+ * Each connection records into its own {@link ProfilerMetrics}, so recording is never contended. Metrics are grouped by the connection's
+ * loadBalanceConnectionGroup or replicationConnectionGroup, or fall into the "default" group; group and global figures are summed up when they are read,
+ * from the open connections plus everything recorded by connections already closed. The figures are available from the static methods of this class and
+ * from the "com.mysql.jdbc.jmx:type=ProfilerMetricsManager" MBean.
+ * 
+ * Enable with "profileSQL=true&amp;profilerEventHandler=com.mysql.jdbc.profiler.MetricsProfilerEventHandler".
+ */
+public class MetricsProfilerEventHandler implements LightweightProfilerEventHandler {
+    public static final String DEFAULT_GROUP = "default";
+
+    private static final Map<String, Group> GROUPS = new HashMap<String, Group>();
+
+    private static final ProfilerMetricsManager MBEAN = new ProfilerMetricsManager();
+
+    private final ProfilerMetrics metrics = new ProfilerMetrics();
+
+    private Group group;
+
+    /** Weak, so that a connection that is never closed doesn't stay reachable through the registry. */
+    private WeakReference<MySQLConnection> connection;
+
+    public MetricsProfilerEventHandler() {
+    }
+
+    public void init(Connection conn, Properties props) throws SQLException {
+        String groupName = props.getProperty("loadBalanceConnectionGroup");
+        if (groupName == null) {
+            groupName = props.getProperty("replicationConnectionGroup");
+        }
+        if (groupName == null) {
+            groupName = DEFAULT_GROUP;
+        }
+
+        if (conn instanceof MySQLConnection) {
+            // the server thread id is only known once connected, and changes on reconnect
+            this.connection = new WeakReference<MySQLConnection>((MySQLConnection) conn);
+        }
+
+        synchronized (GROUPS) {
+            Group g = GROUPS.get(groupName);
+            if (g == null) {
+                g = new Group();
+                GROUPS.put(groupName, g);
+            }
+            g.liveHandlers.add(this);
+            this.group = g;
+        }
+
+        try {
+            MBEAN.registerJmx();
+        } catch (SQLException sqlEx) {
+            // metrics remain available through the static accessors
+            conn.getLog().logWarn(sqlEx.getMessage(), sqlEx);
+        }
+    }
+
+    public void destroy() {
+        synchronized (GROUPS) {
+            if (this.group != null && this.group.liveHandlers.remove(this)) {
+                this.group.retired.add(this.metrics);
+            }
+            this.group = null;
+        }
+    }
+
+    public void recordEvent(byte eventType, StatementType statementType, long durationNanos) {
+        this.metrics.record(eventType, statementType, durationNanos);
+    }
+
+    public void consumeEvent(ProfilerEvent evt) {
+        byte eventType = evt.getEventType();
+        long duration = evt.getEventDuration();
+
+        if (!Messages.getString("Nanoseconds").equals(evt.getDurationUnits())) {
+            duration *= 1000000L;
+        }
+
+        StatementType statementType = eventType == ProfilerEvent.TYPE_QUERY || eventType == ProfilerEvent.TYPE_EXECUTE ? StatementType.of(evt.getMessage())
+                : StatementType.OTHER;
+
+        this.metrics.record(eventType, statementType, duration);
+    }
+
+    /**
+     * @return the metrics recorded by this handler's connection
+     */
+    public ProfilerMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    /**
+     * @return the names of all connection groups that have recorded metrics
+     */
+    public static Set<String> getConnectionGroups() {
+        synchronized (GROUPS) {
+            return new HashSet<String>(GROUPS.keySet());
+        }
+    }
+
+    /**
+     * Returns a snapshot of the metrics of one connection group.
+     * 
+     * @param groupName
+     *            the name of the connection group
+     * @return the summed up metrics of all open and closed connections of the group, empty if the group is unknown
+     */
+    public static ProfilerMetrics getGroupMetrics(String groupName) {
+        ProfilerMetrics snapshot = new ProfilerMetrics();
+        List<ProfilerMetrics> parts = new ArrayList<ProfilerMetrics>();
+
+        synchronized (GROUPS) {
+            Group g = GROUPS.get(groupName);
+            if (g != null) {
+                g.collect(parts);
+            }
+        }
+
+        for (ProfilerMetrics part : parts) {
+            snapshot.add(part);
+        }
+
+        return snapshot;
+    }
+
+    /**
+     * @return a snapshot of the summed up metrics of all connection groups
+     */
+    public static ProfilerMetrics getGlobalMetrics() {
+        ProfilerMetrics snapshot = new ProfilerMetrics();
+        List<ProfilerMetrics> parts = new ArrayList<ProfilerMetrics>();
+
+        synchronized (GROUPS) {
+            for (Group g : GROUPS.values()) {
+                g.collect(parts);
+            }
+        }
+
+        for (ProfilerMetrics part : parts) {
+            snapshot.add(part);
+        }
+
+        return snapshot;
+    }
+
+    /**
+     * Returns the live metrics of an open connection.
+     * 
+     * @param connectionId
+     *            the server thread id of the connection
+     * @return the metrics, or null if no open connection with that id records metrics
+     */
+    public static ProfilerMetrics getConnectionMetrics(long connectionId) {
+        List<MetricsProfilerEventHandler> handlers = new ArrayList<MetricsProfilerEventHandler>();
+
+        synchronized (GROUPS) {
+            for (Group g : GROUPS.values()) {
+                handlers.addAll(g.liveHandlers);
+            }
+        }
+
+        // ids are read outside of the registry lock, getId() may have to go through a multi-host connection proxy
+        for (MetricsProfilerEventHandler handler : handlers) {
+            MySQLConnection conn = handler.connection == null ? null : handler.connection.get();
+            if (conn != null && conn.getId() == connectionId) {
+                return handler.metrics;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Forgets the metrics of all closed connections and of groups that no longer have open connections.
+     */
+    public static void resetRetiredMetrics() {
+        synchronized (GROUPS) {
+            for (Iterator<Group> it = GROUPS.values().iterator(); it.hasNext();) {
+                Group g = it.next();
+                if (g.liveHandlers.isEmpty()) {
+                    it.remove();
+                } else {
+                    g.retired = new ProfilerMetrics();
+                }
+            }
+        }
+    }
+
+    private static class Group {
+        final Set<MetricsProfilerEventHandler> liveHandlers = new HashSet<MetricsProfilerEventHandler>();
+
+        ProfilerMetrics retired = new ProfilerMetrics();
+
+        Group() {
+        }
+
+        void collect(List<ProfilerMetrics> parts) {
+            parts.add(this.retired);
+            for (MetricsProfilerEventHandler handler : this.liveHandlers) {
+                parts.add(handler.metrics);
+            }
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/*
+  Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+
+  The MySQL Connector/J is licensed under the terms of the GPLv2
+  <http://www.gnu.org/licenses/old-licenses/gpl-2.0.html>, like most MySQL Connectors.
+  There are special exceptions to the terms and conditions of the GPLv2 as it is applied to
+  this software, see the FOSS License Exception
+  <http://www.mysql.com/about/legal/licensing/foss-exception.html>.
+
+  This program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU General Public License as published by the Free Software Foundation; version 2
+  of the License.
+
+  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this
+  program; if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth
+  Floor, Boston, MA 02110-1301  USA
+
+ */
+
+package com.mysql.jdbc.profiler;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Latency histograms and counters for one connection, or the aggregate of several.
+ * 
+ * Statement executions are kept both as a whole and per {@link StatementType}; prepares, fetches and slow queries each get their own histogram. The
+ * per statement type histograms are only allocated once a statement of that type has been seen.
+ */
+public class ProfilerMetrics {
+    private static final StatementType[] STATEMENT_TYPES = StatementType.values();
+
+    private final LatencyHistogram prepare = new LatencyHistogram();
+
+    private final LatencyHistogram execute = new LatencyHistogram();
+
+    private final LatencyHistogram fetch = new LatencyHistogram();
+
+    private final LatencyHistogram slowQuery = new LatencyHistogram();
+
+    private final AtomicReferenceArray<LatencyHistogram> executeByStatementType = new AtomicReferenceArray<LatencyHistogram>(STATEMENT_TYPES.length);
+
+    private final AtomicLong warningCount = new AtomicLong();
+
+    public ProfilerMetrics() {
+    }
+
+    /**
+     * Records one profiler event.
+     * 
+     * @param eventType
+     *            one of the ProfilerEvent.TYPE_* constants
+     * @param statementType
+     *            the kind of statement the event belongs to
+     * @param durationNanos
+     *            the duration of the event in nanoseconds
+     */
+    public void record(byte eventType, StatementType statementType, long durationNanos) {
+        switch (eventType) {
+            case ProfilerEvent.TYPE_PREPARE:
+                this.prepare.record(durationNanos);
+                break;
+
+            case ProfilerEvent.TYPE_QUERY:
+            case ProfilerEvent.TYPE_EXECUTE:
+                this.execute.record(durationNanos);
+                getOrCreateExecuteLatency(statementType.ordinal()).record(durationNanos);
+                break;
+
+            case ProfilerEvent.TYPE_FETCH:
+                this.fetch.record(durationNanos);
+                break;
+
+            case ProfilerEvent.TYPE_SLOW_QUERY:
+                this.slowQuery.record(durationNanos);
+                break;
+
+            case ProfilerEvent.TYPE_WARN:
+                this.warningCount.incrementAndGet();
+                break;
+
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Adds all measurements of another instance to this one.
+     * 
+     * @param other
+     *            the metrics to merge in
+     */
+    public void add(ProfilerMetrics other) {
+        this.prepare.add(other.prepare);
+        this.execute.add(other.execute);
+        this.fetch.add(other.fetch);
+        this.slowQuery.add(other.slowQuery);
+
+        for (int i = 0; i < STATEMENT_TYPES.length; i++) {
+            LatencyHistogram histogram = other.executeByStatementType.get(i);
+            if (histogram != null) {
+                getOrCreateExecuteLatency(i).add(histogram);
+            }
+        }
+
+        this.warningCount.addAndGet(other.warningCount.get());
+    }
+
+    /**
+     * @return the time spent preparing server-side prepared statements
+     */
+    public LatencyHistogram getPrepareLatency() {
+        return this.prepare;
+    }
+
+    /**
+     * @return the time spent executing statements, of all types
+     */
+    public LatencyHistogram getExecuteLatency() {
+        return this.execute;
+    }
+
+    /**
+     * @return the time spent executing statements of the given type
+     */
+    public LatencyHistogram getExecuteLatency(StatementType statementType) {
+        return getOrCreateExecuteLatency(statementType.ordinal());
+    }
+
+    private LatencyHistogram getOrCreateExecuteLatency(int statementType) {
+        LatencyHistogram histogram = this.executeByStatementType.get(statementType);
+
+        if (histogram == null) {
+            this.executeByStatementType.compareAndSet(statementType, null, new LatencyHistogram());
+            histogram = this.executeByStatementType.get(statementType);
+        }
+
+        return histogram;
+    }
+
+    /**
+     * @return the time spent reading result sets
+     */
+    public LatencyHistogram getFetchLatency() {
+        return this.fetch;
+    }
+
+    /**
+     * @return the execution times of the queries that were reported as slow
+     */
+    public LatencyHistogram getSlowQueryLatency() {
+        return this.slowQuery;
+    }
+
+    public long getSlowQueryCount() {
+        return this.slowQuery.getCount();
+    }
+
+    public long getWarningCount() {
+        return this.warningCount.get();
+    }
+}
@@ -0,0 +1,153 @@
+/*
+  Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+
+  The MySQL Connector/J is licensed under the terms of the GPLv2
+  <http://www.gnu.org/licenses/old-licenses/gpl-2.0.html>, like most MySQL Connectors.
+  There are special exceptions to the terms and conditions of the GPLv2 as it is applied to
+  this software, see the FOSS License Exception
+  <http://www.mysql.com/about/legal/licensing/foss-exception.html>.
+
+  This program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU General Public License as published by the Free Software Foundation; version 2
+  of the License.
+
+  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this
+  program; if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth
+  Floor, Boston, MA 02110-1301  USA
+
+ */
+
+package com.mysql.jdbc.profiler;
+
+/**
+ * The kind of statement a profiler measurement belongs to, classified from the leading keyword of its SQL.
+ */
+public enum StatementType {
+    SELECT, INSERT, UPDATE, DELETE, REPLACE, CALL, OTHER;
+
+    private static final StatementType[] KEYWORD_TYPES = { SELECT, INSERT, UPDATE, DELETE, REPLACE, CALL };
+
+    private static final char[][] KEYWORDS = new char[KEYWORD_TYPES.length][];
+
+    static {
+        for (int i = 0; i < KEYWORD_TYPES.length; i++) {
+            KEYWORDS[i] = KEYWORD_TYPES[i].name().toCharArray();
+        }
+    }
+
+    /**
+     * Classifies the given SQL by its first keyword, skipping leading whitespace, comments and opening brackets.
+     * 
+     * @param sql
+     *            the statement text, may be null
+     * @return the statement type, never null
+     */
+    public static StatementType of(String sql) {
+        if (sql == null) {
+            return OTHER;
+        }
+
+        int length = sql.length();
+        int pos = 0;
+
+        while (pos < length) {
+            char c = sql.charAt(pos);
+
+            if (Character.isWhitespace(c) || c == '(' || c == '{') {
+                pos++;
+            } else if (c == '/' && pos + 1 < length && sql.charAt(pos + 1) == '*') {
+                int end = sql.indexOf("*/", pos + 2);
+                pos = end == -1 ? length : end + 2;
+            } else if (c == '#' || c == '-' && pos + 1 < length && sql.charAt(pos + 1) == '-') {
+                int end = sql.indexOf('\n', pos);
+                pos = end == -1 ? length : end + 1;
+            } else {
+                break;
+            }
+        }
+
+        for (int i = 0; i < KEYWORDS.length; i++) {
+            char[] keyword = KEYWORDS[i];
+
+            if (pos + keyword.length > length) {
+                continue;
+            }
+
+            int j = 0;
+
+            while (j < keyword.length && Character.toUpperCase(sql.charAt(pos + j)) == keyword[j]) {
+                j++;
+            }
+
+            if (j == keyword.length && (pos + j == length || !isIdentifierChar(sql.charAt(pos + j)))) {
+                return KEYWORD_TYPES[i];
+            }
+        }
+
+        return OTHER;
+    }
+
+    /**
+     * Classifies the SQL held in the given buffer without decoding it, looking at ASCII keyword bytes only.
+     * 
+     * @param buf
+     *            the buffer holding the statement text
+     * @param offset
+     *            the position of the first byte of the statement
+     * @param end
+     *            the position just past the last byte of the statement
+     * @return the statement type, never null
+     */
+    public static StatementType of(byte[] buf, int offset, int end) {
+        int pos = offset;
+
+        while (pos < end) {
+            byte b = buf[pos];
+
+            if (b == ' ' || b == '\t' || b == '\r' || b == '\n' || b == '(' || b == '{') {
+                pos++;
+            } else if (b == '/' && pos + 1 < end && buf[pos + 1] == '*') {
+                pos += 2;
+                while (pos + 1 < end && !(buf[pos] == '*' && buf[pos + 1] == '/')) {
+                    pos++;
+                }
+                pos += 2;
+            } else if (b == '#' || b == '-' && pos + 1 < end && buf[pos + 1] == '-') {
+                while (pos < end && buf[pos] != '\n') {
+                    pos++;
+                }
+                pos++;
+            } else {
+                break;
+            }
+        }
+
+        for (int i = 0; i < KEYWORDS.length; i++) {
+            char[] keyword = KEYWORDS[i];
+
+            if (pos + keyword.length > end) {
+                continue;
+            }
+
+            int j = 0;
+
+            while (j < keyword.length && (buf[pos + j] & 0xDF) == keyword[j]) {
+                j++;
+            }
+
+            if (j == keyword.length && (pos + j == end || !isIdentifierChar((char) buf[pos + j]))) {
+                return KEYWORD_TYPES[i];
+            }
+        }
+
+        return OTHER;
+    }
+
+    private static boolean isIdentifierChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+}
@@ -0,0 +1,338 @@
+/*
+  Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+
+  The MySQL Connector/J is licensed under the terms of the GPLv2
+  <http://www.gnu.org/licenses/old-licenses/gpl-2.0.html>, like most MySQL Connectors.
+  There are special exceptions to the terms and conditions of the GPLv2 as it is applied to
+  this software, see the FOSS License Exception
+  <http://www.mysql.com/about/legal/licensing/foss-exception.html>.
+
+  This program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU General Public License as published by the Free Software Foundation; version 2
+  of the License.
+
+  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this
+  program; if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth
+  Floor, Boston, MA 02110-1301  USA
+
+ */
+
+package com.mysql.jdbc.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A timer for large numbers of short-lived timeouts that are almost always cancelled before they expire, such as query timeouts.
+ * 
+ * Timeouts are kept in a circular array of buckets, each one covering one tick of time, in doubly-linked lists threaded through the {@link Timeout} objects
+ * themselves. Scheduling and cancelling lock a single bucket and link/unlink one element, so both are O(1) and don't allocate, and {@link Timeout} handles
+ * can be re-scheduled once they have been cancelled. Expiry is checked against the absolute deadline, so a timeout never fires early; it may fire up to one
+ * tick late.
+ * 
+ * A single daemon thread advances the wheel and runs {@link Timeout#expired()}, which must therefore return quickly. The thread is started on demand and
+ * waits without ticking while nothing is scheduled.
+ */
+public class HashedWheelTimer {
+    private static final int IDLE = 0;
+    private static final int SCHEDULED = 1;
+    private static final int EXPIRED = 2;
+
+    /**
+     * A handle for one pending timeout. Subclasses implement {@link #expired()}.
+     */
+    public static abstract class Timeout {
+        long deadline;
+        Timeout prev;
+        Timeout next;
+        volatile Bucket bucket;
+        volatile int state = IDLE;
+
+        /**
+         * Called from the timer thread when the timeout expires without having been cancelled.
+         */
+        protected abstract void expired();
+
+        /**
+         * Cancels this timeout if it is still pending. Once this returns the handle may be scheduled again, unless it had already expired.
+         * 
+         * @return true if the timeout was pending and won't fire now
+         */
+        public boolean cancel() {
+            Bucket b;
+
+            while ((b = this.bucket) != null) {
+                synchronized (b) {
+                    if (this.bucket == b) {
+                        b.unlink(this);
+                        this.state = IDLE;
+                        b.timer.pendingCount.decrementAndGet();
+                        return true;
+                    }
+                }
+            }
+
+            return false;
+        }
+
+        /**
+         * @return true if this handle is not scheduled and has not expired, i.e., it can be (re)scheduled
+         */
+        public boolean isReusable() {
+            return this.state == IDLE;
+        }
+
+        /**
+         * @return true if this timeout fired
+         */
+        public boolean isExpired() {
+            return this.state == EXPIRED;
+        }
+    }
+
+    static final class Bucket {
+        final HashedWheelTimer timer;
+        Timeout head;
+
+        Bucket(HashedWheelTimer timer) {
+            this.timer = timer;
+        }
+
+        void link(Timeout t) {
+            t.prev = null;
+            t.next = this.head;
+            if (this.head != null) {
+                this.head.prev = t;
+            }
+            this.head = t;
+            t.bucket = this;
+        }
+
+        void unlink(Timeout t) {
+            if (t.prev != null) {
+                t.prev.next = t.next;
+            } else {
+                this.head = t.next;
+            }
+            if (t.next != null) {
+                t.next.prev = t.prev;
+            }
+            t.prev = null;
+            t.next = null;
+            t.bucket = null;
+        }
+    }
+
+    private final String threadName;
+    private final long tickMillis;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final long startTime;
+
+    /** Last tick whose bucket the timer thread started processing, written under that bucket's lock. */
+    private volatile long processedTick = -1;
+
+    /** Number of scheduled timeouts. */
+    final AtomicInteger pendingCount = new AtomicInteger();
+
+    private final Object workerLock = new Object();
+    private Thread worker = null;
+
+    /**
+     * @param threadName
+     *            name for the timer thread
+     * @param tickMillis
+     *            the resolution of the timer
+     * @param ticksPerWheel
+     *            number of buckets, rounded up to a power of two; timeouts further away than one turn of the wheel are checked once per turn
+     */
+    public HashedWheelTimer(String threadName, long tickMillis, int ticksPerWheel) {
+        if (tickMillis <= 0 || ticksPerWheel <= 0) {
+            throw new IllegalArgumentException("tickMillis and ticksPerWheel must be positive");
+        }
+
+        int size = 1;
+        while (size < ticksPerWheel) {
+            size <<= 1;
+        }
+
+        this.threadName = threadName;
+        this.tickMillis = tickMillis;
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            this.wheel[i] = new Bucket(this);
+        }
+        this.mask = size - 1;
+        this.startTime = System.currentTimeMillis();
+    }
+
+    /**
+     * Schedules the given timeout to expire after delayMillis.
+     * 
+     * @param timeout
+     *            the handle, which must not be pending or expired
+     * @param delayMillis
+     *            delay before expiring
+     */
+    public void schedule(Timeout timeout, long delayMillis) {
+        if (timeout.state != IDLE) {
+            throw new IllegalStateException("Timeout is already scheduled or has expired");
+        }
+
+        long deadline = System.currentTimeMillis() + Math.max(delayMillis, 0);
+        long tick = (deadline - this.startTime) / this.tickMillis;
+
+        for (;;) {
+            long earliest = this.processedTick + 1;
+            if (tick < earliest) {
+                tick = earliest;
+            }
+
+            Bucket b = this.wheel[(int) (tick & this.mask)];
+
+            synchronized (b) {
+                // the timer thread publishes the tick it is about to process while holding that bucket's lock, so if it hasn't got to this one yet it will
+                // see the new timeout when it does
+                if (this.processedTick < tick) {
+                    timeout.deadline = deadline;
+                    timeout.state = SCHEDULED;
+                    b.link(timeout);
+                    this.pendingCount.incrementAndGet();
+                    break;
+                }
+            }
+        }
+
+        ensureWorker();
+    }
+
+    /**
+     * Stops the timer thread. Pending timeouts stay scheduled and a new thread is started by the next call to {@link #schedule(Timeout, long)}.
+     */
+    public void stop() {
+        Thread t;
+
+        synchronized (this.workerLock) {
+            t = this.worker;
+            this.worker = null;
+            this.workerLock.notifyAll();
+        }
+
+        if (t != null) {
+            t.interrupt();
+        }
+    }
+
+    /**
+     * @return the number of timeouts currently scheduled
+     */
+    public int getPendingCount() {
+        return this.pendingCount.get();
+    }
+
+    private void ensureWorker() {
+        synchronized (this.workerLock) {
+            if (this.worker == null) {
+                Thread t = new Thread(new Runnable() {
+                    public void run() {
+                        runWorker();
+                    }
+                }, this.threadName);
+                t.setDaemon(true);
+                // same reasoning as in AbandonedConnectionCleanupThread, don't pin the context ClassLoader of whoever scheduled first
+                t.setContextClassLoader(HashedWheelTimer.class.getClassLoader());
+                this.worker = t;
+                t.start();
+            } else {
+                this.workerLock.notifyAll();
+            }
+        }
+    }
+
+    void runWorker() {
+        Thread self = Thread.currentThread();
+
+        try {
+            for (;;) {
+                synchronized (this.workerLock) {
+                    if (this.worker != self) {
+                        return;
+                    }
+
+                    if (this.pendingCount.get() == 0) {
+                        // nothing to do, don't keep waking up for every tick
+                        this.workerLock.wait();
+                        continue;
+                    }
+                }
+
+                long now = System.currentTimeMillis();
+                long currentTick = (now - this.startTime) / this.tickMillis;
+
+                // ticks before currentTick are over and can be processed
+                long from = this.processedTick + 1;
+
+                if (from >= currentTick) {
+                    long sleep = this.startTime + (from + 1) * this.tickMillis - now;
+                    if (sleep > 0) {
+                        Thread.sleep(sleep);
+                    }
+                    continue;
+                }
+
+                if (currentTick - from > this.wheel.length) {
+                    // fell behind (or was idle) by more than a turn, one turn visits every bucket anyway
+                    from = currentTick - this.wheel.length;
+                }
+
+                for (long tick = from; tick < currentTick; tick++) {
+                    expireTimeouts(tick);
+                }
+            }
+        } catch (InterruptedException e) {
+            // stopped
+        }
+    }
+
+    private void expireTimeouts(long tick) {
+        Bucket b = this.wheel[(int) (tick & this.mask)];
+        Timeout expired = null;
+        long now = System.currentTimeMillis();
+
+        synchronized (b) {
+            this.processedTick = tick;
+
+            Timeout t = b.head;
+            while (t != null) {
+                Timeout next = t.next;
+
+                if (t.deadline <= now) {
+                    b.unlink(t);
+                    t.state = EXPIRED;
+                    this.pendingCount.decrementAndGet();
+
+                    // reuse the list pointers to collect the expired ones, the timeout is no longer in any bucket
+                    t.next = expired;
+                    expired = t;
+                }
+
+                t = next;
+            }
+        }
+
+        while (expired != null) {
+            Timeout t = expired;
+            expired = t.next;
+            t.next = null;
+
+            try {
+                t.expired();
+            } catch (Throwable th) {
+                // nothing sensible to do with it here, keep the timer alive for everybody else
+            }
+        }
+    }
+}
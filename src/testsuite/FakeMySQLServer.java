@@ -0,0 +1,960 @@
+/*
+  Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+
+  The MySQL Connector/J is licensed under the terms of the GPLv2
+  <http://www.gnu.org/licenses/old-licenses/gpl-2.0.html>, like most MySQL Connectors.
+  There are special exceptions to the terms and conditions of the GPLv2 as it is applied to
+  this software, see the FOSS License Exception
+  <http://www.mysql.com/about/legal/licensing/foss-exception.html>.
+
+  This program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU General Public License as published by the Free Software Foundation; version 2
+  of the License.
+
+  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this
+  program; if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth
+  Floor, Boston, MA 02110-1301  USA
+
+ */
+
+package testsuite;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * An in-process stub of a MySQL 5.7 server, good enough to connect the driver and replay canned responses so that the client side of the protocol can be
+ * benchmarked, and tested against hosts that are slow or go away, without a database.
+ * 
+ * The stub accepts any credentials with <code>mysql_native_password</code>, also on <code>COM_CHANGE_USER</code>, answers system variable queries
+ * (<code>SELECT @@...</code>) from a table of session values and returns the configured result set for any other <code>SELECT</code> or <code>SHOW</code>
+ * statement and an OK packet for everything else. <code>SET</code> statements update the session values, and report their changes in OK packets to the
+ * clients asking for <code>CLIENT_SESSION_TRACK</code> (autocommit stays on whatever they set); <code>COM_CHANGE_USER</code> and
+ * <code>COM_RESET_CONNECTION</code> restore the defaults. Server-side prepared statements return the configured result set in the binary protocol for
+ * <code>SELECT</code>s, through a cursor read with <code>COM_STMT_FETCH</code> when the execution asks for one, and an OK packet for anything else. SSL,
+ * compression and the X Protocol are not supported.
+ */
+public class FakeMySQLServer {
+    public static final String SERVER_VERSION = "5.7.20-fake";
+
+    /** Connection properties needed to talk to the stub, to be appended to the URL. */
+    public static final String DEFAULT_URL_PROPERTIES = "useSSL=false&characterEncoding=UTF-8";
+
+    // protocol constants
+    static final int CLIENT_LONG_PASSWORD = 0x00000001;
+    static final int CLIENT_FOUND_ROWS = 0x00000002;
+    static final int CLIENT_LONG_FLAG = 0x00000004;
+    static final int CLIENT_CONNECT_WITH_DB = 0x00000008;
+    static final int CLIENT_PROTOCOL_41 = 0x00000200;
+    static final int CLIENT_TRANSACTIONS = 0x00002000;
+    static final int CLIENT_SECURE_CONNECTION = 0x00008000;
+    static final int CLIENT_MULTI_STATEMENTS = 0x00010000;
+    static final int CLIENT_MULTI_RESULTS = 0x00020000;
+    static final int CLIENT_PS_MULTI_RESULTS = 0x00040000;
+    static final int CLIENT_PLUGIN_AUTH = 0x00080000;
+    static final int CLIENT_SESSION_TRACK = 0x00800000;
+
+    static final int SERVER_CAPABILITIES = CLIENT_LONG_PASSWORD | CLIENT_FOUND_ROWS | CLIENT_LONG_FLAG | CLIENT_CONNECT_WITH_DB | CLIENT_PROTOCOL_41
+            | CLIENT_TRANSACTIONS | CLIENT_SECURE_CONNECTION | CLIENT_MULTI_STATEMENTS | CLIENT_MULTI_RESULTS | CLIENT_PS_MULTI_RESULTS | CLIENT_PLUGIN_AUTH
+            | CLIENT_SESSION_TRACK;
+
+    static final int SERVER_STATUS_AUTOCOMMIT = 0x0002;
+    static final int SERVER_STATUS_CURSOR_EXISTS = 0x0040;
+    static final int SERVER_STATUS_LAST_ROW_SENT = 0x0080;
+    static final int SERVER_SESSION_STATE_CHANGED = 0x4000;
+
+    static final int SESSION_TRACK_SYSTEM_VARIABLES = 0;
+    static final int SESSION_TRACK_SCHEMA = 1;
+
+    static final int COM_QUIT = 0x01;
+    static final int COM_INIT_DB = 0x02;
+    static final int COM_QUERY = 0x03;
+    static final int COM_PING = 0x0e;
+    static final int COM_CHANGE_USER = 0x11;
+    static final int COM_STMT_PREPARE = 0x16;
+    static final int COM_STMT_EXECUTE = 0x17;
+    static final int COM_STMT_SEND_LONG_DATA = 0x18;
+    static final int COM_STMT_CLOSE = 0x19;
+    static final int COM_STMT_RESET = 0x1a;
+    static final int COM_STMT_FETCH = 0x1c;
+    static final int COM_RESET_CONNECTION = 0x1f;
+
+    public static final int MYSQL_TYPE_DECIMAL = 0;
+    public static final int MYSQL_TYPE_LONG = 3;
+    public static final int MYSQL_TYPE_DOUBLE = 5;
+    public static final int MYSQL_TYPE_LONGLONG = 8;
+    public static final int MYSQL_TYPE_DATE = 10;
+    public static final int MYSQL_TYPE_DATETIME = 12;
+    public static final int MYSQL_TYPE_NEWDECIMAL = 246;
+    public static final int MYSQL_TYPE_VAR_STRING = 253;
+
+    static final int CURSOR_TYPE_READ_ONLY = 0x01;
+
+    static final int COLLATION_UTF8 = 33;
+    static final int COLLATION_BINARY = 63;
+
+    private static final Pattern SYSTEM_VARIABLE = Pattern.compile("@@(?:session\\.|global\\.|local\\.)?(\\w+)(?:\\s+AS\\s+(\\w+))?",
+            Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern ISOLATION_LEVEL = Pattern.compile("SET\\s+SESSION\\s+TRANSACTION\\s+ISOLATION\\s+LEVEL\\s+(\\w+)(?:\\s+(\\w+))?",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern ACCESS_MODE = Pattern.compile("SET\\s+SESSION\\s+TRANSACTION\\s+READ\\s+(ONLY|WRITE)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern ASSIGNMENT = Pattern.compile("(?:SESSION\\s+)?(\\w+)\\s*=\\s*('[^']*'|@@session\\.\\w+|\\w+)", Pattern.CASE_INSENSITIVE);
+
+    private static final Map<String, String> SYSTEM_VARIABLES = new HashMap<String, String>();
+
+    static {
+        SYSTEM_VARIABLES.put("auto_increment_increment", "1");
+        SYSTEM_VARIABLES.put("autocommit", "1");
+        SYSTEM_VARIABLES.put("character_set_client", "utf8");
+        SYSTEM_VARIABLES.put("character_set_connection", "utf8");
+        SYSTEM_VARIABLES.put("character_set_results", "utf8");
+        SYSTEM_VARIABLES.put("character_set_server", "utf8");
+        SYSTEM_VARIABLES.put("collation_server", "utf8_general_ci");
+        SYSTEM_VARIABLES.put("init_connect", "");
+        SYSTEM_VARIABLES.put("interactive_timeout", "28800");
+        SYSTEM_VARIABLES.put("license", "GPL");
+        SYSTEM_VARIABLES.put("lower_case_table_names", "0");
+        SYSTEM_VARIABLES.put("max_allowed_packet", "67108864");
+        SYSTEM_VARIABLES.put("net_buffer_length", "16384");
+        SYSTEM_VARIABLES.put("net_write_timeout", "60");
+        SYSTEM_VARIABLES.put("query_cache_size", "0");
+        SYSTEM_VARIABLES.put("query_cache_type", "OFF");
+        SYSTEM_VARIABLES.put("session_track_system_variables", "time_zone,autocommit,character_set_client,character_set_results,character_set_connection");
+        SYSTEM_VARIABLES.put("sql_select_limit", "18446744073709551615");
+        SYSTEM_VARIABLES.put("sql_mode", "STRICT_TRANS_TABLES");
+        SYSTEM_VARIABLES.put("system_time_zone", "UTC");
+        SYSTEM_VARIABLES.put("time_zone", "SYSTEM");
+        SYSTEM_VARIABLES.put("tx_isolation", "REPEATABLE-READ");
+        SYSTEM_VARIABLES.put("transaction_isolation", "REPEATABLE-READ");
+        SYSTEM_VARIABLES.put("tx_read_only", "0");
+        SYSTEM_VARIABLES.put("transaction_read_only", "0");
+        SYSTEM_VARIABLES.put("wait_timeout", "28800");
+    }
+
+    /**
+     * The rows of a cursor opened by a prepared statement execution, and the position of the next one to fetch.
+     */
+    static class Cursor {
+        final Column[] columns;
+        final List<String[]> rows;
+        int position;
+
+        Cursor(Column[] columns, List<String[]> rows) {
+            this.columns = columns;
+            this.rows = rows;
+        }
+    }
+
+    /**
+     * Definition of a column of the canned result set.
+     */
+    public static class Column {
+        final String name;
+        final int type;
+        final int length;
+        final int decimals;
+
+        public Column(String name, int type, int length, int decimals) {
+            this.name = name;
+            this.type = type;
+            this.length = length;
+            this.decimals = decimals;
+        }
+
+        int getCollation() {
+            return this.type == MYSQL_TYPE_VAR_STRING ? COLLATION_UTF8 : COLLATION_BINARY;
+        }
+    }
+
+    private final AtomicInteger connectionIds = new AtomicInteger();
+    private final AtomicInteger statementIds = new AtomicInteger();
+
+    // CRC32 of the data received by the last LOAD DATA LOCAL INFILE statement
+    private volatile long localInfileChecksum;
+    private final List<Socket> clients = Collections.synchronizedList(new ArrayList<Socket>());
+
+    private ServerSocket serverSocket;
+    private Thread acceptThread;
+
+    // the canned text protocol result set, without the sequence numbers that depend on the command
+    private volatile List<byte[]> resultSetPackets = encodeResultSet(new Column[] { new Column("1", MYSQL_TYPE_LONGLONG, 1, 0) },
+            Collections.singletonList(new String[] { "1" }));
+
+    // the canned result set for prepared statements, encoded in the binary protocol as it is read
+    private volatile Column[] resultSetColumns = new Column[] { new Column("1", MYSQL_TYPE_LONGLONG, 1, 0) };
+    private volatile List<String[]> resultSetRows = Collections.singletonList(new String[] { "1" });
+
+    private volatile int fetchDelayMillis;
+    private volatile int roundTripDelayMillis;
+    private volatile int handshakeDelayMillis;
+
+    /**
+     * Sets the result set returned for every query that is not a system variable query.
+     * 
+     * @param columns
+     *            the column definitions
+     * @param rows
+     *            the rows, as the values sent in the text protocol, <code>null</code> elements being SQL NULLs
+     */
+    public void setResultSet(Column[] columns, List<String[]> rows) {
+        this.resultSetPackets = encodeResultSet(columns, rows);
+        this.resultSetColumns = columns;
+        this.resultSetRows = rows;
+    }
+
+    /**
+     * Sets how long the stub waits before answering a <code>COM_STMT_FETCH</code>, standing for the network round trip and the work of the server.
+     * 
+     * @param fetchDelayMillis
+     *            the delay in milliseconds
+     */
+    public void setFetchDelayMillis(int fetchDelayMillis) {
+        this.fetchDelayMillis = fetchDelayMillis;
+    }
+
+    /**
+     * Sets how long the stub waits before answering a command the client had to wait for the previous response to send, standing for the network round
+     * trip. Commands that were already received along with the previous one, pipelined by the client, are answered right away.
+     * 
+     * @param roundTripDelayMillis
+     *            the delay in milliseconds
+     */
+    public void setRoundTripDelayMillis(int roundTripDelayMillis) {
+        this.roundTripDelayMillis = roundTripDelayMillis;
+    }
+
+    /**
+     * Sets how long the stub waits before greeting a new client, standing for a slow or overloaded host.
+     * 
+     * @param handshakeDelayMillis
+     *            the delay in milliseconds
+     */
+    public void setHandshakeDelayMillis(int handshakeDelayMillis) {
+        this.handshakeDelayMillis = handshakeDelayMillis;
+    }
+
+    public synchronized void start() throws IOException {
+        if (this.serverSocket != null) {
+            return;
+        }
+        this.serverSocket = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+        this.acceptThread = new Thread(new Runnable() {
+            public void run() {
+                acceptConnections();
+            }
+        }, "FakeMySQLServer acceptor");
+        this.acceptThread.setDaemon(true);
+        this.acceptThread.start();
+    }
+
+    public synchronized void stop() throws IOException {
+        if (this.serverSocket == null) {
+            return;
+        }
+        this.serverSocket.close();
+        this.serverSocket = null;
+        disconnectClients();
+    }
+
+    /**
+     * Drops the client connections without telling them, the way a server restart or a network failure does, and keeps accepting new ones.
+     */
+    public void disconnectClients() {
+        synchronized (this.clients) {
+            for (Socket s : this.clients) {
+                try {
+                    s.close();
+                } catch (IOException e) {
+                    // ignore
+                }
+            }
+            this.clients.clear();
+        }
+    }
+
+    /**
+     * @return the CRC32 of the data sent by the client for the last "LOAD DATA LOCAL INFILE" statement, which is answered with one affected row per
+     *         new line in it
+     */
+    public long getLocalInfileChecksum() {
+        return this.localInfileChecksum;
+    }
+
+    /**
+     * @return the number of client connections currently open, including the ones waiting for the handshake
+     */
+    public int getClientCount() {
+        return this.clients.size();
+    }
+
+    public int getPort() {
+        return this.serverSocket.getLocalPort();
+    }
+
+    /**
+     * @param extraProperties
+     *            additional connection properties in URL syntax, e.g. <code>useServerPrepStmts=true&amp;cachePrepStmts=true</code>, or
+     *            <code>null</code>
+     * @return a JDBC URL connecting to this stub
+     */
+    public String getUrl(String extraProperties) {
+        return "jdbc:mysql://127.0.0.1:" + getPort() + "/test?" + DEFAULT_URL_PROPERTIES + (extraProperties == null ? "" : "&" + extraProperties);
+    }
+
+    void acceptConnections() {
+        ServerSocket ss = this.serverSocket;
+        while (ss != null && !ss.isClosed()) {
+            try {
+                final Socket s = ss.accept();
+                s.setTcpNoDelay(true);
+                this.clients.add(s);
+                Thread t = new Thread(new Runnable() {
+                    public void run() {
+                        try {
+                            new Session(s).run();
+                        } catch (IOException e) {
+                            // client went away
+                        } finally {
+                            FakeMySQLServer.this.clients.remove(s);
+                            try {
+                                s.close();
+                            } catch (IOException e) {
+                                // ignore
+                            }
+                        }
+                    }
+                }, "FakeMySQLServer session");
+                t.setDaemon(true);
+                t.start();
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * One client connection.
+     */
+    class Session {
+        private final InputStream in;
+        private final OutputStream out;
+        private final byte[] header = new byte[4];
+        private int sequence;
+
+        // ids of the prepared statements returning the canned result set
+        private final Set<Integer> selectStatementIds = new HashSet<Integer>();
+
+        // the open cursors, by statement id
+        private final Map<Integer, Cursor> cursors = new HashMap<Integer, Cursor>();
+
+        // the session values of the system variables, and the default schema
+        private final Map<String, String> variables = new HashMap<String, String>(SYSTEM_VARIABLES);
+        private String schema = "";
+
+        // the session state changes to report in the next OK packet, if the client asked for them with CLIENT_SESSION_TRACK
+        private boolean trackSessionState;
+        private final Buffer stateChanges = new Buffer();
+
+        Session(Socket s) throws IOException {
+            this.in = new BufferedInputStream(s.getInputStream(), 16384);
+            this.out = new BufferedOutputStream(s.getOutputStream(), 16384);
+        }
+
+        void run() throws IOException {
+            handshake();
+            for (;;) {
+                boolean newRoundTrip = this.in.available() == 0;
+                byte[] packet = readPacket();
+                int delay = FakeMySQLServer.this.roundTripDelayMillis;
+                if (newRoundTrip && delay > 0) {
+                    try {
+                        Thread.sleep(delay);
+                    } catch (InterruptedException e) {
+                        throw new InterruptedIOException();
+                    }
+                }
+                int command = packet[0] & 0xff;
+                switch (command) {
+                    case COM_QUIT:
+                        return;
+                    case COM_QUERY:
+                        query(new String(packet, 1, packet.length - 1, "UTF-8"));
+                        break;
+                    case COM_STMT_PREPARE:
+                        prepare(new String(packet, 1, packet.length - 1, "UTF-8"));
+                        break;
+                    case COM_STMT_EXECUTE:
+                        execute(packet);
+                        break;
+                    case COM_STMT_FETCH:
+                        fetch(packet);
+                        break;
+                    case COM_STMT_CLOSE:
+                        this.selectStatementIds.remove(readInt4(packet, 1));
+                        this.cursors.remove(readInt4(packet, 1));
+                        break;
+                    case COM_STMT_SEND_LONG_DATA:
+                        // no response
+                        break;
+                    case COM_STMT_RESET:
+                        this.cursors.remove(readInt4(packet, 1));
+                        writePacket(okPacket(0));
+                        break;
+                    case COM_INIT_DB:
+                        changeSchema(new String(packet, 1, packet.length - 1, "UTF-8"));
+                        writePacket(okPacket(0));
+                        break;
+                    case COM_PING:
+                        writePacket(okPacket(0));
+                        break;
+                    case COM_CHANGE_USER:
+                        // any credentials are accepted, the default schema follows the user name and the auth response
+                        int userEnd = 1;
+                        while (packet[userEnd] != 0) {
+                            userEnd++;
+                        }
+                        int schemaStart = userEnd + 2 + (packet[userEnd + 1] & 0xff);
+                        int schemaEnd = schemaStart;
+                        while (schemaEnd < packet.length && packet[schemaEnd] != 0) {
+                            schemaEnd++;
+                        }
+                        resetSession();
+                        this.schema = new String(packet, schemaStart, schemaEnd - schemaStart, "UTF-8");
+                        writePacket(okPacket(0));
+                        break;
+                    case COM_RESET_CONNECTION:
+                        resetSession();
+                        writePacket(okPacket(0));
+                        break;
+                    default:
+                        writePacket(errorPacket(1047, "08S01", "Unknown command"));
+                }
+                this.out.flush();
+            }
+        }
+
+        private void handshake() throws IOException {
+            int delay = FakeMySQLServer.this.handshakeDelayMillis;
+            if (delay > 0) {
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException e) {
+                    throw new InterruptedIOException();
+                }
+            }
+            Buffer b = new Buffer();
+            b.writeByte(10);
+            b.writeNullTerminated(SERVER_VERSION);
+            b.writeInt4(FakeMySQLServer.this.connectionIds.incrementAndGet());
+            b.writeByteArray("abcdefgh".getBytes("US-ASCII"));
+            b.writeByte(0);
+            b.writeInt2(SERVER_CAPABILITIES & 0xffff);
+            b.writeByte(COLLATION_UTF8);
+            b.writeInt2(SERVER_STATUS_AUTOCOMMIT);
+            b.writeInt2(SERVER_CAPABILITIES >>> 16);
+            b.writeByte(21);
+            b.writeByteArray(new byte[10]);
+            b.writeNullTerminated("ijklmnopqrst");
+            b.writeNullTerminated("mysql_native_password");
+            this.sequence = 0;
+            writePacket(b.toByteArray());
+            this.out.flush();
+
+            byte[] response = readPacket(); // handshake response, any credentials are accepted
+            this.trackSessionState = (readInt4(response, 0) & CLIENT_SESSION_TRACK) != 0;
+            writePacket(okPacket(0));
+            this.out.flush();
+        }
+
+        private void query(String sql) throws IOException {
+            String stmt = stripLeadingComments(sql);
+            String upper = stmt.length() > 8 ? stmt.substring(0, 8).toUpperCase() : stmt.toUpperCase();
+            if (upper.startsWith("SELECT") && stmt.indexOf("@@") != -1) {
+                systemVariables(stmt);
+            } else if (upper.startsWith("LOAD DAT")) {
+                localInfile(stmt);
+            } else if (upper.startsWith("SELECT") || upper.startsWith("SHOW")) {
+                for (byte[] p : FakeMySQLServer.this.resultSetPackets) {
+                    writePacket(p);
+                }
+            } else if (upper.startsWith("SET")) {
+                set(stmt);
+                writePacket(okPacket(0));
+            } else if (upper.startsWith("USE")) {
+                changeSchema(stmt.substring(3).trim().replace("`", ""));
+                writePacket(okPacket(0));
+            } else {
+                writePacket(okPacket(1));
+            }
+        }
+
+        private void set(String sql) {
+            Matcher m = ISOLATION_LEVEL.matcher(sql);
+            if (m.lookingAt()) {
+                String level = (m.group(2) == null ? m.group(1) : m.group(1) + "-" + m.group(2)).toUpperCase();
+                setVariable("tx_isolation", level);
+                setVariable("transaction_isolation", level);
+                return;
+            }
+            m = ACCESS_MODE.matcher(sql);
+            if (m.lookingAt()) {
+                setVariable("tx_read_only", "ONLY".equalsIgnoreCase(m.group(1)) ? "1" : "0");
+                setVariable("transaction_read_only", "ONLY".equalsIgnoreCase(m.group(1)) ? "1" : "0");
+                return;
+            }
+            m = ASSIGNMENT.matcher(sql.substring(3));
+            while (m.find()) {
+                String name = m.group(1).toLowerCase();
+                String value = m.group(2);
+                if (value.startsWith("'")) {
+                    value = value.substring(1, value.length() - 1);
+                } else if (value.startsWith("@@")) {
+                    value = this.variables.get(value.substring("@@session.".length()).toLowerCase());
+                } else if ("DEFAULT".equalsIgnoreCase(value)) {
+                    value = SYSTEM_VARIABLES.get(name);
+                }
+                setVariable(name, value);
+            }
+        }
+
+        private void setVariable(String name, String value) {
+            this.variables.put(name, value);
+            String tracked = "," + this.variables.get("session_track_system_variables") + ",";
+            if (this.trackSessionState && (tracked.equals(",*,") || tracked.indexOf("," + name + ",") != -1)) {
+                Buffer data = new Buffer();
+                data.writeLengthEncoded(name);
+                data.writeLengthEncoded(value == null ? "" : value);
+                this.stateChanges.writeByte(SESSION_TRACK_SYSTEM_VARIABLES);
+                this.stateChanges.writeLengthEncoded(data.size());
+                this.stateChanges.writeByteArray(data.toByteArray());
+            }
+        }
+
+        /**
+         * Starts the session over: server defaults for the system variables, no prepared statements.
+         */
+        private void resetSession() {
+            this.variables.clear();
+            this.variables.putAll(SYSTEM_VARIABLES);
+            this.selectStatementIds.clear();
+            this.cursors.clear();
+            this.stateChanges.reset();
+        }
+
+        private void changeSchema(String schema) {
+            this.schema = schema;
+            if (this.trackSessionState) {
+                Buffer data = new Buffer();
+                data.writeLengthEncoded(schema);
+                this.stateChanges.writeByte(SESSION_TRACK_SCHEMA);
+                this.stateChanges.writeLengthEncoded(data.size());
+                this.stateChanges.writeByteArray(data.toByteArray());
+            }
+        }
+
+        /**
+         * Builds an OK packet that reports the session state changes since the previous one.
+         */
+        private byte[] okPacket(long affectedRows) {
+            if (this.stateChanges.size() == 0) {
+                return FakeMySQLServer.okPacket(affectedRows);
+            }
+            Buffer b = new Buffer();
+            b.writeByte(0);
+            b.writeLengthEncoded(affectedRows);
+            b.writeLengthEncoded(0);
+            b.writeInt2(SERVER_STATUS_AUTOCOMMIT | SERVER_SESSION_STATE_CHANGED);
+            b.writeInt2(0);
+            b.writeLengthEncoded(""); // info
+            b.writeLengthEncoded(this.stateChanges.size());
+            b.writeByteArray(this.stateChanges.toByteArray());
+            this.stateChanges.reset();
+            return b.toByteArray();
+        }
+
+        private void localInfile(String sql) throws IOException {
+            int fileNameStart = sql.indexOf('\'') + 1;
+            byte[] fileName = sql.substring(fileNameStart, sql.indexOf('\'', fileNameStart)).getBytes("UTF-8");
+            byte[] request = new byte[fileName.length + 1];
+            request[0] = (byte) 0xfb;
+            System.arraycopy(fileName, 0, request, 1, fileName.length);
+            writePacket(request);
+            this.out.flush();
+
+            CRC32 checksum = new CRC32();
+            long rows = 0;
+            byte[] packet;
+            while ((packet = readPacket()).length > 0) {
+                checksum.update(packet);
+                for (byte b : packet) {
+                    if (b == '\n') {
+                        rows++;
+                    }
+                }
+            }
+            FakeMySQLServer.this.localInfileChecksum = checksum.getValue();
+            writePacket(okPacket(rows));
+        }
+
+        private void systemVariables(String sql) throws IOException {
+            List<Column> columns = new ArrayList<Column>();
+            List<String> values = new ArrayList<String>();
+            Matcher m = SYSTEM_VARIABLE.matcher(sql);
+            while (m.find()) {
+                columns.add(new Column(m.group(2) != null ? m.group(2) : m.group(0), MYSQL_TYPE_VAR_STRING, 255, 0));
+                values.add(this.variables.get(m.group(1).toLowerCase()));
+            }
+            for (byte[] p : encodeResultSet(columns.toArray(new Column[columns.size()]), Collections.singletonList(values.toArray(new String[0])))) {
+                writePacket(p);
+            }
+        }
+
+        private void prepare(String sql) throws IOException {
+            boolean select = stripLeadingComments(sql).toUpperCase().startsWith("SELECT");
+            Column[] columns = select ? FakeMySQLServer.this.resultSetColumns : new Column[0];
+            int statementId = FakeMySQLServer.this.statementIds.incrementAndGet();
+            int params = countParameters(sql);
+            Buffer b = new Buffer();
+            b.writeByte(0);
+            b.writeInt4(statementId);
+            b.writeInt2(columns.length);
+            b.writeInt2(params);
+            b.writeByte(0);
+            b.writeInt2(0); // warnings
+            writePacket(b.toByteArray());
+            if (params > 0) {
+                byte[] param = columnDefinition(new Column("?", MYSQL_TYPE_VAR_STRING, 0, 0));
+                for (int i = 0; i < params; i++) {
+                    writePacket(param);
+                }
+                writePacket(eofPacket());
+            }
+            if (select) {
+                for (Column c : columns) {
+                    writePacket(columnDefinition(c));
+                }
+                writePacket(eofPacket());
+                this.selectStatementIds.add(statementId);
+            }
+        }
+
+        private void execute(byte[] packet) throws IOException {
+            if (!this.selectStatementIds.contains(readInt4(packet, 1))) {
+                writePacket(okPacket(1));
+                return;
+            }
+            Column[] columns = FakeMySQLServer.this.resultSetColumns;
+            List<String[]> rows = FakeMySQLServer.this.resultSetRows;
+            Buffer b = new Buffer();
+            b.writeLengthEncoded(columns.length);
+            writePacket(b.toByteArray());
+            for (Column c : columns) {
+                writePacket(columnDefinition(c));
+            }
+            if ((packet[5] & CURSOR_TYPE_READ_ONLY) != 0) {
+                this.cursors.put(readInt4(packet, 1), new Cursor(columns, rows));
+                writePacket(eofPacket(SERVER_STATUS_AUTOCOMMIT | SERVER_STATUS_CURSOR_EXISTS));
+                return;
+            }
+            writePacket(eofPacket());
+            for (String[] row : rows) {
+                writePacket(encodeBinaryRow(columns, row));
+            }
+            writePacket(eofPacket());
+        }
+
+        private void fetch(byte[] packet) throws IOException {
+            Cursor cursor = this.cursors.get(readInt4(packet, 1));
+            if (cursor == null) {
+                writePacket(errorPacket(1421, "HY000", "The statement (" + readInt4(packet, 1) + ") has no open cursor."));
+                return;
+            }
+            int delay = FakeMySQLServer.this.fetchDelayMillis;
+            if (delay > 0) {
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException e) {
+                    throw new InterruptedIOException();
+                }
+            }
+            int end = Math.min(cursor.position + readInt4(packet, 5), cursor.rows.size());
+            for (; cursor.position < end; cursor.position++) {
+                writePacket(encodeBinaryRow(cursor.columns, cursor.rows.get(cursor.position)));
+            }
+            int status = SERVER_STATUS_AUTOCOMMIT | SERVER_STATUS_CURSOR_EXISTS;
+            if (cursor.position == cursor.rows.size()) {
+                status |= SERVER_STATUS_LAST_ROW_SENT;
+            }
+            writePacket(eofPacket(status));
+        }
+
+        byte[] readPacket() throws IOException {
+            readFully(this.header, 4);
+            int length = (this.header[0] & 0xff) | (this.header[1] & 0xff) << 8 | (this.header[2] & 0xff) << 16;
+            this.sequence = this.header[3] + 1;
+            byte[] payload = new byte[length];
+            readFully(payload, length);
+            return payload;
+        }
+
+        private void readFully(byte[] b, int length) throws IOException {
+            int n = 0;
+            while (n < length) {
+                int r = this.in.read(b, n, length - n);
+                if (r < 0) {
+                    throw new EOFException();
+                }
+                n += r;
+            }
+        }
+
+        void writePacket(byte[] payload) throws IOException {
+            this.out.write(payload.length & 0xff);
+            this.out.write(payload.length >>> 8 & 0xff);
+            this.out.write(payload.length >>> 16 & 0xff);
+            this.out.write(this.sequence++ & 0xff);
+            this.out.write(payload);
+        }
+    }
+
+    static String stripLeadingComments(String sql) {
+        String s = sql.trim();
+        while (s.startsWith("/*")) {
+            int end = s.indexOf("*/");
+            if (end == -1) {
+                break;
+            }
+            s = s.substring(end + 2).trim();
+        }
+        return s;
+    }
+
+    static int countParameters(String sql) {
+        int count = 0;
+        char quote = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (quote != 0) {
+                if (c == '\\') {
+                    i++;
+                } else if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '\'' || c == '"' || c == '`') {
+                quote = c;
+            } else if (c == '?') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    static byte[] okPacket(long affectedRows) {
+        Buffer b = new Buffer();
+        b.writeByte(0);
+        b.writeLengthEncoded(affectedRows);
+        b.writeLengthEncoded(0);
+        b.writeInt2(SERVER_STATUS_AUTOCOMMIT);
+        b.writeInt2(0);
+        return b.toByteArray();
+    }
+
+    static byte[] eofPacket() {
+        return eofPacket(SERVER_STATUS_AUTOCOMMIT);
+    }
+
+    static byte[] eofPacket(int serverStatus) {
+        Buffer b = new Buffer();
+        b.writeByte(0xfe);
+        b.writeInt2(0);
+        b.writeInt2(serverStatus);
+        return b.toByteArray();
+    }
+
+    static int readInt4(byte[] b, int offset) {
+        return (b[offset] & 0xff) | (b[offset + 1] & 0xff) << 8 | (b[offset + 2] & 0xff) << 16 | (b[offset + 3] & 0xff) << 24;
+    }
+
+    static byte[] errorPacket(int errorCode, String sqlState, String message) {
+        Buffer b = new Buffer();
+        b.writeByte(0xff);
+        b.writeInt2(errorCode);
+        b.writeByte('#');
+        b.writeByteArray(toUtf8(sqlState));
+        b.writeByteArray(toUtf8(message));
+        return b.toByteArray();
+    }
+
+    static byte[] columnDefinition(Column c) {
+        Buffer b = new Buffer();
+        b.writeLengthEncoded("def");
+        b.writeLengthEncoded("test");
+        b.writeLengthEncoded("t");
+        b.writeLengthEncoded("t");
+        b.writeLengthEncoded(c.name);
+        b.writeLengthEncoded(c.name);
+        b.writeByte(0x0c);
+        b.writeInt2(c.getCollation());
+        b.writeInt4(c.length);
+        b.writeByte(c.type);
+        b.writeInt2(0); // flags
+        b.writeByte(c.decimals);
+        b.writeInt2(0);
+        return b.toByteArray();
+    }
+
+    static List<byte[]> encodeResultSet(Column[] columns, List<String[]> rows) {
+        List<byte[]> packets = new ArrayList<byte[]>(columns.length + rows.size() + 3);
+        Buffer b = new Buffer();
+        b.writeLengthEncoded(columns.length);
+        packets.add(b.toByteArray());
+        for (Column c : columns) {
+            packets.add(columnDefinition(c));
+        }
+        packets.add(eofPacket());
+        for (String[] row : rows) {
+            b = new Buffer();
+            for (String value : row) {
+                if (value == null) {
+                    b.writeByte(0xfb);
+                } else {
+                    b.writeLengthEncoded(value);
+                }
+            }
+            packets.add(b.toByteArray());
+        }
+        packets.add(eofPacket());
+        return packets;
+    }
+
+    /**
+     * Encodes a row of text protocol values as a binary protocol row.
+     */
+    static byte[] encodeBinaryRow(Column[] columns, String[] row) {
+        byte[] nulls = new byte[(columns.length + 9) / 8];
+        Buffer b = new Buffer();
+        for (int i = 0; i < columns.length; i++) {
+            String value = row[i];
+            if (value == null) {
+                nulls[(i + 2) / 8] |= 1 << ((i + 2) % 8);
+                continue;
+            }
+            switch (columns[i].type) {
+                case MYSQL_TYPE_LONG:
+                    b.writeInt4(Integer.parseInt(value));
+                    break;
+                case MYSQL_TYPE_LONGLONG:
+                    long l = Long.parseLong(value);
+                    b.writeInt4((int) l);
+                    b.writeInt4((int) (l >>> 32));
+                    break;
+                case MYSQL_TYPE_DOUBLE:
+                    long bits = Double.doubleToLongBits(Double.parseDouble(value));
+                    b.writeInt4((int) bits);
+                    b.writeInt4((int) (bits >>> 32));
+                    break;
+                case MYSQL_TYPE_DATE:
+                case MYSQL_TYPE_DATETIME:
+                    // yyyy-mm-dd[ hh:mi:ss]
+                    b.writeByte(value.length() > 10 ? 7 : 4);
+                    b.writeInt2(Integer.parseInt(value.substring(0, 4)));
+                    for (int pos = 5; pos < value.length(); pos += 3) {
+                        b.writeByte(Integer.parseInt(value.substring(pos, pos + 2)));
+                    }
+                    break;
+                default:
+                    b.writeLengthEncoded(value);
+            }
+        }
+        byte[] values = b.toByteArray();
+        byte[] packet = new byte[1 + nulls.length + values.length];
+        System.arraycopy(nulls, 0, packet, 1, nulls.length);
+        System.arraycopy(values, 0, packet, 1 + nulls.length, values.length);
+        return packet;
+    }
+
+    static byte[] toUtf8(String s) {
+        try {
+            return s.getBytes("UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * Little-endian packet payload writer.
+     */
+    static class Buffer extends ByteArrayOutputStream {
+        void writeByte(int b) {
+            write(b);
+        }
+
+        void writeByteArray(byte[] b) {
+            write(b, 0, b.length);
+        }
+
+        void writeInt2(int i) {
+            write(i & 0xff);
+            write(i >>> 8 & 0xff);
+        }
+
+        void writeInt4(int i) {
+            writeInt2(i & 0xffff);
+            writeInt2(i >>> 16);
+        }
+
+        void writeNullTerminated(String s) {
+            writeByteArray(toUtf8(s));
+            write(0);
+        }
+
+        void writeLengthEncoded(long l) {
+            if (l < 251) {
+                write((int) l);
+            } else if (l < 65536) {
+                write(0xfc);
+                writeInt2((int) l);
+            } else if (l < 16777216) {
+                write(0xfd);
+                writeInt2((int) l & 0xffff);
+                write((int) (l >>> 16));
+            } else {
+                write(0xfe);
+                writeInt4((int) l);
+                writeInt4((int) (l >>> 32));
+            }
+        }
+
+        void writeLengthEncoded(String s) {
+            byte[] bytes = toUtf8(s);
+            writeLengthEncoded(bytes.length);
+            writeByteArray(bytes);
+        }
+    }
+}
@@ -0,0 +1,424 @@
+/*
+  Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+
+  The MySQL Connector/J is licensed under the terms of the GPLv2
+  <http://www.gnu.org/licenses/old-licenses/gpl-2.0.html>, like most MySQL Connectors.
+  There are special exceptions to the terms and conditions of the GPLv2 as it is applied to
+  this software, see the FOSS License Exception
+  <http://www.mysql.com/about/legal/licensing/foss-exception.html>.
+
+  This program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU General Public License as published by the Free Software Foundation; version 2
+  of the License.
+
+  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this
+  program; if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth
+  Floor, Boston, MA 02110-1301  USA
+
+ */
+
+package testsuite.fabric;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.mysql.fabric.FabricConnection;
+import com.mysql.fabric.ServerGroup;
+import com.mysql.fabric.ShardMapping;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for the background refresh of the Fabric state and the snapshots lookups are served from. A stub of a Fabric node answering the "dump" commands
+ * stands in for Fabric, so no Fabric setup is needed.
+ */
+public class TestFabricStateRefresh extends TestCase {
+    private FakeFabricNode node;
+
+    @Override
+    protected void setUp() throws Exception {
+        this.node = new FakeFabricNode();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        this.node.stop();
+    }
+
+    /**
+     * Test that the state is refreshed ahead of its expiration on a background thread, that lookups keep using the previous state without waiting while a
+     * refresh is slow or failing, and that closing the connection stops the refreshes.
+     */
+    public void testBackgroundRefresh() throws Exception {
+        this.node.ttl = 1;
+        FabricConnection fabricConn = new FabricConnection(this.node.getUrl(), null, null);
+
+        try {
+            assertEquals(1, fabricConn.getVersion());
+            assertEquals(1, fabricConn.getRefreshCount());
+            assertFalse(fabricConn.isBackgroundRefreshEnabled());
+            assertEquals(3306, fabricConn.getServerGroup("group1").getMaster().getPort());
+
+            fabricConn.startBackgroundRefresh();
+            assertTrue(fabricConn.isBackgroundRefreshEnabled());
+
+            // refreshed without any lookup
+            this.node.masterPort = 3307;
+            waitForVersion(fabricConn, 2, 5000);
+            assertEquals(3307, fabricConn.getServerGroup("group1").getMaster().getPort());
+            assertEquals(0, fabricConn.getRefreshFailureCount());
+
+            // lookups on an expired state don't wait for a slow refresh
+            this.node.responseDelayMillis = 3000;
+            this.node.masterPort = 3308;
+            long deadline = System.currentTimeMillis() + 5000;
+            while (!fabricConn.isStateExpired()) {
+                assertTrue("The state didn't expire", System.currentTimeMillis() < deadline);
+                Thread.sleep(10);
+            }
+            int version = fabricConn.getVersion();
+            long start = System.currentTimeMillis();
+            assertEquals(3307, fabricConn.getServerGroup("group1").getMaster().getPort());
+            assertNotNull(fabricConn.getShardMapping("db1", "t1"));
+            assertTrue(System.currentTimeMillis() - start < 1000);
+            assertEquals(version, fabricConn.getVersion());
+            assertTrue(fabricConn.getStateStalenessMillis() >= 1000);
+
+            this.node.responseDelayMillis = 0;
+            waitForVersion(fabricConn, version + 1, 10000);
+            assertEquals(3308, fabricConn.getServerGroup("group1").getMaster().getPort());
+            assertTrue(fabricConn.getMaxRefreshLatencyMillis() >= 3000);
+
+            // failed refreshes keep the previous state
+            this.node.failing = true;
+            this.node.masterPort = 3309;
+            version = fabricConn.getVersion();
+            deadline = System.currentTimeMillis() + 5000;
+            while (fabricConn.getRefreshFailureCount() == 0) {
+                assertTrue("The refresh didn't fail", System.currentTimeMillis() < deadline);
+                Thread.sleep(10);
+            }
+            assertEquals(version, fabricConn.getVersion());
+            assertEquals(3308, fabricConn.getServerGroup("group1").getMaster().getPort());
+
+            this.node.failing = false;
+            waitForVersion(fabricConn, version + 1, 5000);
+            assertEquals(3309, fabricConn.getServerGroup("group1").getMaster().getPort());
+        } finally {
+            fabricConn.close();
+        }
+
+        assertFalse(fabricConn.isBackgroundRefreshEnabled());
+        long refreshCount = fabricConn.getRefreshCount();
+        Thread.sleep(2500);
+        assertEquals(refreshCount, fabricConn.getRefreshCount());
+    }
+
+    /**
+     * Test that lookups running concurrently with refreshes always find complete data, and that server groups and shard mappings missing from a refresh are
+     * kept from the previous state.
+     */
+    public void testStateSnapshots() throws Exception {
+        final FabricConnection fabricConn = new FabricConnection(this.node.getUrl(), null, null);
+        final AtomicReference<Throwable> readerFailure = new AtomicReference<Throwable>();
+        final long readersDeadline = System.currentTimeMillis() + 60000;
+        final int[] versionsSeen = new int[1];
+
+        Thread[] readers = new Thread[4];
+        for (int i = 0; i < readers.length; i++) {
+            readers[i] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        int lastVersion = 0;
+                        while (lastVersion < 50 && System.currentTimeMillis() < readersDeadline) {
+                            int version = fabricConn.getVersion();
+                            assertTrue(version >= lastVersion);
+                            lastVersion = version;
+
+                            ServerGroup group = fabricConn.getServerGroup("group1");
+                            assertNotNull(group);
+                            assertNotNull(group.getMaster());
+                            assertNotNull(fabricConn.getServerGroup("global"));
+                            ShardMapping mapping = fabricConn.getShardMapping("db1", "t1");
+                            assertNotNull(mapping);
+                            assertEquals("group1", mapping.getGroupNameForKey("10"));
+                        }
+                        synchronized (versionsSeen) {
+                            versionsSeen[0] = Math.max(versionsSeen[0], lastVersion);
+                        }
+                    } catch (Throwable t) {
+                        readerFailure.compareAndSet(null, t);
+                    }
+                }
+            };
+            readers[i].start();
+        }
+
+        for (int i = 0; i < 49; i++) {
+            this.node.masterPort = 3306 + i % 2;
+            fabricConn.refreshState();
+        }
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        if (readerFailure.get() != null) {
+            throw new Exception("Lookup failed while refreshing", readerFailure.get());
+        }
+        assertEquals(50, fabricConn.getVersion());
+        assertEquals(50, versionsSeen[0]);
+        assertEquals(50, fabricConn.getRefreshCount());
+
+        // data missing from a refresh is kept
+        this.node.dropGroup2 = true;
+        assertEquals(51, fabricConn.refreshState());
+        assertNotNull(fabricConn.getServerGroup("group2"));
+        assertNotNull(fabricConn.getShardMapping("db1", "t1"));
+    }
+
+    /**
+     * Test that the users of the same Fabric node share one connection, so that the state is fetched and refreshed once for all of them, and that the
+     * background refresh stops once the last of them released it.
+     */
+    public void testSharedConnection() throws Exception {
+        this.node.ttl = 1;
+        FakeFabricNode otherNode = new FakeFabricNode();
+
+        try {
+            FabricConnection[] fabricConns = new FabricConnection[3];
+            for (int i = 0; i < fabricConns.length; i++) {
+                fabricConns[i] = FabricConnection.acquire(this.node.getUrl(), null, null);
+                fabricConns[i].startBackgroundRefresh();
+            }
+            FabricConnection otherConn = FabricConnection.acquire(otherNode.getUrl(), null, null);
+
+            assertSame(fabricConns[0], fabricConns[1]);
+            assertSame(fabricConns[0], fabricConns[2]);
+            assertNotSame(fabricConns[0], otherConn);
+            assertEquals(1, fabricConns[0].getRefreshCount());
+            assertEquals(1, this.node.serversDumpCount.get());
+            otherConn.release();
+
+            // one refresh per TTL for all the users
+            waitForVersion(fabricConns[0], 4, 5000);
+            assertEquals(fabricConns[0].getRefreshCount(), this.node.serversDumpCount.get());
+
+            fabricConns[0].release();
+            fabricConns[1].release();
+            assertTrue(fabricConns[2].isBackgroundRefreshEnabled());
+            waitForVersion(fabricConns[2], fabricConns[2].getVersion() + 1, 5000);
+
+            fabricConns[2].release();
+            assertFalse(fabricConns[2].isBackgroundRefreshEnabled());
+            int serversDumpCount = this.node.serversDumpCount.get();
+            Thread.sleep(2500);
+            assertEquals(serversDumpCount, this.node.serversDumpCount.get());
+
+            // the next user starts over
+            FabricConnection fabricConn = FabricConnection.acquire(this.node.getUrl(), null, null);
+            try {
+                assertNotSame(fabricConns[0], fabricConn);
+                assertEquals(1, fabricConn.getRefreshCount());
+            } finally {
+                fabricConn.release();
+            }
+        } finally {
+            otherNode.stop();
+        }
+    }
+
+    private static void waitForVersion(FabricConnection fabricConn, int version, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (fabricConn.getVersion() < version) {
+            assertTrue("The state wasn't refreshed in the background", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * A stub of a Fabric node answering the XML-RPC "dump" commands the driver refreshes its state with: the servers of three groups, "global", "group1" and
+     * "group2", and one RANGE shard mapping of db1.t1 over group1 and group2.
+     */
+    private static class FakeFabricNode implements Runnable {
+        private static final Pattern METHOD_NAME = Pattern.compile("<methodName>(.*)</methodName>");
+
+        private final ServerSocket serverSocket;
+
+        volatile int ttl = 300;
+        volatile int masterPort = 3306;
+        volatile long responseDelayMillis = 0;
+        volatile boolean failing = false;
+        volatile boolean dropGroup2 = false;
+        final AtomicInteger serversDumpCount = new AtomicInteger();
+
+        FakeFabricNode() throws IOException {
+            this.serverSocket = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+            Thread t = new Thread(this, "Fake Fabric Node");
+            t.setDaemon(true);
+            t.start();
+        }
+
+        String getUrl() {
+            return "http://127.0.0.1:" + this.serverSocket.getLocalPort();
+        }
+
+        void stop() throws IOException {
+            this.serverSocket.close();
+        }
+
+        public void run() {
+            while (!this.serverSocket.isClosed()) {
+                try {
+                    final Socket socket = this.serverSocket.accept();
+                    Thread t = new Thread("Fake Fabric Node Request") {
+                        @Override
+                        public void run() {
+                            try {
+                                handle(socket);
+                            } catch (Exception e) {
+                                // the client is gone
+                            } finally {
+                                try {
+                                    socket.close();
+                                } catch (IOException e) {
+                                }
+                            }
+                        }
+                    };
+                    t.setDaemon(true);
+                    t.start();
+                } catch (IOException e) {
+                    // stopped
+                }
+            }
+        }
+
+        void handle(Socket socket) throws Exception {
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), "UTF-8"));
+            int contentLength = 0;
+            String line;
+            while ((line = in.readLine()) != null && line.length() > 0) {
+                if (line.toLowerCase().startsWith("content-length:")) {
+                    contentLength = Integer.parseInt(line.substring("content-length:".length()).trim());
+                }
+            }
+            char[] request = new char[contentLength];
+            for (int read = 0; read < contentLength;) {
+                read += in.read(request, read, contentLength - read);
+            }
+            Matcher m = METHOD_NAME.matcher(new String(request));
+            String methodName = m.find() ? m.group(1) : "";
+
+            if (this.responseDelayMillis > 0) {
+                Thread.sleep(this.responseDelayMillis);
+            }
+
+            byte[] body = methodResponse(methodName).getBytes("UTF-8");
+            OutputStream out = socket.getOutputStream();
+            out.write(("HTTP/1.1 200 OK\r\nContent-Type: text/xml\r\nContent-Length: " + body.length + "\r\nConnection: close\r\n\r\n").getBytes("UTF-8"));
+            out.write(body);
+            out.flush();
+        }
+
+        private String methodResponse(String methodName) {
+            List<String> names;
+            List<List<Object>> rows = new ArrayList<List<Object>>();
+
+            if ("dump.servers".equals(methodName)) {
+                this.serversDumpCount.incrementAndGet();
+                names = Arrays.asList("server_uuid", "group_id", "host", "port", "mode", "status", "weight");
+                // mode READ_WRITE and status PRIMARY for masters, mode READ_ONLY and status SECONDARY for slaves
+                rows.add(Arrays.<Object> asList("uuid-global", "global", "127.0.0.1", 3300, 3, 3, 1.0));
+                rows.add(Arrays.<Object> asList("uuid-1-" + this.masterPort, "group1", "127.0.0.1", this.masterPort, 3, 3, 1.0));
+                rows.add(Arrays.<Object> asList("uuid-1-slave", "group1", "127.0.0.1", 3400, 1, 2, 1.0));
+                if (!this.dropGroup2) {
+                    rows.add(Arrays.<Object> asList("uuid-2", "group2", "127.0.0.1", 3500, 3, 3, 1.0));
+                }
+            } else if ("dump.shard_maps".equals(methodName)) {
+                names = Arrays.asList("mapping_id", "type_name", "global_group_id");
+                if (!this.dropGroup2) {
+                    rows.add(Arrays.<Object> asList(1, "RANGE", "global"));
+                }
+            } else if ("dump.shard_tables".equals(methodName)) {
+                names = Arrays.asList("schema_name", "table_name", "column_name", "mapping_id");
+                rows.add(Arrays.<Object> asList("db1", "t1", "id", 1));
+            } else if ("dump.shard_index".equals(methodName)) {
+                names = Arrays.asList("lower_bound", "mapping_id", "shard_id", "group_id");
+                rows.add(Arrays.<Object> asList("1", 1, 1, "group1"));
+                rows.add(Arrays.<Object> asList("1000", 1, 2, "group2"));
+            } else {
+                return fabricResponse("Unknown method " + methodName, null, null);
+            }
+
+            if (this.failing) {
+                return fabricResponse("Fabric is failing", null, null);
+            }
+            return fabricResponse("", names, rows);
+        }
+
+        /**
+         * A response of the Fabric protocol version 1: protocol version, Fabric UUID, TTL, error message and result sets, as an XML-RPC array.
+         */
+        private String fabricResponse(String errorMessage, List<String> names, List<List<Object>> rows) {
+            List<Object> resultSets = new ArrayList<Object>();
+            if (names != null) {
+                Map<String, Object> info = new TreeMap<String, Object>();
+                info.put("names", names);
+                Map<String, Object> resultSet = new TreeMap<String, Object>();
+                resultSet.put("info", info);
+                resultSet.put("rows", rows);
+                resultSets.add(resultSet);
+            }
+
+            StringBuilder xml = new StringBuilder("<?xml version=\"1.0\"?><methodResponse><params><param>");
+            appendValue(xml, Arrays.<Object> asList(1, "5ca1ab1e-a007-feed-f00d-cab3fe13249e", this.ttl, errorMessage, resultSets));
+            xml.append("</param></params></methodResponse>");
+            return xml.toString();
+        }
+
+        private static void appendValue(StringBuilder xml, Object value) {
+            xml.append("<value>");
+            if (value instanceof Integer) {
+                xml.append("<i4>").append(value).append("</i4>");
+            } else if (value instanceof Double) {
+                xml.append("<double>").append(value).append("</double>");
+            } else if (value instanceof List) {
+                xml.append("<array><data>");
+                for (Object v : (List<?>) value) {
+                    appendValue(xml, v);
+                }
+                xml.append("</data></array>");
+            } else if (value instanceof Map) {
+                xml.append("<struct>");
+                for (Map.Entry<?, ?> e : ((Map<?, ?>) value).entrySet()) {
+                    xml.append("<member><name>").append(e.getKey()).append("</name>");
+                    appendValue(xml, e.getValue());
+                    xml.append("</member>");
+                }
+                xml.append("</struct>");
+            } else {
+                xml.append("<string>").append(value).append("</string>");
+            }
+            xml.append("</value>");
+        }
+    }
+}
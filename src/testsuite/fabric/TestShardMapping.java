@@ -89,6 +89,91 @@ public class TestShardMapping extends TestCase {
         }
     }
 
+    /**
+     * Test range lookups on keys that don't fit in an int, and between bounds.
+     */
+    public void testRangeShardMappingLongKeyLookup() throws Exception {
+        final long lowerBounds[] = new long[] { Long.MIN_VALUE, -5000000000L, 0, 3000000000L, 9000000000000L };
+
+        Set<ShardIndex> shardIndices = new HashSet<ShardIndex>();
+        for (int shardId = 0; shardId < lowerBounds.length; shardId++) {
+            shardIndices.add(new ShardIndex(String.valueOf(lowerBounds[shardId]), shardId, "shard_group_" + shardId));
+        }
+        ShardMapping mapping = new RangeShardMapping(5000, ShardingType.RANGE, "My global group", null, shardIndices);
+
+        assertEquals("shard_group_0", mapping.getGroupNameForKey("-5000000001"));
+        assertEquals("shard_group_1", mapping.getGroupNameForKey("-5000000000"));
+        assertEquals("shard_group_1", mapping.getGroupNameForKey("-1"));
+        assertEquals("shard_group_2", mapping.getGroupNameForKey("0"));
+        assertEquals("shard_group_2", mapping.getGroupNameForKey("2999999999"));
+        assertEquals("shard_group_3", mapping.getGroupNameForKey("3000000000"));
+        assertEquals("shard_group_4", mapping.getGroupNameForKey(String.valueOf(Long.MAX_VALUE)));
+
+        // shard indices are still returned from highest to lowest bound
+        int expectedShardId = lowerBounds.length - 1;
+        for (ShardIndex i : mapping.getShardIndices()) {
+            assertEquals(Integer.valueOf(expectedShardId--), i.getShardId());
+        }
+    }
+
+    /**
+     * Test lookups on a RANGE_DATETIME mapping, with dates and date/times.
+     */
+    public void testRangeDateTimeShardMappingKeyLookup() throws Exception {
+        final String lowerBounds[] = new String[] { "2016-01-01", "1999-12-31 23:59:59", "2016-06-30 12:00:00", "2016-06-30 12:00:00.5" };
+
+        Set<ShardIndex> shardIndices = new HashSet<ShardIndex>();
+        for (int shardId = 0; shardId < lowerBounds.length; shardId++) {
+            shardIndices.add(new ShardIndex(lowerBounds[shardId], shardId, "shard_group_" + shardId));
+        }
+        ShardMapping mapping = new RangeShardMapping(5000, ShardingType.RANGE_DATETIME, "My global group", null, shardIndices);
+
+        String testPairs[][] = new String[][] { new String[] { "1999-12-31 23:59:59", "shard_group_1" },
+                new String[] { "2015-12-31 23:59:59.999999", "shard_group_1" }, new String[] { "2016-01-01", "shard_group_0" },
+                new String[] { "2016-01-01 00:00:00", "shard_group_0" }, new String[] { "2016-06-30 12:00:00.499999", "shard_group_2" },
+                new String[] { "2016-06-30T12:00:00.5", "shard_group_3" }, new String[] { "2016-06-30 12:00:00.500000", "shard_group_3" },
+                new String[] { "9999-12-31 23:59:59", "shard_group_3" } };
+
+        for (String[] testPair : testPairs) {
+            assertEquals(testPair[0], testPair[1], mapping.getGroupNameForKey(testPair[0]));
+        }
+
+        try {
+            mapping.getGroupNameForKey("1999-12-31");
+            fail("Looking up a key with a value below the lowest bound is invalid");
+        } catch (Exception ex) {
+        }
+
+        for (String invalid : new String[] { "2016-13-01", "2016-01-01 24:00:00", "2016/01/01", "2016-01-01 00:00", "20160101", "2016-01-01 00:00:00." }) {
+            try {
+                mapping.getGroupNameForKey(invalid);
+                fail("'" + invalid + "' is not a valid DATETIME key");
+            } catch (IllegalArgumentException ex) {
+            }
+        }
+    }
+
+    /**
+     * Test lookups on a RANGE_STRING mapping.
+     */
+    public void testRangeStringShardMappingKeyLookup() throws Exception {
+        final String lowerBounds[] = new String[] { "a", "N", "", "g" };
+
+        Set<ShardIndex> shardIndices = new HashSet<ShardIndex>();
+        for (int shardId = 0; shardId < lowerBounds.length; shardId++) {
+            shardIndices.add(new ShardIndex(lowerBounds[shardId], shardId, "shard_group_" + shardId));
+        }
+        ShardMapping mapping = new RangeShardMapping(5000, ShardingType.RANGE_STRING, "My global group", null, shardIndices);
+
+        String testPairs[][] = new String[][] { new String[] { "", "shard_group_2" }, new String[] { "MySQL", "shard_group_2" },
+                new String[] { "N", "shard_group_1" }, new String[] { "Zebra", "shard_group_1" }, new String[] { "a", "shard_group_0" },
+                new String[] { "fabric", "shard_group_0" }, new String[] { "g", "shard_group_3" }, new String[] { "zzz", "shard_group_3" } };
+
+        for (String[] testPair : testPairs) {
+            assertEquals(testPair[0], testPair[1], mapping.getGroupNameForKey(testPair[0]));
+        }
+    }
+
     public void testHashShardMappingKeyLookup() throws Exception {
         final String globalGroupName = "My global group";
 
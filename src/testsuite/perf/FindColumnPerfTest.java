@@ -0,0 +1,173 @@
+/*
+  Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+
+  The MySQL Connector/J is licensed under the terms of the GPLv2
+  <http://www.gnu.org/licenses/old-licenses/gpl-2.0.html>, like most MySQL Connectors.
+  There are special exceptions to the terms and conditions of the GPLv2 as it is applied to
+  this software, see the FOSS License Exception
+  <http://www.mysql.com/about/legal/licensing/foss-exception.html>.
+
+  This program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU General Public License as published by the Free Software Foundation; version 2
+  of the License.
+
+  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this
+  program; if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth
+  Floor, Boston, MA 02110-1301  USA
+
+ */
+
+package testsuite.perf;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.util.Map;
+import java.util.TreeMap;
+
+import testsuite.BaseTestCase;
+
+/**
+ * Measures name-based column access on wide result sets, comparing ResultSet.findColumn() against the case-insensitive TreeMap lookups it used to do.
+ */
+public class FindColumnPerfTest extends BaseTestCase {
+    private static final int NUM_COLUMNS = 150;
+
+    private static final int NUM_QUERIES = 200;
+
+    private static final int NUM_PASSES_PER_QUERY = 50;
+
+    /**
+     * Constructor for FindColumnPerfTest.
+     * 
+     * @param name
+     *            name of the test to run
+     */
+    public FindColumnPerfTest(String name) {
+        super(name);
+    }
+
+    /**
+     * Runs all tests.
+     * 
+     * @param args
+     *            ignored
+     */
+    public static void main(String[] args) {
+        new FindColumnPerfTest("testFindColumnWideResultSet").run();
+    }
+
+    /**
+     * @see junit.framework.TestCase#setUp()
+     */
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+
+        StringBuilder columns = new StringBuilder("(");
+        StringBuilder values = new StringBuilder("(");
+        for (int i = 0; i < NUM_COLUMNS; i++) {
+            if (i > 0) {
+                columns.append(", ");
+                values.append(", ");
+            }
+            columns.append("someRatherLongColumnName_").append(i).append(" INT");
+            values.append(i);
+        }
+        columns.append(")");
+        values.append(")");
+
+        createTable("findColumnPerfTest", columns.toString());
+        this.stmt.executeUpdate("INSERT INTO findColumnPerfTest VALUES " + values.toString());
+    }
+
+    /**
+     * Reads every column of a wide row by label, in mixed case as ORM code tends to, and reports lookups/second for findColumn(), with and without cached
+     * result set metadata, and for the old TreeMap based lookup.
+     * 
+     * @throws Exception
+     *             if an error occurs
+     */
+    public void testFindColumnWideResultSet() throws Exception {
+        String[] labels = new String[NUM_COLUMNS];
+        for (int i = 0; i < NUM_COLUMNS; i++) {
+            labels[i] = (i % 2 == 0 ? "SOMERATHERLONGCOLUMNNAME_" : "someRatherLongColumnName_") + i;
+        }
+
+        double plainRate = measureFindColumn(this.conn, labels);
+
+        Connection cachingConn = getConnectionWithProps("cacheResultSetMetadata=true");
+        double cachedRate;
+        try {
+            cachedRate = measureFindColumn(cachingConn, labels);
+        } finally {
+            cachingConn.close();
+        }
+
+        double treeMapRate = measureTreeMap(labels);
+
+        System.out.println("\nfindColumn() on " + NUM_COLUMNS + " columns\n");
+        System.out.println("findColumn() lookups/second: " + plainRate);
+        System.out.println("findColumn() with cached metadata, lookups/second: " + cachedRate);
+        System.out.println("Legacy TreeMap lookups/second: " + treeMapRate);
+    }
+
+    private double measureFindColumn(Connection c, String[] labels) throws Exception {
+        long lookups = 0;
+        long elapsed = 0;
+
+        for (int q = 0; q < NUM_QUERIES; q++) {
+            ResultSet wideRs = c.createStatement().executeQuery("SELECT * FROM findColumnPerfTest");
+            assertTrue(wideRs.next());
+
+            long begin = System.nanoTime();
+            int sum = 0;
+            for (int pass = 0; pass < NUM_PASSES_PER_QUERY; pass++) {
+                for (int i = 0; i < labels.length; i++) {
+                    sum += wideRs.findColumn(labels[i]);
+                }
+            }
+            elapsed += System.nanoTime() - begin;
+            lookups += NUM_PASSES_PER_QUERY * labels.length;
+
+            assertTrue(sum > 0);
+            wideRs.close();
+        }
+
+        return lookups / (elapsed / 1000000000.0);
+    }
+
+    private double measureTreeMap(String[] labels) throws Exception {
+        this.rs = this.stmt.executeQuery("SELECT * FROM findColumnPerfTest");
+        ResultSetMetaData rsmd = this.rs.getMetaData();
+
+        long lookups = 0;
+        long elapsed = 0;
+
+        for (int q = 0; q < NUM_QUERIES; q++) {
+            long begin = System.nanoTime();
+
+            Map<String, Integer> index = new TreeMap<String, Integer>(String.CASE_INSENSITIVE_ORDER);
+            for (int i = NUM_COLUMNS - 1; i >= 0; i--) {
+                index.put(rsmd.getColumnLabel(i + 1), Integer.valueOf(i));
+            }
+
+            int sum = 0;
+            for (int pass = 0; pass < NUM_PASSES_PER_QUERY; pass++) {
+                for (int i = 0; i < labels.length; i++) {
+                    sum += index.get(labels[i]).intValue() + 1;
+                }
+            }
+            elapsed += System.nanoTime() - begin;
+            lookups += NUM_PASSES_PER_QUERY * labels.length;
+
+            assertTrue(sum > 0);
+        }
+
+        return lookups / (elapsed / 1000000000.0);
+    }
+}
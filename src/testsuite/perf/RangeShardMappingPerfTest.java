@@ -0,0 +1,140 @@
+/*
+  Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+
+  The MySQL Connector/J is licensed under the terms of the GPLv2
+  <http://www.gnu.org/licenses/old-licenses/gpl-2.0.html>, like most MySQL Connectors.
+  There are special exceptions to the terms and conditions of the GPLv2 as it is applied to
+  this software, see the FOSS License Exception
+  <http://www.mysql.com/about/legal/licensing/foss-exception.html>.
+
+  This program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU General Public License as published by the Free Software Foundation; version 2
+  of the License.
+
+  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this
+  program; if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth
+  Floor, Boston, MA 02110-1301  USA
+
+ */
+
+package testsuite.perf;
+
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import com.mysql.fabric.RangeShardMapping;
+import com.mysql.fabric.ShardIndex;
+import com.mysql.fabric.ShardMapping;
+import com.mysql.fabric.ShardingType;
+
+import junit.framework.TestCase;
+
+/**
+ * Lookup throughput of com.mysql.fabric.RangeShardMapping with many ranges, compared to the linear search over shard indices sorted by a parsing comparator
+ * that it used to do. Doesn't need a server, or Fabric.
+ */
+public class RangeShardMappingPerfTest extends TestCase {
+    private static final int NUM_RANGES = 5000;
+
+    private static final int NUM_LOOKUPS = 200000;
+
+    /**
+     * The lookup as it was done before, kept here for comparison.
+     */
+    private static class LegacyRangeShardMapping extends ShardMapping {
+        private static class RangeShardIndexSorter implements Comparator<ShardIndex> {
+            public int compare(ShardIndex i1, ShardIndex i2) {
+                Integer bound1, bound2;
+                bound1 = Integer.parseInt(i1.getBound());
+                bound2 = Integer.parseInt(i2.getBound());
+                return bound2.compareTo(bound1); // this reverses it
+            }
+        }
+
+        LegacyRangeShardMapping(Set<ShardIndex> shardIndices) {
+            super(1, ShardingType.RANGE, "global", null, new TreeSet<ShardIndex>(new RangeShardIndexSorter()));
+            this.shardIndices.addAll(shardIndices);
+        }
+
+        @Override
+        protected ShardIndex getShardIndexForKey(String stringKey) {
+            Integer key = -1;
+            key = Integer.parseInt(stringKey);
+            for (ShardIndex i : this.shardIndices) {
+                Integer lowerBound = Integer.valueOf(i.getBound());
+                if (key >= lowerBound) {
+                    return i;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Runs all tests.
+     * 
+     * @param args
+     *            ignored
+     */
+    public static void main(String[] args) {
+        junit.textui.TestRunner.run(RangeShardMappingPerfTest.class);
+    }
+
+    /**
+     * Looks up random keys in both mappings, checks they agree and reports lookups/second for each.
+     * 
+     * @throws Exception
+     *             if an error occurs
+     */
+    public void testRangeLookupThroughput() throws Exception {
+        Set<ShardIndex> shardIndices = new HashSet<ShardIndex>();
+        for (int i = 0; i < NUM_RANGES; i++) {
+            shardIndices.add(new ShardIndex(String.valueOf(i * 1000), i, "group_" + i));
+        }
+
+        ShardMapping mapping = new RangeShardMapping(1, ShardingType.RANGE, "global", null, shardIndices);
+        ShardMapping legacyMapping = new LegacyRangeShardMapping(shardIndices);
+
+        Random random = new Random(42);
+        String[] keys = new String[NUM_LOOKUPS];
+        for (int i = 0; i < NUM_LOOKUPS; i++) {
+            keys[i] = String.valueOf(random.nextInt(NUM_RANGES * 1000));
+        }
+
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(keys[i], legacyMapping.getGroupNameForKey(keys[i]), mapping.getGroupNameForKey(keys[i]));
+        }
+
+        // the legacy mapping is far too slow for the full set of keys
+        int legacyLookups = NUM_LOOKUPS / 100;
+        double legacyRate = measure(legacyMapping, keys, legacyLookups);
+        double rate = measure(mapping, keys, NUM_LOOKUPS);
+
+        System.out.println("\nRange shard mapping lookups with " + NUM_RANGES + " ranges\n");
+        System.out.println("Binary search lookups/second: " + rate);
+        System.out.println("Legacy linear search lookups/second: " + legacyRate);
+    }
+
+    private double measure(ShardMapping mapping, String[] keys, int numLookups) {
+        int found = 0;
+        long begin = System.nanoTime();
+
+        for (int i = 0; i < numLookups; i++) {
+            if (mapping.getGroupNameForKey(keys[i]) != null) {
+                found++;
+            }
+        }
+
+        long elapsed = System.nanoTime() - begin;
+        assertEquals(numLookups, found);
+
+        return numLookups / (elapsed / 1000000000.0);
+    }
+}
@@ -0,0 +1,112 @@
+/*
+  Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+
+  The MySQL Connector/J is licensed under the terms of the GPLv2
+  <http://www.gnu.org/licenses/old-licenses/gpl-2.0.html>, like most MySQL Connectors.
+  There are special exceptions to the terms and conditions of the GPLv2 as it is applied to
+  this software, see the FOSS License Exception
+  <http://www.mysql.com/about/legal/licensing/foss-exception.html>.
+
+  This program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU General Public License as published by the Free Software Foundation; version 2
+  of the License.
+
+  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this
+  program; if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth
+  Floor, Boston, MA 02110-1301  USA
+
+ */
+
+package testsuite.perf.jmh;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import testsuite.FakeMySQLServer;
+
+/**
+ * Base class for JMH benchmarks run against a {@link FakeMySQLServer}. Starts the stub and opens one connection per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public abstract class BaseBenchmark {
+    public static final FakeMySQLServer.Column[] COLUMNS = new FakeMySQLServer.Column[] {
+            new FakeMySQLServer.Column("id", FakeMySQLServer.MYSQL_TYPE_LONG, 11, 0),
+            new FakeMySQLServer.Column("name", FakeMySQLServer.MYSQL_TYPE_VAR_STRING, 192, 0),
+            new FakeMySQLServer.Column("price", FakeMySQLServer.MYSQL_TYPE_NEWDECIMAL, 12, 2),
+            new FakeMySQLServer.Column("ratio", FakeMySQLServer.MYSQL_TYPE_DOUBLE, 22, 31),
+            new FakeMySQLServer.Column("created", FakeMySQLServer.MYSQL_TYPE_DATETIME, 19, 0) };
+
+    protected FakeMySQLServer server;
+    protected Connection conn;
+
+    @Setup
+    public void setUpServer() throws Exception {
+        Class.forName("com.mysql.jdbc.Driver");
+        this.server = new FakeMySQLServer();
+        this.server.setResultSet(COLUMNS, createRows(getRowCount()));
+        this.server.start();
+        this.conn = openConnection();
+    }
+
+    @TearDown
+    public void tearDownServer() throws Exception {
+        if (this.conn != null) {
+            this.conn.close();
+        }
+        this.server.stop();
+    }
+
+    /**
+     * @return the connection properties of the benchmark, in URL syntax, or <code>null</code>
+     */
+    protected String getConnectionProperties() {
+        return null;
+    }
+
+    /**
+     * @return the number of rows returned by queries
+     */
+    protected int getRowCount() {
+        return 1;
+    }
+
+    protected Connection openConnection() throws SQLException {
+        return DriverManager.getConnection(this.server.getUrl(getConnectionProperties()), "user", "password");
+    }
+
+    /**
+     * Rows matching {@link #COLUMNS}, in text protocol format.
+     */
+    public static List<String[]> createRows(int count) {
+        List<String[]> rows = new ArrayList<String[]>(count);
+        for (int i = 0; i < count; i++) {
+            rows.add(new String[] { Integer.toString(i), "name of row " + i, (i % 10000) + "." + (i % 100 < 10 ? "0" : "") + (i % 100),
+                    Double.toString(i / 7.0), "2017-" + (i % 12 < 9 ? "0" : "") + (i % 12 + 1) + "-15 12:34:" + (i % 50 + 10) });
+        }
+        return rows;
+    }
+}
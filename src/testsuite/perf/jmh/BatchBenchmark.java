@@ -0,0 +1,90 @@
+/*
+  Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+
+  The MySQL Connector/J is licensed under the terms of the GPLv2
+  <http://www.gnu.org/licenses/old-licenses/gpl-2.0.html>, like most MySQL Connectors.
+  There are special exceptions to the terms and conditions of the GPLv2 as it is applied to
+  this software, see the FOSS License Exception
+  <http://www.mysql.com/about/legal/licensing/foss-exception.html>.
+
+  This program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU General Public License as published by the Free Software Foundation; version 2
+  of the License.
+
+  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this
+  program; if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth
+  Floor, Boston, MA 02110-1301  USA
+
+ */
+
+package testsuite.perf.jmh;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Batched execution of prepared statements, with and without <code>rewriteBatchedStatements</code>, <code>pipelineServerPreparedBatches</code> and
+ * <code>cacheServerPreparedBatchedInserts</code>.
+ */
+public class BatchBenchmark extends BaseBenchmark {
+    @Param({ "false", "true" })
+    public boolean useServerPrepStmts;
+
+    @Param({ "false", "true" })
+    public boolean rewriteBatchedStatements;
+
+    @Param({ "false", "true" })
+    public boolean pipelineServerPreparedBatches;
+
+    @Param({ "false", "true" })
+    public boolean cacheServerPreparedBatchedInserts;
+
+    @Param({ "10", "1000" })
+    public int batchSize;
+
+    private PreparedStatement pstmt;
+
+    private final BigDecimal price = new BigDecimal("1234.56");
+    private final Timestamp created = Timestamp.valueOf("2017-06-15 12:34:56");
+
+    @Override
+    protected String getConnectionProperties() {
+        return "useServerPrepStmts=" + this.useServerPrepStmts + "&rewriteBatchedStatements=" + this.rewriteBatchedStatements
+                + "&pipelineServerPreparedBatches=" + this.pipelineServerPreparedBatches + "&cacheServerPreparedBatchedInserts="
+                + this.cacheServerPreparedBatchedInserts;
+    }
+
+    @Setup
+    public void setUp() throws SQLException {
+        this.pstmt = this.conn.prepareStatement(PreparedStatementBenchmark.INSERT);
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        this.pstmt.close();
+    }
+
+    @Benchmark
+    public int[] executeBatch() throws SQLException {
+        for (int i = 0; i < this.batchSize; i++) {
+            this.pstmt.setInt(1, i);
+            this.pstmt.setString(2, "name of row");
+            this.pstmt.setBigDecimal(3, this.price);
+            this.pstmt.setDouble(4, i / 7.0);
+            this.pstmt.setTimestamp(5, this.created);
+            this.pstmt.addBatch();
+        }
+        return this.pstmt.executeBatch();
+    }
+}
@@ -0,0 +1,96 @@
+/*
+  Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+
+  The MySQL Connector/J is licensed under the terms of the GPLv2
+  <http://www.gnu.org/licenses/old-licenses/gpl-2.0.html>, like most MySQL Connectors.
+  There are special exceptions to the terms and conditions of the GPLv2 as it is applied to
+  this software, see the FOSS License Exception
+  <http://www.mysql.com/about/legal/licensing/foss-exception.html>.
+
+  This program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU General Public License as published by the Free Software Foundation; version 2
+  of the License.
+
+  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this
+  program; if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth
+  Floor, Boston, MA 02110-1301  USA
+
+ */
+
+package testsuite.perf.jmh;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.mysql.jdbc.ColumnBatch;
+import com.mysql.jdbc.ResultSetInternalMethods;
+
+/**
+ * Reading the id, name and ratio columns of a streaming result set row by row with the getters, or a batch of rows at a time with
+ * {@link ResultSetInternalMethods#fetchColumnBatch(ColumnBatch)}.
+ */
+public class ColumnBatchBenchmark extends BaseBenchmark {
+    @Param({ "100000" })
+    public int rowCount;
+
+    @Param({ "1024" })
+    public int batchSize;
+
+    private Statement stmt;
+
+    private ColumnBatch batch;
+
+    @Override
+    protected int getRowCount() {
+        return this.rowCount;
+    }
+
+    @Setup
+    public void setUp() throws SQLException {
+        this.stmt = this.conn.createStatement();
+        this.stmt.setFetchSize(Integer.MIN_VALUE);
+
+        this.batch = new ColumnBatch(COLUMNS.length, this.batchSize);
+        this.batch.setLongVector(1, new long[this.batchSize]);
+        this.batch.setBytesVector(2, new int[this.batchSize + 1], new byte[this.batchSize * 16]);
+        this.batch.setDoubleVector(4, new double[this.batchSize]);
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        this.stmt.close();
+    }
+
+    @Benchmark
+    public void readRows(Blackhole bh) throws SQLException {
+        ResultSet rs = this.stmt.executeQuery("SELECT * FROM t");
+        while (rs.next()) {
+            bh.consume(rs.getLong(1));
+            bh.consume(rs.getBytes(2));
+            bh.consume(rs.getDouble(4));
+        }
+        rs.close();
+    }
+
+    @Benchmark
+    public void fetchColumnBatches(Blackhole bh) throws SQLException {
+        ResultSetInternalMethods rs = (ResultSetInternalMethods) this.stmt.executeQuery("SELECT * FROM t");
+        while (rs.fetchColumnBatch(this.batch) > 0) {
+            bh.consume(this.batch.getLongVector(1));
+            bh.consume(this.batch.getBytesData(2));
+            bh.consume(this.batch.getDoubleVector(4));
+        }
+        rs.close();
+    }
+}
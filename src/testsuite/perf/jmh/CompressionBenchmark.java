@@ -0,0 +1,157 @@
+/*
+  Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+
+  The MySQL Connector/J is licensed under the terms of the GPLv2
+  <http://www.gnu.org/licenses/old-licenses/gpl-2.0.html>, like most MySQL Connectors.
+  There are special exceptions to the terms and conditions of the GPLv2 as it is applied to
+  this software, see the FOSS License Exception
+  <http://www.mysql.com/about/legal/licensing/foss-exception.html>.
+
+  This program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU General Public License as published by the Free Software Foundation; version 2
+  of the License.
+
+  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this
+  program; if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth
+  Floor, Boston, MA 02110-1301  USA
+
+ */
+
+package testsuite.perf.jmh;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Constructor;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Reading packets out of protocol-level compressed frames with com.mysql.jdbc.CompressedInputStream, the way MysqlIO does: a header first and then the
+ * payload. The frames are built once, splitting the packet stream at arbitrary points the way the server does, so that packets span frames. The stub server
+ * doesn't compress, its connection is only needed to create the stream.
+ */
+public class CompressionBenchmark extends BaseBenchmark {
+    @Param({ "1000" })
+    public int packetCount;
+
+    /** The payloads range from 20 bytes to this length */
+    @Param({ "1500", "40000" })
+    public int maxPayloadLength;
+
+    private Constructor<?> compressedInputStreamCtor;
+
+    private byte[] frames;
+
+    private byte[] packets;
+
+    @Setup
+    public void setUp() throws Exception {
+        this.compressedInputStreamCtor = Class.forName("com.mysql.jdbc.CompressedInputStream").getDeclaredConstructor(com.mysql.jdbc.Connection.class,
+                InputStream.class);
+        this.compressedInputStreamCtor.setAccessible(true);
+
+        ByteArrayOutputStream uncompressedStream = new ByteArrayOutputStream();
+        for (int i = 0; i < this.packetCount; i++) {
+            int payloadLength = 20 + (i * 37) % (this.maxPayloadLength - 19);
+
+            uncompressedStream.write(payloadLength & 0xff);
+            uncompressedStream.write((payloadLength >> 8) & 0xff);
+            uncompressedStream.write((payloadLength >> 16) & 0xff);
+            uncompressedStream.write(i & 0xff);
+
+            for (int j = 0; j < payloadLength; j++) {
+                uncompressedStream.write('a' + ((i + j) % 13));
+            }
+        }
+        byte[] uncompressed = uncompressedStream.toByteArray();
+        this.frames = compress(uncompressed);
+        this.packets = new byte[uncompressed.length];
+
+        if (!Arrays.equals(uncompressed, readPackets())) {
+            throw new IllegalStateException("The packets read differ from the packets compressed");
+        }
+    }
+
+    @Benchmark
+    public byte[] readPackets() throws Exception {
+        InputStream in = (InputStream) this.compressedInputStreamCtor.newInstance(this.conn, new ByteArrayInputStream(this.frames));
+
+        for (int offset = 0; offset < this.packets.length;) {
+            readFully(in, this.packets, offset, 4);
+            int payloadLength = (this.packets[offset] & 0xff) + ((this.packets[offset + 1] & 0xff) << 8) + ((this.packets[offset + 2] & 0xff) << 16);
+            offset += 4;
+            readFully(in, this.packets, offset, payloadLength);
+            offset += payloadLength;
+        }
+
+        return this.packets;
+    }
+
+    /**
+     * Wraps the packets in compressed frames of varying sizes, leaving the small ones uncompressed.
+     */
+    private static byte[] compress(byte[] uncompressed) {
+        ByteArrayOutputStream frames = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater();
+        byte[] deflated = new byte[65536 * 2];
+        int seq = 0;
+
+        for (int offset = 0; offset < uncompressed.length;) {
+            int chunk = Math.min(uncompressed.length - offset, 16384 + (seq * 4099) % 16384);
+            int compressedLength;
+            int uncompressedLength;
+
+            if (chunk < 50) {
+                System.arraycopy(uncompressed, offset, deflated, 0, chunk);
+                compressedLength = chunk;
+                uncompressedLength = 0;
+            } else {
+                deflater.reset();
+                deflater.setInput(uncompressed, offset, chunk);
+                deflater.finish();
+                compressedLength = deflater.deflate(deflated);
+                uncompressedLength = chunk;
+            }
+
+            frames.write(compressedLength & 0xff);
+            frames.write((compressedLength >> 8) & 0xff);
+            frames.write((compressedLength >> 16) & 0xff);
+            frames.write(seq++ & 0xff);
+            frames.write(uncompressedLength & 0xff);
+            frames.write((uncompressedLength >> 8) & 0xff);
+            frames.write((uncompressedLength >> 16) & 0xff);
+            frames.write(deflated, 0, compressedLength);
+
+            offset += chunk;
+        }
+
+        deflater.end();
+
+        return frames.toByteArray();
+    }
+
+    private static void readFully(InputStream in, byte[] b, int off, int len) throws IOException {
+        int n = 0;
+
+        while (n < len) {
+            int count = in.read(b, off + n, len - n);
+
+            if (count < 0) {
+                throw new EOFException();
+            }
+
+            n += count;
+        }
+    }
+}
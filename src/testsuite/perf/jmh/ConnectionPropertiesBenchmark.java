@@ -0,0 +1,77 @@
+/*
+  Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+
+  The MySQL Connector/J is licensed under the terms of the GPLv2
+  <http://www.gnu.org/licenses/old-licenses/gpl-2.0.html>, like most MySQL Connectors.
+  There are special exceptions to the terms and conditions of the GPLv2 as it is applied to
+  this software, see the FOSS License Exception
+  <http://www.mysql.com/about/legal/licensing/foss-exception.html>.
+
+  This program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU General Public License as published by the Free Software Foundation; version 2
+  of the License.
+
+  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this
+  program; if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth
+  Floor, Boston, MA 02110-1301  USA
+
+ */
+
+package testsuite.perf.jmh;
+
+import java.sql.DriverPropertyInfo;
+import java.sql.SQLException;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.mysql.jdbc.NonRegisteringDriver;
+
+/**
+ * The client-side setup every new connection goes through before reaching the network: parsing the URL and initializing all connection properties from
+ * it and the given Properties. Needs no server.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConnectionPropertiesBenchmark {
+    private static final String URL = "jdbc:mysql://db1.example.com:3306/test?useSSL=false&useServerPrepStmts=true&cachePrepStmts=true"
+            + "&prepStmtCacheSize=250&prepStmtCacheSqlLimit=2048&useLocalSessionState=true&rewriteBatchedStatements=true&cacheResultSetMetadata=true"
+            + "&cacheServerConfiguration=true&elideSetAutoCommits=true&maintainTimeStats=false&connectTimeout=5000&socketTimeout=30000";
+
+    private final NonRegisteringDriver driver;
+
+    private final Properties info = new Properties();
+
+    public ConnectionPropertiesBenchmark() {
+        try {
+            this.driver = new NonRegisteringDriver();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+        this.info.setProperty("user", "user");
+        this.info.setProperty("password", "password");
+        this.info.setProperty("characterEncoding", "UTF-8");
+    }
+
+    @Benchmark
+    public DriverPropertyInfo[] parseUrlAndProperties() throws SQLException {
+        return this.driver.getPropertyInfo(URL, this.info);
+    }
+}
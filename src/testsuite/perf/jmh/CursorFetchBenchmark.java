@@ -0,0 +1,89 @@
+/*
+  Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+
+  The MySQL Connector/J is licensed under the terms of the GPLv2
+  <http://www.gnu.org/licenses/old-licenses/gpl-2.0.html>, like most MySQL Connectors.
+  There are special exceptions to the terms and conditions of the GPLv2 as it is applied to
+  this software, see the FOSS License Exception
+  <http://www.mysql.com/about/legal/licensing/foss-exception.html>.
+
+  This program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU General Public License as published by the Free Software Foundation; version 2
+  of the License.
+
+  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this
+  program; if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth
+  Floor, Boston, MA 02110-1301  USA
+
+ */
+
+package testsuite.perf.jmh;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Reading a result set through a server-side cursor, a block of <code>fetchSize</code> rows at a time, with and without
+ * <code>prefetchCursorRows</code>. The stub takes <code>fetchDelayMillis</code> to answer each fetch.
+ */
+public class CursorFetchBenchmark extends BaseBenchmark {
+    @Param({ "false", "true" })
+    public boolean prefetchCursorRows;
+
+    @Param({ "10000" })
+    public int rowCount;
+
+    @Param({ "1000" })
+    public int fetchSize;
+
+    @Param({ "5" })
+    public int fetchDelayMillis;
+
+    private PreparedStatement pstmt;
+
+    @Override
+    protected String getConnectionProperties() {
+        return "useServerPrepStmts=true&useCursorFetch=true&prefetchCursorRows=" + this.prefetchCursorRows;
+    }
+
+    @Override
+    protected int getRowCount() {
+        return this.rowCount;
+    }
+
+    @Setup
+    public void setUp() throws SQLException {
+        this.server.setFetchDelayMillis(this.fetchDelayMillis);
+        this.pstmt = this.conn.prepareStatement("SELECT * FROM t");
+        this.pstmt.setFetchSize(this.fetchSize);
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        this.pstmt.close();
+    }
+
+    @Benchmark
+    public void readRows(Blackhole bh) throws SQLException {
+        ResultSet rs = this.pstmt.executeQuery();
+        while (rs.next()) {
+            bh.consume(rs.getLong(1));
+            bh.consume(rs.getString(2));
+            bh.consume(rs.getBigDecimal(3));
+            bh.consume(rs.getDouble(4));
+            bh.consume(rs.getTimestamp(5));
+        }
+        rs.close();
+    }
+}
@@ -0,0 +1,88 @@
+/*
+  Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+
+  The MySQL Connector/J is licensed under the terms of the GPLv2
+  <http://www.gnu.org/licenses/old-licenses/gpl-2.0.html>, like most MySQL Connectors.
+  There are special exceptions to the terms and conditions of the GPLv2 as it is applied to
+  this software, see the FOSS License Exception
+  <http://www.mysql.com/about/legal/licensing/foss-exception.html>.
+
+  This program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU General Public License as published by the Free Software Foundation; version 2
+  of the License.
+
+  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this
+  program; if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth
+  Floor, Boston, MA 02110-1301  USA
+
+ */
+
+package testsuite.perf.jmh;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.mysql.jdbc.LocalInfileRowChannel;
+import com.mysql.jdbc.Statement;
+
+/**
+ * "LOAD DATA LOCAL INFILE" of rows given as a stream of tab separated values, with {@link Statement#setLocalInfileInputStream(java.io.InputStream)}, or
+ * encoded as they are sent, with {@link LocalInfileRowChannel}.
+ */
+public class LoadDataBenchmark extends BaseBenchmark {
+    @Param({ "stream", "rows" })
+    public String source;
+
+    @Param({ "100000" })
+    public int loadedRowCount;
+
+    private Statement stmt;
+
+    private List<Object[]> rows;
+
+    private byte[] data;
+
+    @Setup
+    public void setUp() throws Exception {
+        this.stmt = (Statement) this.conn.createStatement();
+        this.rows = new ArrayList<Object[]>(this.loadedRowCount);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        for (String[] row : createRows(this.loadedRowCount)) {
+            this.rows.add(row);
+            for (int i = 0; i < row.length; i++) {
+                bytes.write((i == 0 ? "" : "\t").getBytes("UTF-8"));
+                bytes.write(row[i].getBytes("UTF-8"));
+            }
+            bytes.write('\n');
+        }
+        this.data = bytes.toByteArray();
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        this.stmt.close();
+    }
+
+    @Benchmark
+    public int loadData() throws SQLException {
+        if (this.source.equals("rows")) {
+            this.stmt.setLocalInfileChannel(new LocalInfileRowChannel(this.rows.iterator(), "UTF-8"));
+        } else {
+            this.stmt.setLocalInfileInputStream(new ByteArrayInputStream(this.data));
+        }
+        return this.stmt.executeUpdate("LOAD DATA LOCAL INFILE 'data.tsv' INTO TABLE t CHARACTER SET utf8");
+    }
+}
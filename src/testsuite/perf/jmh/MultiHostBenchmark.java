@@ -0,0 +1,79 @@
+/*
+  Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+
+  The MySQL Connector/J is licensed under the terms of the GPLv2
+  <http://www.gnu.org/licenses/old-licenses/gpl-2.0.html>, like most MySQL Connectors.
+  There are special exceptions to the terms and conditions of the GPLv2 as it is applied to
+  this software, see the FOSS License Exception
+  <http://www.mysql.com/about/legal/licensing/foss-exception.html>.
+
+  This program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU General Public License as published by the Free Software Foundation; version 2
+  of the License.
+
+  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this
+  program; if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth
+  Floor, Boston, MA 02110-1301  USA
+
+ */
+
+package testsuite.perf.jmh;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+import testsuite.FakeMySQLServer;
+
+/**
+ * Connection establishment to multi-host URLs whose first host is slow to greet its clients, with and without <code>parallelHostConnect</code>. The
+ * second host is the stub of {@link BaseBenchmark}, the slow one is a second stub that waits <code>handshakeDelayMillis</code> before its handshake.
+ */
+public class MultiHostBenchmark extends BaseBenchmark {
+    @Param({ "false", "true" })
+    public boolean parallelHostConnect;
+
+    @Param({ "20" })
+    public int handshakeDelayMillis;
+
+    private FakeMySQLServer slowServer;
+
+    @Setup
+    public void setUp() throws Exception {
+        this.slowServer = new FakeMySQLServer();
+        this.slowServer.setResultSet(COLUMNS, createRows(1));
+        this.slowServer.setHandshakeDelayMillis(this.handshakeDelayMillis);
+        this.slowServer.start();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        this.slowServer.stop();
+    }
+
+    private String getMultiHostUrl(String protocol) {
+        return protocol + "//127.0.0.1:" + this.slowServer.getPort() + ",127.0.0.1:" + this.server.getPort() + "/test?"
+                + FakeMySQLServer.DEFAULT_URL_PROPERTIES + "&parallelHostConnect=" + this.parallelHostConnect + "&parallelHostConnectDelay=2";
+    }
+
+    @Benchmark
+    public void failoverConnectAndClose() throws SQLException {
+        Connection c = DriverManager.getConnection(getMultiHostUrl("jdbc:mysql:"), "user", "password");
+        c.close();
+    }
+
+    @Benchmark
+    public void loadBalancedConnectAndClose() throws SQLException {
+        Connection c = DriverManager.getConnection(getMultiHostUrl("jdbc:mysql:loadbalance:"), "user", "password");
+        c.close();
+    }
+}
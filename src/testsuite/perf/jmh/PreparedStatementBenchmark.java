@@ -0,0 +1,99 @@
+/*
+  Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+
+  The MySQL Connector/J is licensed under the terms of the GPLv2
+  <http://www.gnu.org/licenses/old-licenses/gpl-2.0.html>, like most MySQL Connectors.
+  There are special exceptions to the terms and conditions of the GPLv2 as it is applied to
+  this software, see the FOSS License Exception
+  <http://www.mysql.com/about/legal/licensing/foss-exception.html>.
+
+  This program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU General Public License as published by the Free Software Foundation; version 2
+  of the License.
+
+  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this
+  program; if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth
+  Floor, Boston, MA 02110-1301  USA
+
+ */
+
+package testsuite.perf.jmh;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Parameter binding and execution of client-side ({@link com.mysql.jdbc.PreparedStatement}) and server-side
+ * ({@link com.mysql.jdbc.ServerPreparedStatement}) prepared statements, the former with and without <code>encodeParametersInPlace</code>.
+ */
+public class PreparedStatementBenchmark extends BaseBenchmark {
+    static final String INSERT = "INSERT INTO t (id, name, price, ratio, created) VALUES (?, ?, ?, ?, ?)";
+
+    @Param({ "false", "true" })
+    public boolean useServerPrepStmts;
+
+    @Param({ "false", "true" })
+    public boolean encodeParametersInPlace;
+
+    private PreparedStatement pstmt;
+
+    private final BigDecimal price = new BigDecimal("1234.56");
+    private final Timestamp created = Timestamp.valueOf("2017-06-15 12:34:56");
+    private int id;
+
+    @Override
+    protected String getConnectionProperties() {
+        return "useServerPrepStmts=" + this.useServerPrepStmts + "&encodeParametersInPlace=" + this.encodeParametersInPlace;
+    }
+
+    @Setup
+    public void setUp() throws SQLException {
+        this.pstmt = this.conn.prepareStatement(INSERT);
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        this.pstmt.close();
+    }
+
+    private void bind(PreparedStatement ps) throws SQLException {
+        int i = this.id++;
+        ps.setInt(1, i);
+        ps.setString(2, "name of row");
+        ps.setBigDecimal(3, this.price);
+        ps.setDouble(4, i / 7.0);
+        ps.setTimestamp(5, this.created);
+    }
+
+    @Benchmark
+    public PreparedStatement bindParameters() throws SQLException {
+        bind(this.pstmt);
+        return this.pstmt;
+    }
+
+    @Benchmark
+    public int bindAndExecuteUpdate() throws SQLException {
+        bind(this.pstmt);
+        return this.pstmt.executeUpdate();
+    }
+
+    @Benchmark
+    public int prepareBindAndExecuteUpdate() throws SQLException {
+        PreparedStatement ps = this.conn.prepareStatement(INSERT);
+        bind(ps);
+        int count = ps.executeUpdate();
+        ps.close();
+        return count;
+    }
+}
@@ -0,0 +1,51 @@
+/*
+  Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+
+  The MySQL Connector/J is licensed under the terms of the GPLv2
+  <http://www.gnu.org/licenses/old-licenses/gpl-2.0.html>, like most MySQL Connectors.
+  There are special exceptions to the terms and conditions of the GPLv2 as it is applied to
+  this software, see the FOSS License Exception
+  <http://www.mysql.com/about/legal/licensing/foss-exception.html>.
+
+  This program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU General Public License as published by the Free Software Foundation; version 2
+  of the License.
+
+  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this
+  program; if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth
+  Floor, Boston, MA 02110-1301  USA
+
+ */
+
+package testsuite.perf.jmh;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * Connection pool checkout/return cycles: the application changes the isolation level of the session, and the pool resets the connection with
+ * {@link com.mysql.jdbc.Connection#resetServerState()} when it is returned, through COM_CHANGE_USER or, with <code>useResetConnection</code>,
+ * COM_RESET_CONNECTION.
+ */
+public class ResetConnectionBenchmark extends BaseBenchmark {
+    @Param({ "false", "true" })
+    public boolean useResetConnection;
+
+    @Override
+    protected String getConnectionProperties() {
+        return "useResetConnection=" + this.useResetConnection;
+    }
+
+    @Benchmark
+    public void checkoutAndReturn() throws SQLException {
+        this.conn.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        ((com.mysql.jdbc.Connection) this.conn).resetServerState();
+    }
+}
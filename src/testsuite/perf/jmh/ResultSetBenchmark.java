@@ -0,0 +1,147 @@
+/*
+  Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+
+  The MySQL Connector/J is licensed under the terms of the GPLv2
+  <http://www.gnu.org/licenses/old-licenses/gpl-2.0.html>, like most MySQL Connectors.
+  There are special exceptions to the terms and conditions of the GPLv2 as it is applied to
+  this software, see the FOSS License Exception
+  <http://www.mysql.com/about/legal/licensing/foss-exception.html>.
+
+  This program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU General Public License as published by the Free Software Foundation; version 2
+  of the License.
+
+  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this
+  program; if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth
+  Floor, Boston, MA 02110-1301  USA
+
+ */
+
+package testsuite.perf.jmh;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Row decoding, <code>findColumn()</code> and getters of {@link com.mysql.jdbc.ResultSetImpl}, with and without <code>useFastDecimalParsing</code> and
+ * <code>useFastJavaTimeDecoding</code>.
+ */
+public class ResultSetBenchmark extends BaseBenchmark {
+    @Param({ "10", "1000" })
+    public int rowCount;
+
+    @Param({ "false", "true" })
+    public boolean useFastDecimalParsing;
+
+    @Param({ "false", "true" })
+    public boolean useFastJavaTimeDecoding;
+
+    private Statement stmt;
+
+    // positioned on the first row, for the benchmarks that don't read from the network
+    private ResultSet currentRow;
+
+    @Override
+    protected String getConnectionProperties() {
+        return "useFastDecimalParsing=" + this.useFastDecimalParsing + "&useFastJavaTimeDecoding=" + this.useFastJavaTimeDecoding;
+    }
+
+    @Override
+    protected int getRowCount() {
+        return this.rowCount;
+    }
+
+    @Setup
+    public void setUp() throws SQLException {
+        this.stmt = this.conn.createStatement();
+        this.currentRow = this.conn.createStatement().executeQuery("SELECT * FROM t");
+        this.currentRow.next();
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        this.currentRow.close();
+        this.stmt.close();
+    }
+
+    @Benchmark
+    public void readAllRowsByIndex(Blackhole bh) throws SQLException {
+        ResultSet rs = this.stmt.executeQuery("SELECT * FROM t");
+        while (rs.next()) {
+            bh.consume(rs.getInt(1));
+            bh.consume(rs.getString(2));
+            bh.consume(rs.getBigDecimal(3));
+            bh.consume(rs.getDouble(4));
+            bh.consume(rs.getTimestamp(5));
+        }
+        rs.close();
+    }
+
+    @Benchmark
+    public void readAllRowsByLabel(Blackhole bh) throws SQLException {
+        ResultSet rs = this.stmt.executeQuery("SELECT * FROM t");
+        while (rs.next()) {
+            bh.consume(rs.getInt("id"));
+            bh.consume(rs.getString("name"));
+            bh.consume(rs.getBigDecimal("price"));
+            bh.consume(rs.getDouble("ratio"));
+            bh.consume(rs.getTimestamp("created"));
+        }
+        rs.close();
+    }
+
+    @Benchmark
+    public void findColumn(Blackhole bh) throws SQLException {
+        bh.consume(this.currentRow.findColumn("id"));
+        bh.consume(this.currentRow.findColumn("NAME"));
+        bh.consume(this.currentRow.findColumn("created"));
+        bh.consume(this.currentRow.findColumn("t.price"));
+    }
+
+    @Benchmark
+    public int getInt() throws SQLException {
+        return this.currentRow.getInt(1);
+    }
+
+    @Benchmark
+    public Object getString() throws SQLException {
+        return this.currentRow.getString(2);
+    }
+
+    @Benchmark
+    public Object getBigDecimal() throws SQLException {
+        return this.currentRow.getBigDecimal(3);
+    }
+
+    @Benchmark
+    public double getDouble() throws SQLException {
+        return this.currentRow.getDouble(4);
+    }
+
+    @Benchmark
+    public Object getTimestamp() throws SQLException {
+        return this.currentRow.getTimestamp(5);
+    }
+
+    @Benchmark
+    public Object getObject() throws SQLException {
+        return this.currentRow.getObject(5);
+    }
+
+    @Benchmark
+    public Object getLocalDateTime() throws SQLException {
+        return this.currentRow.getObject(5, LocalDateTime.class);
+    }
+}
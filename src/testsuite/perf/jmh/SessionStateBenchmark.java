@@ -0,0 +1,53 @@
+/*
+  Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+
+  The MySQL Connector/J is licensed under the terms of the GPLv2
+  <http://www.gnu.org/licenses/old-licenses/gpl-2.0.html>, like most MySQL Connectors.
+  There are special exceptions to the terms and conditions of the GPLv2 as it is applied to
+  this software, see the FOSS License Exception
+  <http://www.mysql.com/about/legal/licensing/foss-exception.html>.
+
+  This program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU General Public License as published by the Free Software Foundation; version 2
+  of the License.
+
+  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this
+  program; if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth
+  Floor, Boston, MA 02110-1301  USA
+
+ */
+
+package testsuite.perf.jmh;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * A connection pool checkout: restoring the default autocommit, isolation level, read-only mode, catalog and max rows of the pool on a connection whose
+ * session already has them, with and without <code>trackSessionState</code>.
+ */
+public class SessionStateBenchmark extends BaseBenchmark {
+    @Param({ "false", "true" })
+    public boolean trackSessionState;
+
+    @Override
+    protected String getConnectionProperties() {
+        return "trackSessionState=" + this.trackSessionState;
+    }
+
+    @Benchmark
+    public void checkout() throws SQLException {
+        this.conn.setAutoCommit(true);
+        this.conn.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+        this.conn.setReadOnly(false);
+        this.conn.setCatalog("test");
+        ((com.mysql.jdbc.Connection) this.conn).setSessionMaxRows(-1);
+    }
+}
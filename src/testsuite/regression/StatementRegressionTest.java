@@ -75,6 +75,7 @@ import java.util.concurrent.TimeoutException;
 
 import com.mysql.jdbc.CachedResultSetMetaData;
 import com.mysql.jdbc.CharsetMapping;
+import com.mysql.jdbc.ColumnBatch;
 import com.mysql.jdbc.CommunicationsException;
 import com.mysql.jdbc.Field;
 import com.mysql.jdbc.MySQLConnection;
@@ -4555,6 +4556,14 @@ public class StatementRegressionTest extends BaseTestCase {
             public int getBytesSize() throws SQLException {
                 return 0;
             }
+
+            public long getPeakBufferedBytes() throws SQLException {
+                return 0;
+            }
+
+            public int fetchColumnBatch(ColumnBatch batch) throws SQLException {
+                return 0;
+            }
         };
     }
 
@@ -31,6 +31,7 @@ import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.InputStream;
 import java.io.PrintStream;
+import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.net.InetAddress;
@@ -49,21 +50,33 @@ import java.sql.Statement;
 import java.sql.Timestamp;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.List;
 import java.util.Properties;
+import java.util.Random;
 import java.util.TimeZone;
 import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.mysql.jdbc.CharsetMapping;
+import com.mysql.jdbc.ConnectionPropertiesTransform;
 import com.mysql.jdbc.MySQLConnection;
+import com.mysql.jdbc.MysqlIO;
 import com.mysql.jdbc.NonRegisteringDriver;
+import com.mysql.jdbc.PacketBufferArena;
+import com.mysql.jdbc.PerVmParseInfoCacheFactory;
 import com.mysql.jdbc.ResultSetInternalMethods;
 import com.mysql.jdbc.SQLError;
 import com.mysql.jdbc.StringUtils;
 import com.mysql.jdbc.Util;
 import com.mysql.jdbc.jdbc2.optional.MysqlConnectionPoolDataSource;
 import com.mysql.jdbc.log.StandardLogger;
+import com.mysql.jdbc.profiler.LatencyHistogram;
+import com.mysql.jdbc.profiler.MetricsProfilerEventHandler;
+import com.mysql.jdbc.profiler.ProfilerMetrics;
+import com.mysql.jdbc.profiler.StatementType;
 
 import testsuite.BaseStatementInterceptor;
 import testsuite.BaseTestCase;
@@ -704,6 +717,75 @@ public class ConnectionTest extends BaseTestCase {
         assertTrue("albequerque".equals(transformedProps.getProperty(NonRegisteringDriver.HOST_PROPERTY_KEY)));
     }
 
+    /**
+     * Tests that a connection initialized from a cached properties template ends up with the same property values as the connection the template was made
+     * from, and that properties with values that aren't strings don't share a template.
+     * 
+     * @throws Exception
+     */
+    public void testPropertiesTemplate() throws Exception {
+        Properties props = new Properties();
+        // makes the first connection a template miss
+        props.setProperty("testPropertiesTemplate", String.valueOf(System.nanoTime()));
+        props.setProperty("useCompression", "true");
+        props.setProperty("maxRows", "0");
+        props.setProperty("blobSendChunkSize", "64k");
+        props.setProperty("characterEncoding", "UTF-8");
+        props.setProperty("zeroDateTimeBehavior", "convertToNull");
+        props.setProperty("profileSql", "false");
+        props.setProperty("sessionVariables", "group_concat_max_len=4321");
+
+        List<Method> getters = new ArrayList<Method>();
+        for (Method m : com.mysql.jdbc.ConnectionProperties.class.getMethods()) {
+            if ((m.getName().startsWith("get") || m.getName().startsWith("is")) && m.getParameterTypes().length == 0) {
+                getters.add(m);
+            }
+        }
+
+        Connection missConn = getConnectionWithProps(props);
+        Connection hitConn = getConnectionWithProps(props);
+
+        try {
+            for (Method getter : getters) {
+                assertEquals(getter.getName(), getter.invoke(missConn), getter.invoke(hitConn));
+            }
+            assertEquals(64 * 1024, ((com.mysql.jdbc.Connection) hitConn).getBlobSendChunkSize());
+        } finally {
+            missConn.close();
+            hitConn.close();
+        }
+
+        // values that aren't strings are ignored, and the properties can't be told apart by them
+        props.setProperty("useCompression", "false");
+        props.setProperty(NonRegisteringDriver.PROPERTIES_TRANSFORM_KEY, ObjectValuesTransformer.class.getName());
+        missConn = getConnectionWithProps(props);
+        hitConn = getConnectionWithProps(props);
+
+        try {
+            for (Method getter : getters) {
+                assertEquals(getter.getName(), getter.invoke(missConn), getter.invoke(hitConn));
+            }
+            assertFalse(((com.mysql.jdbc.Connection) hitConn).getUseCompression());
+        } finally {
+            missConn.close();
+            hitConn.close();
+        }
+    }
+
+    /**
+     * Adds properties with values that aren't strings, a different one on every connection.
+     */
+    public static class ObjectValuesTransformer implements ConnectionPropertiesTransform {
+        private static final AtomicInteger transformCount = new AtomicInteger();
+
+        public Properties transformProperties(Properties props) throws SQLException {
+            int count = transformCount.incrementAndGet();
+            props.put("defaultFetchSize", Integer.valueOf(count));
+            props.put("testPropertiesTemplateObject", Integer.valueOf(count));
+            return props;
+        }
+    }
+
     /**
      * Tests functionality of using URLs in 'LOAD DATA LOCAL INFILE' statements.
      * 
@@ -1149,6 +1231,139 @@ public class ConnectionTest extends BaseTestCase {
 
     }
 
+    /**
+     * Tests that data sent through compressed connections survives the round trip with the different compression levels and strategies, and with
+     * "adaptiveCompression" backing off when packets fail to shrink.
+     * 
+     * @throws Exception
+     *             if the test fails
+     */
+    public void testCompressionLevelStrategyAndAdaptiveCompression() throws Exception {
+        createTable("testCompressionOptions", "(id INT PRIMARY KEY, data MEDIUMBLOB)");
+
+        Random random = new Random();
+        byte[][] rows = new byte[40][];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = new byte[65536];
+            if (i % 4 == 0) {
+                // compressible
+                for (int j = 0; j < rows[i].length; j++) {
+                    rows[i][j] = (byte) ('a' + j % 7);
+                }
+            } else {
+                // mostly not compressible, as if it was already compressed data
+                random.nextBytes(rows[i]);
+            }
+        }
+
+        String[] levels = new String[] { "-1", "1", "9" };
+        String[] strategies = new String[] { "default", "filtered", "huffmanOnly" };
+
+        for (String level : levels) {
+            for (String strategy : strategies) {
+                for (String adaptive : new String[] { "false", "true" }) {
+                    String testCase = String.format("Case [compressionLevel=%s, compressionStrategy=%s, adaptiveCompression=%s]", level, strategy, adaptive);
+
+                    Properties props = new Properties();
+                    props.setProperty("useCompression", "true");
+                    props.setProperty("compressionLevel", level);
+                    props.setProperty("compressionStrategy", strategy);
+                    props.setProperty("adaptiveCompression", adaptive);
+                    Connection testConn = getConnectionWithProps(props);
+
+                    testConn.createStatement().execute("TRUNCATE TABLE testCompressionOptions");
+
+                    PreparedStatement testPstmt = testConn.prepareStatement("INSERT INTO testCompressionOptions VALUES (?, ?)");
+                    for (int i = 0; i < rows.length; i++) {
+                        testPstmt.setInt(1, i);
+                        testPstmt.setBytes(2, rows[i]);
+                        assertEquals(testCase, 1, testPstmt.executeUpdate());
+                    }
+                    testPstmt.close();
+
+                    this.rs = testConn.createStatement().executeQuery("SELECT id, data FROM testCompressionOptions ORDER BY id");
+                    for (int i = 0; i < rows.length; i++) {
+                        assertTrue(testCase, this.rs.next());
+                        assertEquals(testCase, i, this.rs.getInt(1));
+                        assertTrue(testCase, Arrays.equals(rows[i], this.rs.getBytes(2)));
+                    }
+                    assertFalse(testCase, this.rs.next());
+
+                    testConn.close();
+                }
+            }
+        }
+
+        assertThrows(SQLException.class, "The connection property 'compressionStrategy' only accepts values of the form: .*", new Callable<Void>() {
+            public Void call() throws Exception {
+                getConnectionWithProps("useCompression=true,compressionStrategy=fastest");
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Tests the VM-wide ParseInfo cache: statements prepared on one connection must be reused by others with the same parse settings, but not by connections
+     * that parse differently (ANSI_QUOTES here).
+     * 
+     * @throws Exception
+     */
+    public void testPerVmParseInfoCache() throws Exception {
+        createTable("testPerVmParseInfoCache", "(id INT, val VARCHAR(20))");
+
+        Properties props = new Properties();
+        props.setProperty("cachePrepStmts", "true");
+        props.setProperty("parseInfoCacheFactory", PerVmParseInfoCacheFactory.class.getName());
+        props.setProperty("prepStmtCacheSize", "64");
+
+        PerVmParseInfoCacheFactory.reset();
+
+        String sql = "INSERT INTO testPerVmParseInfoCache VALUES (?, ?) /* testPerVmParseInfoCache */";
+
+        Connection testConn1 = getConnectionWithProps(props);
+        Connection testConn2 = getConnectionWithProps(props);
+        props.setProperty("sessionVariables", "sql_mode='ANSI_QUOTES'");
+        Connection testConn3 = getConnectionWithProps(props);
+
+        try {
+            Connection[] conns = new Connection[] { testConn1, testConn2, testConn3 };
+            for (int i = 0; i < conns.length; i++) {
+                PreparedStatement testPstmt = ((com.mysql.jdbc.Connection) conns[i]).clientPrepareStatement(sql);
+                testPstmt.setInt(1, i);
+                testPstmt.setString(2, "'?\"`" + i);
+                assertEquals(1, testPstmt.executeUpdate());
+                testPstmt.close();
+            }
+
+            // first connection parses, the second reuses, the third has a different sql_mode
+            assertEquals(2, PerVmParseInfoCacheFactory.getMissCount());
+            assertEquals(1, PerVmParseInfoCacheFactory.getHitCount());
+            assertEquals(2, PerVmParseInfoCacheFactory.getSize());
+            assertEquals(64, PerVmParseInfoCacheFactory.getMaxSize());
+
+            this.rs = this.stmt.executeQuery("SELECT id, val FROM testPerVmParseInfoCache ORDER BY id");
+            for (int i = 0; i < conns.length; i++) {
+                assertTrue(this.rs.next());
+                assertEquals(i, this.rs.getInt(1));
+                assertEquals("'?\"`" + i, this.rs.getString(2));
+            }
+            assertFalse(this.rs.next());
+
+            // keep preparing distinct statements until the cache has to evict
+            int maxSize = PerVmParseInfoCacheFactory.getMaxSize();
+            for (int i = 0; i < maxSize + 16; i++) {
+                ((com.mysql.jdbc.Connection) testConn1).clientPrepareStatement("SELECT ? /* " + i + " */").close();
+            }
+            assertTrue(PerVmParseInfoCacheFactory.getSize() <= maxSize);
+            assertTrue(PerVmParseInfoCacheFactory.getEvictionCount() > 0);
+        } finally {
+            testConn1.close();
+            testConn2.close();
+            testConn3.close();
+            PerVmParseInfoCacheFactory.reset();
+        }
+    }
+
     /**
      * @param useCompression
      * @param maxUncompressedPacketSize
@@ -2142,4 +2357,416 @@ public class ConnectionTest extends BaseTestCase {
         assertEquals(user, this.rs.getString(1).split("@")[0]);
         testConn.close();
     }
+
+    /**
+     * Tests that column definition packets are carved out of the packet buffer arena slabs instead of allocating one byte array per packet, that columns are
+     * still correctly resolved by name from them, that reading result sets allocates less than without the arena, and that the arena is emptied when the
+     * connection closes.
+     */
+    public void testPacketBufferArena() throws Exception {
+        final int columnCount = 100;
+        final int executions = 50;
+
+        StringBuilder query = new StringBuilder("SELECT 0 AS c0");
+        for (int i = 1; i < columnCount; i++) {
+            query.append(", ").append(i).append(" AS c").append(i);
+        }
+
+        Connection testConn = getConnectionWithProps("usePacketBufferArena=false");
+        assertNull(((MySQLConnection) testConn).getIO().getPacketBufferArena());
+        testConn.close();
+
+        for (String useServerPrepStmts : new String[] { "false", "true" }) {
+            Properties props = new Properties();
+            props.setProperty("useServerPrepStmts", useServerPrepStmts);
+            props.setProperty("cacheResultSetMetadata", "false");
+            props.setProperty("usePacketBufferArena", "false");
+            Connection plainConn = getConnectionWithProps(props);
+            props.setProperty("usePacketBufferArena", "true");
+            testConn = getConnectionWithProps(props);
+
+            PacketBufferArena arena = ((MySQLConnection) testConn).getIO().getPacketBufferArena();
+            assertNotNull(arena);
+
+            long allocationsBefore = arena.getAllocationCount();
+            long slicesBefore = arena.getSlicesServed();
+
+            long plainAllocatedBytes = Long.MAX_VALUE;
+            long arenaAllocatedBytes = Long.MAX_VALUE;
+
+            // the lowest of a few rounds, after a first one that warms up both code paths
+            for (int round = 0; round < 4; round++) {
+                long allocatedBytes = readColumns(plainConn, query.toString(), columnCount, executions);
+                if (round > 0) {
+                    plainAllocatedBytes = Math.min(plainAllocatedBytes, allocatedBytes);
+                }
+
+                allocatedBytes = readColumns(testConn, query.toString(), columnCount, executions);
+                if (round > 0) {
+                    arenaAllocatedBytes = Math.min(arenaAllocatedBytes, allocatedBytes);
+                }
+            }
+
+            long slices = arena.getSlicesServed() - slicesBefore;
+            long allocations = arena.getAllocationCount() - allocationsBefore;
+
+            assertTrue("Expected at least " + (4 * executions * columnCount) + " sliced packets, got " + slices, slices >= 4 * executions * columnCount);
+            assertTrue("Too many allocations (" + allocations + ") for " + slices + " sliced packets", allocations < slices / 10);
+            assertTrue(arena.getRetainedBytes() <= arena.getMaxRetainedBytes());
+
+            if (plainAllocatedBytes >= 0 && arenaAllocatedBytes >= 0) {
+                assertTrue("Allocated " + arenaAllocatedBytes + " bytes with the arena, " + plainAllocatedBytes + " without",
+                        arenaAllocatedBytes < plainAllocatedBytes);
+            }
+
+            plainConn.close();
+            testConn.close();
+
+            assertEquals(0, arena.getRetainedBytes());
+        }
+    }
+
+    /**
+     * Runs the query of {@link #testPacketBufferArena()} and reads all its columns by name.
+     * 
+     * @return the number of bytes allocated by the current thread meanwhile, or -1 if the VM can't tell
+     */
+    private long readColumns(Connection testConn, String query, int columnCount, int executions) throws Exception {
+        long allocatedBefore = getCurrentThreadAllocatedBytes();
+
+        PreparedStatement testPstmt = testConn.prepareStatement(query);
+        for (int i = 0; i < executions; i++) {
+            ResultSet testRs = testPstmt.executeQuery();
+            assertTrue(testRs.next());
+            for (int c = 0; c < columnCount; c++) {
+                assertEquals(c, testRs.getInt(c + 1));
+            }
+            assertEquals(columnCount - 1, testRs.getInt("c" + (columnCount - 1)));
+            assertFalse(testRs.next());
+            testRs.close();
+        }
+        testPstmt.close();
+
+        long allocatedAfter = getCurrentThreadAllocatedBytes();
+
+        return allocatedBefore < 0 || allocatedAfter < 0 ? -1 : allocatedAfter - allocatedBefore;
+    }
+
+    private static long getCurrentThreadAllocatedBytes() {
+        try {
+            // HotSpot extension, looked up reflectively as it isn't part of the Java SE API
+            Class<?> hotSpotThreadMXBean = Class.forName("com.sun.management.ThreadMXBean");
+            Object threadMXBean = java.lang.management.ManagementFactory.getThreadMXBean();
+
+            if (!hotSpotThreadMXBean.isInstance(threadMXBean)) {
+                return -1;
+            }
+
+            return ((Long) hotSpotThreadMXBean.getMethod("getThreadAllocatedBytes", long.class).invoke(threadMXBean, Thread.currentThread().getId()))
+                    .longValue();
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Tests MetricsProfilerEventHandler: timings of client and server prepared statements must be recorded per statement type and per connection group,
+     * and the figures of closed connections must be kept.
+     * 
+     * @throws Exception
+     */
+    public void testMetricsProfilerEventHandler() throws Exception {
+        createTable("testMetricsProfilerEventHandler", "(id INT)");
+
+        assertEquals(StatementType.SELECT, StatementType.of(" /* comment */ (select 1)"));
+        assertEquals(StatementType.INSERT, StatementType.of("-- comment\nInsert INTO t VALUES (1)"));
+        assertEquals(StatementType.CALL, StatementType.of("{call p()}"));
+        assertEquals(StatementType.OTHER, StatementType.of("SELECTED"));
+        byte[] sqlBytes = StringUtils.getBytes("xxxxx/* c */update t SET a = 1");
+        assertEquals(StatementType.UPDATE, StatementType.of(sqlBytes, 5, sqlBytes.length));
+
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1000, histogram.getMaxMicros());
+        assertEquals(500.5, histogram.getMeanMicros(), 0.001);
+        assertTrue(Math.abs(histogram.getPercentileMicros(50) - 500) <= 500 / 16 + 1);
+        assertTrue(Math.abs(histogram.getPercentileMicros(99) - 990) <= 990 / 16 + 1);
+        assertEquals(1000, histogram.getPercentileMicros(100));
+
+        String group = "testMetricsProfilerEventHandler";
+
+        Properties props = new Properties();
+        props.setProperty("profileSQL", "true");
+        props.setProperty("profilerEventHandler", MetricsProfilerEventHandler.class.getName());
+        props.setProperty("loadBalanceConnectionGroup", group);
+
+        Connection testConn = getConnectionWithProps(props);
+        long connectionId = ((MySQLConnection) testConn).getId();
+
+        Statement testStmt = testConn.createStatement();
+        for (int i = 0; i < 5; i++) {
+            testStmt.executeUpdate("INSERT INTO testMetricsProfilerEventHandler VALUES (" + i + ")");
+        }
+        testStmt.executeQuery("SELECT * FROM testMetricsProfilerEventHandler").close();
+
+        PreparedStatement testPstmt = ((com.mysql.jdbc.Connection) testConn)
+                .serverPrepareStatement("INSERT INTO testMetricsProfilerEventHandler SELECT id + 10 FROM testMetricsProfilerEventHandler WHERE id > ?");
+        for (int i = 0; i < 3; i++) {
+            testPstmt.setInt(1, i);
+            testPstmt.executeUpdate();
+        }
+        testPstmt.close();
+
+        ProfilerMetrics connMetrics = MetricsProfilerEventHandler.getConnectionMetrics(connectionId);
+        assertNotNull(connMetrics);
+        assertEquals(8, connMetrics.getExecuteLatency(StatementType.INSERT).getCount());
+        assertTrue(connMetrics.getExecuteLatency(StatementType.SELECT).getCount() >= 1);
+        assertEquals(1, connMetrics.getPrepareLatency().getCount());
+        assertTrue(connMetrics.getFetchLatency().getCount() >= 9);
+
+        testConn.close();
+
+        assertNull(MetricsProfilerEventHandler.getConnectionMetrics(connectionId));
+        assertTrue(MetricsProfilerEventHandler.getConnectionGroups().contains(group));
+
+        ProfilerMetrics groupMetrics = MetricsProfilerEventHandler.getGroupMetrics(group);
+        assertEquals(8, groupMetrics.getExecuteLatency(StatementType.INSERT).getCount());
+        assertEquals(1, groupMetrics.getPrepareLatency().getCount());
+        assertTrue(MetricsProfilerEventHandler.getGlobalMetrics().getExecuteLatency().getCount() >= groupMetrics.getExecuteLatency().getCount());
+    }
+
+    /**
+     * Records the statements a connection sends, including the ones the driver issues on its own.
+     */
+    public static class RecordingStatementInterceptor extends BaseStatementInterceptor {
+        static final List<String> statements = Collections.synchronizedList(new ArrayList<String>());
+
+        @Override
+        public ResultSetInternalMethods preProcess(String sql, com.mysql.jdbc.Statement interceptedStatement, com.mysql.jdbc.Connection connection)
+                throws SQLException {
+            if (sql == null && interceptedStatement instanceof com.mysql.jdbc.PreparedStatement) {
+                sql = ((com.mysql.jdbc.PreparedStatement) interceptedStatement).asSql();
+            }
+            statements.add(sql);
+            return null;
+        }
+
+        /**
+         * Returns the statements recorded since the last call.
+         */
+        static List<String> drain() {
+            synchronized (statements) {
+                List<String> recorded = new ArrayList<String>(statements);
+                statements.clear();
+                return recorded;
+            }
+        }
+    }
+
+    /**
+     * Tests that with "trackSessionState" the driver skips the statements that wouldn't change the session, going by the state the server reports in its OK
+     * packets, also when the session was changed by statements it didn't issue itself.
+     * 
+     * @throws Exception
+     */
+    public void testTrackSessionState() throws Exception {
+        Properties props = new Properties();
+        props.setProperty("trackSessionState", "true");
+        props.setProperty("statementInterceptors", RecordingStatementInterceptor.class.getName());
+
+        Connection testConn = getConnectionWithProps(props);
+
+        // CLIENT_SESSION_TRACK
+        Field serverCapabilities = MysqlIO.class.getDeclaredField("serverCapabilities");
+        serverCapabilities.setAccessible(true);
+        if ((serverCapabilities.getInt(((MySQLConnection) testConn).getIO()) & 0x00800000) == 0) {
+            testConn.close();
+            return;
+        }
+
+        try {
+            Statement testStmt = testConn.createStatement();
+            RecordingStatementInterceptor.drain();
+
+            // transaction isolation, set behind the driver's back
+            testStmt.execute("SET SESSION TRANSACTION ISOLATION LEVEL SERIALIZABLE");
+            RecordingStatementInterceptor.drain();
+            assertEquals(Connection.TRANSACTION_SERIALIZABLE, testConn.getTransactionIsolation());
+            testConn.setTransactionIsolation(Connection.TRANSACTION_SERIALIZABLE);
+            assertEquals(Collections.emptyList(), RecordingStatementInterceptor.drain());
+
+            testConn.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+            assertEquals(1, RecordingStatementInterceptor.drain().size());
+            assertEquals(Connection.TRANSACTION_READ_COMMITTED, testConn.getTransactionIsolation());
+            assertEquals(Collections.emptyList(), RecordingStatementInterceptor.drain());
+            assertEquals("READ-COMMITTED", getSingleIndexedValueWithQuery(testConn, 1, "SELECT @@session." + getTxIsolationVariableName(testConn)));
+
+            // the default schema, changed by a USE
+            String catalog = testConn.getCatalog();
+            testStmt.execute("USE mysql");
+            RecordingStatementInterceptor.drain();
+            testConn.setCatalog("mysql");
+            assertEquals(Collections.emptyList(), RecordingStatementInterceptor.drain());
+            assertEquals("mysql", testConn.getCatalog());
+
+            testConn.setCatalog(catalog);
+            assertEquals(1, RecordingStatementInterceptor.drain().size());
+            assertEquals(catalog, getSingleIndexedValueWithQuery(testConn, 1, "SELECT DATABASE()"));
+
+            // sql_select_limit, session variables aren't undone by a rollback
+            testConn.setAutoCommit(false);
+            testStmt.execute("SET SESSION sql_select_limit=3");
+            testConn.rollback();
+            RecordingStatementInterceptor.drain();
+            ((com.mysql.jdbc.Connection) testConn).setSessionMaxRows(3);
+            assertEquals(Collections.emptyList(), RecordingStatementInterceptor.drain());
+
+            ((com.mysql.jdbc.Connection) testConn).setSessionMaxRows(-1);
+            assertEquals(1, RecordingStatementInterceptor.drain().size());
+            this.rs = testStmt.executeQuery("SELECT 1 UNION ALL SELECT 2 UNION ALL SELECT 3 UNION ALL SELECT 4");
+            int rowCount = 0;
+            while (this.rs.next()) {
+                rowCount++;
+            }
+            assertEquals(4, rowCount);
+            testConn.rollback();
+            testConn.setAutoCommit(true);
+
+            // the OK packets with session state changes still carry the update counts and the info messages
+            createTable("testTrackSessionState", "(id INT)");
+            assertEquals(3, testStmt.executeUpdate("INSERT INTO testTrackSessionState VALUES (1), (2), (3)"));
+            assertEquals(2, testStmt.executeUpdate("UPDATE testTrackSessionState SET id = id + 10 WHERE id > 1"));
+        } finally {
+            testConn.close();
+        }
+    }
+
+    private static String getTxIsolationVariableName(Connection testConn) throws SQLException {
+        return ((MySQLConnection) testConn).versionMeetsMinimum(8, 0, 3) ? "transaction_isolation" : "tx_isolation";
+    }
+
+    /**
+     * Tests that with "useResetConnection" resetting the session with COM_RESET_CONNECTION restores the settings of the connection, and that the server-side
+     * prepared statements left open still execute.
+     * 
+     * @throws Exception
+     */
+    public void testResetConnection() throws Exception {
+        if (!versionMeetsMinimum(5, 7, 3)) {
+            return;
+        }
+
+        Properties props = new Properties();
+        props.setProperty("useResetConnection", "true");
+        props.setProperty("characterEncoding", "UTF-8");
+        props.setProperty("characterSetResults", "ISO8859_1");
+        props.setProperty("connectionCollation", "utf8_bin");
+        props.setProperty("sessionVariables", "group_concat_max_len=12345,sql_mode='ANSI_QUOTES'");
+        props.setProperty("jdbcCompliantTruncation", "true");
+
+        Connection testConn = getConnectionWithProps(props);
+
+        try {
+            String txReadOnlyVariable = ((MySQLConnection) testConn).versionMeetsMinimum(8, 0, 3) ? "transaction_read_only" : "tx_read_only";
+            String sessionQuery = "SELECT @@character_set_client, @@character_set_connection, @@character_set_results, @@collation_connection,"
+                    + " @@group_concat_max_len, @@sql_mode, @@autocommit, @@" + getTxIsolationVariableName(testConn) + ", @@" + txReadOnlyVariable;
+
+            testConn.setAutoCommit(false);
+            testConn.setTransactionIsolation(Connection.TRANSACTION_SERIALIZABLE);
+            testConn.setReadOnly(true);
+
+            PreparedStatement testPstmt = ((com.mysql.jdbc.Connection) testConn).serverPrepareStatement("SELECT ? + 1");
+            testPstmt.setInt(1, 1);
+            this.rs = testPstmt.executeQuery();
+            assertTrue(this.rs.next());
+            assertEquals(2, this.rs.getInt(1));
+
+            Statement testStmt = testConn.createStatement();
+            testStmt.execute("SET @testResetConnection = 1");
+            List<String> expected = getRowAsStrings(testStmt.executeQuery(sessionQuery));
+            assertEquals("1", expected.get(8));
+            testConn.rollback();
+
+            ((MySQLConnection) testConn).resetServerState();
+
+            // the user variable went away with the session
+            assertNull(getSingleIndexedValueWithQuery(testConn, 1, "SELECT @testResetConnection"));
+            assertEquals(expected, getRowAsStrings(testStmt.executeQuery(sessionQuery)));
+            assertFalse(testConn.getAutoCommit());
+            assertEquals(Connection.TRANSACTION_SERIALIZABLE, testConn.getTransactionIsolation());
+            assertTrue(testConn.isReadOnly());
+
+            testPstmt.setInt(1, 41);
+            this.rs = testPstmt.executeQuery();
+            assertTrue(this.rs.next());
+            assertEquals(42, this.rs.getInt(1));
+            testConn.rollback();
+        } finally {
+            testConn.close();
+        }
+    }
+
+    /**
+     * Tests that connections bootstrapped with "useFastBootstrap" end up with the same session as the ones bootstrapped statement by statement.
+     * 
+     * @throws Exception
+     */
+    public void testFastBootstrap() throws Exception {
+        String txIsolationVariable = getTxIsolationVariableName(this.conn);
+        // values that differ from one session to the next anyway
+        List<String> perSessionVariables = Arrays.asList("pseudo_thread_id", "timestamp", "rand_seed1", "rand_seed2");
+
+        for (String cacheServerConfiguration : new String[] { "false", "true" }) {
+            for (String[] encodings : new String[][] { { "UTF-8", "ISO8859_1" }, { "Cp1252", "null" }, { "ISO8859_1", "UTF-8" } }) {
+                Properties props = new Properties();
+                props.setProperty("cacheServerConfiguration", cacheServerConfiguration);
+                props.setProperty("characterEncoding", encodings[0]);
+                props.setProperty("characterSetResults", encodings[1]);
+                props.setProperty("sessionVariables", "group_concat_max_len=4321,autocommit=0," + txIsolationVariable + "='SERIALIZABLE'");
+
+                List<String> sessions = new ArrayList<String>();
+                List<String> states = new ArrayList<String>();
+
+                for (String useFastBootstrap : new String[] { "false", "true" }) {
+                    String testCase = "cacheServerConfiguration=" + cacheServerConfiguration + ", characterEncoding=" + encodings[0]
+                            + ", characterSetResults=" + encodings[1] + ", useFastBootstrap=" + useFastBootstrap;
+                    props.setProperty("useFastBootstrap", useFastBootstrap);
+
+                    Connection testConn = getConnectionWithProps(props);
+
+                    try {
+                        StringBuilder session = new StringBuilder();
+                        this.rs = testConn.createStatement().executeQuery("SHOW SESSION VARIABLES");
+                        while (this.rs.next()) {
+                            if (!perSessionVariables.contains(this.rs.getString(1).toLowerCase())) {
+                                session.append(this.rs.getString(1)).append('=').append(this.rs.getString(2)).append('\n');
+                            }
+                        }
+                        sessions.add(session.toString());
+
+                        assertEquals(testCase, "4321", getSingleIndexedValueWithQuery(testConn, 1, "SELECT @@group_concat_max_len").toString());
+                        states.add(testConn.getAutoCommit() + "/" + testConn.getTransactionIsolation() + "/" + ((MySQLConnection) testConn).getEncoding());
+                    } finally {
+                        testConn.close();
+                    }
+                }
+
+                assertEquals(sessions.get(0), sessions.get(1));
+                assertEquals(states.get(0), states.get(1));
+            }
+        }
+    }
+
+    private static List<String> getRowAsStrings(ResultSet row) throws SQLException {
+        assertTrue(row.next());
+        List<String> values = new ArrayList<String>();
+        for (int i = 1; i <= row.getMetaData().getColumnCount(); i++) {
+            values.add(row.getString(i));
+        }
+        row.close();
+        return values;
+    }
 }
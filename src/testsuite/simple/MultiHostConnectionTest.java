@@ -29,13 +29,16 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.Callable;
 
+import com.mysql.jdbc.MySQLConnection;
 import com.mysql.jdbc.NonRegisteringDriver;
 
 import testsuite.BaseTestCase;
+import testsuite.FakeMySQLServer;
 import testsuite.UnreliableSocketFactory;
 
 public class MultiHostConnectionTest extends BaseTestCase {
@@ -1360,4 +1363,136 @@ public class MultiHostConnectionTest extends BaseTestCase {
 
         this.conn.close();
     }
+
+    /**
+     * Waits up to 10 seconds for the number of client connections of a server stub to reach the given value.
+     */
+    private static void waitForClientCount(FakeMySQLServer server, int expected) throws Exception {
+        for (int i = 0; i < 100 && server.getClientCount() != expected; i++) {
+            Thread.sleep(100);
+        }
+        assertEquals(expected, server.getClientCount());
+    }
+
+    /**
+     * Tests that failover and load-balanced connections with "parallelHostConnect" use the host that connects first, and close the connections the other
+     * hosts establish afterwards.
+     */
+    public void testParallelHostConnect() throws Exception {
+        FakeMySQLServer slowServer = new FakeMySQLServer();
+        FakeMySQLServer fastServer = new FakeMySQLServer();
+        slowServer.setHandshakeDelayMillis(2000);
+
+        try {
+            slowServer.start();
+            fastServer.start();
+
+            String hosts = "127.0.0.1:" + slowServer.getPort() + ",127.0.0.1:" + fastServer.getPort();
+            Properties props = new Properties();
+            props.setProperty("user", "user");
+            props.setProperty("password", "password");
+            props.setProperty("parallelHostConnect", "true");
+            props.setProperty("parallelHostConnectDelay", "100");
+
+            for (String haMode : new String[] { "", "loadbalance:" }) {
+                long start = System.currentTimeMillis();
+                Connection testConn = getConnectionWithProps("jdbc:mysql:" + haMode + "//" + hosts + "/test?" + FakeMySQLServer.DEFAULT_URL_PROPERTIES, props);
+                long elapsed = System.currentTimeMillis() - start;
+
+                assertEquals(haMode, "127.0.0.1:" + fastServer.getPort(), ((MySQLConnection) testConn).getHostPortPair());
+                assertTrue(haMode + elapsed, elapsed < 2000);
+                assertSingleValueQuery(testConn.createStatement(), "SELECT 1", 1L);
+
+                // the connection to the slow host, if it was tried before the fast one answered, is closed once it is established; load balancing
+                // may well have picked the fast host first
+                assertTrue(haMode, slowServer.getClientCount() <= 1);
+                waitForClientCount(slowServer, 0);
+                assertEquals(haMode, 1, fastServer.getClientCount());
+
+                testConn.close();
+                waitForClientCount(fastServer, 0);
+            }
+        } finally {
+            slowServer.stop();
+            fastServer.stop();
+        }
+    }
+
+    /**
+     * Tests that failover and load-balanced connections with "parallelHostConnect" try each host as many times as "retriesAllDown" says when all of them are
+     * down.
+     */
+    public void testParallelHostConnectRetriesAllDown() throws Exception {
+        Properties props = new Properties();
+        props.setProperty("parallelHostConnect", "true");
+        props.setProperty("connectTimeout", "10");
+        props.setProperty("retriesAllDown", "3");
+
+        final Set<String> downedHosts = new HashSet<String>(Arrays.asList(HOST_1, HOST_2));
+
+        for (final String haMode : new String[] { null, "loadbalance" }) {
+            final Properties testProps = new Properties();
+            testProps.putAll(props);
+
+            assertThrows(SQLException.class, COMM_LINK_ERR_PATTERN, new Callable<Void>() {
+                @SuppressWarnings("synthetic-access")
+                public Void call() throws Exception {
+                    getUnreliableMultiHostConnection(haMode, new String[] { HOST_1, HOST_2 }, testProps, downedHosts);
+                    return null;
+                }
+            });
+
+            List<String> attempts = UnreliableSocketFactory.getHostsFromAllConnections();
+            assertEquals(haMode + attempts, 6, attempts.size());
+            int host1Attempts = 0;
+            for (String attempt : attempts) {
+                if (attempt.equals(HOST_1_FAIL)) {
+                    host1Attempts++;
+                } else {
+                    assertEquals(HOST_2_FAIL, attempt);
+                }
+            }
+            assertEquals(haMode + attempts, 3, host1Attempts);
+        }
+    }
+
+    /**
+     * Tests that a load-balanced connection keeps "loadBalancePrewarmConnections" spare connections per host, refills them as they are taken into use, and
+     * pings them before handing them out so that the ones the server dropped are not used.
+     */
+    public void testLoadBalancePrewarmConnections() throws Exception {
+        FakeMySQLServer server = new FakeMySQLServer();
+
+        try {
+            server.start();
+
+            Properties props = new Properties();
+            props.setProperty("user", "user");
+            props.setProperty("password", "password");
+            props.setProperty("loadBalancePrewarmConnections", "2");
+            props.setProperty("loadBalancePrewarmValidateAfter", "0");
+            props.setProperty("autoReconnect", "true");
+
+            Connection testConn = getConnectionWithProps("jdbc:mysql:loadbalance://127.0.0.1:" + server.getPort() + "/test?"
+                    + FakeMySQLServer.DEFAULT_URL_PROPERTIES, props);
+            assertSingleValueQuery(testConn.createStatement(), "SELECT 1", 1L);
+
+            // the connection in use and two spares
+            waitForClientCount(server, 3);
+
+            // the server drops all of them, the connection in use fails and the dead spares are not handed out when reconnecting
+            server.disconnectClients();
+            assertSQLException(testConn.createStatement(), "SELECT 1", COMM_LINK_ERR_PATTERN);
+            assertSingleValueQuery(testConn.createStatement(), "SELECT 1", 1L);
+
+            // a new connection in use, and the spares established again
+            waitForClientCount(server, 3);
+            assertSingleValueQuery(testConn.createStatement(), "SELECT 1", 1L);
+
+            testConn.close();
+            waitForClientCount(server, 0);
+        } finally {
+            server.stop();
+        }
+    }
 }
\ No newline at end of file
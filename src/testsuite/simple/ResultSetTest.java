@@ -24,15 +24,21 @@
 package testsuite.simple;
 
 import java.io.UnsupportedEncodingException;
+import java.math.BigDecimal;
 import java.sql.Connection;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Properties;
 
 import com.mysql.jdbc.CharsetMapping;
+import com.mysql.jdbc.ColumnBatch;
 import com.mysql.jdbc.ConnectionImpl;
+import com.mysql.jdbc.ResultSetInternalMethods;
+import com.mysql.jdbc.SQLError;
 
 import testsuite.BaseTestCase;
 
@@ -250,4 +256,339 @@ public class ResultSetTest extends BaseTestCase {
             }
         }
     }
+
+    /**
+     * Tests the case-insensitive column index used by findColumn() on a wide result set: first match wins, labels before original names before
+     * "table.column" names, and the index shared through cached result set metadata gives the same answers.
+     * 
+     * @throws Exception
+     */
+    public void testFindColumn() throws Exception {
+        final int numCols = 120;
+
+        StringBuilder columns = new StringBuilder("(c0 INT");
+        StringBuilder values = new StringBuilder("(0");
+        StringBuilder select = new StringBuilder("SELECT t.c0 AS Dup, t.c1 AS dUP, t.c2 AS \u00c4rger");
+        for (int i = 1; i < numCols; i++) {
+            columns.append(", c").append(i).append(" INT");
+            values.append(", ").append(i);
+            if (i > 2) {
+                select.append(", t.c").append(i);
+            }
+        }
+        columns.append(")");
+        values.append(")");
+        select.append(" FROM testFindColumn t");
+
+        createTable("testFindColumn", columns.toString());
+        this.stmt.executeUpdate("INSERT INTO testFindColumn VALUES " + values.toString());
+
+        for (String cacheResultSetMetadata : new String[] { "false", "true" }) {
+            for (String useColumnNames : new String[] { "false", "true" }) {
+                Properties props = new Properties();
+                props.setProperty("cacheResultSetMetadata", cacheResultSetMetadata);
+                props.setProperty("useColumnNamesInFindColumn", useColumnNames);
+                props.setProperty("characterEncoding", "UTF-8");
+                Connection testConn = getConnectionWithProps(props);
+
+                for (int run = 0; run < 2; run++) {
+                    String testCase = "Case [cacheResultSetMetadata=" + cacheResultSetMetadata + ", useColumnNamesInFindColumn=" + useColumnNames + ", run="
+                            + run + "]";
+
+                    this.rs = testConn.createStatement().executeQuery(select.toString());
+                    assertTrue(testCase, this.rs.next());
+
+                    assertEquals(testCase, 1, this.rs.findColumn("dup"));
+                    assertEquals(testCase, 1, this.rs.findColumn("DUP"));
+                    assertEquals(testCase, 3, this.rs.findColumn("\u00e4RGER"));
+                    assertEquals(testCase, 2, this.rs.getInt("\u00c4rger"));
+                    for (int i = 3; i < numCols; i++) {
+                        assertEquals(testCase, i + 1, this.rs.findColumn("c" + i));
+                        assertEquals(testCase, i + 1, this.rs.findColumn("C" + i));
+                        assertEquals(testCase, i + 1, this.rs.findColumn("T.c" + i));
+                        assertEquals(testCase, i, this.rs.getInt("c" + i));
+                    }
+
+                    if ("true".equals(useColumnNames)) {
+                        assertEquals(testCase, 2, this.rs.findColumn("c1"));
+                    } else {
+                        try {
+                            this.rs.findColumn("c1");
+                            fail(testCase + ": column 'c1' should not be found by its original name.");
+                        } catch (SQLException e) {
+                            // expected
+                        }
+                    }
+
+                    try {
+                        this.rs.findColumn("c" + numCols);
+                        fail(testCase + ": column 'c" + numCols + "' doesn't exist.");
+                    } catch (SQLException e) {
+                        // expected
+                    }
+                }
+
+                testConn.close();
+            }
+        }
+    }
+
+    /**
+     * Tests that "useFastDecimalParsing" returns the same values as the String based conversions, for both buffered and streamed rows.
+     * 
+     * @throws Exception
+     */
+    public void testFastDecimalParsing() throws Exception {
+        createTable("testFastDecimalParsing", "(id INT NOT NULL PRIMARY KEY, d DECIMAL(40,10), dbl DOUBLE, f FLOAT, i BIGINT, s VARCHAR(30))");
+        this.stmt.executeUpdate("INSERT INTO testFastDecimalParsing VALUES (1, 0, 0, 0, 0, '0'), (2, -1234.5678, -1234.5678, -1234.56, -1234, '-1234.5678'),"
+                + " (3, 123456789012345678901234567890.0123456789, 0.1428571428571428, 3.14159, 9223372036854775807, '1e10'),"
+                + " (4, NULL, NULL, NULL, NULL, NULL), (5, 0.0000000001, 1.7976931348623157E308, 3.40282e38, -9223372036854775808, 'abc'),"
+                + " (6, 1, 2.2250738585072014E-308, 1.17549e-38, 1, '')");
+
+        for (String useCursorFetch : new String[] { "false", "true" }) {
+            // both connections read the rows the same way, only the parsing differs
+            Properties props = new Properties();
+            props.setProperty("useCursorFetch", useCursorFetch);
+            props.setProperty("defaultFetchSize", "2");
+
+            props.setProperty("useFastDecimalParsing", "false");
+            Connection stringConn = getConnectionWithProps(props);
+
+            props.setProperty("useFastDecimalParsing", "true");
+            Connection fastConn = getConnectionWithProps(props);
+
+            try {
+                ResultSet expected = stringConn.createStatement().executeQuery("SELECT * FROM testFastDecimalParsing ORDER BY id");
+                ResultSet actual = fastConn.createStatement().executeQuery("SELECT * FROM testFastDecimalParsing ORDER BY id");
+
+                while (expected.next()) {
+                    assertTrue(actual.next());
+
+                    for (int i = 2; i <= 5; i++) {
+                        BigDecimal bd = expected.getBigDecimal(i);
+                        assertEquals(bd, actual.getBigDecimal(i));
+                        assertEquals(expected.wasNull(), actual.wasNull());
+                        assertEquals(expected.getObject(i), actual.getObject(i));
+                        assertEquals(Double.valueOf(expected.getDouble(i)), Double.valueOf(actual.getDouble(i)));
+                        Float expectedFloat;
+                        try {
+                            expectedFloat = Float.valueOf(expected.getFloat(i));
+                        } catch (SQLException e) {
+                            // out of range for a FLOAT, the fast path must reject it too
+                            try {
+                                actual.getFloat(i);
+                                fail("Column " + i + " should be outside the FLOAT range: " + expected.getString(i));
+                            } catch (SQLException ex) {
+                                assertEquals(e.getSQLState(), ex.getSQLState());
+                            }
+                            continue;
+                        }
+                        assertEquals(expectedFloat, Float.valueOf(actual.getFloat(i)));
+                        assertEquals(expected.wasNull(), actual.wasNull());
+                    }
+
+                    // not a numeric column, always converted as a String
+                    try {
+                        assertEquals(expected.getBigDecimal(6), actual.getBigDecimal(6));
+                    } catch (SQLException e) {
+                        assertEquals("abc", expected.getString(6));
+                    }
+                }
+                assertFalse(actual.next());
+            } finally {
+                stringConn.close();
+                fastConn.close();
+            }
+        }
+    }
+
+    /**
+     * Tests that ResultSetInternalMethods.fetchColumnBatch() returns the same values as the getters, for both buffered and streamed rows.
+     * 
+     * @throws Exception
+     */
+    public void testColumnBatch() throws Exception {
+        createTable("testColumnBatch", "(id INT NOT NULL PRIMARY KEY, i BIGINT, d DECIMAL(20,4), dbl DOUBLE, s VARCHAR(30), b BLOB, y YEAR)");
+        StringBuilder values = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            values.append(i == 0 ? "" : ",").append("(").append(i).append(",");
+            values.append(i % 7 == 0 ? "NULL" : String.valueOf((i - 500) * 12345678901L)).append(",");
+            values.append(i % 11 == 0 ? "NULL" : (i - 500) + ".0625").append(",");
+            values.append(i % 13 == 0 ? "NULL" : String.valueOf(i / 7.0)).append(",");
+            values.append(i % 5 == 0 ? "NULL" : i % 5 == 1 ? "''" : "'row \u00e9 " + i + "'").append(",");
+            values.append(i % 3 == 0 ? "NULL" : "REPEAT('x', " + (i % 100) + ")").append(",");
+            values.append(1901 + i % 255).append(")");
+        }
+        this.stmt.executeUpdate("INSERT INTO testColumnBatch VALUES " + values);
+
+        Properties props = new Properties();
+        props.setProperty("characterEncoding", "UTF-8");
+        Connection expectedConn = getConnectionWithProps(props);
+        Connection batchConn = getConnectionWithProps(props);
+
+        try {
+            for (int fetchSize : new int[] { 0, Integer.MIN_VALUE }) {
+                for (int capacity : new int[] { 1, 64, 999, 2000 }) {
+                    ResultSet expected = expectedConn.createStatement().executeQuery("SELECT * FROM testColumnBatch ORDER BY id");
+                    Statement batchStmt = batchConn.createStatement();
+                    batchStmt.setFetchSize(fetchSize);
+                    ResultSetInternalMethods actual = (ResultSetInternalMethods) batchStmt.executeQuery("SELECT * FROM testColumnBatch ORDER BY id");
+
+                    ColumnBatch batch = new ColumnBatch(7, capacity);
+                    batch.setLongVector(1, new long[capacity]);
+                    batch.setLongVector(2, new long[capacity]);
+                    batch.setDoubleVector(3, new double[capacity]);
+                    batch.setDoubleVector(4, new double[capacity]);
+                    batch.setBytesVector(5, new int[capacity + 1], new byte[1]);
+                    batch.setBytesVector(6, new int[capacity + 1], new byte[0]);
+                    batch.setLongVector(7, new long[capacity]);
+
+                    int rows = 0;
+                    int rowCount;
+                    while ((rowCount = actual.fetchColumnBatch(batch)) > 0) {
+                        assertEquals(rowCount, batch.getRowCount());
+
+                        for (int row = 0; row < rowCount; row++) {
+                            assertTrue(expected.next());
+
+                            for (int i = 1; i <= 7; i++) {
+                                switch (i) {
+                                    case 3:
+                                    case 4:
+                                        assertEquals(expected.getDouble(i), batch.getDoubleVector(i)[row], 0);
+                                        break;
+                                    case 5:
+                                    case 6:
+                                        byte[] bytes = expected.getBytes(i);
+                                        int[] offsets = batch.getBytesOffsets(i);
+                                        assertEquals(bytes == null ? 0 : bytes.length, offsets[row + 1] - offsets[row]);
+                                        for (int j = 0; bytes != null && j < bytes.length; j++) {
+                                            assertEquals(bytes[j], batch.getBytesData(i)[offsets[row] + j]);
+                                        }
+                                        break;
+                                    default:
+                                        assertEquals(expected.getLong(i), batch.getLongVector(i)[row]);
+                                }
+                                assertEquals(expected.wasNull(), batch.isNull(i, row));
+                            }
+                        }
+                        rows += rowCount;
+
+                        if (rowCount == capacity) {
+                            // positioned on the last row fetched
+                            assertEquals(expected.getInt(1), actual.getInt(1));
+                        }
+                    }
+                    assertEquals(1000, rows);
+                    assertFalse(expected.next());
+                    assertTrue(actual.isAfterLast());
+
+                    batchStmt.close();
+                }
+            }
+
+            try {
+                ((ResultSetInternalMethods) batchConn.createStatement().executeQuery("SELECT 1")).fetchColumnBatch(new ColumnBatch(2, 1));
+                fail("A batch with the wrong column count should be rejected");
+            } catch (SQLException e) {
+                assertEquals(SQLError.SQL_STATE_ILLEGAL_ARGUMENT, e.getSQLState());
+            }
+        } finally {
+            expectedConn.close();
+            batchConn.close();
+        }
+    }
+
+    /**
+     * Tests that result sets going over their memory budget return the same rows, scrolling included, with the rows over it spilled to disk.
+     * 
+     * @throws Exception
+     */
+    public void testResultSetMemoryBudget() throws Exception {
+        createTable("testResultSetMemoryBudget", "(id INT NOT NULL PRIMARY KEY, s VARCHAR(100), d DOUBLE, b BLOB)");
+        StringBuilder values = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            values.append(i == 0 ? "" : ",").append("(").append(i).append(",");
+            values.append(i % 7 == 0 ? "NULL" : "'row " + i + "'").append(",");
+            values.append(i / 7.0).append(",");
+            values.append(i % 3 == 0 ? "NULL" : "REPEAT('x', " + (i % 50) + ")").append(")");
+        }
+        this.stmt.executeUpdate("INSERT INTO testResultSetMemoryBudget VALUES " + values);
+
+        Properties props = new Properties();
+        props.setProperty("useServerPrepStmts", "true");
+        Connection budgetConn = getConnectionWithProps(props);
+
+        try {
+            for (int maxRows : new int[] { 0, 1, 500 }) {
+                for (boolean serverPrepStmt : new boolean[] { false, true }) {
+                    String expected = null;
+
+                    for (int budget : new int[] { 0, 1, 4096, 1000000 }) {
+                        Statement budgetStmt = serverPrepStmt
+                                ? budgetConn.prepareStatement("SELECT * FROM testResultSetMemoryBudget ORDER BY id", ResultSet.TYPE_SCROLL_INSENSITIVE,
+                                        ResultSet.CONCUR_READ_ONLY)
+                                : budgetConn.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
+                        ((com.mysql.jdbc.Statement) budgetStmt).setResultSetMemoryBudget(budget);
+                        budgetStmt.setMaxRows(maxRows);
+
+                        this.rs = serverPrepStmt ? ((java.sql.PreparedStatement) budgetStmt).executeQuery()
+                                : budgetStmt.executeQuery("SELECT * FROM testResultSetMemoryBudget ORDER BY id");
+
+                        StringBuilder rows = new StringBuilder();
+                        while (this.rs.next()) {
+                            rows.append(this.rs.getInt(1)).append(this.rs.getString(2)).append(this.rs.getDouble(3)).append(this.rs.getString(4));
+                        }
+                        while (this.rs.previous()) {
+                            rows.append(this.rs.getInt(1));
+                        }
+                        assertTrue(this.rs.last());
+                        rows.append(this.rs.getRow()).append(this.rs.getString(2));
+                        assertTrue(this.rs.absolute(1));
+                        rows.append(this.rs.getString(2));
+
+                        long peakBufferedBytes = ((ResultSetInternalMethods) this.rs).getPeakBufferedBytes();
+                        if (budget == 0) {
+                            expected = rows.toString();
+                            assertEquals(((ResultSetInternalMethods) this.rs).getBytesSize(), peakBufferedBytes);
+                        } else {
+                            assertEquals(expected, rows.toString());
+                            // the row going over the budget is kept in memory
+                            assertTrue(peakBufferedBytes <= budget + 100);
+                        }
+
+                        this.rs.close();
+                        budgetStmt.close();
+                    }
+                }
+            }
+
+            try {
+                ((com.mysql.jdbc.Statement) budgetConn.createStatement()).setResultSetMemoryBudget(-1);
+                fail("A negative budget should be rejected");
+            } catch (SQLException e) {
+                assertEquals(SQLError.SQL_STATE_ILLEGAL_ARGUMENT, e.getSQLState());
+            }
+        } finally {
+            budgetConn.close();
+        }
+
+        props.setProperty("resultSetMemoryBudget", "1k");
+        budgetConn = getConnectionWithProps(props);
+
+        try {
+            Statement budgetStmt = budgetConn.createStatement();
+            assertEquals(1024, ((com.mysql.jdbc.Statement) budgetStmt).getResultSetMemoryBudget());
+
+            this.rs = budgetStmt.executeQuery("SELECT * FROM testResultSetMemoryBudget ORDER BY id");
+            int count = 0;
+            while (this.rs.next()) {
+                assertEquals(count++, this.rs.getInt(1));
+            }
+            assertEquals(1000, count);
+            assertTrue(((ResultSetInternalMethods) this.rs).getPeakBufferedBytes() <= 1024 + 100);
+        } finally {
+            budgetConn.close();
+        }
+    }
 }
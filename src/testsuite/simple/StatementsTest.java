@@ -26,6 +26,9 @@ package testsuite.simple;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.CharArrayReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.InputStream;
 import java.io.Reader;
 import java.io.StringReader;
@@ -33,6 +36,7 @@ import java.math.BigDecimal;
 import java.sql.BatchUpdateException;
 import java.sql.CallableStatement;
 import java.sql.Connection;
+import java.sql.DataTruncation;
 import java.sql.Date;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -42,11 +46,17 @@ import java.sql.Time;
 import java.sql.Timestamp;
 import java.sql.Types;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Locale;
 import java.util.Properties;
 
 import com.mysql.jdbc.CharsetMapping;
+import com.mysql.jdbc.LocalInfileRowChannel;
 import com.mysql.jdbc.MySQLConnection;
+import com.mysql.jdbc.NonRegisteringDriver;
 import com.mysql.jdbc.NotImplemented;
 import com.mysql.jdbc.ParameterBindings;
 import com.mysql.jdbc.SQLError;
@@ -733,6 +743,58 @@ public class StatementsTest extends BaseTestCase {
         }
     }
 
+    /**
+     * Tests query timeouts handled by the shared timer: timeouts that don't fire are cancelled and their handles re-used, and consecutive timeouts on
+     * different statements and connections all get their queries killed.
+     * 
+     * @throws Exception
+     */
+    public void testSharedQueryTimeoutTimer() throws Exception {
+        Connection timeoutConn1 = getConnectionWithProps((String) null);
+        Connection timeoutConn2 = getConnectionWithProps("useServerPrepStmts=true");
+
+        try {
+            Statement timeoutStmt = timeoutConn1.createStatement();
+            timeoutStmt.setQueryTimeout(5);
+            PreparedStatement timeoutPstmt = timeoutConn2.prepareStatement("SELECT ?");
+            timeoutPstmt.setQueryTimeout(5);
+
+            // none of these should time out
+            for (int i = 0; i < 500; i++) {
+                this.rs = timeoutStmt.executeQuery("SELECT " + i);
+                assertTrue(this.rs.next());
+                assertEquals(i, this.rs.getInt(1));
+
+                timeoutPstmt.setInt(1, i);
+                this.rs = timeoutPstmt.executeQuery();
+                assertTrue(this.rs.next());
+                assertEquals(i, this.rs.getInt(1));
+            }
+
+            Statement[] sleepers = new Statement[] { timeoutConn1.createStatement(), timeoutConn2.createStatement(), timeoutConn1.createStatement() };
+            for (int i = 0; i < sleepers.length; i++) {
+                sleepers[i].setQueryTimeout(1);
+
+                long begin = System.currentTimeMillis();
+                try {
+                    sleepers[i].executeQuery("SELECT SLEEP(30)");
+                    fail("Query should have timed out.");
+                } catch (MySQLTimeoutException e) {
+                    // expected
+                }
+                assertTrue("Probably wasn't actually cancelled", System.currentTimeMillis() - begin < 30000);
+
+                // the connection is still usable, and so is the statement
+                sleepers[i].setQueryTimeout(0);
+                this.rs = sleepers[i].executeQuery("SELECT 1");
+                assertTrue(this.rs.next());
+            }
+        } finally {
+            timeoutConn1.close();
+            timeoutConn2.close();
+        }
+    }
+
     public void testClose() throws SQLException {
         Statement closeStmt = null;
         boolean exceptionAfterClosed = false;
@@ -1113,6 +1175,91 @@ public class StatementsTest extends BaseTestCase {
         }
     }
 
+    /**
+     * Tests that rows read through a cursor are the same with prefetchCursorRows, when other statements and cursors use the connection between fetches.
+     * 
+     * @throws Exception
+     */
+    public void testCursorPrefetch() throws Exception {
+        createTable("testCursorPrefetch", "(id INT NOT NULL PRIMARY KEY, s VARCHAR(30))");
+        StringBuilder values = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            values.append(i == 0 ? "" : ",").append("(").append(i).append(", 'row ").append(i).append("')");
+        }
+        this.stmt.executeUpdate("INSERT INTO testCursorPrefetch VALUES " + values);
+
+        for (String watermark : new String[] { "0", "50", "100" }) {
+            for (int fetchSize : new int[] { 1, 7, 100, 500, 1000 }) {
+                Properties props = new Properties();
+                props.setProperty("useCursorFetch", "true");
+                props.setProperty("prefetchCursorRows", "true");
+                props.setProperty("cursorPrefetchWatermark", watermark);
+                Connection prefetchConn = getConnectionWithProps(props);
+
+                try {
+                    PreparedStatement fetchStmt = prefetchConn.prepareStatement("SELECT id, s FROM testCursorPrefetch ORDER BY id");
+                    fetchStmt.setFetchSize(fetchSize);
+                    PreparedStatement otherFetchStmt = prefetchConn.prepareStatement("SELECT id FROM testCursorPrefetch ORDER BY id DESC");
+                    otherFetchStmt.setFetchSize(3);
+                    Statement otherStmt = prefetchConn.createStatement();
+
+                    ResultSet fetchRs = fetchStmt.executeQuery();
+                    ResultSet otherFetchRs = otherFetchStmt.executeQuery();
+
+                    for (int i = 0; i < 500; i++) {
+                        assertTrue(fetchRs.next());
+                        assertEquals(i, fetchRs.getInt(1));
+                        assertEquals("row " + i, fetchRs.getString(2));
+
+                        if (i % 13 == 0) {
+                            this.rs = otherStmt.executeQuery("SELECT COUNT(*) FROM testCursorPrefetch WHERE id <= " + i);
+                            assertTrue(this.rs.next());
+                            assertEquals(i + 1, this.rs.getInt(1));
+
+                            assertTrue(otherFetchRs.next());
+                            assertEquals(499 - i / 13, otherFetchRs.getInt(1));
+                        }
+                    }
+                    assertFalse(fetchRs.next());
+
+                    // closed with a block requested ahead
+                    fetchRs = fetchStmt.executeQuery();
+                    for (int i = 0; i < 250; i++) {
+                        assertTrue(fetchRs.next());
+                    }
+                    fetchRs.close();
+
+                    this.rs = otherStmt.executeQuery("SELECT COUNT(*) FROM testCursorPrefetch");
+                    assertTrue(this.rs.next());
+                    assertEquals(500, this.rs.getInt(1));
+
+                    // user changed with a block requested ahead
+                    fetchRs = fetchStmt.executeQuery();
+                    for (int i = 0; i < 250; i++) {
+                        assertTrue(fetchRs.next());
+                    }
+                    Properties userProps = getPropertiesFromTestsuiteUrl();
+                    ((MySQLConnection) prefetchConn).changeUser(userProps.getProperty(NonRegisteringDriver.USER_PROPERTY_KEY),
+                            userProps.getProperty(NonRegisteringDriver.PASSWORD_PROPERTY_KEY));
+
+                    this.rs = prefetchConn.createStatement().executeQuery("SELECT COUNT(*) FROM testCursorPrefetch");
+                    assertTrue(this.rs.next());
+                    assertEquals(500, this.rs.getInt(1));
+
+                    // connection closed with a block requested ahead
+                    fetchStmt = prefetchConn.prepareStatement("SELECT id, s FROM testCursorPrefetch ORDER BY id");
+                    fetchStmt.setFetchSize(fetchSize);
+                    fetchRs = fetchStmt.executeQuery();
+                    for (int i = 0; i < 250; i++) {
+                        assertTrue(fetchRs.next());
+                    }
+                } finally {
+                    prefetchConn.close();
+                }
+            }
+        }
+    }
+
     public void testSelectColumns() throws SQLException {
         for (int i = 6; i < MAX_COLUMNS_TO_TEST; i += STEP) {
             long start = System.currentTimeMillis();
@@ -1775,4 +1922,381 @@ public class StatementsTest extends BaseTestCase {
             ((com.mysql.jdbc.Statement) this.stmt).setLocalInfileInputStream(null);
         }
     }
+
+    /**
+     * Tests LOAD DATA LOCAL INFILE from a channel set with setLocalInfileChannel(), encoding rows with LocalInfileRowChannel.
+     */
+    public void testLocalInfileChannel() throws Exception {
+        createTable("localInfileChannel", "(field1 INT, field2 VARCHAR(255), field3 VARCHAR(255), field4 TINYINT, field5 VARBINARY(16)) DEFAULT CHARSET=utf8");
+        Connection testConn = getConnectionWithProps("characterEncoding=UTF-8");
+        String mysqlCharset = CharsetMapping.getMysqlCharsetForJavaEncoding("UTF-8", (com.mysql.jdbc.Connection) testConn);
+        String loadData = "LOAD DATA LOCAL INFILE 'bogusFileName' INTO TABLE localInfileChannel CHARACTER SET " + mysqlCharset;
+
+        List<Object[]> rows = new ArrayList<Object[]>();
+        for (int i = 0; i < 10000; i++) {
+            rows.add(new Object[] { i, "row\t" + i + "\n\"quoted\", back\\slash, tab\t", i % 2 == 0 ? null : "\u00e9t\u00e9 \u2713", i % 3 == 0,
+                    new byte[] { 0, '\t', '\n', '\\', (byte) 0xff } });
+        }
+
+        com.mysql.jdbc.Statement testStmt = (com.mysql.jdbc.Statement) testConn.createStatement();
+
+        for (String fieldsClause : new String[] { "", " FIELDS TERMINATED BY ',' OPTIONALLY ENCLOSED BY '\"'" }) {
+            testStmt.executeUpdate("TRUNCATE TABLE localInfileChannel");
+
+            try {
+                testStmt.setLocalInfileChannel(new LocalInfileRowChannel(rows.iterator(), "UTF-8", fieldsClause.length() == 0 ? '\t' : ','));
+                assertEquals(rows.size(), testStmt.executeUpdate(loadData + fieldsClause));
+            } finally {
+                testStmt.setLocalInfileChannel(null);
+            }
+
+            this.rs = testStmt.executeQuery("SELECT * FROM localInfileChannel ORDER BY field1");
+            for (Object[] row : rows) {
+                assertTrue(this.rs.next());
+                assertEquals(row[0], this.rs.getInt(1));
+                assertEquals(row[1], this.rs.getString(2));
+                assertEquals(row[2], this.rs.getString(3));
+                assertEquals(row[3], this.rs.getBoolean(4));
+                assertTrue(Arrays.equals((byte[]) row[4], this.rs.getBytes(5)));
+            }
+            assertFalse(this.rs.next());
+        }
+
+        // a channel takes precedence over a stream
+        testStmt.executeUpdate("TRUNCATE TABLE localInfileChannel");
+        File testFile = File.createTempFile("testLocalInfileChannel", ".txt");
+        testFile.deleteOnExit();
+        FileOutputStream out = new FileOutputStream(testFile);
+        out.write("1\tabcd\n2\tefgh\n".getBytes("UTF-8"));
+        out.close();
+
+        try {
+            testStmt.setLocalInfileInputStream(new ByteArrayInputStream("3\tijkl\n".getBytes("UTF-8")));
+            testStmt.setLocalInfileChannel(new FileInputStream(testFile).getChannel());
+            assertEquals(2, testStmt.executeUpdate(loadData));
+        } finally {
+            testStmt.setLocalInfileInputStream(null);
+            testStmt.setLocalInfileChannel(null);
+        }
+
+        this.rs = testStmt.executeQuery("SELECT field2 FROM localInfileChannel ORDER BY field1");
+        assertTrue(this.rs.next());
+        assertEquals("abcd", this.rs.getString(1));
+        assertTrue(this.rs.next());
+        assertEquals("efgh", this.rs.getString(1));
+        assertFalse(this.rs.next());
+
+        testConn.close();
+
+        // the data is read on named daemon threads of the driver, kept for the next loads
+        int readerThreads = 0;
+        for (Thread t : Thread.getAllStackTraces().keySet()) {
+            if ("MySQL LOAD DATA LOCAL INFILE Reader".equals(t.getName())) {
+                assertTrue(t.isDaemon());
+                readerThreads++;
+            }
+        }
+        assertTrue(readerThreads > 0);
+    }
+
+    /**
+     * Tests that a LOAD DATA LOCAL INFILE whose source fails after part of the data was sent is aborted, not committed with the rows sent so far, also when the
+     * failure isn't an IOException.
+     */
+    public void testLocalInfileChannelFailure() throws Exception {
+        createTable("localInfileChannelFailure", "(id INT, s VARCHAR(100)) ENGINE=InnoDB");
+        Connection testConn = getConnectionWithProps("");
+        com.mysql.jdbc.Statement testStmt = (com.mysql.jdbc.Statement) testConn.createStatement();
+
+        Iterator<Object[]> failingRows = new Iterator<Object[]>() {
+            private int rowCount = 0;
+
+            public boolean hasNext() {
+                return true;
+            }
+
+            public Object[] next() {
+                if (++this.rowCount > 200000) {
+                    throw new IllegalStateException("Row source failure");
+                }
+                return new Object[] { this.rowCount, "row " + this.rowCount + " of the failing source" };
+            }
+
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+
+        try {
+            testStmt.setLocalInfileChannel(new LocalInfileRowChannel(failingRows, "UTF-8", '\t'));
+            testStmt.executeUpdate("LOAD DATA LOCAL INFILE 'bogusFileName' INTO TABLE localInfileChannelFailure");
+            fail("The load should have failed");
+        } catch (SQLException sqlEx) {
+            assertEquals(SQLError.SQL_STATE_COMMUNICATION_LINK_FAILURE, sqlEx.getSQLState());
+            Throwable cause = sqlEx.getCause();
+            while (cause != null && !(cause instanceof IllegalStateException)) {
+                cause = cause.getCause();
+            }
+            assertNotNull(cause);
+            assertEquals("Row source failure", cause.getMessage());
+        } finally {
+            testStmt.setLocalInfileChannel(null);
+        }
+
+        assertTrue(testConn.isClosed());
+
+        this.rs = this.stmt.executeQuery("SELECT COUNT(*) FROM localInfileChannelFailure");
+        assertTrue(this.rs.next());
+        assertEquals(0, this.rs.getInt(1));
+    }
+
+    /**
+     * Tests pipelined execution of server-side prepared statement batches: update counts, failures in the middle of a window and generated keys must be
+     * reported as by the serial execution.
+     * 
+     * @throws Exception
+     */
+    public void testPipelinedServerPreparedBatch() throws Exception {
+        createTable("testPipelinedSPSBatch", "(id INT NOT NULL AUTO_INCREMENT PRIMARY KEY, val INT NOT NULL UNIQUE)");
+
+        Properties props = new Properties();
+        props.setProperty("useServerPrepStmts", "true");
+        props.setProperty("continueBatchOnError", "true");
+        props.setProperty("pipelineServerPreparedBatches", "true");
+        props.setProperty("serverPreparedBatchPipelineWindow", "7");
+
+        Connection testConn = getConnectionWithProps(props);
+
+        try {
+            PreparedStatement testPstmt = testConn.prepareStatement("INSERT INTO testPipelinedSPSBatch (val) VALUES (?)", Statement.RETURN_GENERATED_KEYS);
+
+            for (int i = 0; i < 50; i++) {
+                testPstmt.setInt(1, i);
+                testPstmt.addBatch();
+            }
+
+            int[] counts = testPstmt.executeBatch();
+            assertEquals(50, counts.length);
+            for (int i = 0; i < counts.length; i++) {
+                assertEquals(1, counts[i]);
+            }
+
+            this.rs = testPstmt.getGeneratedKeys();
+            for (int i = 1; i <= 50; i++) {
+                assertTrue(this.rs.next());
+                assertEquals(i, this.rs.getInt(1));
+            }
+            assertFalse(this.rs.next());
+
+            // duplicates in the middle of a window, statements sent after them must still be executed
+            for (int i = 50; i < 70; i++) {
+                testPstmt.setInt(1, i % 10 == 3 ? 3 : i);
+                testPstmt.addBatch();
+            }
+            // a different parameter type in the middle of the batch
+            testPstmt.setString(1, "70");
+            testPstmt.addBatch();
+
+            try {
+                testPstmt.executeBatch();
+                fail("BatchUpdateException expected");
+            } catch (BatchUpdateException bUpE) {
+                counts = bUpE.getUpdateCounts();
+                assertEquals(21, counts.length);
+                for (int i = 0; i < counts.length; i++) {
+                    assertEquals(i % 10 == 3 ? Statement.EXECUTE_FAILED : 1, counts[i]);
+                }
+            }
+
+            assertEquals(50 + 19, getRowCount("testPipelinedSPSBatch"));
+            this.rs = this.stmt.executeQuery("SELECT MAX(val) FROM testPipelinedSPSBatch");
+            assertTrue(this.rs.next());
+            assertEquals(70, this.rs.getInt(1));
+
+            testPstmt.close();
+        } finally {
+            testConn.close();
+        }
+    }
+
+    /**
+     * Tests that pipelined server-side prepared statement batches report truncations as the serial execution does when the driver checks for them itself.
+     * 
+     * @throws Exception
+     */
+    public void testPipelinedServerPreparedBatchTruncation() throws Exception {
+        createTable("testPipelinedSPSBatchTrunc", "(val TINYINT NOT NULL)");
+
+        for (String pipeline : new String[] { "false", "true" }) {
+            Properties props = new Properties();
+            props.setProperty("useServerPrepStmts", "true");
+            props.setProperty("continueBatchOnError", "true");
+            props.setProperty("pipelineServerPreparedBatches", pipeline);
+            props.setProperty("serverPreparedBatchPipelineWindow", "7");
+
+            Connection testConn = getConnectionWithProps(props);
+
+            try {
+                // the driver leaves truncation checks to the server in strict mode, take them back
+                Statement testStmt = testConn.createStatement();
+                testStmt.execute("SET SESSION sql_mode = ''");
+                ((com.mysql.jdbc.Connection) testConn).setJdbcCompliantTruncation(true);
+
+                PreparedStatement testPstmt = testConn.prepareStatement("INSERT INTO testPipelinedSPSBatchTrunc VALUES (?)");
+
+                for (int i = 0; i < 20; i++) {
+                    testPstmt.setInt(1, i % 6 == 4 ? 1000 : i);
+                    testPstmt.addBatch();
+                }
+
+                this.rs = testStmt.executeQuery("SHOW SESSION STATUS LIKE 'Com_show_warnings'");
+                assertTrue(this.rs.next());
+                int showWarnings = this.rs.getInt(2);
+
+                try {
+                    testPstmt.executeBatch();
+                    fail("BatchUpdateException expected");
+                } catch (BatchUpdateException bUpE) {
+                    assertTrue(pipeline, bUpE.getCause() instanceof DataTruncation);
+
+                    int[] counts = bUpE.getUpdateCounts();
+                    assertEquals(pipeline, 20, counts.length);
+                    for (int i = 0; i < counts.length; i++) {
+                        assertEquals(pipeline + i, i % 6 == 4 ? Statement.EXECUTE_FAILED : 1, counts[i]);
+                    }
+                }
+
+                // the serial execution only asks for the warnings of the statements reporting some
+                this.rs = testStmt.executeQuery("SHOW SESSION STATUS LIKE 'Com_show_warnings'");
+                assertTrue(this.rs.next());
+                assertEquals(pipeline, "true".equals(pipeline) ? 20 : 3, this.rs.getInt(2) - showWarnings);
+
+                testPstmt.close();
+            } finally {
+                testConn.close();
+            }
+
+            assertEquals(20, getRowCount("testPipelinedSPSBatchTrunc"));
+            this.stmt.execute("TRUNCATE TABLE testPipelinedSPSBatchTrunc");
+        }
+    }
+
+    /**
+     * Tests the power of two split and reuse of multi-row INSERT statements by "cacheServerPreparedBatchedInserts".
+     * 
+     * @throws Exception
+     */
+    public void testCachedServerPreparedBatchedInserts() throws Exception {
+        createTable("testCachedSPSBatchedInserts", "(id INT NOT NULL AUTO_INCREMENT PRIMARY KEY, val INT NOT NULL, txt VARCHAR(20))");
+
+        Properties props = new Properties();
+        props.setProperty("useServerPrepStmts", "true");
+        props.setProperty("rewriteBatchedStatements", "true");
+        props.setProperty("cacheServerPreparedBatchedInserts", "true");
+
+        Connection testConn = getConnectionWithProps(props);
+
+        try {
+            Statement testStmt = testConn.createStatement();
+            PreparedStatement testPstmt = testConn.prepareStatement("INSERT INTO testCachedSPSBatchedInserts (val, txt) VALUES (?, ?)",
+                    Statement.RETURN_GENERATED_KEYS);
+
+            int prepares = 0;
+            for (int b = 0; b < 3; b++) {
+                for (int i = 0; i < 1000; i++) {
+                    testPstmt.setInt(1, i);
+                    if (i % 100 == 0) {
+                        testPstmt.setNull(2, Types.VARCHAR);
+                    } else {
+                        testPstmt.setString(2, "row " + i);
+                    }
+                    testPstmt.addBatch();
+                }
+
+                int[] counts = testPstmt.executeBatch();
+                assertEquals(1000, counts.length);
+                for (int i = 0; i < counts.length; i++) {
+                    assertEquals(Statement.SUCCESS_NO_INFO, counts[i]);
+                }
+
+                this.rs = testPstmt.getGeneratedKeys();
+                for (int i = 1; i <= 1000; i++) {
+                    assertTrue(this.rs.next());
+                    assertEquals(b * 1000 + i, this.rs.getInt(1));
+                }
+                assertFalse(this.rs.next());
+
+                this.rs = testStmt.executeQuery("SHOW SESSION STATUS LIKE 'Com_stmt_prepare'");
+                assertTrue(this.rs.next());
+                if (b == 0) {
+                    prepares = this.rs.getInt(2);
+                } else {
+                    // 1000 = 512 + 256 + 128 + 64 + 32 + 8, all already prepared by the first batch
+                    assertEquals(prepares, this.rs.getInt(2));
+                }
+            }
+
+            this.rs = this.stmt.executeQuery("SELECT COUNT(*), SUM(val), COUNT(txt) FROM testCachedSPSBatchedInserts");
+            assertTrue(this.rs.next());
+            assertEquals(3000, this.rs.getInt(1));
+            assertEquals(3 * 499500, this.rs.getInt(2));
+            assertEquals(3 * 990, this.rs.getInt(3));
+
+            testPstmt.close();
+        } finally {
+            testConn.close();
+        }
+    }
+
+    /**
+     * Tests that values encoded in place by "encodeParametersInPlace" round-trip, including when replaced by longer or shorter ones and when batched.
+     * 
+     * @throws Exception
+     */
+    public void testEncodeParametersInPlace() throws Exception {
+        createTable("testEncodeParametersInPlace", "(id INT NOT NULL PRIMARY KEY, l BIGINT, s VARCHAR(100)) DEFAULT CHARSET=utf8mb4");
+
+        Properties props = new Properties();
+        props.setProperty("encodeParametersInPlace", "true");
+        props.setProperty("characterEncoding", "UTF-8");
+
+        Connection testConn = getConnectionWithProps(props);
+
+        long[] longs = new long[] { 0, -1, 7, 123456789012L, Long.MIN_VALUE, Long.MAX_VALUE };
+        String[] strings = new String[] { "", "a", "it's a \"test\" \\ \n\r\0\032", "h\u00e9llo w\u00f6rld \u20ac", "\ud83d\ude00 emoji", "plain text value" };
+
+        if (!"utf8mb4".equals(((MySQLConnection) testConn).getServerVariable("character_set_server"))) {
+            // characters outside of the BMP can only be sent with utf8mb4 as the server character set
+            strings[4] = "\u00e9moji";
+        }
+
+        try {
+            PreparedStatement testPstmt = testConn.prepareStatement("INSERT INTO testEncodeParametersInPlace VALUES (?, ?, ?)");
+
+            for (int i = 0; i < 30; i++) {
+                testPstmt.setInt(1, i);
+                testPstmt.setLong(2, longs[i % longs.length]);
+                testPstmt.setString(3, strings[i % strings.length]);
+
+                if (i < 20) {
+                    testPstmt.executeUpdate();
+                } else {
+                    testPstmt.addBatch();
+                }
+            }
+            testPstmt.executeBatch();
+            testPstmt.close();
+
+            this.rs = testConn.createStatement().executeQuery("SELECT id, l, s FROM testEncodeParametersInPlace ORDER BY id");
+            for (int i = 0; i < 30; i++) {
+                assertTrue(this.rs.next());
+                assertEquals(i, this.rs.getInt(1));
+                assertEquals(longs[i % longs.length], this.rs.getLong(2));
+                assertEquals(strings[i % strings.length], this.rs.getString(3));
+            }
+            assertFalse(this.rs.next());
+        } finally {
+            testConn.close();
+        }
+    }
 }
@@ -27,8 +27,12 @@ import java.io.Serializable;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
+import java.sql.Time;
+import java.sql.Timestamp;
 import java.util.Arrays;
+import java.util.Calendar;
 import java.util.List;
+import java.util.TimeZone;
 
 import com.mysql.jdbc.ConnectionImpl;
 import com.mysql.jdbc.ConnectionProperties;
@@ -38,6 +42,7 @@ import com.mysql.jdbc.PreparedStatement;
 import com.mysql.jdbc.ResultSetImpl;
 import com.mysql.jdbc.Statement;
 import com.mysql.jdbc.StatementImpl;
+import com.mysql.jdbc.TimeUtil;
 import com.mysql.jdbc.Util;
 import com.mysql.jdbc.Wrapper;
 
@@ -141,4 +146,41 @@ public class UtilsTest extends BaseTestCase {
         assertEquals(MultiHostConnectionProxy.class.getPackage().getName(), Util.getPackageName(MultiHostConnectionProxy.class));
         assertEquals(MySQLConnection.class.getPackage().getName(), Util.getPackageName(this.conn.getClass().getInterfaces()[0]));
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests TimeUtil.changeTimezone() against the offsets Calendars give, around daylight saving time transitions.
+     */
+    public void testChangeTimezone() throws Exception {
+        MySQLConnection testConn = (MySQLConnection) getConnectionWithProps("useTimezone=true,serverTimezone=UTC");
+        String[] zoneIds = { "UTC", "Europe/Berlin", "America/New_York", "Australia/Lord_Howe", "Asia/Kathmandu", "GMT+05:30" };
+
+        for (String fromId : zoneIds) {
+            TimeZone fromTz = TimeZone.getTimeZone(fromId);
+
+            for (String toId : zoneIds) {
+                TimeZone toTz = TimeZone.getTimeZone(toId);
+
+                // every 15 minutes over the DST transitions of 2017 in both hemispheres, and around 1900
+                for (long millis : new long[] { 1490396400000L, 1506816000000L, 1509235200000L, 1522540800000L, -2208988800000L }) {
+                    for (long t = millis - 86400000L; t < millis + 86400000L; t += 900000L) {
+                        Calendar fromCal = Calendar.getInstance(fromTz);
+                        fromCal.setTimeInMillis(t);
+                        Calendar toCal = Calendar.getInstance(toTz);
+                        toCal.setTimeInMillis(t);
+                        int offsetDiff = fromCal.get(Calendar.ZONE_OFFSET) + fromCal.get(Calendar.DST_OFFSET) - toCal.get(Calendar.ZONE_OFFSET)
+                                - toCal.get(Calendar.DST_OFFSET);
+
+                        Timestamp ts = new Timestamp(t);
+                        ts.setNanos(123456789);
+                        assertEquals(fromId + " -> " + toId + " at " + t, t + 123 + offsetDiff,
+                                TimeUtil.changeTimezone(testConn, null, null, ts, fromTz, toTz, true).getTime());
+                        assertEquals(fromId + " -> " + toId + " at " + t, t - offsetDiff,
+                                TimeUtil.changeTimezone(testConn, null, null, new Time(t), fromTz, toTz, false).getTime());
+                    }
+                }
+            }
+        }
+
+        testConn.close();
+    }
+}
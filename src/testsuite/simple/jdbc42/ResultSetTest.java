@@ -37,7 +37,9 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.OffsetDateTime;
 import java.time.OffsetTime;
+import java.time.ZoneId;
 import java.time.ZoneOffset;
+import java.util.Arrays;
 import java.util.concurrent.Callable;
 
 import com.mysql.jdbc.NotUpdatable;
@@ -334,6 +336,71 @@ public class ResultSetTest extends BaseTestCase {
         testConn.close();
     }
 
+    /**
+     * Test for ResultSet.getObject() with java.time types decoded straight from the row bytes, "useFastJavaTimeDecoding", in text and binary result sets.
+     */
+    public void testFastJavaTimeDecoding() throws Exception {
+        boolean withFractionalSeconds = versionMeetsMinimum(5, 6, 4);
+        String fsp = withFractionalSeconds ? "(6)" : "";
+        createTable("testFastJavaTimeDecoding", "(id INT PRIMARY KEY, d DATE, t TIME" + fsp + ", dt DATETIME" + fsp + ", ts TIMESTAMP" + fsp + " NULL)");
+        this.stmt.executeUpdate("INSERT INTO testFastJavaTimeDecoding VALUES (1, '2015-02-28', '23:59:59.5', '2016-02-29 01:02:03.000456', "
+                + "'2017-12-31 12:00:00'), (2, NULL, '25:00:00', NULL, NULL), (3, '1000-01-01', '-01:00:00', '9999-12-31 23:59:59', NULL)");
+
+        LocalDateTime dt1 = withFractionalSeconds ? LocalDateTime.of(2016, 2, 29, 1, 2, 3, 456000) : LocalDateTime.of(2016, 2, 29, 1, 2, 3);
+
+        for (String useServerPrepStmts : new String[] { "false", "true" }) {
+            Object[][] results = new Object[2][];
+            int i = 0;
+
+            for (String useFastJavaTimeDecoding : new String[] { "false", "true" }) {
+                Connection testConn = getConnectionWithProps(
+                        "useServerPrepStmts=" + useServerPrepStmts + ",useFastJavaTimeDecoding=" + useFastJavaTimeDecoding);
+                this.rs = testConn.prepareStatement("SELECT d, t, dt, ts FROM testFastJavaTimeDecoding ORDER BY id").executeQuery();
+
+                assertTrue(this.rs.next());
+                assertEquals(LocalDate.of(2015, 2, 28), this.rs.getObject(1, LocalDate.class));
+                // like java.sql.Time, without fractional seconds
+                assertEquals(LocalTime.of(23, 59, 59), this.rs.getObject(2, LocalTime.class));
+                assertEquals(dt1, this.rs.getObject(3, LocalDateTime.class));
+                assertEquals(dt1.atZone(ZoneId.systemDefault()).toOffsetDateTime(), this.rs.getObject(3, OffsetDateTime.class));
+                assertEquals(LocalDateTime.of(2017, 12, 31, 12, 0, 0), this.rs.getObject(4, LocalDateTime.class));
+                assertFalse(this.rs.wasNull());
+
+                assertTrue(this.rs.next());
+                assertNull(this.rs.getObject(1, LocalDate.class));
+                assertTrue(this.rs.wasNull());
+                // out of range for a LocalTime, both paths must fail the same way
+                Object outOfRangeTime = getLocalTimeOrError(2);
+                assertNull(this.rs.getObject(3, LocalDateTime.class));
+                assertNull(this.rs.getObject(4, OffsetDateTime.class));
+
+                assertTrue(this.rs.next());
+                assertEquals(LocalDate.of(1000, 1, 1), this.rs.getObject(1, LocalDate.class));
+                assertEquals(LocalDateTime.of(9999, 12, 31, 23, 59, 59), this.rs.getObject(3, LocalDateTime.class));
+
+                results[i++] = new Object[] { outOfRangeTime, getLocalTimeOrError(2), this.rs.getObject(3, LocalDate.class),
+                        this.rs.getObject(3, LocalTime.class) };
+
+                assertFalse(this.rs.next());
+                testConn.close();
+            }
+
+            // values the fast path can't decode, or requested as another type than the column's, are converted the same way as before
+            assertEquals(Arrays.asList(results[0]), Arrays.asList(results[1]));
+        }
+    }
+
+    /**
+     * Returns the column as a LocalTime, or the message of the SQLException thrown when it can't be converted.
+     */
+    private Object getLocalTimeOrError(int columnIndex) {
+        try {
+            return this.rs.getObject(columnIndex, LocalTime.class);
+        } catch (SQLException e) {
+            return e.getMessage();
+        }
+    }
+
     /**
      * Test for (Updatable)ResultSet.updateObject(), unsupported SQL types TIME_WITH_TIMEZONE, TIMESTAMP_WITH_TIMEZONE and REF_CURSOR.
      */